@@ -0,0 +1,108 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.data.ConsumingMonitoringDataCollector;
+
+/**
+ * Measures the {@link ConsumingMonitoringDataCollector} for a source collecting the given number of series as a set of
+ * groups each having the same metrics similar to how a source collects metrics for each deployed application.
+ *
+ * @author Jan Bernitt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CollectorBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int seriesCount;
+
+    private String[] groups;
+    private String[] metrics;
+
+    @Setup
+    public void setup() {
+        groups = BenchmarkSeries.groups(seriesCount);
+        metrics = BenchmarkSeries.metrics(seriesCount);
+    }
+
+    @Benchmark
+    public void collectFlat(Blackhole bh) {
+        MonitoringDataCollector collector = new ConsumingMonitoringDataCollector(
+                (series, value) -> bh.consume(series), (series, value, keyed, attrs) -> bh.consume(series));
+        MonitoringDataCollector ns = collector.in(BenchmarkSeries.NAMESPACE);
+        for (int i = 0; i < seriesCount; i++) {
+            ns.collect(metrics[i % metrics.length], i);
+        }
+    }
+
+    @Benchmark
+    public void collectTagChains(Blackhole bh) {
+        MonitoringDataCollector collector = new ConsumingMonitoringDataCollector(
+                (series, value) -> bh.consume(series), (series, value, keyed, attrs) -> bh.consume(series));
+        MonitoringDataCollector ns = collector.in(BenchmarkSeries.NAMESPACE);
+        for (String group : groups) {
+            MonitoringDataCollector app = ns.group(group);
+            for (int i = 0; i < metrics.length; i++) {
+                app.tag("sub", metrics[i % 3]).collect(metrics[i], i);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fish.payara.monitoring.model.ConstantDataset;
+import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.PartialDataset;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.StableDataset;
+
+/**
+ * Measures {@link SeriesDataset#add(long, long)} for the given number of series all advancing by one point.
+ *
+ * The kind determines which {@link SeriesDataset} implementations are involved:
+ * <ul>
+ * <li>{@code empty}: adding the first point to an {@link EmptyDataset}</li>
+ * <li>{@code constant}: adding the same value to {@link ConstantDataset}s and {@link StableDataset}s</li>
+ * <li>{@code varying}: adding changing values to {@link PartialDataset}s</li>
+ * </ul>
+ *
+ * @author Jan Bernitt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DatasetAddBenchmark {
+
+    private static final int CAPACITY = 60;
+
+    @Param({ "1000", "10000", "100000" })
+    public int seriesCount;
+
+    @Param({ "empty", "constant", "varying" })
+    public String kind;
+
+    private SeriesDataset[] empty;
+    private SeriesDataset[] datasets;
+    private long time;
+
+    @Setup
+    public void setup() {
+        String[] series = BenchmarkSeries.series(seriesCount);
+        empty = new SeriesDataset[series.length];
+        datasets = new SeriesDataset[series.length];
+        for (int i = 0; i < series.length; i++) {
+            empty[i] = new EmptyDataset("server", new Series(series[i]), CAPACITY);
+            datasets[i] = empty[i];
+        }
+        time = 1000L;
+        for (int i = 0; i < CAPACITY; i++) {
+            add();
+        }
+    }
+
+    @Benchmark
+    public SeriesDataset[] add() {
+        time += 1000L;
+        switch (kind) {
+        case "empty":
+            for (int i = 0; i < empty.length; i++) {
+                datasets[i] = empty[i].add(time, i);
+            }
+            break;
+        case "constant":
+            for (int i = 0; i < datasets.length; i++) {
+                datasets[i] = datasets[i].add(time, i);
+            }
+            break;
+        default:
+            for (int i = 0; i < datasets.length; i++) {
+                datasets[i] = datasets[i].add(time, time + i);
+            }
+        }
+        return datasets;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.benchmark;
+
+import static java.util.Collections.emptyList;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import fish.payara.monitoring.adapt.GroupDataRepository;
+import fish.payara.monitoring.adapt.MonitoringConsolePageConfig;
+import fish.payara.monitoring.adapt.MonitoringConsoleRuntime;
+import fish.payara.monitoring.adapt.MonitoringConsoleWatchConfig;
+import fish.payara.monitoring.internal.data.InMemorySeriesRepository;
+import fish.payara.monitoring.internal.data.InMemorySeriesRepository.SeriesDatasetsSnapshot;
+import fish.payara.monitoring.internal.data.SeriesDatasetsCodec;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * Simulates a remote instance sending its data to a DAS {@link InMemorySeriesRepository} using the same encoding as
+ * a real instance would use.
+ *
+ * @author Jan Bernitt
+ */
+final class RemoteInstanceFixture {
+
+    /**
+     * A runtime that does not run anything as the benchmarks call the repository directly
+     */
+    private static final MonitoringConsoleRuntime RUNTIME = new MonitoringConsoleRuntime() {
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            return null;
+        }
+
+        @Override
+        public boolean send(byte[] snapshot) {
+            return false;
+        }
+
+        @Override
+        public boolean receive(Consumer<byte[]> receiver) {
+            return false;
+        }
+
+        @Override
+        public MonitoringConsoleWatchConfig getWatchConfig() {
+            return null;
+        }
+
+        @Override
+        public MonitoringConsolePageConfig getPageConfig() {
+            return null;
+        }
+
+        @Override
+        public GroupDataRepository getGroupData() {
+            return null;
+        }
+    };
+
+    final InMemorySeriesRepository das = new InMemorySeriesRepository("das", true, RUNTIME, () -> emptyList());
+    private final SeriesDictionary senderDictionary = new SeriesDictionary();
+    private final SeriesDatasetsCodec.Encoder encoder = new SeriesDatasetsCodec.Encoder(senderDictionary);
+    private final String[] series;
+    private final int changedPercent;
+    private long time = 1000L;
+
+    RemoteInstanceFixture(int seriesCount, int changedPercent) {
+        this.series = BenchmarkSeries.series(seriesCount);
+        this.changedPercent = changedPercent;
+    }
+
+    /**
+     * @return the next message the remote instance would send, the given percentage of the values change each tick
+     */
+    byte[] nextMessage() {
+        time += 1000L;
+        SeriesDatasetsSnapshot snapshot = new SeriesDatasetsSnapshot("server", time, series.length, senderDictionary);
+        long tick = time / 1000L;
+        for (int i = 0; i < series.length; i++) {
+            boolean changes = i % 100 < changedPercent;
+            snapshot.accept(series[i], changes ? tick + i : i);
+        }
+        return encoder.encode(snapshot);
+    }
+
+    void sendTicks(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            das.addRemoteDatasets(nextMessage());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.benchmark;
+
+import static java.util.Collections.emptyList;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fish.payara.monitoring.alert.AlertService.AlertStatistics;
+import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiResponses.SeriesData;
+import fish.payara.monitoring.web.MonitoringConsoleResource;
+import fish.payara.monitoring.web.SeriesResponseWriter;
+
+/**
+ * Measures the mapping of the {@link SeriesDataset}s matched by a query to the JSON response of
+ * {@link MonitoringConsoleResource#getSeriesData(fish.payara.monitoring.web.ApiRequests.SeriesRequest, String)}.
+ *
+ * The JSON is written to a {@link Writer} or {@link OutputStream} that discards it so that the result size does not
+ * dominate memory usage. {@link #mapSeriesData()} measures the mapping of {@link SeriesData} objects by JSON-B as it was
+ * done before, {@link #writeSeriesResponse()} the {@link SeriesResponseWriter} that writes the same JSON directly from
+ * the datasets.
+ *
+ * @author Jan Bernitt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SeriesResponseMappingBenchmark {
+
+    /**
+     * A {@link Writer} that only counts the characters written.
+     */
+    static final class CountingWriter extends Writer {
+
+        long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    /**
+     * An {@link OutputStream} that only counts the bytes written.
+     */
+    static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Param({ "1000", "10000", "100000" })
+    public int seriesCount;
+
+    private Jsonb jsonb;
+    private SeriesQuery query;
+    private List<SeriesDataset> datasets;
+    private AlertStatistics alertStatistics;
+
+    @Setup
+    public void setup() {
+        jsonb = JsonbBuilder.create();
+        query = new SeriesQuery();
+        query.series = "ns:bench @:* *";
+        query.widgetId = "bench";
+        String[] series = BenchmarkSeries.series(seriesCount);
+        datasets = new ArrayList<>(series.length);
+        for (int i = 0; i < series.length; i++) {
+            SeriesDataset set = new EmptyDataset("server", new Series(series[i]), 60);
+            for (int t = 1; t <= 60; t++) {
+                set = set.add(t * 1000L, i + t * 7L);
+            }
+            datasets.add(set);
+        }
+        alertStatistics = new AlertStatistics();
+        alertStatistics.ongoingAmberAlerts = new int[0];
+        alertStatistics.ongoingRedAlerts = new int[0];
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public long mapSeriesData() {
+        List<SeriesData> data = new ArrayList<>(datasets.size());
+        for (SeriesDataset set : datasets) {
+            data.add(new SeriesData(set));
+        }
+        CountingWriter out = new CountingWriter();
+        jsonb.toJson(data, out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeSeriesResponse() {
+        CountingOutputStream out = new CountingOutputStream();
+        new SeriesResponseWriter(alertStatistics)
+            .add(query, datasets, emptyList(), emptyList(), emptyList())
+            .write(out);
+        return out.count;
+    }
+}
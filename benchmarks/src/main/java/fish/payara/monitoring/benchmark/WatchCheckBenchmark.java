@@ -0,0 +1,110 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fish.payara.monitoring.alert.Alert;
+import fish.payara.monitoring.alert.Watch;
+import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.Metric;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.SeriesLookup;
+
+/**
+ * Measures {@link Watch#check(SeriesLookup)} for a {@link Watch} on a pattern matching the given number of series.
+ *
+ * Every 10th series is above the red threshold, every other 10th is above the amber threshold so that the
+ * {@link Watch} keeps states for a realistic share of the series.
+ *
+ * @author Jan Bernitt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WatchCheckBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int seriesCount;
+
+    private Watch watch;
+    private SeriesLookup lookup;
+
+    @Setup
+    public void setup() {
+        String[] series = BenchmarkSeries.series(seriesCount);
+        List<SeriesDataset> datasets = new ArrayList<>(series.length);
+        for (int i = 0; i < series.length; i++) {
+            long value = i % 10 == 0 ? 100L : i % 10 == 5 ? 60L : 10L;
+            SeriesDataset set = new EmptyDataset("server", new Series(series[i]), 60);
+            for (int t = 1; t <= 60; t++) {
+                set = set.add(t * 1000L, value + t % 3);
+            }
+            datasets.add(set);
+        }
+        lookup = (pattern, instances) -> datasets;
+        watch = new Watch("bench", new Metric(new Series("ns:bench @:* *")))
+                .red(90L, 3, false, 50L, 3, false)
+                .amber(50L, 3, false, 20L, 3, false);
+    }
+
+    @Benchmark
+    public List<Alert> check() {
+        return watch.check(lookup);
+    }
+}
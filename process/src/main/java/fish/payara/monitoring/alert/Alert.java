@@ -191,7 +191,8 @@ public final class Alert implements Iterable<Alert.Frame> {
 
     /**
      * This is not synchronized since there is only one thread updating alerts so there should not be concurrent
-     * changes.
+     * changes. Even when {@link Watch}es are evaluated in parallel their {@link Watch.Evaluation}s are applied one
+     * after another by the thread checking the watches.
      */
     private void compactFrames() {
         frames.get(0).end = frames.get(2).end;
@@ -48,6 +48,7 @@ import javax.json.JsonValue;
 import fish.payara.monitoring.alert.Alert.Level;
 import fish.payara.monitoring.model.SeriesLookup;
 import fish.payara.monitoring.model.Metric;
+import fish.payara.monitoring.model.PointWindow;
 import fish.payara.monitoring.model.SeriesDataset;
 
 /**
@@ -101,6 +102,14 @@ public final class Circumstance implements Serializable {
     }
 
     public boolean starts(SeriesDataset data, SeriesLookup lookup) {
+        return starts(data, lookup, null);
+    }
+
+    /**
+     * @param startWindow the window created by {@link Condition#newWindow()} of the {@link #start} condition for the
+     *        {@link fish.payara.monitoring.model.Series} of the dataset, or null
+     */
+    public boolean starts(SeriesDataset data, SeriesLookup lookup, PointWindow startWindow) {
         if (isUnspecified()) {
             return false;
         }
@@ -111,11 +120,27 @@ public final class Circumstance implements Serializable {
                 }
             }
         }
-        return start.isSatisfied(data);
+        return start.isSatisfied(data, startWindow);
     }
 
     public boolean stops(SeriesDataset data) {
-        return stop.isNone() ? !start.isSatisfied(data) : stop.isSatisfied(data);
+        return stops(data, null, null);
+    }
+
+    /**
+     * @param startWindow the window created by {@link Condition#newWindow()} of the {@link #start} condition for the
+     *        {@link fish.payara.monitoring.model.Series} of the dataset, or null
+     * @param stopWindow same as startWindow for the {@link #stop} condition
+     */
+    public boolean stops(SeriesDataset data, PointWindow startWindow, PointWindow stopWindow) {
+        return stop.isNone() ? !start.isSatisfied(data, startWindow) : stop.isSatisfied(data, stopWindow);
+    }
+
+    /**
+     * @see Condition#isSettled(SeriesDataset)
+     */
+    public boolean isSettled(SeriesDataset data) {
+        return start.isSettled(data) && stop.isSettled(data);
     }
 
     @Override
@@ -51,6 +51,9 @@ import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
 import javax.json.JsonValue;
 
+import fish.payara.monitoring.model.PointCursor;
+import fish.payara.monitoring.model.PointWindow;
+import fish.payara.monitoring.model.Series;
 import fish.payara.monitoring.model.SeriesDataset;
 
 /**
@@ -140,6 +143,19 @@ public final class Condition implements Serializable {
     }
 
     public boolean isSatisfied(SeriesDataset data) {
+        return isSatisfied(data, null);
+    }
+
+    /**
+     * Same as {@link #isSatisfied(SeriesDataset)} but uses the running aggregates of the given window instead of
+     * scanning the points of the dataset.
+     *
+     * @param data the dataset to check
+     * @param window the window created by {@link #newWindow()} for the {@link Series} of the dataset, or null to scan
+     *        the points of the dataset
+     * @return true, if the dataset satisfies this condition, else false
+     */
+    public boolean isSatisfied(SeriesDataset data, PointWindow window) {
         if (isNone()) {
             return true;
         }
@@ -148,87 +164,152 @@ public final class Condition implements Serializable {
         }
         long value = data.lastValue();
         if (isForLastMillis()) {
-            return isSatisfiedForLastMillis(data);
+            return isSatisfiedForLastMillis(data, window);
         }
         if (isForLastTimes()) {
-            return isSatisfiedForLastTimes(data);
+            return isSatisfiedForLastTimes(data, window);
         }
         return compare(value);
     }
 
-    private boolean isSatisfiedForLastMillis(SeriesDataset data) {
+    /**
+     * A condition is settled for a dataset when it had the same value for so long that the condition has the same
+     * result for any later dataset of the same {@link Series} as long as the value does not change.
+     *
+     * @param data the dataset to check
+     * @return true, if the result of this condition does not change while the value of the dataset does not change,
+     *         else false
+     */
+    public boolean isSettled(SeriesDataset data) {
+        if (isNone() || !isForLastPresent() || data.getObservedValues() == 0) {
+            return true;
+        }
+        if (forLast.longValue() == 0L) {
+            return data.getStableCount() >= data.size();
+        }
+        if (isForLastTimes()) {
+            int times = abs(forLast.intValue());
+            return data.getStableCount() >= times && (data.isStable() || data.size() >= times);
+        }
+        long startTime = data.lastTime() - abs(forLast.longValue());
+        return data.getStableSince() <= startTime && (data.isStable() || data.firstTime() <= startTime);
+    }
+
+    /**
+     * @return a new window to keep the points relevant to this condition for one {@link Series}, or null if this
+     *         condition only checks the last value
+     */
+    public PointWindow newWindow() {
+        if (isForLastTimes()) {
+            return new PointWindow(abs(forLast.intValue()), 0L);
+        }
+        if (isForLastMillis()) {
+            return new PointWindow(0, abs(forLast.longValue()));
+        }
+        return null;
+    }
+
+    private boolean isSatisfiedForLastMillis(SeriesDataset data, PointWindow window) {
         long forLastMillis = abs(forLast.longValue());
         if (forLastMillis == 0) {
-            return isSatisfiedForLastTimes(data.points(), 0);
+            return isSatisfiedForLastTimes(data, 0, window);
         }
         boolean all = forLast.longValue() > 0;
         if (data.isStable() && all) {
             return data.getStableSince() <= data.lastTime() - forLastMillis && compare(data.lastValue());
         }
         long startTime = data.lastTime() - forLastMillis;
-        long[] points = data.points();
-        if (points[0] > startTime && forLastMillis < 30000L && all) {
+        if (data.firstTime() > startTime && forLastMillis < 30000L && all) {
             return false; // not enough data
         }
-        int index = points.length - 2; // last time index
-        while (index >= 0 && points[index] > startTime) {
-            index -= 2;
+        if (window != null) {
+            window.update(data);
+            return isSatisfied(window, all);
         }
-        int forLastTimes = index <= 0 ? points.length / 2 : (points.length - index) / 2;
-        return isSatisfiedForLastTimes(points, (all ? 1 : -1) * forLastTimes);
+        int index = data.lastIndexNotAfter(startTime);
+        int forLastTimes = index <= 0 ? data.size() : data.size() - index;
+        return isSatisfiedForLastTimes(data, (all ? 1 : -1) * forLastTimes, null);
     }
 
-    private boolean isSatisfiedForLastTimes(SeriesDataset data) {
+    private boolean isSatisfiedForLastTimes(SeriesDataset data, PointWindow window) {
         int forLastTimes = forLast.intValue();
         if (data.isStable() && forLastTimes > 0) {
             return data.getStableCount() >= abs(forLastTimes) && compare(data.lastValue());
         }
-        return isSatisfiedForLastTimes(data.points(), forLastTimes);
+        return isSatisfiedForLastTimes(data, forLastTimes, window);
     }
 
-    private boolean isSatisfiedForLastTimes(long[] points, int forLastTimes) {
-        int maxPoints = points.length / 2;
+    private boolean isSatisfiedForLastTimes(SeriesDataset data, int forLastTimes, PointWindow window) {
+        int maxPoints = data.size();
         int n = forLastTimes == 0 ? maxPoints : min(maxPoints, abs(forLastTimes));
         if (forLastTimes > 0 && n < forLastTimes && n < 30) {
             return false; // not enough data yet
         }
+        if (window != null) {
+            window.update(data);
+            return isSatisfied(window, forLastTimes > 0);
+        }
+        PointCursor lastN = data.cursor(maxPoints - n);
         if (onAverage) {
-            return avgSatisfiedInLastN(points, n);
+            return avgSatisfied(lastN, n);
         }
         if (forLastTimes <= 0) {
-            return anySatisfiedInLastN(points, n);
+            return anySatisfied(lastN);
+        }
+        return allSatisfied(lastN);
+    }
+
+    private boolean isSatisfied(PointWindow window, boolean all) {
+        if (onAverage) {
+            return compare(window.sum() / window.size());
+        }
+        return all ? allSatisfied(window) : anySatisfied(window);
+    }
+
+    private boolean allSatisfied(PointWindow window) {
+        switch (comparison) {
+        default:
+        case EQ: return window.min() == threshold && window.max() == threshold;
+        case LE: return window.max() <= threshold;
+        case LT: return window.max() < threshold;
+        case GE: return window.min() >= threshold;
+        case GT: return window.min() > threshold;
+        }
+    }
+
+    private boolean anySatisfied(PointWindow window) {
+        switch (comparison) {
+        default:
+        case EQ: return window.min() <= threshold && window.max() >= threshold && anySatisfied(window.cursor());
+        case LE: return window.min() <= threshold;
+        case LT: return window.min() < threshold;
+        case GE: return window.max() >= threshold;
+        case GT: return window.max() > threshold;
         }
-        return allSatisfiedInLastN(points, n);
     }
 
-    private boolean avgSatisfiedInLastN(long[] points, int n) {
-        int index = points.length - 1; // last value index
+    private boolean avgSatisfied(PointCursor points, int n) {
         long sum = 0;
-        for (int i = 0; i < n; i++) {
-            sum += points[index];
-            index -= 2;
+        while (points.next()) {
+            sum += points.value();
         }
         return compare(sum / n);
     }
 
-    private boolean anySatisfiedInLastN(long[] points, int n) {
-        int index = points.length - 1; // last value index
-        for (int i = 0; i < n; i++) {
-            if (compare(points[index])) {
+    private boolean anySatisfied(PointCursor points) {
+        while (points.next()) {
+            if (compare(points.value())) {
                 return true;
             }
-            index -= 2;
         }
         return false;
     }
 
-    private boolean allSatisfiedInLastN(long[] points, int n) {
-        int index = points.length - 1; // last value index
-        for (int i = 0; i < n; i++) {
-            if (!compare(points[index])) {
+    private boolean allSatisfied(PointCursor points) {
+        while (points.next()) {
+            if (!compare(points.value())) {
                 return false;
             }
-            index -= 2;
         }
         return true;
     }
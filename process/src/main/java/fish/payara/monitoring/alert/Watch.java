@@ -46,12 +46,14 @@ import java.io.Serializable;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.json.Json;
 import javax.json.JsonArray;
@@ -66,6 +68,7 @@ import fish.payara.monitoring.collect.MonitoringWatchCollector.WatchBuilder;
 import fish.payara.monitoring.collect.MonitoringWatchSource;
 import fish.payara.monitoring.model.SeriesLookup;
 import fish.payara.monitoring.model.Metric;
+import fish.payara.monitoring.model.PointWindow;
 import fish.payara.monitoring.model.Series;
 import fish.payara.monitoring.model.SeriesDataset;
 
@@ -86,6 +89,12 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
     private static final String AMBER_PROPERTY = "amber";
     private static final String RED_PROPERTY = "red";
 
+    /**
+     * Number of checks after which all matching {@link Series} are checked again and {@link State}s of datasets that
+     * no longer exist are removed
+     */
+    private static final int CHECKS_PER_SWEEP = 60;
+
     /**
      * A {@link Watch} is a state machine where the state of each {@link SeriesDataset} matching the
      * {@link Watch#watched} {@link Metric} is tracked individually with {@link Level} and potentially the ongoing
@@ -97,11 +106,34 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
         volatile Level level = Level.WHITE;
         volatile Alert ongoing;
         volatile Long levelSince;
+        /**
+         * True when the conditions of the {@link Watch} had the same result for the last evaluated dataset as for any
+         * later dataset as long as its value does not change
+         */
+        volatile boolean settled;
+        /**
+         * The last sweep of the {@link Watch} that evaluated a dataset for this {@link State}
+         */
+        int sweep;
+        /**
+         * Windows of the start and stop {@link Condition}s of each {@link Circumstance} by {@link Level}
+         */
+        private final PointWindow[] windows = new PointWindow[2 * Level.values().length];
 
         State(SeriesDataset watched) {
             this.watchingSince = watched;
         }
 
+        PointWindow window(Circumstance circumstance, boolean stop) {
+            int index = 2 * circumstance.level.ordinal() + (stop ? 1 : 0);
+            PointWindow window = windows[index];
+            if (window == null) {
+                window = (stop ? circumstance.stop : circumstance.start).newWindow();
+                windows[index] = window;
+            }
+            return window;
+        }
+
         @Override
         public String toString() {
             StringBuilder str = new StringBuilder();
@@ -135,9 +167,19 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
     public final Circumstance amber;
     public final Circumstance green;
     private final Metric[] captured;
-    private final transient Map<String, State> statesByInstanceSeries;
+    private final transient Map<Series, Map<String, State>> statesBySeriesAndInstance;
     private final transient AtomicBoolean stopped = new AtomicBoolean(false);
     private final transient AtomicBoolean disabled;
+    /**
+     * When true the next {@link #check(SeriesLookup, Collection)} checks all matching series
+     */
+    private transient volatile boolean checkAll = true;
+    /**
+     * Number of sweeps done so far, shared with the copies of this {@link Watch} as they share the {@link State}s
+     * marked with it
+     */
+    private final transient AtomicInteger sweeps;
+    private transient int checksSinceSweep;
     private final boolean programmatic;
 
     public Watch(String name, Metric watched) {
@@ -147,12 +189,12 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
     public Watch(String name, Metric watched, boolean programmatic, Circumstance red, Circumstance amber,
             Circumstance green, Metric... captured) {
         this(name, watched, programmatic, red, amber, green, captured, new AtomicBoolean(false),
-                new ConcurrentHashMap<>());
+                new ConcurrentHashMap<>(), new AtomicInteger());
     }
 
     private Watch(String name, Metric watched, boolean programmatic, Circumstance red, Circumstance amber,
             Circumstance green, Metric[] captured, AtomicBoolean disabled,
-            Map<String, State> statesByInstanceSeries) {
+            Map<Series, Map<String, State>> statesBySeriesAndInstance, AtomicInteger sweeps) {
         this.name = name;
         this.watched = watched;
         this.programmatic = programmatic;
@@ -161,16 +203,33 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
         this.green = green;
         this.captured = captured;
         this.disabled = disabled;
-        this.statesByInstanceSeries = statesByInstanceSeries;
+        this.statesBySeriesAndInstance = statesBySeriesAndInstance;
+        this.sweeps = sweeps;
     }
 
     @Override
     public Iterator<State> iterator() {
-        return statesByInstanceSeries.values().iterator();
+        return statesBySeriesAndInstance.values().stream().flatMap(states -> states.values().stream()).iterator();
     }
 
     public State state(SeriesDataset data) {
-        return statesByInstanceSeries.computeIfAbsent(key(data), key -> new State(data));
+        Map<String, State> statesByInstance = statesBySeriesAndInstance.get(data.getSeries());
+        if (statesByInstance == null) {
+            statesByInstance = statesBySeriesAndInstance.computeIfAbsent(data.getSeries(),
+                    key -> new ConcurrentHashMap<>());
+        }
+        State state = statesByInstance.get(data.getInstance());
+        return state != null ? state : statesByInstance.computeIfAbsent(data.getInstance(), key -> new State(data));
+    }
+
+    private void removeState(State state) {
+        Map<String, State> statesByInstance = statesBySeriesAndInstance.get(state.getSeries());
+        if (statesByInstance != null) {
+            statesByInstance.remove(state.getInstance(), state);
+            if (statesByInstance.isEmpty()) {
+                statesBySeriesAndInstance.remove(state.getSeries(), statesByInstance);
+            }
+        }
     }
 
     public void stop() {
@@ -180,15 +239,19 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
     }
 
     private void stopAlertsOfThisWatch() {
-        for (State s : statesByInstanceSeries.values()) {
-            if (s.ongoing != null) {
-                long now = System.currentTimeMillis();
-                s.ongoing.stop(WHITE, (now / 1000L) * 1000L);
-                s.ongoing = null;
-                if (s.level != WHITE)
-                    s.levelSince = now;
-                s.level = WHITE;
-            }
+        for (State s : this) {
+            stopAlert(s);
+        }
+    }
+
+    private static void stopAlert(State s) {
+        if (s.ongoing != null) {
+            long now = System.currentTimeMillis();
+            s.ongoing.stop(WHITE, (now / 1000L) * 1000L);
+            s.ongoing = null;
+            if (s.level != WHITE)
+                s.levelSince = now;
+            s.level = WHITE;
         }
     }
 
@@ -207,7 +270,9 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
     }
 
     public void enable() {
-        disabled.set(false);
+        if (disabled.compareAndSet(true, false)) {
+            checkAll = true;
+        }
     }
 
     public boolean isProgrammatic() {
@@ -221,29 +286,149 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
      * @return A new {@link Watch} instance that {@link #isProgrammatic()}.
      */
     public Watch programmatic() {
-        return new Watch(name, watched, true, red, amber, green, captured, disabled, statesByInstanceSeries);
+        return new Watch(name, watched, true, red, amber, green, captured, disabled,
+                statesBySeriesAndInstance, sweeps);
     }
 
     public List<Alert> check(SeriesLookup lookup) {
+        return check(lookup, null);
+    }
+
+    /**
+     * Like {@link #check(SeriesLookup)} but only checks the datasets of {@link Series} that changed and those of
+     * {@link State}s that are not yet settled. Datasets of all other {@link Series} had the same value since they were
+     * last checked and their {@link State} would not change.
+     *
+     * @param lookup to select the datasets from
+     * @param changed the {@link Series} matching the {@link #watched} {@link Metric} that changed since the last check,
+     *        or null if the changes are not known
+     * @return the newly raised {@link Alert}s
+     */
+    public List<Alert> check(SeriesLookup lookup, Collection<Series> changed) {
+        return evaluate(lookup, changed).apply();
+    }
+
+    /**
+     * Evaluates the {@link Circumstance}s for the datasets like {@link #check(SeriesLookup, Collection)} does but does
+     * not yet change the {@link Level} of the {@link State}s or any {@link Alert}. This is done when the returned
+     * {@link Evaluation} is {@link Evaluation#apply()}ed.
+     *
+     * Different {@link Watch}es can be evaluated in parallel as long as their evaluations are applied one after
+     * another. Applying them in the same order gives the same {@link Alert}s as checking them one after another.
+     *
+     * @param lookup to select the datasets from
+     * @param changed the {@link Series} matching the {@link #watched} {@link Metric} that changed since the last check,
+     *        or null if the changes are not known
+     * @return the result of the evaluation to apply
+     */
+    public Evaluation evaluate(SeriesLookup lookup, Collection<Series> changed) {
+        Evaluation evaluation = new Evaluation(lookup);
         if (isStopped() || isDisabled()) {
-            return emptyList();
+            return evaluation;
         }
-        List<Alert> raised = new ArrayList<>();
-        for (SeriesDataset data : lookup.selectSeries(watched.series)) {
-            Alert alert = check(lookup, data);
-            if (alert != null) {
-                raised.add(alert);
+        if (changed == null || checkAll || ++checksSinceSweep >= CHECKS_PER_SWEEP) {
+            sweep(lookup, evaluation);
+            return evaluation;
+        }
+        for (Series series : changed) {
+            for (SeriesDataset data : lookup.selectSeries(series)) {
+                evaluate(data, evaluation);
             }
         }
-        return raised;
+        for (State state : this) {
+            if (!state.settled && !changed.contains(state.getSeries())) {
+                for (SeriesDataset data : lookup.selectSeries(state.getSeries(), state.getInstance())) {
+                    evaluate(data, evaluation);
+                }
+            }
+        }
+        return evaluation;
     }
 
-    private static String key(SeriesDataset data) {
-        return data.getSeries().toString() + '#' + data.getInstance();
+    /**
+     * Evaluates all datasets matching the {@link #watched} {@link Metric}. {@link State}s of datasets that no longer
+     * match are removed when the {@link Evaluation} is applied.
+     */
+    private void sweep(SeriesLookup lookup, Evaluation evaluation) {
+        checkAll = false;
+        checksSinceSweep = 0;
+        int sweep = sweeps.incrementAndGet();
+        for (SeriesDataset data : lookup.selectSeries(watched.series)) {
+            evaluate(data, evaluation).sweep = sweep;
+        }
+        for (State state : this) {
+            if (state.sweep != sweep) {
+                evaluation.evict(state);
+            }
+        }
     }
 
-    private Alert check(SeriesLookup lookup, SeriesDataset data) {
+    private State evaluate(SeriesDataset data, Evaluation evaluation) {
         State state = state(data);
+        Level to = checkLevel(evaluation.lookup, data, state);
+        state.settled = red.isSettled(data) && amber.isSettled(data) && green.isSettled(data);
+        if (to != null) {
+            evaluation.add(state, data, to);
+        }
+        return state;
+    }
+
+    /**
+     * The {@link Level} transitions found by {@link Watch#evaluate(SeriesLookup, Collection)}.
+     */
+    public final class Evaluation {
+
+        final SeriesLookup lookup;
+        private final List<State> states = new ArrayList<>();
+        private final List<SeriesDataset> causes = new ArrayList<>();
+        private final List<Level> levels = new ArrayList<>();
+        private List<State> removed;
+
+        Evaluation(SeriesLookup lookup) {
+            this.lookup = lookup;
+        }
+
+        void add(State state, SeriesDataset cause, Level to) {
+            states.add(state);
+            causes.add(cause);
+            levels.add(to);
+        }
+
+        void evict(State state) {
+            if (removed == null) {
+                removed = new ArrayList<>();
+            }
+            removed.add(state);
+        }
+
+        /**
+         * Transitions the {@link State}s to their new {@link Level}s which creates, changes or stops {@link Alert}s.
+         * {@link State}s of datasets that no longer exist are removed and their ongoing {@link Alert}s are stopped.
+         *
+         * @return the newly raised {@link Alert}s
+         */
+        public List<Alert> apply() {
+            if (removed != null) {
+                for (State state : removed) {
+                    removeState(state);
+                    stopAlert(state);
+                }
+            }
+            if (states.isEmpty()) {
+                return emptyList();
+            }
+            List<Alert> raised = new ArrayList<>();
+            for (int i = 0; i < states.size(); i++) {
+                Alert alert = transitionTo(levels.get(i), lookup, causes.get(i), states.get(i));
+                if (alert != null) {
+                    raised.add(alert);
+                }
+            }
+            return raised;
+        }
+    }
+
+    private Level checkLevel(SeriesLookup lookup, SeriesDataset data, State state) {
         switch (state.level) {
         default:
         case WHITE: return checkWhite(lookup, data, state);
@@ -253,65 +438,73 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
         }
     }
 
-    private Alert checkWhite(SeriesLookup lookup, SeriesDataset data, State state) {
-        if (red.starts(data, lookup)) {
-            return transitionTo(RED, lookup, data, state);
+    private static boolean starts(Circumstance circumstance, SeriesLookup lookup, SeriesDataset data, State state) {
+        return circumstance.starts(data, lookup, state.window(circumstance, false));
+    }
+
+    private static boolean stops(Circumstance circumstance, SeriesDataset data, State state) {
+        return circumstance.stops(data, state.window(circumstance, false), state.window(circumstance, true));
+    }
+
+    private Level checkWhite(SeriesLookup lookup, SeriesDataset data, State state) {
+        if (starts(red, lookup, data, state)) {
+            return RED;
         }
-        if (amber.starts(data, lookup)) {
-            return transitionTo(AMBER, lookup, data, state);
+        if (starts(amber, lookup, data, state)) {
+            return AMBER;
         }
-        if (green.starts(data, lookup)) {
-            return transitionTo(GREEN, lookup, data, state);
+        if (starts(green, lookup, data, state)) {
+            return GREEN;
         }
         return null;
     }
 
-    private Alert checkGreen(SeriesLookup lookup, SeriesDataset data, State state) {
+    private Level checkGreen(SeriesLookup lookup, SeriesDataset data, State state) {
         // green => red?
-        if (red.starts(data, lookup)) {
-            return transitionTo(RED, lookup, data, state);
+        if (starts(red, lookup, data, state)) {
+            return RED;
         }
         // green => amber?
-        if (amber.starts(data, lookup)) {
-            return transitionTo(AMBER, lookup, data, state);
+        if (starts(amber, lookup, data, state)) {
+            return AMBER;
         }
         // continue green?
-        if (!green.stops(data) || green.starts(data, lookup)) {
+        if (!stops(green, data, state) || starts(green, lookup, data, state)) {
             return null;
         }
-        return transitionTo(WHITE, lookup, data, state);
+        return WHITE;
     }
 
-    private Alert checkAmber(SeriesLookup lookup, SeriesDataset data, State state) {
+    private Level checkAmber(SeriesLookup lookup, SeriesDataset data, State state) {
         // amber => red?
-        if (red.starts(data, lookup)) {
-            return transitionTo(RED, lookup, data, state);
+        if (starts(red, lookup, data, state)) {
+            return RED;
         }
         // continue amber?
-        if (!amber.stops(data) || amber.starts(data, lookup)) {
+        if (!stops(amber, data, state) || starts(amber, lookup, data, state)) {
             return null; // continue
         }
         // amber => green?
-        if (green.starts(data, lookup)) {
-            return transitionTo(GREEN, lookup, data, state);
+        if (starts(green, lookup, data, state)) {
+            return GREEN;
         }
-        return transitionTo(WHITE, lookup, data, state);
+        return WHITE;
     }
 
-    private Alert checkRed(SeriesLookup lookup, SeriesDataset data, State state) {
+    private Level checkRed(SeriesLookup lookup, SeriesDataset data, State state) {
         // continue red?
-        if (!red.stops(data) || red.starts(data, lookup)) {
+        if (!stops(red, data, state) || starts(red, lookup, data, state)) {
             return null; // continue
         }
         // red => amber?
-        if (amber.starts(data, lookup)) {
-            return transitionTo(AMBER, lookup, data, state);
+        if (starts(amber, lookup, data, state)) {
+            return AMBER;
         }
         // red => green?
-        if (green.starts(data, lookup)) {
-            return transitionTo(GREEN, lookup, data, state);
+        if (starts(green, lookup, data, state)) {
+            return GREEN;
         }
-        return transitionTo(WHITE, lookup, data, state);
+        return WHITE;
     }
 
     private Alert transitionTo(Level to, SeriesLookup lookup, SeriesDataset data, State state) {
@@ -384,7 +577,7 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
             str.append('\t').append(Arrays.toString(captured)).append('\n');
         }
         str.append("State:\n");
-        for (State s : statesByInstanceSeries.values()) {
+        for (State s : this) {
             str.append("\t\t").append(s).append('\n');
         }
         return str.toString();
@@ -418,7 +611,8 @@ public final class Watch implements WatchBuilder, Iterable<Watch.State>, Seriali
     }
 
     private Watch with(Circumstance red, Circumstance amber, Circumstance green) {
-        return new Watch(name, watched, programmatic, red, amber, green, captured, disabled, statesByInstanceSeries);
+        return new Watch(name, watched, programmatic, red, amber, green, captured, disabled,
+                statesBySeriesAndInstance, sweeps);
     }
 
     @Override
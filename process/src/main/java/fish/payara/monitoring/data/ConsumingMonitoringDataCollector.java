@@ -43,34 +43,118 @@ import static fish.payara.monitoring.model.Series.TAG_ASSIGN;
 import static fish.payara.monitoring.model.Series.TAG_SEPARATOR;
 import static fish.payara.monitoring.model.Series.isSpecialTagCharacter;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import fish.payara.monitoring.collect.MonitoringDataCollector;
 
 /**
  * A {@link MonitoringDataCollector} that is used as an adapter to {@link MonitoringDataConsumer} abstraction.
  *
+ * All collectors derived from the same root collector using {@link #tag(CharSequence, CharSequence)} share a single
+ * buffer holding the tags of the collector that most recently collected. Each collector only knows its parent and its
+ * own (already escaped) tag. Collecting with a collector whose tags are not in the buffer truncates the buffer to the
+ * tags common with the collector currently in the buffer and appends the missing tags. As sources usually collect a
+ * group of metrics with the same collector before moving on the buffer is rarely rebuilt.
+ *
+ * <h3>Consistency Remarks</h3>
+ *
+ * A root collector and all collectors derived from it must only be used by a single thread.
+ *
  * @author Jan Bernitt
  */
 public class ConsumingMonitoringDataCollector implements MonitoringDataCollector {
 
+    /**
+     * The state shared by all collectors derived from the same root collector.
+     */
+    private static final class Context {
+
+        private static final int MAX_ESCAPED_VALUES = 1024;
+
+        final StringBuilder tags = new StringBuilder(128);
+        final Map<String, String> escapedValues = new HashMap<>();
+        /**
+         * The collector whose tags currently are the content of {@link #tags}
+         */
+        ConsumingMonitoringDataCollector current;
+
+        /**
+         * Makes sure that tag separating characters in values are replaced with underscore.
+         */
+        String escape(CharSequence value) {
+            if (!containsSpecialTagCharacter(value)) {
+                return value.toString();
+            }
+            String key = value.toString();
+            String escaped = escapedValues.get(key);
+            if (escaped == null) {
+                if (escapedValues.size() >= MAX_ESCAPED_VALUES) {
+                    escapedValues.clear();
+                }
+                StringBuilder str = new StringBuilder(key.length());
+                for (int i = 0; i < key.length(); i++) {
+                    char c = key.charAt(i);
+                    str.append(isSpecialTagCharacter(c) ? '_' : c);
+                }
+                escaped = str.toString();
+                escapedValues.put(key, escaped);
+            }
+            return escaped;
+        }
+
+        private static boolean containsSpecialTagCharacter(CharSequence value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (isSpecialTagCharacter(value.charAt(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     private final MonitoringDataConsumer dataConsumer;
     private final MonitoringAnnotationConsumer annotationConsumer;
-    private final StringBuilder tags;
+    private final Context context;
+    /**
+     * The collector this collector added its tag to, null for the root collector
+     */
+    private final ConsumingMonitoringDataCollector parent;
+    private final String tagName;
+    private final String tagValue;
+    private final int depth;
+    /**
+     * The length of the tags of this collector including all tags of its parents
+     */
+    private final int length;
 
-    public ConsumingMonitoringDataCollector(MonitoringDataConsumer dataConsumer, 
+    public ConsumingMonitoringDataCollector(MonitoringDataConsumer dataConsumer,
             MonitoringAnnotationConsumer annotationConsumer) {
-        this(dataConsumer, annotationConsumer, new StringBuilder());
+        this.dataConsumer = dataConsumer;
+        this.annotationConsumer = annotationConsumer;
+        this.context = new Context();
+        this.parent = null;
+        this.tagName = null;
+        this.tagValue = null;
+        this.depth = 0;
+        this.length = 0;
+        context.current = this;
     }
 
-    private ConsumingMonitoringDataCollector(MonitoringDataConsumer consumer, 
-            MonitoringAnnotationConsumer annotationConsumer, StringBuilder tags) {
-        this.dataConsumer = consumer;
-        this.annotationConsumer = annotationConsumer;
-        this.tags = tags;
+    private ConsumingMonitoringDataCollector(ConsumingMonitoringDataCollector parent, String tagName, String tagValue) {
+        this.dataConsumer = parent.dataConsumer;
+        this.annotationConsumer = parent.annotationConsumer;
+        this.context = parent.context;
+        this.parent = parent;
+        this.tagName = tagName;
+        this.tagValue = tagValue;
+        this.depth = parent.depth + 1;
+        this.length = parent.length + (parent.length > 0 ? 1 : 0) + tagName.length() + 1 + tagValue.length();
     }
 
     @Override
     public MonitoringDataCollector collect(CharSequence metric, long value) {
-        int length = tags.length();
+        StringBuilder tags = tags();
         appendMetricName(tags, metric);
         dataConsumer.accept(tags, value);
         tags.setLength(length);
@@ -79,7 +163,7 @@ public class ConsumingMonitoringDataCollector implements MonitoringDataCollector
 
     @Override
     public MonitoringDataCollector annotate(CharSequence metric, long value, boolean keyed, String... attrs) {
-        int length = tags.length();
+        StringBuilder tags = tags();
         appendMetricName(tags, metric);
         annotationConsumer.accept(tags, value, keyed, attrs);
         tags.setLength(length);
@@ -91,46 +175,56 @@ public class ConsumingMonitoringDataCollector implements MonitoringDataCollector
         if (value == null || value.length() == 0) {
             return this;
         }
-        StringBuilder tagged = new StringBuilder(tags);
-        int nameIndex = indexOf(name);
-        if (nameIndex >= 0) {
-            tagged.setLength(nameIndex);
-        } else if (tagged.length() > 0) {
-            tagged.append(TAG_SEPARATOR);
-        }
-        tagged.append(name).append(TAG_ASSIGN);
-        appendTagValue(value, tagged);
-        return new ConsumingMonitoringDataCollector(dataConsumer, annotationConsumer, tagged);
-    }
-
-    private static void appendMetricName(StringBuilder tags, CharSequence key) {
-        if (tags.length() > 0) {
-            tags.append(TAG_SEPARATOR);
+        // a tag with the same name replaces that tag and all tags added after it
+        ConsumingMonitoringDataCollector base = this;
+        for (ConsumingMonitoringDataCollector c = this; c.parent != null; c = c.parent) {
+            if (c.tagName.contentEquals(name)) {
+                base = c.parent;
+            }
         }
-        tags.append(key);
+        return new ConsumingMonitoringDataCollector(base, name.toString(), context.escape(value));
     }
 
     /**
-     * Makes sure that tag separating characters in values are replaced with underscore.
+     * @return the shared buffer with the tags of this collector as its content
      */
-    private static void appendTagValue(CharSequence value, StringBuilder tagged) {
-        for (int i = 0; i < value.length(); i++) {
-            char c = value.charAt(i);
-            if (!isSpecialTagCharacter(c)) {
-                tagged.append(c);
-            } else {
-                tagged.append('_');
+    private StringBuilder tags() {
+        StringBuilder tags = context.tags;
+        ConsumingMonitoringDataCollector current = context.current;
+        if (current != this) {
+            ConsumingMonitoringDataCollector common = this;
+            while (!common.isAncestorOf(current)) {
+                common = common.parent;
             }
+            tags.setLength(common.length);
+            appendTagsAfter(common, tags);
+            context.current = this;
         }
+        return tags;
     }
 
-    private int indexOf(CharSequence name) {
-        String tag = name.toString();
-        if (tags.indexOf(tag + TAG_ASSIGN) == 0) {
-            return 0;
+    private boolean isAncestorOf(ConsumingMonitoringDataCollector other) {
+        while (other.depth > depth) {
+            other = other.parent;
         }
-        int idx = tags.indexOf(TAG_SEPARATOR + tag + TAG_ASSIGN);
-        return idx < 0 ? idx : idx + 1;
+        return other == this;
     }
 
+    private void appendTagsAfter(ConsumingMonitoringDataCollector ancestor, StringBuilder tags) {
+        if (this == ancestor) {
+            return;
+        }
+        parent.appendTagsAfter(ancestor, tags);
+        if (tags.length() > 0) {
+            tags.append(TAG_SEPARATOR);
+        }
+        tags.append(tagName).append(TAG_ASSIGN).append(tagValue);
+    }
+
+    private static void appendMetricName(StringBuilder tags, CharSequence key) {
+        if (tags.length() > 0) {
+            tags.append(TAG_SEPARATOR);
+        }
+        tags.append(key);
+    }
 }
@@ -77,4 +77,38 @@ public interface SeriesRepository extends SeriesLookup {
      * @return A collection of all matching annotations
      */
     List<SeriesAnnotation> selectAnnotations(Series series, String... instances);
+
+    /**
+     * The version changes whenever the data that can be selected from this repository changes, for example when a
+     * tick got published. As long as the version is the same selecting the same data has the same result.
+     *
+     * @return the current version of the data in this repository
+     */
+    long getVersion();
+
+    /**
+     * In contrast to the {@link #getVersion()} which changes for each tick published by any instance this changes at
+     * most once per second. Data published by other instances within the same second is not reflected in the time.
+     *
+     * @return the collection time in milliseconds since epoch of the most recent tick published by any instance, or
+     *         the {@link #getVersion()} for repositories that do not publish ticks
+     */
+    default long getPublishedSecond() {
+        return getVersion();
+    }
+
+    /**
+     * Returns the {@link Series} whose value changed in any of the ticks published after the given version. A
+     * {@link Series} without a change still got a point with the same value as before in each tick.
+     *
+     * Callers should remember the {@link #getVersion()} before calling this method and use it for the next call. This
+     * way a change is reported at least once.
+     *
+     * @param version a version as returned by {@link #getVersion()} earlier
+     * @return the changed {@link Series}, or null if the changes since the given version are not known in which case
+     *         any {@link Series} might have changed
+     */
+    default Set<Series> changedSince(long version) {
+        return null;
+    }
 }
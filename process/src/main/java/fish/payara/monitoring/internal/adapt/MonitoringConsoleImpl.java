@@ -62,7 +62,7 @@ import fish.payara.monitoring.data.SeriesRepository;
 import fish.payara.monitoring.internal.alert.InMemoryAlarmService;
 import fish.payara.monitoring.internal.alert.InMemoryAlarmService.WatchesSnapshot;
 import fish.payara.monitoring.internal.data.InMemorySeriesRepository;
-import fish.payara.monitoring.internal.data.InMemorySeriesRepository.SeriesDatasetsSnapshot;
+import fish.payara.monitoring.internal.data.SeriesDatasetsCodec;
 import fish.payara.monitoring.model.SeriesLookup;
 
 /**
@@ -101,11 +101,17 @@ public class MonitoringConsoleImpl implements MonitoringConsole, MonitoringDataS
     }
 
     private void receiveMesssage(byte[] msg) {
+        if (SeriesDatasetsCodec.isEncoded(msg)) {
+            try {
+                data.addRemoteDatasets(msg);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.FINE, "Failed to receive monitoring data message", ex);
+            }
+            return;
+        }
         try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(msg))) {
             Object message = ois.readObject();
-            if (message instanceof SeriesDatasetsSnapshot) {
-                data.addRemoteDatasets((SeriesDatasetsSnapshot) message);
-            } else if (message instanceof WatchesSnapshot) {
+            if (message instanceof WatchesSnapshot) {
                 alerts.addRemoteWatches((WatchesSnapshot) message);
             } else {
                 LOGGER.log(Level.FINE, "Received a message of unknown type: {0}", message.getClass());
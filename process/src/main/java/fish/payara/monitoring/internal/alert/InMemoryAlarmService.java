@@ -51,6 +51,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -70,6 +71,8 @@ import fish.payara.monitoring.adapt.MonitoringConsoleRuntime;
 import fish.payara.monitoring.adapt.MonitoringConsoleWatchConfig;
 import fish.payara.monitoring.alert.Alert;
 import fish.payara.monitoring.alert.AlertService;
+import fish.payara.monitoring.alert.Circumstance;
+import fish.payara.monitoring.alert.Condition;
 import fish.payara.monitoring.alert.Watch;
 import fish.payara.monitoring.alert.Alert.Level;
 import fish.payara.monitoring.collect.MonitoringWatchCollector;
@@ -78,6 +81,7 @@ import fish.payara.monitoring.data.SeriesRepository;
 import fish.payara.monitoring.internal.util.JobHandle;
 import fish.payara.monitoring.model.Metric;
 import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesIndex;
 import fish.payara.monitoring.model.Unit;
 
 public class InMemoryAlarmService implements AlertService {
@@ -85,6 +89,10 @@ public class InMemoryAlarmService implements AlertService {
     private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
 
     private static final int MAX_ALERTS_PER_SERIES = 10;
+    /**
+     * Number of worker threads used to evaluate watches in parallel, zero to evaluate watches one after another
+     */
+    private static final int EVALUATION_WORKERS = Integer.getInteger("fish.payara.monitoring.watch.workers", 0);
 
     private final SeriesRepository monitoringData;
     private final String instance;
@@ -93,9 +101,26 @@ public class InMemoryAlarmService implements AlertService {
     private final Map<String, Watch> watchesByName = new ConcurrentHashMap<>();
     private final Map<Series, Map<String, Watch>> simpleWatches = new ConcurrentHashMap<>();
     private final Map<Series, Map<String, Watch>> patternWatches = new ConcurrentHashMap<>();
+    /**
+     * Watches by the {@link Series} of the {@link Metric}s suppressing any of their {@link Circumstance}s
+     */
+    private final Map<Series, Map<String, Watch>> suppressingWatches = new ConcurrentHashMap<>();
     private final Map<Series, Deque<Alert>> alerts = new ConcurrentHashMap<>();
+    /**
+     * Index of the keys in {@link #simpleWatches}
+     */
+    private final SeriesIndex simpleWatchesIndex = new SeriesIndex();
+    /**
+     * Index of the keys in {@link #alerts}
+     */
+    private final SeriesIndex alertsIndex = new SeriesIndex();
     private final AtomicReference<AlertStatistics> statistics = new AtomicReference<>(new AlertStatistics());
     private final AtomicLong evalLoopTime = new AtomicLong();
+    private final WatchEvaluator evaluator = new WatchEvaluator(EVALUATION_WORKERS);
+    /**
+     * The {@link SeriesRepository#getVersion()} the watches were last checked against, -1 before the first check
+     */
+    private long checkedVersion = -1L;
     /**
      * Watches that are added during collection for each instance
      */
@@ -235,20 +260,14 @@ public class InMemoryAlarmService implements AlertService {
         if (series.equalTo(Series.ANY)) {
             return alerts();
         }
-        Collection<Alert> matches = null;
-        for (Entry<Series, Deque<Alert>> e : alerts.entrySet()) {
-            if (series.matches(e.getKey())) {
-                if (matches == null) {
-                    matches = e.getValue();
-                } else {
-                    if (!(matches instanceof ArrayList)) {
-                        matches = new ArrayList<>(matches);
-                    }
-                    matches.addAll(e.getValue());
-                }
+        List<Alert> matches = new ArrayList<>();
+        alertsIndex.forEachMatching(series, match -> {
+            Deque<Alert> alertsForSeries = alerts.get(match);
+            if (alertsForSeries != null) {
+                matches.addAll(alertsForSeries);
             }
-        }
-        return matches == null ? emptyList() : unmodifiableCollection(matches);
+        });
+        return matches.isEmpty() ? emptyList() : unmodifiableCollection(matches);
     }
 
     @Override
@@ -266,8 +285,18 @@ public class InMemoryAlarmService implements AlertService {
             removeWatch(existing);
         }
         Series series = watch.watched.series;
-        Map<Series, Map<String, Watch>> target = series.isPattern() ? patternWatches : simpleWatches;
-        target.computeIfAbsent(series, key -> new ConcurrentHashMap<>()).put(watch.name, watch);
+        if (series.isPattern()) {
+            patternWatches.computeIfAbsent(series, key -> new ConcurrentHashMap<>()).put(watch.name, watch);
+        } else {
+            simpleWatches.computeIfAbsent(series, key -> new ConcurrentHashMap<>()).put(watch.name, watch);
+            simpleWatchesIndex.add(series);
+        }
+        for (Circumstance c : circumstances(watch)) {
+            if (c.suppressing != null) {
+                suppressingWatches.computeIfAbsent(c.suppressing.series, key -> new ConcurrentHashMap<>())
+                    .put(watch.name, watch);
+            }
+        }
         if (!watch.isProgrammatic()) {
             watchConfig.add(watch.name, watch.toJSON().toString());
         }
@@ -283,15 +312,26 @@ public class InMemoryAlarmService implements AlertService {
             if (collectedByInstance != null) {
                 collectedByInstance.remove(name);
             }
-            removeWatch(watch, simpleWatches);
+            Series removed = removeWatch(watch, simpleWatches);
+            if (removed != null && !simpleWatches.containsKey(removed)) {
+                simpleWatchesIndex.remove(removed);
+            }
             removeWatch(watch, patternWatches);
+            for (Map<String, Watch> suppressed : suppressingWatches.values()) {
+                suppressed.remove(name, watch);
+            }
+            suppressingWatches.values().removeIf(Map::isEmpty);
             if (!watch.isProgrammatic()) {
                 watchConfig.remove(watch.name);
             }
         }
     }
 
-    private static void removeWatch(Watch watch, Map<Series, Map<String, Watch>> map) {
+    /**
+     * @return the {@link Series} that no longer has any {@link Watch} in the map after the given {@link Watch} was
+     *         removed, or null if there still are other watches for it or the watch was not found
+     */
+    private static Series removeWatch(Watch watch, Map<Series, Map<String, Watch>> map) {
         String name = watch.name;
         Iterator<Entry<Series, Map<String, Watch>>> iter = map.entrySet().iterator();
         while (iter.hasNext()) {
@@ -301,10 +341,12 @@ public class InMemoryAlarmService implements AlertService {
                 watches.remove(name);
                 if (watches.isEmpty()) {
                     iter.remove();
+                    return entry.getKey();
                 }
-                return;
+                return null;
             }
         }
+        return null;
     }
 
     @Override
@@ -330,17 +372,13 @@ public class InMemoryAlarmService implements AlertService {
             return watches();
         }
         Map<?, Watch> seriesWatches = patternWatches.get(series);
-        Collection<Watch> watches = seriesWatches == null ? emptyList() : seriesWatches.values();
-        for (Map<?, Watch> simple : simpleWatches.values()) {
-            for (Watch w : simple.values()) {
-                if (series.matches(w.watched.series)) {
-                    if (!(watches instanceof ArrayList)) {
-                        watches = new ArrayList<>(watches);
-                    }
-                    watches.add(w);
-                }
+        List<Watch> watches = seriesWatches == null ? new ArrayList<>() : new ArrayList<>(seriesWatches.values());
+        simpleWatchesIndex.forEachMatching(series, match -> {
+            Map<?, Watch> simple = simpleWatches.get(match);
+            if (simple != null) {
+                watches.addAll(simple.values());
             }
-        }
+        });
         return unmodifiableCollection(watches);
     }
 
@@ -353,8 +391,18 @@ public class InMemoryAlarmService implements AlertService {
         }
         if (isDAS) { // only evaluate watches on DAS
             try {
-                checkWatches(simpleWatches.values());
-                checkWatches(patternWatches.values());
+                long version = monitoringData.getVersion();
+                Set<Series> changed = checkedVersion < 0 ? null : monitoringData.changedSince(checkedVersion);
+                checkedVersion = version;
+                Map<Watch, Set<Series>> changedByWatch = changed == null ? null : changedByWatch(changed);
+                List<Watch> watches = new ArrayList<>();
+                addWatchesToCheck(simpleWatches.values(), watches);
+                addWatchesToCheck(patternWatches.values(), watches);
+                for (Alert newlyRaised : evaluator.check(watches, monitoringData, changedByWatch)) {
+                    Deque<Alert> seriesAlerts = alerts.computeIfAbsent(newlyRaised.getSeries(), this::newAlertQueue);
+                    seriesAlerts.add(newlyRaised);
+                    limitQueueSize(seriesAlerts);
+                }
                 statistics.set(computeStatistics());
             } catch (Exception ex) {
                 LOGGER.log(FINE, "Failed to check watches", ex);
@@ -457,32 +505,113 @@ public class InMemoryAlarmService implements AlertService {
         return stats;
     }
 
-    private void checkWatches(Collection<? extends Map<?, Watch>> watches) {
+    /**
+     * Uses the indexes of watches by {@link Series} to find the watches affected by the changed {@link Series}.
+     *
+     * @param changed the {@link Series} that changed since the last check
+     * @return the changed {@link Series} each {@link Watch} watches, null for a {@link Watch} that needs to check all
+     *         of its {@link Series}
+     */
+    private Map<Watch, Set<Series>> changedByWatch(Set<Series> changed) {
+        Map<Watch, Set<Series>> changedByWatch = new HashMap<>();
+        for (Map<String, Watch> watches : suppressingWatches.values()) {
+            for (Watch watch : watches.values()) {
+                if (isSuppressedOverTime(watch)) {
+                    changedByWatch.put(watch, null);
+                }
+            }
+        }
+        for (Series series : changed) {
+            Map<String, Watch> simple = simpleWatches.get(series);
+            if (simple != null) {
+                addChanged(series, simple, changedByWatch);
+            }
+            Map<String, Watch> suppressing = suppressingWatches.get(series);
+            if (suppressing != null) {
+                checkAll(suppressing, changedByWatch);
+            }
+        }
+        SeriesIndex changedIndex = null;
+        for (Entry<Series, Map<String, Watch>> pattern : patternWatches.entrySet()) {
+            changedIndex = changedIndex != null ? changedIndex : index(changed);
+            Map<String, Watch> watches = pattern.getValue();
+            changedIndex.forEachMatching(pattern.getKey(), series -> addChanged(series, watches, changedByWatch));
+        }
+        for (Entry<Series, Map<String, Watch>> suppressing : suppressingWatches.entrySet()) {
+            if (suppressing.getKey().isPattern()) {
+                changedIndex = changedIndex != null ? changedIndex : index(changed);
+                Map<String, Watch> watches = suppressing.getValue();
+                changedIndex.forEachMatching(suppressing.getKey(), series -> checkAll(watches, changedByWatch));
+            }
+        }
+        return changedByWatch;
+    }
+
+    /**
+     * The changed {@link Series} are indexed so that each pattern is only tested against the changed {@link Series}
+     * that can match it.
+     */
+    private static SeriesIndex index(Set<Series> changed) {
+        SeriesIndex index = new SeriesIndex();
+        for (Series series : changed) {
+            index.add(series);
+        }
+        return index;
+    }
+
+    private static void checkAll(Map<String, Watch> watches, Map<Watch, Set<Series>> changedByWatch) {
+        for (Watch watch : watches.values()) {
+            changedByWatch.put(watch, null);
+        }
+    }
+
+    private static void addChanged(Series series, Map<String, Watch> watches, Map<Watch, Set<Series>> changedByWatch) {
+        for (Watch watch : watches.values()) {
+            if (!changedByWatch.containsKey(watch)) {
+                changedByWatch.put(watch, new HashSet<>());
+            }
+            Set<Series> watchChanged = changedByWatch.get(watch);
+            if (watchChanged != null) {
+                watchChanged.add(series);
+            }
+        }
+    }
+
+    /**
+     * @return true if the {@link Watch} is suppressed by a {@link Condition} that depends on more than the most recent
+     *         value of the suppressing {@link Series}
+     */
+    private static boolean isSuppressedOverTime(Watch watch) {
+        for (Circumstance c : circumstances(watch)) {
+            if (c.suppressing != null && c.suppress.isForLastPresent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Circumstance[] circumstances(Watch watch) {
+        return new Circumstance[] { watch.red, watch.amber, watch.green };
+    }
+
+    /**
+     * Adds the enabled {@link Watch}es to the list of {@link Watch}es to check, stopped {@link Watch}es are removed.
+     */
+    private void addWatchesToCheck(Collection<? extends Map<?, Watch>> watches, List<Watch> toCheck) {
         for (Map<?, Watch> group : watches) {
             for (Watch watch : group.values()) {
                 if (watch.isStopped()) {
                     removeWatch(watch);
-                } else {
-                    try {
-                        checkWatch(watch);
-                    } catch (Exception ex) {
-                        LOGGER.log(java.util.logging.Level.FINE, "Failed to check watch : " + watch, ex);
-                    }
+                } else if (!watch.isDisabled()) {
+                    toCheck.add(watch);
                 }
             }
         }
     }
 
-    private void checkWatch(Watch watch) {
-        if (watch.isDisabled()) {
-            return;
-        }
-        for (Alert newlyRaised : watch.check(monitoringData)) {
-            Deque<Alert> seriesAlerts = alerts.computeIfAbsent(newlyRaised.getSeries(),
-                    key -> new ConcurrentLinkedDeque<>());
-            seriesAlerts.add(newlyRaised);
-            limitQueueSize(seriesAlerts);
-        }
+    private Deque<Alert> newAlertQueue(Series series) {
+        alertsIndex.add(series);
+        return new ConcurrentLinkedDeque<>();
     }
 
     private static void limitQueueSize(Deque<Alert> seriesAlerts) {
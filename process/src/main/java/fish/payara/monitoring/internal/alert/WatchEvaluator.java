@@ -0,0 +1,179 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.alert;
+
+import static java.util.Collections.emptySet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fish.payara.monitoring.alert.Alert;
+import fish.payara.monitoring.alert.Watch;
+import fish.payara.monitoring.alert.Watch.Evaluation;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesLookup;
+
+/**
+ * Checks a list of {@link Watch}es either one after another or by evaluating them in parallel.
+ *
+ * When evaluating in parallel each {@link Watch} is still evaluated by a single thread. Once all {@link Watch}es are
+ * evaluated their {@link Evaluation}s are applied by the calling thread in the order of the list. This way
+ * {@link Alert}s are created and changed in the same order as when checking the {@link Watch}es one after another so
+ * that their serials and the {@link Alert#getChangeCount()} are the same.
+ *
+ * @author Jan Bernitt
+ */
+final class WatchEvaluator {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    /**
+     * Number of {@link Watch}es evaluated by a single task
+     */
+    private static final int WATCHES_PER_TASK = 4;
+
+    private final ForkJoinPool workers;
+
+    /**
+     * @param workers number of worker threads to evaluate {@link Watch}es in parallel, zero to check them one after
+     *                another
+     */
+    WatchEvaluator(int workers) {
+        if (workers <= 0) {
+            this.workers = null;
+        } else {
+            int pool = POOL_COUNT.incrementAndGet();
+            AtomicInteger threadCount = new AtomicInteger();
+            this.workers = new ForkJoinPool(workers, forkJoinPool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                t.setName("monitoring-watch-" + pool + "-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+        }
+    }
+
+    /**
+     * @param watches        the {@link Watch}es to check, none must be in the list more than once
+     * @param lookup         to select the datasets from
+     * @param changedByWatch the changed {@link Series} for each {@link Watch}, a null value if a {@link Watch} should
+     *                       check all its {@link Series}, null if all {@link Watch}es should check all their
+     *                       {@link Series}
+     * @return the newly raised {@link Alert}s in the order they were raised
+     */
+    List<Alert> check(List<Watch> watches, SeriesLookup lookup, Map<Watch, Set<Series>> changedByWatch) {
+        Evaluation[] evaluations = new Evaluation[watches.size()];
+        if (workers == null || watches.size() <= WATCHES_PER_TASK) {
+            evaluate(watches, lookup, changedByWatch, evaluations, 0, evaluations.length);
+        } else {
+            workers.invoke(new ParallelEvaluation(watches, lookup, changedByWatch, evaluations, 0,
+                    evaluations.length));
+        }
+        List<Alert> raised = new ArrayList<>();
+        for (int i = 0; i < evaluations.length; i++) {
+            if (evaluations[i] != null) {
+                try {
+                    raised.addAll(evaluations[i].apply());
+                } catch (Exception ex) {
+                    LOGGER.log(Level.FINE, "Failed to check watch : " + watches.get(i), ex);
+                }
+            }
+        }
+        return raised;
+    }
+
+    static void evaluate(List<Watch> watches, SeriesLookup lookup, Map<Watch, Set<Series>> changedByWatch,
+            Evaluation[] evaluations, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Watch watch = watches.get(i);
+            try {
+                evaluations[i] = watch.evaluate(lookup, changedByWatch == null
+                        ? null
+                        : changedByWatch.getOrDefault(watch, emptySet()));
+            } catch (Exception ex) {
+                LOGGER.log(Level.FINE, "Failed to check watch : " + watch, ex);
+            }
+        }
+    }
+
+    /**
+     * Splits the range of {@link Watch}es to evaluate until it is small enough for a single task.
+     */
+    private static final class ParallelEvaluation extends RecursiveAction {
+
+        private final List<Watch> watches;
+        private final SeriesLookup lookup;
+        private final Map<Watch, Set<Series>> changedByWatch;
+        private final Evaluation[] evaluations;
+        private final int from;
+        private final int to;
+
+        ParallelEvaluation(List<Watch> watches, SeriesLookup lookup, Map<Watch, Set<Series>> changedByWatch,
+                Evaluation[] evaluations, int from, int to) {
+            this.watches = watches;
+            this.lookup = lookup;
+            this.changedByWatch = changedByWatch;
+            this.evaluations = evaluations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= WATCHES_PER_TASK) {
+                evaluate(watches, lookup, changedByWatch, evaluations, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParallelEvaluation(watches, lookup, changedByWatch, evaluations, from, mid),
+                    new ParallelEvaluation(watches, lookup, changedByWatch, evaluations, mid, to));
+        }
+    }
+}
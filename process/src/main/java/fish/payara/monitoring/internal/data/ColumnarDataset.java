@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import java.math.BigInteger;
+
+import fish.payara.monitoring.model.MinutesDataset;
+import fish.payara.monitoring.model.PartialDataset;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+
+/**
+ * A read-only {@link SeriesDataset} as provided by the {@link ColumnarSeriesRepository}.
+ *
+ * It is a copy of the window and statistics of a {@link Series} at the time it was selected. As the data is stored
+ * and updated by the {@link ColumnarSeriesRepository} itself {@link #add(long, long, boolean)}ing points to a
+ * {@link ColumnarDataset} continues a detached {@link PartialDataset} copy that does not affect the repository.
+ *
+ * @author Jan Bernitt
+ */
+final class ColumnarDataset extends SeriesDataset {
+
+    private final long[] points;
+    private final int capacity;
+    private final int observedValueChanges;
+    private final long observedMin;
+    private final long observedMax;
+    private final long observedSum;
+    private final BigInteger observedSumOverflow;
+    private final long stableSince;
+    private final int stableCount;
+    private final MinutesDataset recentMinutes;
+    private final int estimatedBytesMemory;
+
+    ColumnarDataset(Series series, String instance, long observedSince, int observedValues, long[] points,
+            int capacity, int observedValueChanges, long observedMin, long observedMax, long observedSum,
+            BigInteger observedSumOverflow, long stableSince, int stableCount, MinutesDataset recentMinutes,
+            int estimatedBytesMemory) {
+        super(series, instance, observedSince, observedValues);
+        this.points = points;
+        this.capacity = capacity;
+        this.observedValueChanges = observedValueChanges;
+        this.observedMin = observedMin;
+        this.observedMax = observedMax;
+        this.observedSum = observedSum;
+        this.observedSumOverflow = observedSumOverflow;
+        this.stableSince = stableSince;
+        this.stableCount = stableCount;
+        this.recentMinutes = recentMinutes;
+        this.estimatedBytesMemory = estimatedBytesMemory;
+    }
+
+    @Override
+    public int getObservedValueChanges() {
+        return observedValueChanges;
+    }
+
+    @Override
+    public long[] points() {
+        return points.clone();
+    }
+
+    @Override
+    public long time(int index) {
+        return points[2 * index];
+    }
+
+    @Override
+    public long value(int index) {
+        return points[2 * index + 1];
+    }
+
+    @Override
+    public SeriesDataset add(long time, long value, boolean aggregate) {
+        return new PartialDataset(this).add(time, value, aggregate);
+    }
+
+    @Override
+    public MinutesDataset getRecentMinutes() {
+        return recentMinutes;
+    }
+
+    @Override
+    public SeriesDataset withRecentMinutes(MinutesDataset recentMinutes) {
+        return new ColumnarDataset(getSeries(), getInstance(), getObservedSince(), getObservedValues(), points,
+                capacity, observedValueChanges, observedMin, observedMax, observedSum, observedSumOverflow,
+                stableSince, stableCount, recentMinutes, estimatedBytesMemory);
+    }
+
+    @Override
+    public long getObservedMin() {
+        return observedMin;
+    }
+
+    @Override
+    public long getObservedMax() {
+        return observedMax;
+    }
+
+    @Override
+    public BigInteger getObservedSum() {
+        return observedSumOverflow != null ? observedSumOverflow : BigInteger.valueOf(observedSum);
+    }
+
+    @Override
+    public long getObservedSumAsLong() {
+        return observedSum;
+    }
+
+    @Override
+    public boolean isObservedSumOverflow() {
+        return observedSumOverflow != null;
+    }
+
+    @Override
+    public long getStableSince() {
+        return stableSince;
+    }
+
+    @Override
+    public int getStableCount() {
+        return stableCount;
+    }
+
+    @Override
+    public boolean isOutdated() {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return points.length / 2;
+    }
+
+    @Override
+    public long lastValue() {
+        return points[points.length - 1];
+    }
+
+    @Override
+    public long firstTime() {
+        return points[0];
+    }
+
+    @Override
+    public long lastTime() {
+        return points[points.length - 2];
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int estimatedBytesMemory() {
+        return estimatedBytesMemory + recentMinutes.estimatedBytesMemory();
+    }
+
+    @Override
+    public boolean isStable() {
+        return stableCount >= size();
+    }
+}
@@ -0,0 +1,664 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fish.payara.monitoring.data.SeriesRepository;
+import fish.payara.monitoring.model.MinutesDataset;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesAnnotation;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * A {@link SeriesRepository} for the data of a single instance that keeps the points of all {@link Series} in shared
+ * primitive ring buffers instead of a chain of {@link SeriesDataset} objects per {@link Series}.
+ *
+ * There is one time column with an entry per collection tick and one value column per {@link Series}. A {@link Series}
+ * that was not collected in a tick is marked absent in the presence bitset of that tick. The statistics of each
+ * {@link Series} (min, max, sum, stability etc.) are kept in primitive arrays indexed by the {@link SeriesDictionary}
+ * ID of the {@link Series}. Once all columns have grown to the number of {@link Series} collected adding points does
+ * not allocate any objects except for the once per minute aggregation into the {@link MinutesDataset}.
+ *
+ * Readers get {@link ColumnarDataset}s, read-only copies of a {@link Series} window that satisfy the
+ * {@link SeriesDataset} contract.
+ *
+ * Note that the window is a window of ticks. A {@link Series} that is not collected each tick has less than
+ * {@link #capacity()} points in its window.
+ *
+ * <h3>Consistency Remarks</h3>
+ *
+ * There is a single writer that performs a sequence of {@link #tick(long)}, {@link #add(int, long)}, optionally
+ * {@link #carryForward(int[], int)}, and {@link #publish(boolean)} for each collection tick. Statistics are double
+ * buffered by tick parity: while a tick is written the statistics of the previously published tick stay untouched.
+ * The value columns have one more slot than the window so that the slot written never is a slot visible to readers.
+ * Readers use optimistic reads that are repeated should a tick get published while reading, also when the read
+ * failed because it observed arrays that were grown concurrently. Thereby all
+ * {@link SeriesDataset}s returned by a single method call reflect the same tick.
+ *
+ * @author Jan Bernitt
+ */
+public final class ColumnarSeriesRepository implements SeriesRepository {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    /**
+     * Per {@link Series} statistics for one tick parity. All arrays are indexed by {@link Series} ID.
+     */
+    private static final class Stats {
+
+        long[] observedSince;
+        int[] observedValues;
+        int[] observedValueChanges;
+        long[] observedMin;
+        long[] observedMax;
+        long[] observedSum;
+        /**
+         * The exact sum in case the {@link #observedSum} did overflow, otherwise null
+         */
+        BigInteger[] observedSumOverflow;
+        long[] lastValue;
+        long[] stableSince;
+        int[] stableCount;
+        MinutesDataset[] recentMinutes;
+
+        Stats(int capacity) {
+            this.observedSince = new long[capacity];
+            this.observedValues = new int[capacity];
+            this.observedValueChanges = new int[capacity];
+            this.observedMin = new long[capacity];
+            this.observedMax = new long[capacity];
+            this.observedSum = new long[capacity];
+            this.observedSumOverflow = new BigInteger[capacity];
+            this.lastValue = new long[capacity];
+            this.stableSince = new long[capacity];
+            this.stableCount = new int[capacity];
+            this.recentMinutes = new MinutesDataset[capacity];
+        }
+
+        int capacity() {
+            return observedValues.length;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity > capacity()) {
+                observedSince = copyOf(observedSince, capacity);
+                observedValues = copyOf(observedValues, capacity);
+                observedValueChanges = copyOf(observedValueChanges, capacity);
+                observedMin = copyOf(observedMin, capacity);
+                observedMax = copyOf(observedMax, capacity);
+                observedSum = copyOf(observedSum, capacity);
+                observedSumOverflow = copyOf(observedSumOverflow, capacity);
+                lastValue = copyOf(lastValue, capacity);
+                stableSince = copyOf(stableSince, capacity);
+                stableCount = copyOf(stableCount, capacity);
+                recentMinutes = copyOf(recentMinutes, capacity);
+            }
+        }
+
+        void copyFrom(Stats other) {
+            int length = other.capacity();
+            ensureCapacity(length);
+            arraycopy(other.observedSince, 0, observedSince, 0, length);
+            arraycopy(other.observedValues, 0, observedValues, 0, length);
+            arraycopy(other.observedValueChanges, 0, observedValueChanges, 0, length);
+            arraycopy(other.observedMin, 0, observedMin, 0, length);
+            arraycopy(other.observedMax, 0, observedMax, 0, length);
+            arraycopy(other.observedSum, 0, observedSum, 0, length);
+            arraycopy(other.observedSumOverflow, 0, observedSumOverflow, 0, length);
+            arraycopy(other.lastValue, 0, lastValue, 0, length);
+            arraycopy(other.stableSince, 0, stableSince, 0, length);
+            arraycopy(other.stableCount, 0, stableCount, 0, length);
+            arraycopy(other.recentMinutes, 0, recentMinutes, 0, length);
+        }
+    }
+
+    private final String instance;
+    private final SeriesDictionary dictionary;
+    private final int window;
+    private final int ring;
+    /**
+     * Persists the history of this instance, null when history is only kept in memory
+     */
+    private final SeriesHistoryStore history;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The time of each tick by slot
+     */
+    private final long[] times;
+    /**
+     * Bitset over the {@link Series} IDs present by slot
+     */
+    private final long[][] present;
+    /**
+     * The value column by {@link Series} ID, null for a {@link Series} that was not collected by this instance
+     */
+    private long[][] values = new long[0][];
+    private final Stats[] stats = new Stats[] { new Stats(0), new Stats(0) };
+    /**
+     * Bitset over the {@link Series} IDs to carry forward, reused by {@link #carryForward(int[], int)}
+     */
+    private long[] carried = new long[0];
+
+    /**
+     * The tick currently written, -1 before first tick
+     */
+    private long tick = -1;
+    /**
+     * The tick most recently published, -1 before first publication
+     */
+    private long published = -1;
+    private int numberOfSeries;
+
+    public ColumnarSeriesRepository(String instance, SeriesDictionary dictionary, int window) {
+        this(instance, dictionary, window, null);
+    }
+
+    /**
+     * @param history the store the history is persisted to and restored from, null to only keep history in memory
+     */
+    public ColumnarSeriesRepository(String instance, SeriesDictionary dictionary, int window,
+            SeriesHistoryStore history) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive but was: " + window);
+        }
+        this.instance = instance;
+        this.dictionary = dictionary;
+        this.window = window;
+        this.ring = window + 1;
+        this.history = history;
+        this.times = new long[ring];
+        this.present = new long[ring][0];
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return the maximum number of ticks in the window of a {@link Series}
+     */
+    public int capacity() {
+        return window;
+    }
+
+    /*
+     * Writing
+     */
+
+    /**
+     * Starts writing a new tick.
+     *
+     * @param time the collection time of the new tick
+     * @return true, if the tick was started, false if the time was not after the time of the previous tick and the
+     *         tick's data should be ignored
+     */
+    public boolean tick(long time) {
+        if (tick >= 0 && time <= times[slot(tick)]) {
+            return false;
+        }
+        if (tick > published) {
+            LOGGER.log(Level.FINE, "Discarding unpublished tick of instance {0}", instance);
+        } else {
+            tick++;
+        }
+        int slot = slot(tick);
+        times[slot] = time;
+        long[] bits = present[slot];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = 0L;
+        }
+        if (tick > 0) {
+            writeStats().copyFrom(stats[parity(tick - 1)]);
+        } else {
+            stats[0] = new Stats(values.length);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a point to the currently written tick. Adding a point for the same {@link Series} twice within a tick adds
+     * the values.
+     *
+     * @param seriesId the {@link SeriesDictionary} ID of the {@link Series}, IDs below zero are ignored
+     * @param value    the value observed
+     * @return true, if this was the first point ever added for the {@link Series}, else false
+     */
+    public boolean add(int seriesId, long value) {
+        if (seriesId < 0) {
+            return false;
+        }
+        if (tick < 0) {
+            throw new IllegalStateException("No tick started");
+        }
+        ensureCapacity(seriesId + 1);
+        long[] column = values[seriesId];
+        boolean added = column == null;
+        if (added) {
+            column = new long[ring];
+            values[seriesId] = column;
+            numberOfSeries++;
+        }
+        int slot = slot(tick);
+        long time = times[slot];
+        long[] bits = present[slot];
+        Stats s = writeStats();
+        int id = seriesId;
+        s.observedMin[id] = s.observedValues[id] == 0 ? value : Math.min(value, s.observedMin[id]);
+        s.observedMax[id] = s.observedValues[id] == 0 ? value : Math.max(value, s.observedMax[id]);
+        addToSum(s, id, value);
+        if (isSet(bits, id)) {
+            long sum = column[slot] + value;
+            column[slot] = sum;
+            s.lastValue[id] = sum;
+            s.observedValueChanges[id]++;
+            s.stableCount[id] = 1;
+            s.stableSince[id] = time;
+        } else {
+            bits[id >> 6] |= 1L << id;
+            column[slot] = value;
+            if (s.observedValues[id] == 0) {
+                s.observedSince[id] = time;
+                s.observedValueChanges[id] = 1;
+                s.stableCount[id] = 1;
+                s.stableSince[id] = time;
+                s.recentMinutes[id] = MinutesDataset.EMPTY;
+                if (history != null) {
+                    history.requestRestore(dictionary.series(id), instance);
+                }
+            } else {
+                boolean stable = value == s.lastValue[id];
+                s.observedValueChanges[id] += stable ? 0 : 1;
+                s.stableCount[id] = stable ? s.stableCount[id] + 1 : 1;
+                if (!stable) {
+                    s.stableSince[id] = time;
+                }
+            }
+            s.lastValue[id] = value;
+        }
+        s.observedValues[id]++;
+        return added;
+    }
+
+    /**
+     * Continues history restored by the {@link SeriesHistoryStore} with the history recorded since the first point of
+     * the {@link Series} was added. Must be called while a tick is written.
+     *
+     * @param seriesId the {@link SeriesDictionary} ID of the {@link Series}
+     * @param restored the history of the {@link Series} restored from disk
+     */
+    public void restoreHistory(int seriesId, MinutesDataset restored) {
+        if (tick < 0 || seriesId >= values.length || values[seriesId] == null) {
+            return;
+        }
+        Stats s = writeStats();
+        MinutesDataset recorded = s.recentMinutes[seriesId];
+        s.recentMinutes[seriesId] = recorded == null ? restored : SeriesHistoryStore.merge(restored, recorded);
+    }
+
+    /**
+     * Extends all {@link Series} that were present in the previous tick but have not been added to the currently
+     * written tick with their previous value. This is used when an instance only sends changed values.
+     *
+     * @param removed         IDs of {@link Series} that should not be extended as they are no longer collected
+     * @param numberOfRemoved number of IDs in the removed array to consider
+     */
+    public void carryForward(int[] removed, int numberOfRemoved) {
+        if (tick <= 0) {
+            return;
+        }
+        int slot = slot(tick);
+        long[] before = present[slot(tick - 1)];
+        long[] now = present[slot];
+        if (carried.length < before.length) {
+            carried = new long[before.length];
+        }
+        for (int i = 0; i < before.length; i++) {
+            carried[i] = before[i] & ~now[i];
+        }
+        for (int i = 0; i < numberOfRemoved; i++) {
+            int id = removed[i];
+            if (id >= 0 && id < values.length) {
+                carried[id >> 6] &= ~(1L << id);
+            }
+        }
+        Stats s = writeStats();
+        for (int id = nextSetBit(carried, 0); id >= 0; id = nextSetBit(carried, id + 1)) {
+            long value = s.lastValue[id];
+            now[id >> 6] |= 1L << id;
+            values[id][slot] = value;
+            addToSum(s, id, value);
+            s.stableCount[id]++;
+            s.observedValues[id]++;
+        }
+    }
+
+    /**
+     * Makes the currently written tick visible to readers.
+     *
+     * @param aggregate true to aggregate the recent minute when the tick is the last second of a minute
+     */
+    public void publish(boolean aggregate) {
+        if (tick <= published) {
+            return;
+        }
+        aggregateRecentMinutes(aggregate);
+        long stamp = lock.writeLock();
+        try {
+            published = tick;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void aggregateRecentMinutes(boolean aggregate) {
+        int slot = slot(tick);
+        boolean endOfMinute = (times[slot] % 60000L) >= 59000L;
+        if (aggregate && !endOfMinute) {
+            return;
+        }
+        Stats s = writeStats();
+        long[] bits = present[slot];
+        for (int id = nextSetBit(bits, 0); id >= 0; id = nextSetBit(bits, id + 1)) {
+            if (!aggregate) {
+                s.recentMinutes[id] = MinutesDataset.EMPTY;
+            } else {
+                try {
+                    MinutesDataset before = s.recentMinutes[id];
+                    s.recentMinutes[id] = before.add(dataset(id, tick, s));
+                    if (history != null) {
+                        history.store(dictionary.series(id), instance, before, s.recentMinutes[id]);
+                    }
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Failed to compute aggreagte: ", ex);
+                }
+            }
+        }
+    }
+
+    private static void addToSum(Stats s, int id, long value) {
+        long sum = s.observedSum[id];
+        BigInteger overflow = s.observedSumOverflow[id];
+        if (overflow != null) {
+            s.observedSumOverflow[id] = overflow.add(BigInteger.valueOf(value));
+        } else if (SeriesDataset.isSumOverflow(sum, value)) {
+            s.observedSumOverflow[id] = BigInteger.valueOf(sum).add(BigInteger.valueOf(value));
+        }
+        s.observedSum[id] = sum + value;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= values.length) {
+            return;
+        }
+        int capacity = Math.max(minCapacity, Math.max(64, values.length * 2));
+        values = copyOf(values, capacity);
+        writeStats().ensureCapacity(capacity);
+        int words = (capacity + 63) >> 6;
+        for (int i = 0; i < ring; i++) {
+            if (present[i].length < words) {
+                present[i] = copyOf(present[i], words);
+            }
+        }
+    }
+
+    private Stats writeStats() {
+        return stats[parity(tick)];
+    }
+
+    /*
+     * Reading
+     */
+
+    /**
+     * @param series a {@link Series} that is not a pattern
+     * @return the current data of the given {@link Series} or null if this instance has no points for it within the
+     *         window
+     */
+    public SeriesDataset select(Series series) {
+        int id = dictionary.id(series);
+        if (id < 0) {
+            return null;
+        }
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            try {
+                SeriesDataset res = dataset(id);
+                if (lock.validate(stamp)) {
+                    return res;
+                }
+            } catch (RuntimeException ex) {
+                retryOrRethrow(stamp, ex);
+            }
+        }
+    }
+
+    /**
+     * @param series any {@link Series}, not null
+     * @return true, if this instance ever collected points for the given {@link Series}
+     */
+    public boolean contains(Series series) {
+        int id = dictionary.id(series);
+        long[][] columns = values;
+        return id >= 0 && id < columns.length && columns[id] != null;
+    }
+
+    /**
+     * @return the number of {@link Series} this instance ever collected points for
+     */
+    public int size() {
+        return numberOfSeries;
+    }
+
+    @Override
+    public List<SeriesDataset> selectSeries(Series series, String... instances) {
+        if (instances != null && instances.length > 0 && !contains(instances, instance)) {
+            return emptyList();
+        }
+        if (!series.isPattern()) {
+            SeriesDataset res = select(series);
+            return res == null ? emptyList() : singletonList(res);
+        }
+        return select(series::matches);
+    }
+
+    @Override
+    public Iterable<SeriesDataset> selectAllSeries() {
+        return select(s -> true);
+    }
+
+    @Override
+    public Set<String> instances() {
+        return singleton(instance);
+    }
+
+    @Override
+    public long getVersion() {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            long version = published;
+            if (lock.validate(stamp)) {
+                return version;
+            }
+        }
+    }
+
+    /**
+     * Annotations are not stored in this repository.
+     *
+     * @return always an empty list
+     */
+    @Override
+    public List<SeriesAnnotation> selectAnnotations(Series series, String... instances) {
+        return emptyList();
+    }
+
+    /**
+     * @return the estimated memory in bytes used for the data of all {@link Series} in this repository. References are
+     *         assumed to use 8 bytes.
+     */
+    public long estimatedBytesMemory() {
+        long bytes = 64L + ring * 8L + ring * 8L * (values.length >> 6) + values.length * 8L;
+        bytes += numberOfSeries * (ring * 8L + 16L);
+        bytes += 2L * stats[0].capacity() * (9 * 8 + 3 * 4);
+        return bytes;
+    }
+
+    private List<SeriesDataset> select(Predicate<Series> filter) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            try {
+                List<SeriesDataset> res = new ArrayList<>();
+                long[][] columns = values;
+                for (int id = 0; id < columns.length; id++) {
+                    if (columns[id] != null && filter.test(dictionary.series(id))) {
+                        SeriesDataset set = dataset(id);
+                        if (set != null) {
+                            res.add(set);
+                        }
+                    }
+                }
+                if (lock.validate(stamp)) {
+                    return res;
+                }
+            } catch (RuntimeException ex) {
+                retryOrRethrow(stamp, ex);
+            }
+        }
+    }
+
+    /**
+     * An optimistic read can observe the statistics of a tick written concurrently while their arrays are grown. Such
+     * an inconsistent read can fail before it is validated. It is retried unless the read was valid in which case the
+     * failure is a genuine one.
+     */
+    private void retryOrRethrow(long stamp, RuntimeException ex) {
+        if (lock.validate(stamp)) {
+            throw ex;
+        }
+    }
+
+    private SeriesDataset dataset(int id) {
+        long at = published;
+        if (at < 0) {
+            return null;
+        }
+        Stats s = stats[parity(at)];
+        return id < s.capacity() && s.observedValues[id] > 0 ? dataset(id, at, s) : null;
+    }
+
+    private ColumnarDataset dataset(int id, long at, Stats s) {
+        long[][] columns = values;
+        long[] column = id < columns.length ? columns[id] : null;
+        if (column == null) {
+            return null;
+        }
+        long[] points = new long[2 * window];
+        int size = 0;
+        for (long t = Math.max(0, at - window + 1); t <= at; t++) {
+            int slot = slot(t);
+            if (isSet(present[slot], id)) {
+                points[size++] = times[slot];
+                points[size++] = column[slot];
+            }
+        }
+        if (size == 0) {
+            return null;
+        }
+        return new ColumnarDataset(dictionary.series(id), instance, s.observedSince[id], s.observedValues[id],
+                copyOf(points, size), window, s.observedValueChanges[id], s.observedMin[id], s.observedMax[id],
+                s.observedSum[id], s.observedSumOverflow[id], s.stableSince[id], s.stableCount[id],
+                s.recentMinutes[id], ring * 8 + ring / 8 + 2 * (9 * 8 + 3 * 4));
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % ring);
+    }
+
+    private static int parity(long tick) {
+        return (int) (tick & 1L);
+    }
+
+    private static boolean isSet(long[] bits, int id) {
+        int word = id >> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0L;
+    }
+
+    private static int nextSetBit(long[] bits, int from) {
+        int word = from >> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long w = bits[word] & (-1L << from);
+        while (true) {
+            if (w != 0L) {
+                return (word << 6) + Long.numberOfTrailingZeros(w);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            w = bits[word];
+        }
+    }
+
+    private static boolean contains(String[] instances, String instance) {
+        for (String i : instances) {
+            if (i.equals(instance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -47,26 +47,24 @@ import static java.util.Collections.singleton;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import fish.payara.monitoring.adapt.MonitoringConsoleRuntime;
-import fish.payara.monitoring.collect.MonitoringData;
 import fish.payara.monitoring.collect.MonitoringDataCollector;
 import fish.payara.monitoring.collect.MonitoringDataSource;
 import fish.payara.monitoring.data.ConsumingMonitoringDataCollector;
@@ -74,24 +72,35 @@ import fish.payara.monitoring.data.MonitoringAnnotationConsumer;
 import fish.payara.monitoring.data.MonitoringDataConsumer;
 import fish.payara.monitoring.data.SeriesRepository;
 import fish.payara.monitoring.internal.util.JobHandle;
+import fish.payara.monitoring.model.CompressedDataset;
 import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.MinutesDataset;
 import fish.payara.monitoring.model.Series;
 import fish.payara.monitoring.model.SeriesAnnotation;
 import fish.payara.monitoring.model.SeriesAnnotations;
 import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.SeriesDictionary;
+import fish.payara.monitoring.model.SeriesIndex;
 
 /**
  * A simple in-memory store for a fixed size sliding window for each {@link Series}.
  *
+ * Data received from other instances is kept in a {@link ColumnarSeriesRepository} per instance and window length.
+ * The window length of each {@link Series} is decided by {@link SeriesWindows}. The {@link InstanceRegistry} tracks
+ * when data was last received from each instance so that the data of instances that no longer exist is removed.
+ *
+ * On the DAS the history is persisted by a {@link SeriesHistoryStore} and the points of each tick are logged by a
+ * {@link SeriesWriteAheadLog} so that both can be recovered when the DAS is restarted.
  *
  * <h3>Consistency Remarks</h3>
  *
- * The store uses two maps working like a doubled buffered image. While collection writes to the {@link #secondsWrite}
- * map request are served from the {@link #secondsRead} map. This makes sure that a consistent dataset across all series
- * can be used to create a consistent visualisation that isn't half updated while the response is composed. However
- * this requires that callers are provided with a method that returns all the {@link SeriesDataset}s they need in a
- * single method invocation. Making multiple calls to this stores methods does not guarantee a consistent dataset across
- * all series since the {@link #swapLocalBuffer()} can happen inbetween method calls.
+ * Each local {@link Series} has a {@link LocalSeriesSlot} that works like a doubled buffered image. While collection
+ * writes the dataset of the current tick requests are served the dataset of the most recently published tick as
+ * indicated by {@link #publishedSecond}. This makes sure that a consistent dataset across all series can be used to
+ * create a consistent visualisation that isn't half updated while the response is composed. However this requires that
+ * callers are provided with a method that returns all the {@link SeriesDataset}s they need in a single method
+ * invocation. Making multiple calls to this stores methods does not guarantee a consistent dataset across all series
+ * since a tick can be published inbetween method calls.
  *
  * @author Jan Bernitt
  */
@@ -101,23 +110,142 @@ public class InMemorySeriesRepository implements SeriesRepository {
 
     private static final int MAX_ANNOTATIONS_PER_SERIES = 20;
 
-    private final Set<String> sourcesFailingBefore = ConcurrentHashMap.newKeySet();
+    /**
+     * Number of worker threads used to collect sources in parallel, zero to collect sources one after another
+     */
+    private static final int COLLECTION_WORKERS = Integer.getInteger("fish.payara.monitoring.collection.workers", 0);
+    /**
+     * Time in milliseconds after the start of a tick until which sources collected in parallel must complete
+     */
+    private static final long COLLECTION_DEADLINE_MILLIS =
+            Long.getLong("fish.payara.monitoring.collection.deadline", 750L);
+    /**
+     * Directory the history is persisted to, defaults to a directory within the instance root
+     */
+    private static final String HISTORY_DIRECTORY = System.getProperty("fish.payara.monitoring.history.dir");
+    /**
+     * Number of days the persisted history is kept
+     */
+    private static final int HISTORY_RETENTION_DAYS = Integer.getInteger("fish.payara.monitoring.history.retention", 31);
+    /**
+     * Maximum number of history entries waiting to be written
+     */
+    private static final int HISTORY_QUEUE_SIZE = Integer.getInteger("fish.payara.monitoring.history.queue", 16384);
+    /**
+     * Maximum number of history segment files kept open
+     */
+    private static final int HISTORY_OPEN_SEGMENTS = Integer.getInteger("fish.payara.monitoring.history.open", 1024);
+    /**
+     * Directory the log of recent points is written to, defaults to a directory within the instance root
+     */
+    private static final String LOG_DIRECTORY = System.getProperty("fish.payara.monitoring.log.dir");
+    /**
+     * Maximum number of ticks waiting to be written to the log of recent points
+     */
+    private static final int LOG_QUEUE_SIZE = Integer.getInteger("fish.payara.monitoring.log.queue", 64);
+    /**
+     * Number of 1 second points kept for a {@link Series} unless configured otherwise by {@link #WINDOWS}
+     */
+    private static final int DEFAULT_WINDOW = Integer.getInteger("fish.payara.monitoring.window", 60);
+    /**
+     * Windows by {@link Series} pattern as described by {@link SeriesWindows}
+     */
+    private static final String WINDOWS = System.getProperty("fish.payara.monitoring.windows");
+    /**
+     * Number of ticks for which the changed {@link Series} are kept. As a version is published for each tick of each
+     * instance the number of versions kept grows with the number of instances.
+     */
+    private static final int CHANGES_KEPT = 64;
+    /**
+     * Minimum window length for which the points of a local {@link Series} are kept in a {@link CompressedDataset}
+     */
+    private static final int COMPRESSED_WINDOW = Integer.getInteger("fish.payara.monitoring.window.compress", 300);
+    /**
+     * Number of seconds after which the data of a remote instance that did not send data any more is removed
+     */
+    private static final int INSTANCE_EXPIRY = Integer.getInteger("fish.payara.monitoring.instance.expiry", 300);
+    /**
+     * Number of seconds between checks for expired remote instances
+     */
+    private static final int INSTANCE_EXPIRY_CHECK_INTERVAL = 10;
 
+    private final Set<String> sourcesFailingBefore = ConcurrentHashMap.newKeySet();
+    private final ParallelSourceCollector parallelCollector = COLLECTION_WORKERS <= 0
+            ? null
+            : new ParallelSourceCollector(COLLECTION_WORKERS);
+    private final CollectionListener collectionListener = new CollectionListener();
+    private final TickConsumer tickConsumer = new TickConsumer();
+    /**
+     * The root collector used by the collection thread, it is reused for each tick so that the collectors derived
+     * from it for each source are only created once
+     */
+    private final MonitoringDataCollector collector = new ConsumingMonitoringDataCollector(tickConsumer, tickConsumer);
+    private final MonitoringDataCollector monitoringCollector = collector.in("monitoring");
+    private int failedSources;
 
     private final String instanceName;
     private final boolean isDas;
     private final MonitoringConsoleRuntime runtime;
     private final Supplier<? extends List<MonitoringDataSource>> sources;
 
-    private volatile Map<Series, SeriesDataset> secondsWrite = new ConcurrentHashMap<>();
-    private volatile Map<Series, SeriesDataset> secondsRead = new ConcurrentHashMap<>();
-    private final Map<Series, SeriesDataset[]> remoteInstanceDatasets = new ConcurrentHashMap<>();
+    private final Map<Series, LocalSeriesSlot> localSeries = new ConcurrentHashMap<>();
+    /**
+     * The collection time of the most recently completed local collection, -1 before the first
+     */
+    private volatile long publishedSecond = -1L;
+    /**
+     * The collection time of the most recent tick published locally or received from another instance
+     */
+    private final AtomicLong latestPublishedSecond = new AtomicLong(-1L);
+    /**
+     * The version is incremented each time local or remote data got published
+     */
+    private final SeriesChanges changes = new SeriesChanges(CHANGES_KEPT);
+    /**
+     * The local {@link Series} whose value changed in the tick currently collected
+     */
+    private Set<Series> changedLocalSeries = new HashSet<>();
+    /**
+     * The repositories of each remote instance indexed by {@link SeriesWindows} policy
+     */
+    private final Map<String, ColumnarSeriesRepository[]> remoteInstanceRepositories = new ConcurrentHashMap<>();
     private final Map<Series, SeriesAnnotations> annotationsBySeries = new ConcurrentHashMap<>();
-    private final Set<String> instances = ConcurrentHashMap.newKeySet();
+    /**
+     * All local and remote {@link Series} with data
+     */
+    private final SeriesIndex seriesIndex = new SeriesIndex();
+    /**
+     * All {@link Series} with annotations
+     */
+    private final SeriesIndex annotatedSeriesIndex = new SeriesIndex();
+    private final InstanceRegistry instances;
+    /**
+     * Received messages are decoded and added holding the read lock, instances expire holding the write lock. A message
+     * of an instance that expires is either added before the instance and all of its data is removed or it is decoded
+     * by a new session after, so no message uses {@link SeriesDictionary} IDs or repositories that are being removed.
+     */
+    private final ReadWriteLock expiring = new ReentrantReadWriteLock();
+    private final SeriesDictionary dictionary = new SeriesDictionary();
+    private final SeriesWindows windows = new SeriesWindows(dictionary, DEFAULT_WINDOW, WINDOWS);
+    private final SeriesDatasetsCodec.Encoder encoder = new SeriesDatasetsCodec.Encoder(dictionary);
+    private final SeriesDatasetsCodec.Decoder decoder = new SeriesDatasetsCodec.Decoder(dictionary);
     private final JobHandle dataCollectionJob = new JobHandle("monitoring data collection");
+    private final JobHandle instanceExpiryJob = new JobHandle("monitoring instance expiry");
     private long collectedSecond;
     private int estimatedNumberOfSeries = 50;
     private final AtomicBoolean aggregate = new AtomicBoolean();
+    /**
+     * Persists the history of the DAS, null when history is only kept in memory
+     */
+    private final SeriesHistoryStore history;
+    /**
+     * Logs the points of each tick on the DAS so they can be recovered, null when points are only kept in memory
+     */
+    private final SeriesWriteAheadLog log;
+    /**
+     * The local points of the tick currently collected that get logged, null if points are not logged
+     */
+    private SeriesDatasetsSnapshot loggedTick;
 
     public InMemorySeriesRepository(String instanceName, boolean receiver, MonitoringConsoleRuntime runtime,
             Supplier<? extends List<MonitoringDataSource>> sources) {
@@ -125,15 +253,93 @@ public class InMemorySeriesRepository implements SeriesRepository {
         this.instanceName = instanceName;
         this.runtime = runtime;
         this.sources = sources;
-        instances.add(instanceName);
+        this.history = receiver ? createHistoryStore() : null;
+        this.log = receiver ? createWriteAheadLog() : null;
+        this.instances = new InstanceRegistry(instanceName);
+        if (log != null) {
+            int replayed = log.replay(this::replay);
+            if (replayed > 0) {
+                LOGGER.info("Recovered " + replayed + " monitoring data ticks from " + log.getDirectory());
+            }
+            log.start();
+        }
+    }
+
+    /**
+     * @param dir  the configured directory, null if not configured
+     * @param name the name of the directory used within the instance root when no directory is configured
+     * @return the directory to use or null if no directory is configured and the instance root is unknown
+     */
+    private static Path monitoringDirectory(String dir, String name) {
+        if (dir != null) {
+            return Paths.get(dir);
+        }
+        String instanceRoot = System.getProperty("com.sun.aas.instanceRoot");
+        return instanceRoot == null ? null : Paths.get(instanceRoot, "monitoring-console", name);
+    }
+
+    private static SeriesHistoryStore createHistoryStore() {
+        Path dir = monitoringDirectory(HISTORY_DIRECTORY, "history");
+        if (dir == null) {
+            return null;
+        }
+        try {
+            SeriesHistoryStore store = new SeriesHistoryStore(dir, Duration.ofDays(HISTORY_RETENTION_DAYS),
+                    HISTORY_QUEUE_SIZE, HISTORY_OPEN_SEGMENTS);
+            store.prune(System.currentTimeMillis());
+            store.start();
+            LOGGER.info("Persisting monitoring history to " + store.getDirectory());
+            return store;
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Monitoring history is not persisted", ex);
+            return null;
+        }
+    }
+
+    private SeriesWriteAheadLog createWriteAheadLog() {
+        Path dir = monitoringDirectory(LOG_DIRECTORY, "log");
+        if (dir == null) {
+            return null;
+        }
+        try {
+            return new SeriesWriteAheadLog(dir, dictionary, SECONDS.toMillis(windows.maxWindow()),
+                    LOG_QUEUE_SIZE);
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Monitoring data is not logged", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Adds the points of a tick recovered from the {@link SeriesWriteAheadLog}. History is always aggregated so that
+     * restored history is continued. Remote instances count as seen at the time of the tick so that instances that
+     * did stop sending while this instance was down are expired.
+     */
+    private void replay(SeriesDatasetsSnapshot snapshot) {
+        if (!instanceName.equals(snapshot.instance)) {
+            addRemoteDatasets(snapshot, true, snapshot.time);
+            return;
+        }
+        for (int i = 0; i < snapshot.numberOfSeries; i++) {
+            localSeries.computeIfAbsent(dictionary.series(snapshot.series[i]), this::newLocalSeriesSlot)
+                .add(snapshot.time, snapshot.values[i], true);
+        }
+        publishedSecond = snapshot.time;
+        publishLocalChanges();
+        latestPublishedSecond.accumulateAndGet(snapshot.time, Math::max);
     }
 
     public void setEnabled(boolean enabled) {
         if (!enabled) {
             dataCollectionJob.stop();
+            instanceExpiryJob.stop();
         } else {
             LOGGER.info("Starting monitoring data collection for " + instanceName);
             dataCollectionJob.start(runtime, 1, SECONDS, isDas ? this::collectSourcesToMemory : this::collectSourcesToPublish);
+            if (isDas) {
+                instanceExpiryJob.start(runtime, INSTANCE_EXPIRY_CHECK_INTERVAL, SECONDS,
+                        () -> expireInstances(System.currentTimeMillis()));
+            }
         }
     }
 
@@ -143,111 +349,290 @@ public class InMemorySeriesRepository implements SeriesRepository {
 
     @Override
     public Set<String> instances() {
-        return instances;
+        return instances.instances();
+    }
+
+    @Override
+    public long getVersion() {
+        return changes.getVersion();
+    }
+
+    @Override
+    public long getPublishedSecond() {
+        return latestPublishedSecond.get();
+    }
+
+    @Override
+    public Set<Series> changedSince(long version) {
+        return changes.since(version);
+    }
+
+    /**
+     * Must only be called by the collection.
+     */
+    private void publishLocalChanges() {
+        changes.publish(changedLocalSeries);
+        changedLocalSeries = new HashSet<>();
+    }
+
+    /**
+     * @param message a message as received from another instance encoded by the {@link SeriesDatasetsCodec}
+     * @throws IllegalArgumentException in case the message is malformed
+     */
+    public void addRemoteDatasets(byte[] message) {
+        expiring.readLock().lock();
+        try {
+            addRemoteDatasets(decoder.decode(message));
+        } finally {
+            expiring.readLock().unlock();
+        }
+    }
+
+    void addRemoteDatasets(SeriesDatasetsSnapshot snapshot) {
+        expiring.readLock().lock();
+        try {
+            if (log != null) {
+                log.append(snapshot);
+            }
+            addRemoteDatasets(snapshot, aggregate.get(), System.currentTimeMillis());
+        } finally {
+            expiring.readLock().unlock();
+        }
     }
 
-    public void addRemoteDatasets(SeriesDatasetsSnapshot snapshot) {
+    private void addRemoteDatasets(SeriesDatasetsSnapshot snapshot, boolean aggregate, long seen) {
         String instance = snapshot.instance;
-        instances.add(instance);
-        long time = snapshot.time;
+        instances.seen(instance, seen);
+        ColumnarSeriesRepository[] remotes = remoteInstanceRepositories.computeIfAbsent(instance,
+                this::newRemoteRepositories);
         if (snapshot.annotations != null) {
             for (SeriesAnnotation a : snapshot.annotations) {
-                addRemoteAnnotation(a);
+                addRemoteAnnotation(a, remotes);
             }
         }
-        final boolean aggregate = this.aggregate.get();
-        for (int i = 0; i < snapshot.numberOfSeries; i++) {
-            Series series = null;
-            try {
-                series = new Series(snapshot.series[i]);
-            } catch (IllegalArgumentException ex) {
-                LOGGER.log(Level.FINEST, "Failed to add remote series: " + snapshot.series[i], ex);
+        Set<Series> changed = new HashSet<>();
+        synchronized (remotes) {
+            boolean started = true;
+            for (ColumnarSeriesRepository remote : remotes) {
+                started &= remote.tick(snapshot.time);
+            }
+            if (started) {
+                for (int i = 0; i < snapshot.numberOfSeries; i++) {
+                    int id = snapshot.series[i];
+                    Series series = dictionary.series(id);
+                    if (remotes[windows.policy(id)].add(id, snapshot.values[i])) {
+                        seriesIndex.add(series);
+                    }
+                    changed.add(series);
+                }
+                for (int i = 0; i < snapshot.numberOfRemoved; i++) {
+                    changed.add(dictionary.series(snapshot.removed[i]));
+                }
+                if (history != null) {
+                    history.restored(instance, (series, restored) -> {
+                        int id = dictionary.id(series);
+                        if (id >= 0) {
+                            remotes[windows.policy(id)].restoreHistory(id, restored);
+                            changed.add(series);
+                        }
+                    });
+                }
+                for (ColumnarSeriesRepository remote : remotes) {
+                    if (snapshot.delta) {
+                        remote.carryForward(snapshot.removed, snapshot.numberOfRemoved);
+                    }
+                    remote.publish(aggregate);
+                }
+            }
+        }
+        changes.publish(changed);
+        latestPublishedSecond.accumulateAndGet(snapshot.time, Math::max);
+    }
+
+    /**
+     * Removes the data and annotations of remote instances that have not sent data for longer than the
+     * {@link #INSTANCE_EXPIRY}. The decoding session, logged state and open history segments of these instances are
+     * forgotten as well as the {@link SeriesDictionary} IDs of {@link Series} no other instance has.
+     *
+     * @param now current time in milliseconds
+     */
+    void expireInstances(long now) {
+        expiring.writeLock().lock();
+        try {
+            List<String> expired = instances.expire(now - SECONDS.toMillis(INSTANCE_EXPIRY));
+            if (expired.isEmpty()) {
+                return;
             }
-            if (series != null) {
-                long value = snapshot.values[i];
-                remoteInstanceDatasets.compute(series, //
-                        (key, seriesByInstance) -> addRemotePoint(seriesByInstance, instance, key, time, value, aggregate));
+            for (String instance : expired) {
+                LOGGER.info("Removing monitoring data of instance " + instance + " that has not sent data for "
+                        + INSTANCE_EXPIRY + " seconds");
+                removeInstanceData(instance);
             }
+            // removed datasets are not a change of value, checks must look at all series to notice them
+            changes.publishUnknown();
+        } finally {
+            expiring.writeLock().unlock();
+        }
+    }
+
+    private void removeInstanceData(String instance) {
+        ColumnarSeriesRepository[] remotes = remoteInstanceRepositories.remove(instance);
+        Set<Series> removed = new HashSet<>();
+        if (remotes != null) {
+            synchronized (remotes) {
+                for (ColumnarSeriesRepository remote : remotes) {
+                    for (SeriesDataset data : remote.selectAllSeries()) {
+                        removed.add(data.getSeries());
+                    }
+                }
+            }
+        }
+        for (Series series : annotationsBySeries.keySet()) {
+            annotationsBySeries.computeIfPresent(series, (key, annotations) -> {
+                int before = annotations.size();
+                annotations.removeIf(a -> instance.equals(a.getInstance()));
+                if (annotations.size() < before) {
+                    removed.add(key);
+                }
+                if (!annotations.isEmpty()) {
+                    return annotations;
+                }
+                annotatedSeriesIndex.remove(key);
+                return null;
+            });
+        }
+        removed.removeIf(this::hasData);
+        for (Series series : removed) {
+            seriesIndex.remove(series);
         }
+        decoder.forget(instance);
+        if (log != null) {
+            log.forget(instance);
+        }
+        if (history != null) {
+            history.close(instance);
+        }
+        // series only the expired instance had no longer need an ID
+        removed.removeIf(annotationsBySeries::containsKey);
+        decoder.removeUndefined(removed);
+    }
+
+    SeriesDictionary getDictionary() {
+        return dictionary;
     }
 
-    private static SeriesDataset[] addRemotePoint(SeriesDataset[] seriesByInstance, String instance, Series series,
-            long time, long value, boolean aggregate) {
-        if (seriesByInstance == null) {
-            return new SeriesDataset[] { new EmptyDataset(instance, series, 60).add(time, value) };
+    SeriesDatasetsCodec.Decoder getDecoder() {
+        return decoder;
+    }
+
+    private boolean hasData(Series series) {
+        if (localSeries.containsKey(series)) {
+            return true;
         }
-        for (int i = 0; i < seriesByInstance.length; i++) {
-            SeriesDataset instanceSet = seriesByInstance[i];
-            if (instanceSet.getInstance().equals(instance)) {
-                seriesByInstance[i] = seriesByInstance[i].add(time, value, aggregate);
-                return seriesByInstance;
+        int policy = windows.policy(series);
+        for (ColumnarSeriesRepository[] remotes : remoteInstanceRepositories.values()) {
+            if (remotes[policy].contains(series)) {
+                return true;
             }
         }
-        seriesByInstance = Arrays.copyOf(seriesByInstance, seriesByInstance.length + 1);
-        seriesByInstance[seriesByInstance.length - 1] = new EmptyDataset(instance, series, 60).add(time, value, aggregate);
-        return seriesByInstance;
+        return false;
+    }
+
+    private ColumnarSeriesRepository[] newRemoteRepositories(String instance) {
+        // the local instance, the known remote instances and the added instance
+        changes.keep(CHANGES_KEPT * (remoteInstanceRepositories.size() + 2));
+        ColumnarSeriesRepository[] remotes = new ColumnarSeriesRepository[windows.size()];
+        for (int policy = 0; policy < remotes.length; policy++) {
+            remotes[policy] = new ColumnarSeriesRepository(instance, dictionary, windows.window(policy), history);
+        }
+        return remotes;
     }
 
     private void collectSourcesToMemory() {
+        if (history != null) {
+            history.restored(instanceName, this::restoreLocalHistory);
+        }
         tick();
-        for (Entry<Series, SeriesDataset> e : secondsRead.entrySet()) {
-            secondsWrite.put(e.getKey(), e.getValue());
+        if (log != null) {
+            loggedTick = new SeriesDatasetsSnapshot(instanceName, collectedSecond, estimatedNumberOfSeries, dictionary);
+        }
+        collectAll(this::addLocalPoint, this::addLocalAnnotation);
+        publishedSecond = collectedSecond;
+        publishLocalChanges();
+        latestPublishedSecond.accumulateAndGet(collectedSecond, Math::max);
+        if (log != null) {
+            estimatedNumberOfSeries = loggedTick.numberOfSeries;
+            log.append(loggedTick);
+            loggedTick = null;
         }
-        collectAll(new ConsumingMonitoringDataCollector(this::addLocalPoint, this::addLocalAnnotation));
-        swapLocalBuffer();
     }
 
     private void collectSourcesToPublish() {
         tick();
-        SeriesDatasetsSnapshot msg = new SeriesDatasetsSnapshot(instanceName, collectedSecond, estimatedNumberOfSeries);
-        collectAll(new ConsumingMonitoringDataCollector(msg, msg));
+        SeriesDatasetsSnapshot msg = new SeriesDatasetsSnapshot(instanceName, collectedSecond, estimatedNumberOfSeries,
+                dictionary);
+        collectAll(msg, msg);
         estimatedNumberOfSeries = msg.numberOfSeries;
         sendMessage(msg);
     }
 
     private void sendMessage(SeriesDatasetsSnapshot msg) {
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-            oos.writeObject(msg);
-            oos.flush();
-            runtime.send(bos.toByteArray());
-        } catch (IOException ex) {
+        try {
+            runtime.send(encoder.encode(msg));
+        } catch (RuntimeException ex) {
             LOGGER.log(Level.FINE, "Failed to send monitoring data message", ex);
         }
     }
 
-    private void collectAll(MonitoringDataCollector collector) {
+    private void collectAll(MonitoringDataConsumer dataConsumer, MonitoringAnnotationConsumer annotationConsumer) {
         long collectionStart = System.currentTimeMillis();
         int collectedSources = 0;
-        int failedSources = 0;
         final long second = collectedSecond / 1000;
-        MonitoringDataCollector monitoringCollector = collector.in("monitoring");
+        tickConsumer.dataConsumer = dataConsumer;
+        tickConsumer.annotationConsumer = annotationConsumer;
+        failedSources = 0;
         for (MonitoringDataSource source : sources.get()) {
-            String sourceId = source.getClass().getSimpleName(); // for now this is the ID, we might want to replace that later
-            MonitoringData meta = getMetaAnnotation(source);
-            if (collectNow(second, meta)) {
-                try {
+            SourceMetadata meta = SourceMetadata.of(source);
+            if (meta.isDue(second)) {
+                if (parallelCollector == null) {
+                    collectSource(source, meta, collector);
+                    collectedSources++;
+                } else if (parallelCollector.submit(source.getClass(), meta.id, buffer -> collectSource(source, meta, buffer))) {
                     collectedSources++;
-                    long sourceStart = System.currentTimeMillis();
-                    source.collect(meta == null ? collector : collector.in(meta.ns()));
-                    sourcesFailingBefore.remove(sourceId);
-                    monitoringCollector.group(sourceId)
-                        .collect("CollectionDuration", System.currentTimeMillis() - sourceStart);
-                } catch (RuntimeException e) {
-                    if (!sourcesFailingBefore.contains(sourceId)) {
-                        // only long once unless being successful again
-                        LOGGER.log(Level.FINE, "Error collecting metrics", e);
-                    }
-                    failedSources++;
-                    sourcesFailingBefore.add(sourceId);
                 }
             }
         }
+        if (parallelCollector != null) {
+            parallelCollector.await(collectionStart + COLLECTION_DEADLINE_MILLIS, dataConsumer, annotationConsumer,
+                    collectionListener);
+            monitoringCollector
+                .collect("CollectedSourcesLateCount", parallelCollector.getLateCount())
+                .collect("CollectedSourcesDroppedCount", parallelCollector.getDroppedCount());
+        }
         long estimatedTotalBytesMemory = 0L;
-        for (SeriesDataset set : secondsWrite.values()) {
-            estimatedTotalBytesMemory += set.estimatedBytesMemory();
+        int policies = windows.size();
+        long[] estimatedBytesMemoryByPolicy = new long[policies];
+        int[] seriesCountByPolicy = new int[policies];
+        for (LocalSeriesSlot slot : localSeries.values()) {
+            int bytes = slot.estimatedBytesMemory();
+            estimatedTotalBytesMemory += bytes;
+            estimatedBytesMemoryByPolicy[slot.policy] += bytes;
+            seriesCountByPolicy[slot.policy]++;
+        }
+        int seriesCount = localSeries.size();
+        if (policies > 1) {
+            for (ColumnarSeriesRepository[] remotes : remoteInstanceRepositories.values()) {
+                for (int policy = 0; policy < policies; policy++) {
+                    estimatedBytesMemoryByPolicy[policy] += remotes[policy].estimatedBytesMemory();
+                    seriesCountByPolicy[policy] += remotes[policy].size();
+                }
+            }
+            for (int policy = 0; policy < policies; policy++) {
+                monitoringCollector.group("Window" + windows.window(policy))
+                    .collectNonZero("SeriesCount", seriesCountByPolicy[policy])
+                    .collectNonZero("TotalBytesMemory", estimatedBytesMemoryByPolicy[policy]);
+            }
         }
-        int seriesCount = secondsWrite.size();
         monitoringCollector
             .collect("CollectionDuration", System.currentTimeMillis() - collectionStart)
             .collectNonZero("SeriesCount", seriesCount)
@@ -255,18 +640,69 @@ public class InMemorySeriesRepository implements SeriesRepository {
             .collectNonZero("AverageBytesMemoryPerSeries", seriesCount == 0 ? 0L : estimatedTotalBytesMemory / seriesCount)
             .collect("CollectedSourcesCount", collectedSources)
             .collect("CollectedSourcesErrorCount", failedSources);
+        if (log != null) {
+            monitoringCollector.collectNonZero("LoggedTicksDroppedCount", log.getDroppedCount());
+        }
+        if (history != null) {
+            monitoringCollector.collectNonZero("HistoryEntriesDroppedCount", history.getDroppedCount());
+        }
     }
 
-    private static boolean collectNow(final long now, MonitoringData meta) {
-        return meta == null || now % meta.intervalSeconds() == 0;
+    /**
+     * Collects a single source. When collecting in parallel this runs on a worker thread and throws the exception
+     * of a failing source, otherwise the failure is handled directly.
+     */
+    private void collectSource(MonitoringDataSource source, SourceMetadata meta, MonitoringDataCollector collector) {
+        try {
+            long sourceStart = System.currentTimeMillis();
+            SourceMetadata.Scope scope = meta.scope(collector);
+            source.collect(scope.source);
+            scope.monitoring.collect("CollectionDuration", System.currentTimeMillis() - sourceStart);
+            if (parallelCollector == null) {
+                collectionListener.onSuccess(meta.id);
+            }
+        } catch (RuntimeException e) {
+            if (parallelCollector != null) {
+                throw e;
+            }
+            collectionListener.onFailure(meta.id, e);
+        }
     }
 
-    private static MonitoringData getMetaAnnotation(MonitoringDataSource source) {
-        try {
-            Method collect = source.getClass().getMethod("collect", MonitoringDataCollector.class);
-            return collect.getAnnotation(MonitoringData.class);
-        } catch (NoSuchMethodException | SecurityException e) {
-           return null; // assume no annotation
+    /**
+     * Forwards to the consumers of the tick currently collected.
+     */
+    private static final class TickConsumer implements MonitoringDataConsumer, MonitoringAnnotationConsumer {
+
+        MonitoringDataConsumer dataConsumer;
+        MonitoringAnnotationConsumer annotationConsumer;
+
+        @Override
+        public void accept(CharSequence series, long value) {
+            dataConsumer.accept(series, value);
+        }
+
+        @Override
+        public void accept(CharSequence series, long value, boolean keyed, String[] attrs) {
+            annotationConsumer.accept(series, value, keyed, attrs);
+        }
+    }
+
+    private final class CollectionListener implements ParallelSourceCollector.Listener {
+
+        @Override
+        public void onSuccess(String sourceId) {
+            sourcesFailingBefore.remove(sourceId);
+        }
+
+        @Override
+        public void onFailure(String sourceId, RuntimeException e) {
+            if (!sourcesFailingBefore.contains(sourceId)) {
+                // only long once unless being successful again
+                LOGGER.log(Level.FINE, "Error collecting metrics", e);
+            }
+            failedSources++;
+            sourcesFailingBefore.add(sourceId);
         }
     }
 
@@ -277,73 +713,72 @@ public class InMemorySeriesRepository implements SeriesRepository {
         collectedSecond = (System.currentTimeMillis() / 1000L) * 1000L;
     }
 
-    private void swapLocalBuffer() {
-        Map<Series, SeriesDataset> tmp = secondsRead;
-        secondsRead = secondsWrite;
-        secondsWrite = tmp;
-    }
-
     private void addLocalPoint(CharSequence key, long value) {
-        Series series = seriesOrNull(key);
-        if (series != null) {
-            secondsWrite.compute(series, (s, dataset) -> dataset == null
-                ?  emptySet(s).add(collectedSecond, value, aggregate.get())
-                : dataset.add(collectedSecond, value, aggregate.get()));
+        int id = dictionary.id(key);
+        if (id >= 0) {
+            localSeries.computeIfAbsent(dictionary.series(id), this::newLocalSeriesSlot)
+                .add(collectedSecond, value, aggregate.get());
+            if (loggedTick != null) {
+                loggedTick.add(id, value);
+            }
         }
     }
 
     private void addLocalAnnotation(CharSequence series, long value, boolean keyed, String[] annotations) {
-        Series s = seriesOrNull(series);
+        Series s = dictionary.lookup(series);
         if (s != null) {
             addLocalAnnotation(new SeriesAnnotation(collectedSecond, s, instanceName, value, keyed, annotations));
         }
     }
 
     private void addLocalAnnotation(SeriesAnnotation annotation) {
-        if (annotation.getValue() == 0L && !secondsRead.containsKey(annotation.getSeries())) {
+        if (annotation.getValue() == 0L && !localSeries.containsKey(annotation.getSeries())) {
             addAnnotation(annotation.permanent());
             return;
         }
         addAnnotation(annotation);
     }
 
-    private void addRemoteAnnotation(SeriesAnnotation annotation) {
-        if (annotation.getValue() == 0L
-                && !instanceSetExists(remoteInstanceDatasets.get(annotation.getSeries()), annotation.getInstance())) {
+    private void addRemoteAnnotation(SeriesAnnotation annotation, ColumnarSeriesRepository[] remotes) {
+        Series series = annotation.getSeries();
+        if (annotation.getValue() == 0L && !remotes[windows.policy(series)].contains(series)) {
             addAnnotation(annotation.permanent());
             return;
         }
         addAnnotation(annotation);
     }
 
-    private static boolean instanceSetExists(SeriesDataset[] sets, String instance) {
-        if (sets == null) {
-            return false;
+    private LocalSeriesSlot newLocalSeriesSlot(Series series) {
+        seriesIndex.add(series);
+        int policy = windows.policy(series);
+        if (history != null) {
+            history.requestRestore(series, instanceName);
         }
-        for (SeriesDataset remoteSet : sets) {
-            if (remoteSet.getInstance().equals(instance)) {
-                return true;
-            }
+        return new LocalSeriesSlot(emptySet(series, windows.window(policy)), policy);
+    }
+
+    /**
+     * Must only be called by the collection.
+     */
+    private void restoreLocalHistory(Series series, MinutesDataset restored) {
+        LocalSeriesSlot slot = localSeries.get(series);
+        if (slot != null) {
+            slot.restore(restored);
+            changedLocalSeries.add(series);
         }
-        return false;
     }
 
     private void addAnnotation(SeriesAnnotation annotation) {
-        annotationsBySeries.computeIfAbsent(annotation.getSeries(), //
-                key -> new SeriesAnnotations(MAX_ANNOTATIONS_PER_SERIES)).add(annotation);
+        annotationsBySeries.computeIfAbsent(annotation.getSeries(), this::newSeriesAnnotations).add(annotation);
     }
 
-    static Series seriesOrNull(CharSequence key) {
-        try {
-            return new Series(key.toString());
-        } catch (Exception ex) {
-            LOGGER.log(Level.FINEST, "Failed to create local series: " + key, ex);
-            return null;
-        }
+    private SeriesAnnotations newSeriesAnnotations(Series series) {
+        annotatedSeriesIndex.add(series);
+        return new SeriesAnnotations(MAX_ANNOTATIONS_PER_SERIES);
     }
 
-    private SeriesDataset emptySet(Series series) {
-        return new EmptyDataset(instanceName, series, 60);
+    private SeriesDataset emptySet(Series series, int window) {
+        return new EmptyDataset(instanceName, series, window, MinutesDataset.EMPTY, window >= COMPRESSED_WINDOW);
     }
 
     @Override
@@ -368,15 +803,16 @@ public class InMemorySeriesRepository implements SeriesRepository {
     private List<SeriesAnnotation> selectAnnotationsForPattern(Series pattern, String... instances) {
         List<SeriesAnnotation> matches = new ArrayList<>();
         Set<String> filter = createInstanceFilter(instances);
-        for (Entry<Series, SeriesAnnotations> entry : annotationsBySeries.entrySet()) {
-            if (pattern.matches(entry.getKey())) {
-                for (SeriesAnnotation a : entry.getValue()) {
+        annotatedSeriesIndex.forEachMatching(pattern, series -> {
+            SeriesAnnotations annotations = annotationsBySeries.get(series);
+            if (annotations != null) {
+                for (SeriesAnnotation a : annotations) {
                     if (filter.contains(a.getInstance())) {
                         matches.add(a);
                     }
                 }
             }
-        }
+        });
         return matches;
     }
 
@@ -386,30 +822,33 @@ public class InMemorySeriesRepository implements SeriesRepository {
             return emptyList();
         }
         List<SeriesDataset> res = new ArrayList<>();
-        selectSeries(res, singleton(series), createInstanceFilter(instances));
+        selectSeries(res, singleton(series), createInstanceFilter(instances), publishedSecond);
         return res;
     }
 
     public Set<String> createInstanceFilter(String... instances) {
         return instances == null || instances.length == 0
-                ? this.instances
+                ? this.instances.instances()
                 : new HashSet<>(asList(instances));
     }
 
-    private void selectSeries(List<SeriesDataset> res, Set<Series> seriesSet, Set<String> instanceFilter) {
+    private void selectSeries(List<SeriesDataset> res, Set<Series> seriesSet, Set<String> instanceFilter,
+            long published) {
         for (Series series : seriesSet) {
             if (series.isPattern()) {
-                selectSeries(res, seriesMatchingPattern(series), instanceFilter);
+                selectSeries(res, seriesMatchingPattern(series), instanceFilter, published);
             } else {
-                SeriesDataset localSet = secondsRead.get(series);
-                SeriesDataset[] remoteSets = remoteInstanceDatasets.get(series);
-
+                LocalSeriesSlot localSlot = localSeries.get(series);
+                SeriesDataset localSet = localSlot == null ? null : localSlot.published(published);
                 if (localSet != null && isRelevantSet(localSet, instanceFilter)) {
                     res.add(localSet);
                 }
-                if (remoteSets != null && remoteSets.length > 0) {
-                    for (SeriesDataset remoteSet : remoteSets) {
-                        if (isRelevantSet(remoteSet, instanceFilter)) {
+                int policy = windows.policy(series);
+                for (ColumnarSeriesRepository[] remotes : remoteInstanceRepositories.values()) {
+                    ColumnarSeriesRepository remote = remotes[policy];
+                    if (instanceFilter.contains(remote.getInstance())) {
+                        SeriesDataset remoteSet = remote.select(series);
+                        if (remoteSet != null) {
                             res.add(remoteSet);
                         }
                     }
@@ -424,59 +863,176 @@ public class InMemorySeriesRepository implements SeriesRepository {
 
     private Set<Series> seriesMatchingPattern(Series pattern) {
         Set<Series> matches = new HashSet<>();
-        for (Series candidate : secondsRead.keySet()) {
-            if (pattern.matches(candidate)) {
-                matches.add(candidate);
-            }
-        }
-        for (Series candidate : remoteInstanceDatasets.keySet()) {
-            if (pattern.matches(candidate)) {
-                matches.add(candidate);
-            }
-        }
+        seriesIndex.forEachMatching(pattern, matches::add);
         return matches;
     }
 
     @Override
     public Iterable<SeriesDataset> selectAllSeries() {
-        return secondsRead.values();
+        long published = publishedSecond;
+        List<SeriesDataset> res = new ArrayList<>(localSeries.size());
+        for (LocalSeriesSlot slot : localSeries.values()) {
+            SeriesDataset set = slot.published(published);
+            if (set != null) {
+                res.add(set);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Holds the two most recent {@link SeriesDataset}s of a local {@link Series}.
+     *
+     * The collection always replaces the older of the two datasets unless it adds to the dataset of the current tick
+     * again. That way the dataset of the most recently published tick is not touched while the next tick is collected.
+     * Readers pick the most recent dataset not newer than the published tick.
+     */
+    private final class LocalSeriesSlot {
+
+        final int policy;
+        private volatile SeriesDataset a;
+        private volatile SeriesDataset b;
+
+        LocalSeriesSlot(SeriesDataset initial, int policy) {
+            this.policy = policy;
+            this.a = initial;
+            this.b = initial;
+        }
+
+        /**
+         * Must only be called by the collection.
+         */
+        void add(long time, long value, boolean aggregate) {
+            SeriesDataset a = this.a;
+            SeriesDataset b = this.b;
+            if (a.lastTime() >= b.lastTime()) {
+                if (a.lastTime() == time) {
+                    this.a = add(a, time, value, aggregate);
+                } else {
+                    this.b = add(a, time, value, aggregate);
+                }
+            } else {
+                if (b.lastTime() == time) {
+                    this.b = add(b, time, value, aggregate);
+                } else {
+                    this.a = add(b, time, value, aggregate);
+                }
+            }
+        }
+
+        private SeriesDataset add(SeriesDataset set, long time, long value, boolean aggregate) {
+            SeriesDataset added = set.add(time, value, aggregate);
+            if (added.getObservedValueChanges() != set.getObservedValueChanges()) {
+                changedLocalSeries.add(added.getSeries());
+            }
+            if (history != null) {
+                history.store(added.getSeries(), added.getInstance(), set.getRecentMinutes(),
+                        added.getRecentMinutes());
+            }
+            return added;
+        }
+
+        /**
+         * Continues the restored history with the history recorded since the {@link Series} was first seen. Must only
+         * be called by the collection while no tick is written.
+         */
+        void restore(MinutesDataset restored) {
+            SeriesDataset a = this.a;
+            SeriesDataset b = this.b;
+            if (a.lastTime() >= b.lastTime()) {
+                this.a = a.withRecentMinutes(SeriesHistoryStore.merge(restored, a.getRecentMinutes()));
+            } else {
+                this.b = b.withRecentMinutes(SeriesHistoryStore.merge(restored, b.getRecentMinutes()));
+            }
+        }
+
+        /**
+         * @param published the collection time of the most recently published tick
+         * @return the dataset as of the given published tick or null if the {@link Series} has no points yet
+         */
+        SeriesDataset published(long published) {
+            SeriesDataset a = this.a;
+            SeriesDataset b = this.b;
+            SeriesDataset newer = a.lastTime() >= b.lastTime() ? a : b;
+            SeriesDataset older = newer == a ? b : a;
+            SeriesDataset res = newer.lastTime() <= published ? newer : older;
+            if (res.lastTime() > published && publishedSecond == published) {
+                return null; // only has points in a tick not yet published
+            }
+            return res.size() == 0 ? null : res;
+        }
+
+        int estimatedBytesMemory() {
+            SeriesDataset a = this.a;
+            SeriesDataset b = this.b;
+            return a.lastTime() >= b.lastTime() ? a.estimatedBytesMemory() : b.estimatedBytesMemory();
+        }
     }
 
-    public static final class SeriesDatasetsSnapshot
-            implements Serializable, MonitoringDataConsumer, MonitoringAnnotationConsumer {
+    /**
+     * The data collected by an instance within one tick as sent to the DAS encoded by the {@link SeriesDatasetsCodec}.
+     *
+     * {@link Series} are referred to by their {@link SeriesDictionary} ID. When created by the sender these are the IDs
+     * of the sender's dictionary, when decoded by the receiver these are the IDs of the receiver's dictionary.
+     */
+    public static final class SeriesDatasetsSnapshot implements MonitoringDataConsumer, MonitoringAnnotationConsumer {
 
         final String instance;
         final long time;
         // data
         int numberOfSeries;
-        String[] series;
+        int[] series;
         long[] values;
+        /**
+         * When true the snapshot only contains the changed values. Any {@link Series} that had a value in the previous
+         * snapshot and is not listed in {@link #removed} still has the same value.
+         */
+        boolean delta;
+        int numberOfRemoved;
+        int[] removed = new int[0];
         // annotations
         ArrayList<SeriesAnnotation> annotations;
+        private final SeriesDictionary dictionary;
 
-        SeriesDatasetsSnapshot(String instance, long time, int estimatedNumberOfSeries) {
+        public SeriesDatasetsSnapshot(String instance, long time, int estimatedNumberOfSeries,
+                SeriesDictionary dictionary) {
             this.instance = instance;
             this.time = time;
-            this.series = new String[estimatedNumberOfSeries];
-            this.values = new long[estimatedNumberOfSeries];
+            this.dictionary = dictionary;
+            this.series = new int[Math.max(8, estimatedNumberOfSeries)];
+            this.values = new long[series.length];
         }
 
         @Override
         public void accept(CharSequence series, long value) {
+            int id = dictionary.id(series);
+            if (id >= 0) {
+                add(id, value);
+            }
+        }
+
+        void add(int id, long value) {
             if (numberOfSeries >= this.series.length) {
                 this.series = copyOf(this.series, Math.round(this.series.length * 1.3f));
                 values = copyOf(values, this.series.length);
             }
-            this.series[numberOfSeries] = series.toString();
+            this.series[numberOfSeries] = id;
             values[numberOfSeries++] = value;
         }
 
+        void remove(int id) {
+            if (numberOfRemoved >= removed.length) {
+                removed = copyOf(removed, Math.max(8, removed.length * 2));
+            }
+            removed[numberOfRemoved++] = id;
+        }
+
         @Override
         public void accept(CharSequence series, long value, boolean keyed, String[] attrs) {
             if (this.annotations == null) {
                 this.annotations = new ArrayList<>();
             }
-            Series s = seriesOrNull(series.toString());
+            Series s = dictionary.lookup(series);
             if (s != null) {
                 this.annotations.add(new SeriesAnnotation(time, s, instance, value, keyed, attrs));
             }
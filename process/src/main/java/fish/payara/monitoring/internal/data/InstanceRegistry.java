@@ -0,0 +1,112 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the instances of the cluster and when data was last received from each of them.
+ *
+ * The local instance is always contained. Remote instances are added when data is received from them and removed once
+ * they have not been seen for longer than the grace period so that the data of instances that no longer exist can be
+ * removed.
+ *
+ * @author Jan Bernitt
+ */
+final class InstanceRegistry {
+
+    private final String localInstance;
+    private final Map<String, Long> lastSeenByInstance = new ConcurrentHashMap<>();
+    private final Set<String> instances = unmodifiableSet(lastSeenByInstance.keySet());
+
+    InstanceRegistry(String localInstance) {
+        this.localInstance = localInstance;
+        lastSeenByInstance.put(localInstance, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param instance the instance data was received from
+     * @param time     the time in milliseconds the data was received
+     */
+    void seen(String instance, long time) {
+        if (!localInstance.equals(instance)) {
+            lastSeenByInstance.put(instance, time);
+        }
+    }
+
+    /**
+     * @return a live view of the names of all known instances
+     */
+    Set<String> instances() {
+        return instances;
+    }
+
+    /**
+     * @param instance name of the instance
+     * @return the time in milliseconds data was last received from the instance, -1 if the instance is unknown
+     */
+    long lastSeen(String instance) {
+        Long lastSeen = lastSeenByInstance.get(instance);
+        return lastSeen == null ? -1L : lastSeen.longValue();
+    }
+
+    /**
+     * Removes all remote instances that have not been seen since the given time.
+     *
+     * @param seenBefore time in milliseconds, instances last seen before are removed
+     * @return names of the removed instances
+     */
+    List<String> expire(long seenBefore) {
+        List<String> expired = new ArrayList<>();
+        for (Entry<String, Long> e : lastSeenByInstance.entrySet()) {
+            if (e.getValue() < seenBefore && lastSeenByInstance.remove(e.getKey(), e.getValue())) {
+                expired.add(e.getKey());
+            }
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fish.payara.monitoring.data.MonitoringAnnotationConsumer;
+import fish.payara.monitoring.data.MonitoringDataConsumer;
+import fish.payara.monitoring.model.Series;
+
+/**
+ * Records points and annotations so that they can be replayed to other consumers later. This is used to collect a
+ * source on a worker thread while the actual target consumers are only used by the thread that collects the tick.
+ *
+ * The {@link Series} keys are copied into a single shared character buffer. When replayed they are passed as a
+ * {@link CharSequence} view of that buffer that is reused for each point so that no {@link String} is created per
+ * point. Consumers must not keep a reference to the passed key beyond the call.
+ *
+ * @author Jan Bernitt
+ */
+final class MonitoringDataBuffer implements MonitoringDataConsumer, MonitoringAnnotationConsumer {
+
+    private static final class Annotation {
+
+        final int start;
+        final int end;
+        final long value;
+        final boolean keyed;
+        final String[] attrs;
+
+        Annotation(int start, int end, long value, boolean keyed, String[] attrs) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.keyed = keyed;
+            this.attrs = attrs;
+        }
+    }
+
+    /**
+     * A reusable view of a key in the {@link MonitoringDataBuffer#chars} buffer.
+     */
+    private static final class Key implements CharSequence {
+
+        private char[] chars;
+        private int start;
+        private int end;
+
+        Key set(char[] chars, int start, int end) {
+            this.chars = chars;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(chars, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, end - start);
+        }
+    }
+
+    private int numberOfPoints;
+    /**
+     * The start and end index in {@link #chars} of the key of each point: [start1,end1,start2,end2,...]
+     */
+    private int[] keys = new int[32];
+    private long[] values = new long[16];
+    private char[] chars = new char[512];
+    private int length;
+    private List<Annotation> annotations;
+
+    @Override
+    public void accept(CharSequence series, long value) {
+        if (numberOfPoints == values.length) {
+            keys = copyOf(keys, numberOfPoints * 4);
+            values = copyOf(values, numberOfPoints * 2);
+        }
+        keys[2 * numberOfPoints] = length;
+        keys[2 * numberOfPoints + 1] = append(series);
+        values[numberOfPoints++] = value;
+    }
+
+    @Override
+    public void accept(CharSequence series, long value, boolean keyed, String[] attrs) {
+        if (annotations == null) {
+            annotations = new ArrayList<>();
+        }
+        int start = length;
+        annotations.add(new Annotation(start, append(series), value, keyed, attrs));
+    }
+
+    /**
+     * @return the end index of the appended key
+     */
+    private int append(CharSequence key) {
+        int len = key.length();
+        if (length + len > chars.length) {
+            chars = copyOf(chars, Math.max(length + len, chars.length * 2));
+        }
+        for (int i = 0; i < len; i++) {
+            chars[length++] = key.charAt(i);
+        }
+        return length;
+    }
+
+    /**
+     * Removes all recorded points and annotations so the buffer can be reused while keeping its capacity.
+     */
+    void clear() {
+        numberOfPoints = 0;
+        length = 0;
+        annotations = null;
+    }
+
+    /**
+     * Passes all recorded points and annotations to the given consumers in the order they were recorded.
+     */
+    void replay(MonitoringDataConsumer dataConsumer, MonitoringAnnotationConsumer annotationConsumer) {
+        Key key = new Key();
+        for (int i = 0; i < numberOfPoints; i++) {
+            dataConsumer.accept(key.set(chars, keys[2 * i], keys[2 * i + 1]), values[i]);
+        }
+        if (annotations != null) {
+            for (Annotation a : annotations) {
+                annotationConsumer.accept(key.set(chars, a.start, a.end), a.value, a.keyed, a.attrs);
+            }
+        }
+    }
+}
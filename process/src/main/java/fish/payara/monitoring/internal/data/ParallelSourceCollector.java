@@ -0,0 +1,237 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
+import fish.payara.monitoring.data.ConsumingMonitoringDataCollector;
+import fish.payara.monitoring.data.MonitoringAnnotationConsumer;
+import fish.payara.monitoring.data.MonitoringDataConsumer;
+
+/**
+ * Collects the {@link MonitoringDataSource}s of a tick in parallel using a bounded pool of worker threads.
+ *
+ * Each source class collects into its own {@link MonitoringDataBuffer} that is reused for each tick. Once all
+ * sources are done or the deadline of the tick has passed the buffers of the sources that completed are merged into
+ * the tick in the order the sources were submitted. Sources that did not complete in time are late, their data is discarded. A source that is still running
+ * from a previous tick is not started again but dropped for the tick.
+ *
+ * <h3>Consistency Remarks</h3>
+ *
+ * {@link #submit(Class, String, Consumer)} and
+ * {@link #await(long, MonitoringDataConsumer, MonitoringAnnotationConsumer, Listener)} are called by the single thread
+ * collecting the ticks. The target consumers and the {@link Listener} are only used by that thread. A buffer is only
+ * read, cleared or reused once its {@link Future} is done.
+ *
+ * @author Jan Bernitt
+ */
+final class ParallelSourceCollector {
+
+    /**
+     * Informed about the outcome of each source collection that completed before the deadline.
+     */
+    interface Listener {
+
+        void onSuccess(String sourceId);
+
+        void onFailure(String sourceId, RuntimeException ex);
+    }
+
+    /**
+     * The collection of a source. Each source class has one that is reused for each tick so that the root collector a
+     * source is collected with stays the same and the collectors derived from it by {@link SourceMetadata} are only
+     * created once.
+     */
+    private static final class Collection {
+
+        final Class<?> source;
+        final MonitoringDataBuffer buffer = new MonitoringDataBuffer();
+        final MonitoringDataCollector root = new ConsumingMonitoringDataCollector(buffer, buffer);
+        String sourceId;
+        /**
+         * True while submitted for the current tick and not yet awaited
+         */
+        boolean pending;
+        /**
+         * Set when submitted, a collection that did not complete within the deadline of an earlier tick is not yet
+         * done
+         */
+        Future<?> done;
+
+        Collection(Class<?> source) {
+            this.source = source;
+        }
+
+        boolean isRunning() {
+            return done != null && !done.isDone();
+        }
+    }
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final ExecutorService workers;
+    private final List<Collection> submitted = new ArrayList<>();
+    /**
+     * The collection of each source class. The class is used as key since the source ID is only the simple name which
+     * is not unique. As the {@link ClassValue} is associated with the {@link Class} itself a redeployed source does not
+     * keep the collection of its old class.
+     */
+    private final ClassValue<Collection> bySource = new ClassValue<Collection>() {
+
+        @Override
+        protected Collection computeValue(Class<?> type) {
+            return new Collection(type);
+        }
+    };
+    private int dropped;
+    private int lateCount;
+    private int droppedCount;
+
+    ParallelSourceCollector(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be positive but was: " + workers);
+        }
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(workers * 64), task -> {
+                    Thread t = new Thread(task, "monitoring-collector-" + pool + "-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.workers = executor;
+    }
+
+    /**
+     * Starts the collection of a source for the current tick.
+     *
+     * @param source     the class of the source, a source of a class still running from an earlier tick is dropped
+     * @param sourceId   the ID of the source as reported to the {@link Listener}
+     * @param collection the collection of the source using the provided {@link MonitoringDataCollector}
+     * @return true, if the source was started, false if it was dropped
+     */
+    boolean submit(Class<?> source, String sourceId, Consumer<MonitoringDataCollector> collection) {
+        Collection c = bySource.get(source);
+        if (c.isRunning() && !c.pending) {
+            dropped++;
+            return false;
+        }
+        if (c.pending) {
+            // another instance of the same class in this tick, it cannot share the collection
+            c = new Collection(source);
+        }
+        c.sourceId = sourceId;
+        c.buffer.clear();
+        Collection target = c;
+        try {
+            c.done = workers.submit(() -> collection.accept(target.root));
+        } catch (RejectedExecutionException ex) {
+            dropped++;
+            return false;
+        }
+        c.pending = true;
+        submitted.add(c);
+        return true;
+    }
+
+    /**
+     * Waits for the sources submitted for the current tick to complete and merges the data of those that did complete
+     * into the given consumers.
+     *
+     * @param deadline           the time in milliseconds since epoch until which to wait for sources
+     * @param dataConsumer       target for the points of the completed sources
+     * @param annotationConsumer target for the annotations of the completed sources
+     * @param listener           informed about each completed source
+     */
+    void await(long deadline, MonitoringDataConsumer dataConsumer, MonitoringAnnotationConsumer annotationConsumer,
+            Listener listener) {
+        int late = 0;
+        for (Collection c : submitted) {
+            try {
+                c.done.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                c.buffer.replay(dataConsumer, annotationConsumer);
+                listener.onSuccess(c.sourceId);
+            } catch (TimeoutException ex) {
+                late++;
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                listener.onFailure(c.sourceId, cause instanceof RuntimeException
+                        ? (RuntimeException) cause
+                        : new IllegalStateException(cause));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                late++;
+            }
+            c.pending = false;
+        }
+        submitted.clear();
+        lateCount = late;
+        droppedCount = dropped;
+        dropped = 0;
+    }
+
+    /**
+     * @return the number of sources that did not complete before the deadline of the most recent tick
+     */
+    int getLateCount() {
+        return lateCount;
+    }
+
+    /**
+     * @return the number of sources that were not started in the most recent tick as they were still running
+     */
+    int getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import fish.payara.monitoring.data.SeriesRepository;
+import fish.payara.monitoring.model.Series;
+
+/**
+ * Keeps the {@link Series} with changed values for the most recently published versions of a
+ * {@link SeriesRepository}.
+ *
+ * The version is incremented by {@link #publish(Set)} so that a version and its changes always become visible
+ * together.
+ *
+ * @author Jan Bernitt
+ */
+final class SeriesChanges {
+
+    private Set<?>[] changesByVersion;
+    private long version;
+
+    /**
+     * @param kept number of versions for which the changes are kept
+     */
+    SeriesChanges(int kept) {
+        this.changesByVersion = new Set<?>[kept];
+    }
+
+    /**
+     * Increases the number of versions for which the changes are kept. The changes of already published versions are
+     * kept as well.
+     *
+     * @param kept number of versions for which the changes should be kept, has no effect if this is not more than
+     *             currently kept
+     */
+    synchronized void keep(int kept) {
+        if (kept <= changesByVersion.length) {
+            return;
+        }
+        Set<?>[] resized = new Set<?>[kept];
+        for (long v = Math.max(1L, version - changesByVersion.length + 1); v <= version; v++) {
+            resized[(int) (v % kept)] = changesByVersion[(int) (v % changesByVersion.length)];
+        }
+        changesByVersion = resized;
+    }
+
+    /**
+     * @param changed the {@link Series} that changed in the published tick, the set must no longer be modified
+     * @return the new version
+     */
+    synchronized long publish(Set<Series> changed) {
+        version++;
+        changesByVersion[(int) (version % changesByVersion.length)] = unmodifiableSet(changed);
+        return version;
+    }
+
+    /**
+     * Publishes a version for which the changes are not known so that {@link #since(long)} returns null for any
+     * earlier version.
+     *
+     * @return the new version
+     */
+    synchronized long publishUnknown() {
+        version++;
+        changesByVersion[(int) (version % changesByVersion.length)] = null;
+        return version;
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @see SeriesRepository#changedSince(long)
+     */
+    @SuppressWarnings("unchecked")
+    synchronized Set<Series> since(long since) {
+        if (since < 0 || since > version || version - since > changesByVersion.length) {
+            return null;
+        }
+        if (version - since == 1) {
+            return (Set<Series>) changesByVersion[(int) (version % changesByVersion.length)];
+        }
+        Set<Series> changed = new HashSet<>();
+        for (long v = since + 1; v <= version; v++) {
+            Set<Series> changedInVersion = (Set<Series>) changesByVersion[(int) (v % changesByVersion.length)];
+            if (changedInVersion == null) {
+                return null;
+            }
+            changed.addAll(changedInVersion);
+        }
+        return changed;
+    }
+}
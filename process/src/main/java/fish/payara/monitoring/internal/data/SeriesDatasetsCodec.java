@@ -0,0 +1,624 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.copyOf;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fish.payara.monitoring.internal.data.InMemorySeriesRepository.SeriesDatasetsSnapshot;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesAnnotation;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * A compact versioned binary format for {@link SeriesDatasetsSnapshot}s sent from an instance to the DAS.
+ *
+ * Instead of sending the {@link Series} keys with each message the sender uses the {@link SeriesDictionary} IDs of its
+ * {@link Series}. The key of an ID is only sent the first time the ID is used and in regular keyframes. The receiving
+ * DAS keeps a mapping of the sender's IDs to the IDs of its own {@link SeriesDictionary} for each sending instance.
+ * Should a sender restart its new session ID makes the receiver discard the mapping.
+ *
+ * Values are only sent when they changed since the previous message of the sender. {@link Series} no longer collected
+ * are listed as removed. Every {@link #KEYFRAME_INTERVAL}th message is a keyframe that contains all current values and
+ * definitions so that a receiver that missed messages or started later recovers. Between keyframes the receiver extends
+ * the {@link Series} not included in a message with their previous value. Once a receiver missed a message it can no
+ * longer know which values changed in between. Until the next keyframe it therefore decodes messages as snapshots
+ * that are no {@link SeriesDatasetsSnapshot#delta} so that no value is extended.
+ *
+ * <h3>Format (version 2)</h3>
+ *
+ * <pre>
+ * message     := magic version flags session sequence instance time definitions values removed annotations
+ * magic       := 'M' 'C'
+ * version     := byte (2)
+ * flags       := byte (bit 0: keyframe)
+ * session     := long (8 bytes, big endian)
+ * sequence    := varint
+ * instance    := string
+ * time        := varlong
+ * definitions := varint(count) (varint(id) string(key))*
+ * values      := varint(count) (varint(id - previous id) zigzag(value))*
+ * removed     := varint(count) varint(id - previous id)*
+ * annotations := varint(count) (varint(id) zigzag(time - message time) zigzag(value) byte(keyed) varint(attrs) string*)*
+ * string      := varint(length) UTF-8 bytes
+ * </pre>
+ *
+ * Version 1 had no removed section and encoded the ID differences of the values as zigzag. Messages of another
+ * version are rejected so that instances of different versions in a cluster do not misread each other's messages.
+ *
+ * All counts and IDs are checked against the length of the message and {@link #MAX_ID} before anything is allocated
+ * for them.
+ *
+ * Java serialisation streams start with {@code 0xACED} so that both can be told apart using {@link #isEncoded(byte[])}.
+ *
+ * @author Jan Bernitt
+ */
+public final class SeriesDatasetsCodec {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    private static final byte MAGIC_0 = 'M';
+    private static final byte MAGIC_1 = 'C';
+    private static final byte VERSION = 2;
+    private static final int FLAG_KEYFRAME = 1;
+
+    /**
+     * Every n-th message is a keyframe that contains all values and repeats the definitions of all IDs used in the
+     * message.
+     */
+    static final int KEYFRAME_INTERVAL = 30;
+
+    /**
+     * The largest sender ID accepted, larger IDs are considered malformed
+     */
+    static final int MAX_ID = (1 << 24) - 1;
+
+    private SeriesDatasetsCodec() {
+        throw new UnsupportedOperationException("util");
+    }
+
+    /**
+     * @param message any message as received
+     * @return true, if the message is encoded using this codec, else false
+     */
+    public static boolean isEncoded(byte[] message) {
+        return message.length > 3 && message[0] == MAGIC_0 && message[1] == MAGIC_1;
+    }
+
+    /**
+     * Encodes {@link SeriesDatasetsSnapshot}s of a single sending instance. It remembers which keys and values have
+     * been sent already.
+     *
+     * Not thread-safe, each message must be encoded after the previous one.
+     */
+    public static final class Encoder {
+
+        private final SeriesDictionary dictionary;
+        private final long session;
+        private final BitSet defined = new BitSet();
+        private final Output out = new Output();
+        private int sequence;
+        /**
+         * IDs and values sent as the state of the previous message
+         */
+        private BitSet sent = new BitSet();
+        private long[] sentValues = new long[64];
+        /**
+         * IDs and values of the message currently encoded
+         */
+        private BitSet current = new BitSet();
+        private long[] currentValues = new long[64];
+
+        public Encoder(SeriesDictionary dictionary) {
+            this(dictionary, ThreadLocalRandom.current().nextLong());
+        }
+
+        Encoder(SeriesDictionary dictionary, long session) {
+            this.dictionary = dictionary;
+            this.session = session;
+        }
+
+        public byte[] encode(SeriesDatasetsSnapshot snapshot) {
+            boolean keyframe = sequence % KEYFRAME_INTERVAL == 0;
+            collectCurrent(snapshot);
+            BitSet changed = (BitSet) current.clone();
+            BitSet removed = new BitSet();
+            if (!keyframe) {
+                for (int id = current.nextSetBit(0); id >= 0; id = current.nextSetBit(id + 1)) {
+                    if (sent.get(id) && sentValues[id] == currentValues[id]) {
+                        changed.clear(id);
+                    }
+                }
+                removed.or(sent);
+                removed.andNot(current);
+            }
+            out.reset();
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(VERSION);
+            out.writeByte(keyframe ? FLAG_KEYFRAME : 0);
+            out.writeLong(session);
+            out.writeVarInt(sequence++);
+            out.writeString(snapshot.instance);
+            out.writeVarLong(snapshot.time);
+            List<SeriesAnnotation> annotations = snapshot.annotations;
+            int[] annotationIds = annotationIds(annotations);
+            writeDefinitions(changed, annotationIds, keyframe);
+            out.writeVarInt(changed.cardinality());
+            int previousId = 0;
+            for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+                out.writeVarInt(id - previousId);
+                out.writeZigZag(currentValues[id]);
+                sentValues[id] = currentValues[id];
+                previousId = id;
+            }
+            out.writeVarInt(removed.cardinality());
+            previousId = 0;
+            for (int id = removed.nextSetBit(0); id >= 0; id = removed.nextSetBit(id + 1)) {
+                out.writeVarInt(id - previousId);
+                previousId = id;
+            }
+            out.writeVarInt(annotationIds.length);
+            for (int i = 0; i < annotationIds.length; i++) {
+                SeriesAnnotation a = annotations.get(i);
+                out.writeVarInt(annotationIds[i]);
+                out.writeZigZag(a.getTime() - snapshot.time);
+                out.writeZigZag(a.getValue());
+                out.writeByte(a.isKeyed() ? 1 : 0);
+                out.writeVarInt(a.getAttriuteCount() * 2);
+                a.forEach(attr -> {
+                    out.writeString(attr.getKey());
+                    out.writeString(attr.getValue());
+                });
+            }
+            BitSet previous = sent;
+            sent = current;
+            current = previous;
+            return out.toByteArray();
+        }
+
+        /**
+         * Fills {@link #current} and {@link #currentValues} with the values of the snapshot. Should the same
+         * {@link Series} occur more than once their values are added.
+         */
+        private void collectCurrent(SeriesDatasetsSnapshot snapshot) {
+            current.clear();
+            for (int i = 0; i < snapshot.numberOfSeries; i++) {
+                int id = snapshot.series[i];
+                if (id >= currentValues.length) {
+                    int capacity = Math.max(id + 1, currentValues.length * 2);
+                    currentValues = copyOf(currentValues, capacity);
+                    sentValues = copyOf(sentValues, capacity);
+                }
+                if (current.get(id)) {
+                    currentValues[id] += snapshot.values[i];
+                } else {
+                    current.set(id);
+                    currentValues[id] = snapshot.values[i];
+                }
+            }
+        }
+
+        private int[] annotationIds(List<SeriesAnnotation> annotations) {
+            if (annotations == null) {
+                return new int[0];
+            }
+            int[] ids = new int[annotations.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = dictionary.id(annotations.get(i).getSeries());
+            }
+            return ids;
+        }
+
+        private void writeDefinitions(BitSet ids, int[] annotationIds, boolean keyframe) {
+            BitSet undefined = (BitSet) ids.clone();
+            if (!keyframe) {
+                undefined.andNot(defined);
+            }
+            for (int id : annotationIds) {
+                if (keyframe || !defined.get(id)) {
+                    undefined.set(id);
+                }
+            }
+            out.writeVarInt(undefined.cardinality());
+            for (int id = undefined.nextSetBit(0); id >= 0; id = undefined.nextSetBit(id + 1)) {
+                out.writeVarInt(id);
+                out.writeString(dictionary.series(id).toString());
+            }
+            defined.or(undefined);
+        }
+    }
+
+    /**
+     * Decodes messages encoded by {@link Encoder}s of any number of sending instances. For each instance the mapping
+     * from the sender's IDs to the receiver's IDs is remembered.
+     *
+     * Messages of the same instance must be decoded one after the other.
+     */
+    public static final class Decoder {
+
+        /**
+         * The state of the connection to a single sending instance.
+         */
+        private static final class Session {
+
+            final long id;
+            int sequence = -1;
+            /**
+             * True when a message was missed since the last keyframe
+             */
+            boolean desynced;
+            /**
+             * Index is the ID of the sender, value is ID of the receiver +1 (so that zero is unknown)
+             */
+            int[] localIds = new int[64];
+
+            Session(long id) {
+                this.id = id;
+            }
+
+            void define(int remoteId, int localId) {
+                if (remoteId >= localIds.length) {
+                    localIds = copyOf(localIds, Math.max(remoteId + 1, localIds.length * 2));
+                }
+                localIds[remoteId] = localId + 1;
+            }
+
+            int localId(int remoteId) {
+                return remoteId >= 0 && remoteId < localIds.length ? localIds[remoteId] - 1 : -1;
+            }
+        }
+
+        private final SeriesDictionary dictionary;
+        private final Map<String, Session> sessionsByInstance = new ConcurrentHashMap<>();
+        private final ReadWriteLock removing = new ReentrantReadWriteLock();
+
+        public Decoder(SeriesDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * @param message a message as created by {@link Encoder#encode(SeriesDatasetsSnapshot)}
+         * @return the decoded {@link SeriesDatasetsSnapshot} using the IDs of the receiver's {@link SeriesDictionary}.
+         *         Values and annotations for IDs whose definition was not received are dropped. Unless the message
+         *         is a keyframe or a previous message of the sender was missed since its last keyframe the snapshot
+         *         is a {@link SeriesDatasetsSnapshot#delta}.
+         * @throws IllegalArgumentException in case the message is not encoded by this codec or malformed
+         */
+        public SeriesDatasetsSnapshot decode(byte[] message) {
+            if (!isEncoded(message)) {
+                throw new IllegalArgumentException("Not an encoded series datasets message");
+            }
+            if (message[2] != VERSION) {
+                throw new IllegalArgumentException("Unsupported message version: " + message[2]);
+            }
+            removing.readLock().lock();
+            try {
+                return decode(new Input(message, 3));
+            } catch (IndexOutOfBoundsException ex) {
+                throw new IllegalArgumentException("Malformed series datasets message", ex);
+            } finally {
+                removing.readLock().unlock();
+            }
+        }
+
+        private SeriesDatasetsSnapshot decode(Input in) {
+            boolean keyframe = (in.readByte() & FLAG_KEYFRAME) != 0;
+            long sessionId = in.readLong();
+            int sequence = in.readVarInt();
+            String instance = in.readString();
+            long time = in.readVarLong();
+            Session session = session(instance, sessionId, sequence, keyframe);
+            int definitions = in.readCount(2);
+            for (int i = 0; i < definitions; i++) {
+                int remoteId = readId(in.readVarInt());
+                int localId = dictionary.id(in.readString());
+                if (localId >= 0) {
+                    session.define(remoteId, localId);
+                }
+            }
+            int numberOfSeries = in.readCount(2);
+            SeriesDatasetsSnapshot snapshot = new SeriesDatasetsSnapshot(instance, time, numberOfSeries, dictionary);
+            snapshot.delta = !keyframe && !session.desynced;
+            int remoteId = 0;
+            int unknown = 0;
+            for (int i = 0; i < numberOfSeries; i++) {
+                remoteId = readId(remoteId + in.readVarInt());
+                long value = in.readZigZag();
+                int localId = session.localId(remoteId);
+                if (localId >= 0) {
+                    snapshot.add(localId, value);
+                } else {
+                    unknown++;
+                }
+            }
+            int numberOfRemoved = in.readCount(1);
+            remoteId = 0;
+            for (int i = 0; i < numberOfRemoved; i++) {
+                remoteId = readId(remoteId + in.readVarInt());
+                int localId = session.localId(remoteId);
+                if (localId >= 0) {
+                    snapshot.remove(localId);
+                }
+            }
+            int numberOfAnnotations = in.readCount(5);
+            if (numberOfAnnotations > 0) {
+                snapshot.annotations = new ArrayList<>(numberOfAnnotations);
+            }
+            for (int i = 0; i < numberOfAnnotations; i++) {
+                int localId = session.localId(readId(in.readVarInt()));
+                long annotationTime = time + in.readZigZag();
+                long value = in.readZigZag();
+                boolean keyed = in.readByte() != 0;
+                String[] attrs = new String[in.readCount(1)];
+                for (int j = 0; j < attrs.length; j++) {
+                    attrs[j] = in.readString();
+                }
+                if (localId >= 0) {
+                    Series series = dictionary.series(localId);
+                    snapshot.annotations.add(new SeriesAnnotation(annotationTime, series, instance, value, keyed, attrs));
+                } else {
+                    unknown++;
+                }
+            }
+            if (unknown > 0) {
+                LOGGER.log(Level.FINE, "Dropped {0} values of instance {1} for series not yet defined",
+                        new Object[] { unknown, instance });
+            }
+            return snapshot;
+        }
+
+        private static int readId(int id) {
+            if (id < 0 || id > MAX_ID) {
+                throw new IllegalArgumentException("Malformed series ID: " + id);
+            }
+            return id;
+        }
+
+        /**
+         * Forgets the session of an instance that no longer sends messages. Should the instance send again decoding
+         * continues with its next keyframe.
+         *
+         * @param instance the instance to forget
+         */
+        public void forget(String instance) {
+            sessionsByInstance.remove(instance);
+        }
+
+        /**
+         * @return the instances there is a session for
+         */
+        Set<String> instances() {
+            return sessionsByInstance.keySet();
+        }
+
+        /**
+         * Removes the given {@link Series} from the receiver's {@link SeriesDictionary} unless their IDs are defined by
+         * any session. Messages are not decoded while {@link Series} are removed so that an ID is either defined by a
+         * session or the {@link Series} gets a new ID when it is defined again.
+         *
+         * @param unused the {@link Series} no longer used by the receiver
+         * @return the number of {@link Series} removed from the {@link SeriesDictionary}
+         */
+        public int removeUndefined(Collection<Series> unused) {
+            removing.writeLock().lock();
+            try {
+                BitSet defined = new BitSet();
+                for (Session session : sessionsByInstance.values()) {
+                    for (int localId : session.localIds) {
+                        if (localId > 0) {
+                            defined.set(localId - 1);
+                        }
+                    }
+                }
+                List<Series> undefined = new ArrayList<>();
+                for (Series series : unused) {
+                    int id = dictionary.id(series);
+                    if (id >= 0 && !defined.get(id)) {
+                        undefined.add(series);
+                    }
+                }
+                return dictionary.remove(undefined);
+            } finally {
+                removing.writeLock().unlock();
+            }
+        }
+
+        private Session session(String instance, long sessionId, int sequence, boolean keyframe) {
+            Session session = sessionsByInstance.get(instance);
+            if (session == null || session.id != sessionId) {
+                session = new Session(sessionId);
+                sessionsByInstance.put(instance, session);
+                session.desynced = !keyframe;
+            } else if (sequence != session.sequence + 1 && !keyframe) {
+                LOGGER.log(Level.FINE, "Missed messages of instance {0} between sequence {1} and {2}",
+                        new Object[] { instance, session.sequence, sequence });
+                session.desynced = true;
+            }
+            if (keyframe) {
+                session.desynced = false;
+            }
+            session.sequence = sequence;
+            return session;
+        }
+    }
+
+    /**
+     * A growable byte buffer with methods to write the primitive encodings used.
+     */
+    static final class Output {
+
+        private byte[] buf = new byte[1024];
+        private int pos;
+
+        void reset() {
+            pos = 0;
+        }
+
+        byte[] toByteArray() {
+            return copyOf(buf, pos);
+        }
+
+        void writeByte(int b) {
+            if (pos == buf.length) {
+                buf = copyOf(buf, buf.length * 2);
+            }
+            buf[pos++] = (byte) b;
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0L) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String str) {
+            byte[] bytes = str.getBytes(UTF_8);
+            writeVarInt(bytes.length);
+            if (pos + bytes.length > buf.length) {
+                buf = copyOf(buf, Math.max(pos + bytes.length, buf.length * 2));
+            }
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+    }
+
+    /**
+     * Reads the primitive encodings written by {@link Output}.
+     */
+    static final class Input {
+
+        private final byte[] buf;
+        private int pos;
+
+        Input(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int readByte() {
+            return buf[pos++] & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0L;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        int readVarInt() {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Malformed varint: " + value);
+            }
+            return (int) value;
+        }
+
+        long readVarLong() {
+            long value = 0L;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varlong");
+        }
+
+        /**
+         * @param minBytesPerEntry the minimum number of bytes each of the counted entries occupies
+         * @return a count that is possible given the remaining length of the message
+         */
+        int readCount(int minBytesPerEntry) {
+            int count = readVarInt();
+            if (count > (buf.length - pos) / minBytesPerEntry) {
+                throw new IllegalArgumentException("Malformed count: " + count);
+            }
+            return count;
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1L);
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length > buf.length - pos) {
+                throw new IllegalArgumentException("Malformed string length: " + length);
+            }
+            String str = new String(buf, pos, length, UTF_8);
+            pos += length;
+            return str;
+        }
+    }
+}
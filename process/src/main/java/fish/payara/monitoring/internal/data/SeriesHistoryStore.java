@@ -0,0 +1,796 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.copyOf;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fish.payara.monitoring.model.AggregateDataset;
+import fish.payara.monitoring.model.DaysDataset;
+import fish.payara.monitoring.model.HoursDataset;
+import fish.payara.monitoring.model.MinutesDataset;
+import fish.payara.monitoring.model.Series;
+
+/**
+ * Persists the {@link MinutesDataset}, {@link HoursDataset} and {@link DaysDataset} history of {@link Series} so that
+ * it survives a restart of the instance.
+ *
+ * Each {@link Series} of an instance has its own directory containing append-only segment files for each resolution.
+ * A segment covers a fixed time-span (a day of minutes, 30 days of hours, 360 days of days) and is named by its start
+ * time, for example {@code minutes-1600000000000.seg}. A segment starts with a header of a magic number and the number
+ * of entries followed by entries of fixed length: time, number of points, minimum, maximum and average. The number of
+ * entries is updated after an entry is written so a partially written entry is never read.
+ *
+ * Entries are {@link #store(Series, String, MinutesDataset, MinutesDataset)}d to a bounded queue. A single writer
+ * thread takes all queued entries and writes them using positional writes to the segment files. Thereby the threads
+ * collecting or receiving data never wait for the disk, also not when all {@link Series} start new segments at the
+ * same time. Should the writer fall behind so that the queue is full entries are dropped. The writer keeps a bounded
+ * number of segments open and closes segments that were not written for a while.
+ *
+ * Segments ending before the retention period are deleted by {@link #prune(long)} and whenever a series starts a new
+ * segment.
+ *
+ * When a {@link Series} is restored only the entries within the window of the respective dataset are read from the
+ * most recent segments. Restores are {@link #requestRestore(Series, String)}ed when a {@link Series} is first seen and
+ * done by the writer thread between batches so that the threads collecting or receiving data do not open files either.
+ * The restored history is then {@link #merge(MinutesDataset, MinutesDataset)}d with the history recorded meanwhile by
+ * the thread owning the dataset, see {@link #restored(String, BiConsumer)}.
+ *
+ * @author Jan Bernitt
+ */
+public final class SeriesHistoryStore {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    private static final int MAGIC = 0x4d434853; // MCHS
+    private static final int HEADER_BYTES = 8;
+    private static final int ENTRY_BYTES = 36;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MAX_NAME_LENGTH = 200;
+    /**
+     * Segments that were not written for this time in the most recent batch are closed
+     */
+    private static final long IDLE_MILLIS = Duration.ofMinutes(2).toMillis();
+    /**
+     * Maximum number of {@link Series} restored between two batches so that writing does not fall behind
+     */
+    private static final int RESTORES_PER_BATCH = 64;
+
+    /**
+     * The resolutions stored, the window is the number of entries in the respective dataset.
+     */
+    enum Resolution {
+        MINUTES(Duration.ofMinutes(1), Duration.ofDays(1), 60),
+        HOURS(Duration.ofHours(1), Duration.ofDays(30), 24),
+        DAYS(Duration.ofDays(1), Duration.ofDays(360), 31);
+
+        final String prefix;
+        final long interval;
+        final long segmentLength;
+        final int window;
+
+        Resolution(Duration interval, Duration segmentLength, int window) {
+            this.prefix = name().toLowerCase() + "-";
+            this.interval = interval.toMillis();
+            this.segmentLength = segmentLength.toMillis();
+            this.window = window;
+        }
+
+        int capacity() {
+            return (int) (segmentLength / interval);
+        }
+
+        long segmentStart(long time) {
+            return time - Math.floorMod(time, segmentLength);
+        }
+    }
+
+    /**
+     * The most recent entry of a resolution waiting to be written.
+     */
+    static final class Entry {
+
+        final Series series;
+        final String instance;
+        final Resolution resolution;
+        final long time;
+        final int points;
+        final long min;
+        final long max;
+        final double avg;
+
+        Entry(Series series, String instance, Resolution resolution, AggregateDataset<?> data) {
+            int index = data.lastIndex();
+            this.series = series;
+            this.instance = instance;
+            this.resolution = resolution;
+            this.time = data.getTime(index);
+            this.points = data.getNumberOfPoints(index);
+            this.min = data.getMinimum(index);
+            this.max = data.getMaximum(index);
+            this.avg = data.getAverage(index);
+        }
+    }
+
+    /**
+     * A requested restore, once done it has the restored history.
+     */
+    private static final class Restore {
+
+        final Series series;
+        final String instance;
+        final long time;
+        MinutesDataset restored;
+
+        Restore(Series series, String instance, long time) {
+            this.series = series;
+            this.instance = instance;
+            this.time = time;
+        }
+    }
+
+    /**
+     * An open segment that is appended to.
+     */
+    private static final class Segment {
+
+        final int capacity;
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocate(ENTRY_BYTES);
+        int count;
+        long lastTime;
+        long lastWritten;
+
+        Segment(Path file, int capacity) throws IOException {
+            this.capacity = capacity;
+            this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+            try {
+                long size = channel.size();
+                int n = size < HEADER_BYTES ? 0 : readFully(channel, buffer, 0, HEADER_BYTES).getInt(4);
+                if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC || n < 0 || n > capacity
+                        || size < position(n)) {
+                    if (size > 0) {
+                        LOGGER.log(Level.WARNING, "Discarding corrupt monitoring history segment {0}", file);
+                    }
+                    buffer.clear();
+                    buffer.putInt(MAGIC).putInt(0).flip();
+                    writeFully(channel, buffer, 0);
+                    n = 0;
+                }
+                this.count = n;
+                this.lastTime = n == 0 ? -1L : readFully(channel, buffer, position(n - 1), 8).getLong(0);
+            } catch (IOException | RuntimeException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+
+        void append(Entry entry) throws IOException {
+            if (entry.time < lastTime) {
+                return;
+            }
+            int index = entry.time == lastTime ? count - 1 : count;
+            if (index >= capacity) {
+                return;
+            }
+            buffer.clear();
+            buffer.putLong(entry.time).putInt(entry.points).putLong(entry.min).putLong(entry.max)
+                .putDouble(entry.avg).flip();
+            writeFully(channel, buffer, position(index));
+            if (index == count) {
+                count++;
+                buffer.clear();
+                buffer.putInt(count).flip();
+                writeFully(channel, buffer, 4);
+            }
+            lastTime = entry.time;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Failed to close monitoring history segment", ex);
+            }
+        }
+    }
+
+    /**
+     * Entries read from segments in chronological order.
+     */
+    private static final class Entries {
+
+        long[] times = new long[0];
+        int[] points = new int[0];
+        long[] mins = new long[0];
+        long[] maxs = new long[0];
+        double[] avgs = new double[0];
+        int size;
+
+        void add(ByteBuffer buffer, int pos) {
+            if (size == times.length) {
+                int capacity = Math.max(8, size * 2);
+                times = copyOf(times, capacity);
+                points = copyOf(points, capacity);
+                mins = copyOf(mins, capacity);
+                maxs = copyOf(maxs, capacity);
+                avgs = copyOf(avgs, capacity);
+            }
+            times[size] = buffer.getLong(pos);
+            points[size] = buffer.getInt(pos + 8);
+            mins[size] = buffer.getLong(pos + 12);
+            maxs[size] = buffer.getLong(pos + 20);
+            avgs[size++] = buffer.getDouble(pos + 28);
+        }
+    }
+
+    private final Path directory;
+    private final long retentionMillis;
+    private final int maxOpenSegments;
+    private final BlockingQueue<Entry> queue;
+    private final AtomicInteger droppedCount = new AtomicInteger();
+    private final Queue<String> closed = new ConcurrentLinkedQueue<>();
+    private final Queue<Restore> restoring = new ConcurrentLinkedQueue<>();
+    /**
+     * The restores done that have history by instance
+     */
+    private final Map<String, Queue<Restore>> restoredByInstance = new ConcurrentHashMap<>();
+
+    // writer thread state
+    /**
+     * The open segments by file in order of their most recent use
+     */
+    private final Map<Path, Segment> segments = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean failing;
+    private Thread writer;
+
+    /**
+     * @param directory       the root directory of the history, created when missing
+     * @param retention       the duration for which history is kept
+     * @param queueSize       the maximum number of entries waiting to be written
+     * @param maxOpenSegments the maximum number of segments kept open by the writer
+     */
+    public SeriesHistoryStore(Path directory, Duration retention, int queueSize, int maxOpenSegments) {
+        if (retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("Retention must be positive but was: " + retention);
+        }
+        if (maxOpenSegments <= 0) {
+            throw new IllegalArgumentException("Maximum open segments must be positive but was: " + maxOpenSegments);
+        }
+        this.directory = directory;
+        this.retentionMillis = retention.toMillis();
+        this.maxOpenSegments = maxOpenSegments;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of entries dropped since the store was created because the writer did fall behind
+     */
+    public int getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of segments currently kept open by the writer
+     */
+    int getOpenSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Starts the writer thread. Should be called after the store was {@link #prune(long)}d.
+     */
+    public synchronized void start() {
+        if (writer == null) {
+            writer = new Thread(this::write, "monitoring-history-store");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Queues the entries that got added to the history of a {@link Series} in the transition from one
+     * {@link MinutesDataset} to another to be written. This never blocks.
+     *
+     * @param series   the {@link Series} the history belongs to
+     * @param instance the instance the history belongs to
+     * @param before   the history before a point was added
+     * @param after    the history after a point was added
+     */
+    public void store(Series series, String instance, MinutesDataset before, MinutesDataset after) {
+        if (after == before || after.isEmpty()) {
+            return;
+        }
+        offer(new Entry(series, instance, Resolution.MINUTES, after));
+        HoursDataset hours = after.getRecentHours();
+        if (hours != before.getRecentHours() && !hours.isEmpty()) {
+            offer(new Entry(series, instance, Resolution.HOURS, hours));
+            DaysDataset days = hours.getRecentDays();
+            if (days != before.getRecentHours().getRecentDays() && !days.isEmpty()) {
+                offer(new Entry(series, instance, Resolution.DAYS, days));
+            }
+        }
+    }
+
+    /**
+     * Closes the segments of an instance that no longer sends data. This never blocks, the segments are closed by the
+     * writer thread after its current batch. The history of the instance is kept until it is pruned.
+     *
+     * @param instance the instance to close
+     */
+    public void close(String instance) {
+        closed.add(instance);
+        restoredByInstance.remove(instance);
+    }
+
+    /**
+     * Queues the restore of the history of a {@link Series} that was seen for the first time. This never blocks. The
+     * restore is done by the writer thread. The restored history is available from
+     * {@link #restored(String, BiConsumer)} afterwards unless there was no history.
+     *
+     * @param series   the {@link Series} to restore
+     * @param instance the instance to restore
+     */
+    public void requestRestore(Series series, String instance) {
+        requestRestore(series, instance, System.currentTimeMillis());
+    }
+
+    void requestRestore(Series series, String instance, long now) {
+        restoring.add(new Restore(series, instance, now));
+    }
+
+    /**
+     * Passes the history restored for {@link Series} of the given instance since the previous call to the given
+     * consumer. The consumer is called by the calling thread.
+     *
+     * @param instance the instance whose restored history to merge
+     * @param merge    called with each restored {@link Series} and its history, use
+     *                 {@link #merge(MinutesDataset, MinutesDataset)} to continue the history recorded since the
+     *                 restore was requested
+     */
+    public void restored(String instance, BiConsumer<Series, MinutesDataset> merge) {
+        Queue<Restore> restored = restoredByInstance.get(instance);
+        if (restored != null) {
+            for (Restore r = restored.poll(); r != null; r = restored.poll()) {
+                merge.accept(r.series, r.restored);
+            }
+        }
+    }
+
+    /**
+     * @param restored the history restored from disk
+     * @param recorded the history recorded since the restore was requested
+     * @return the restored history continued with the entries of the recorded history that are after it
+     */
+    static MinutesDataset merge(MinutesDataset restored, MinutesDataset recorded) {
+        HoursDataset restoredHours = restored.getRecentHours();
+        HoursDataset recordedHours = recorded.getRecentHours();
+        DaysDataset restoredDays = restoredHours.getRecentDays();
+        DaysDataset days = append(restoredDays, recordedHours.getRecentDays(), restoredHours, DaysDataset::restore);
+        HoursDataset hours = append(HoursDataset.restore(days), restoredHours, HoursDataset.EMPTY,
+                HoursDataset::restore);
+        hours = append(hours, recordedHours, restored, HoursDataset::restore);
+        MinutesDataset minutes = append(MinutesDataset.restore(hours), restored, MinutesDataset.EMPTY,
+                MinutesDataset::restore);
+        return append(minutes, recorded, MinutesDataset.EMPTY, MinutesDataset::restore);
+    }
+
+    /**
+     * Restores an entry of an {@link AggregateDataset}
+     */
+    @FunctionalInterface
+    private interface EntryRestore<T extends AggregateDataset<T>> {
+
+        T restore(T data, long time, int points, long min, long max, double avg);
+    }
+
+    /**
+     * @param details entries restored with a finer interval that were not yet aggregated into the given dataset, the
+     *                recorded entries do not include them as recording started in the middle of their interval
+     * @return the given dataset continued with the entries of the given source that are after its last entry
+     */
+    private static <T extends AggregateDataset<T>> T append(T data, AggregateDataset<?> source,
+            AggregateDataset<?> details, EntryRestore<T> restore) {
+        if (source.isEmpty()) {
+            return data;
+        }
+        long interval = source.getIntervalLength();
+        for (int index = source.firstIndex(); index <= source.lastIndex(); index++) {
+            long time = source.getTime(index);
+            int points = source.getNumberOfPoints(index);
+            if (points > 0 && (data.isEmpty() || time > data.lastTime())) {
+                long min = source.getMinimum(index);
+                long max = source.getMaximum(index);
+                double sum = source.getAverage(index) * points;
+                for (int i = details.isEmpty() ? 0 : details.firstIndex(); i <= details.lastIndex(); i++) {
+                    long detailTime = details.getTime(i);
+                    int detailPoints = details.getNumberOfPoints(i);
+                    if (detailPoints > 0 && detailTime >= time && detailTime < time + interval) {
+                        points += detailPoints;
+                        min = Math.min(min, details.getMinimum(i));
+                        max = Math.max(max, details.getMaximum(i));
+                        sum += details.getAverage(i) * detailPoints;
+                    }
+                }
+                data = restore.restore(data, time, points, min, max, sum / points);
+            }
+        }
+        return data;
+    }
+
+    private void offer(Entry entry) {
+        if (!queue.offer(entry)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void write() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                // wake up regularly to do requested restores
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            restore(RESTORES_PER_BATCH);
+            queue.drainTo(batch);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Does all requested restores and writes all queued entries on the calling thread. Must not be used once the
+     * writer thread is {@link #start()}ed.
+     */
+    void flush() {
+        restore(Integer.MAX_VALUE);
+        List<Entry> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        write(batch);
+    }
+
+    private void restore(int max) {
+        for (int i = 0; i < max; i++) {
+            Restore r = restoring.poll();
+            if (r == null) {
+                return;
+            }
+            r.restored = restore(r.series, r.instance, r.time);
+            if (r.restored != MinutesDataset.EMPTY) {
+                restoredByInstance.computeIfAbsent(r.instance, key -> new ConcurrentLinkedQueue<>()).add(r);
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of entries and closes the segments that were not written for a while. Failures are logged but
+     * not propagated.
+     */
+    private void write(List<Entry> batch) {
+        long now = -1L;
+        for (Entry entry : batch) {
+            now = Math.max(now, entry.time);
+        }
+        for (Entry entry : batch) {
+            Path file = null;
+            try {
+                Path dir = directory(entry.series, entry.instance);
+                file = dir.resolve(entry.resolution.prefix + entry.resolution.segmentStart(entry.time)
+                        + SEGMENT_SUFFIX);
+                Segment segment = segment(dir, file, entry.resolution, entry.time);
+                segment.append(entry);
+                segment.lastWritten = now;
+                failing = false;
+            } catch (IOException | RuntimeException ex) {
+                if (!failing) {
+                    // only log once unless being successful again
+                    LOGGER.log(Level.WARNING, "Failed to store monitoring history of " + entry.series, ex);
+                }
+                failing = true;
+                Segment segment = file == null ? null : segments.remove(file);
+                if (segment != null) {
+                    segment.close();
+                }
+            }
+        }
+        Iterator<Map.Entry<Path, Segment>> iter = segments.entrySet().iterator();
+        while (iter.hasNext()) {
+            Segment segment = iter.next().getValue();
+            if (segment.lastWritten < now - IDLE_MILLIS) {
+                segment.close();
+                iter.remove();
+            }
+        }
+        for (String instance = closed.poll(); instance != null; instance = closed.poll()) {
+            Path dir = directory.resolve(fileName(instance));
+            iter = segments.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<Path, Segment> segment = iter.next();
+                if (segment.getKey().startsWith(dir)) {
+                    segment.getValue().close();
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    private Segment segment(Path dir, Path file, Resolution resolution, long time) throws IOException {
+        Segment segment = segments.get(file);
+        if (segment != null) {
+            return segment;
+        }
+        boolean created = !Files.exists(file);
+        if (created) {
+            Files.createDirectories(dir);
+        }
+        segment = new Segment(file, resolution.capacity());
+        if (segments.size() >= maxOpenSegments) {
+            Iterator<Segment> leastRecentlyUsed = segments.values().iterator();
+            leastRecentlyUsed.next().close();
+            leastRecentlyUsed.remove();
+        }
+        segments.put(file, segment);
+        if (created) {
+            prune(dir, resolution, time);
+        }
+        return segment;
+    }
+
+    /**
+     * @param series   the {@link Series} to restore
+     * @param instance the instance to restore
+     * @param now      the current time
+     * @return the history of the {@link Series} as far as it is within the window of the datasets at the given time,
+     *         {@link MinutesDataset#EMPTY} if there is no such history or it could not be read
+     */
+    MinutesDataset restore(Series series, String instance, long now) {
+        Path dir = directory(series, instance);
+        if (!Files.isDirectory(dir)) {
+            return MinutesDataset.EMPTY;
+        }
+        try {
+            DaysDataset days = DaysDataset.EMPTY;
+            Entries entries = read(dir, Resolution.DAYS, now);
+            for (int i = 0; i < entries.size; i++) {
+                days = days.restore(entries.times[i], entries.points[i], entries.mins[i], entries.maxs[i],
+                        entries.avgs[i]);
+            }
+            HoursDataset hours = HoursDataset.restore(days);
+            entries = read(dir, Resolution.HOURS, now);
+            for (int i = 0; i < entries.size; i++) {
+                hours = hours.restore(entries.times[i], entries.points[i], entries.mins[i], entries.maxs[i],
+                        entries.avgs[i]);
+            }
+            MinutesDataset minutes = MinutesDataset.restore(hours);
+            entries = read(dir, Resolution.MINUTES, now);
+            for (int i = 0; i < entries.size; i++) {
+                minutes = minutes.restore(entries.times[i], entries.points[i], entries.mins[i],
+                        entries.maxs[i], entries.avgs[i]);
+            }
+            return minutes;
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed to restore monitoring history of " + series, ex);
+            return MinutesDataset.EMPTY;
+        }
+    }
+
+    /**
+     * Reads the entries within the window of the given resolution at the given time. As there is at most one entry per
+     * interval only the last entries of a segment that can be within the window are read. Entries of intervals that did
+     * not end before the given time might already be recorded since the restore was requested and are not read.
+     */
+    private static Entries read(Path dir, Resolution resolution, long now) throws IOException {
+        long since = now - resolution.window * resolution.interval;
+        Entries entries = new Entries();
+        long lastTime = -1L;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        for (long start : segmentStarts(dir, resolution)) {
+            if (start + resolution.segmentLength <= since || start > now) {
+                continue;
+            }
+            Path file = dir.resolve(resolution.prefix + start + SEGMENT_SUFFIX);
+            try (FileChannel channel = FileChannel.open(file, READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES || readFully(channel, header, 0, HEADER_BYTES).getInt(0) != MAGIC) {
+                    continue;
+                }
+                int count = (int) Math.min(header.getInt(4), (size - HEADER_BYTES) / ENTRY_BYTES);
+                int from = Math.max(0, count - resolution.window - 1);
+                if (count <= from) {
+                    continue;
+                }
+                int length = (count - from) * ENTRY_BYTES;
+                ByteBuffer buffer = readFully(channel, ByteBuffer.allocate(length), position(from), length);
+                for (int pos = 0; pos < length; pos += ENTRY_BYTES) {
+                    long time = buffer.getLong(pos);
+                    if (time >= since && time > lastTime && time + resolution.interval <= now) {
+                        entries.add(buffer, pos);
+                        lastTime = time;
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Deletes all segments that ended before the retention period. Should be called before the writer thread is
+     * {@link #start()}ed as the writer itself prunes the segments of a {@link Series} whenever it starts a new
+     * segment.
+     *
+     * @param now the current time
+     */
+    public void prune(long now) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> instances = Files.newDirectoryStream(directory)) {
+            for (Path instance : instances) {
+                if (Files.isDirectory(instance)) {
+                    try (DirectoryStream<Path> series = Files.newDirectoryStream(instance)) {
+                        for (Path dir : series) {
+                            pruneSeries(dir, now);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed to prune monitoring history", ex);
+        }
+    }
+
+    private void pruneSeries(Path dir, long now) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        for (Resolution resolution : Resolution.values()) {
+            prune(dir, resolution, now);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            if (files.iterator().hasNext()) {
+                return;
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private void prune(Path dir, Resolution resolution, long now) throws IOException {
+        for (long start : segmentStarts(dir, resolution)) {
+            if (start + resolution.segmentLength <= now - retentionMillis) {
+                Files.deleteIfExists(dir.resolve(resolution.prefix + start + SEGMENT_SUFFIX));
+            }
+        }
+    }
+
+    /**
+     * @return the start times of all segments of the given resolution in chronological order
+     */
+    private static long[] segmentStarts(Path dir, Resolution resolution) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir,
+                resolution.prefix + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    starts.add(Long.parseLong(
+                            name.substring(resolution.prefix.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    // not a segment
+                }
+            }
+        }
+        return starts.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private Path directory(Series series, String instance) {
+        return directory.resolve(fileName(instance)).resolve(fileName(series.toString()));
+    }
+
+    private static String fileName(String name) {
+        try {
+            String fileName = URLEncoder.encode(name, "UTF-8").replace("*", "%2A");
+            return fileName.length() <= MAX_NAME_LENGTH
+                    ? fileName
+                    : fileName.substring(0, MAX_NAME_LENGTH - 9) + "~" + Integer.toHexString(name.hashCode());
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static int position(int index) {
+        return HEADER_BYTES + index * ENTRY_BYTES;
+    }
+}
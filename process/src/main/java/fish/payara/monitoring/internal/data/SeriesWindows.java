@@ -0,0 +1,191 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * Decides the length of the window of points kept for each {@link Series}.
+ *
+ * Windows are configured as a list of {@code pattern=length} entries separated by {@code |}, for example
+ * {@code web=600|ns:jvm ?:* *=120}. The length is the number of 1 second points kept. The pattern of the first
+ * matching entry decides the window of a {@link Series}. A pattern that has no tag is short for all {@link Series} of
+ * the namespace of that name, {@code web} is same as {@code ns:web ?:* *}. {@link Series} not matching any of the
+ * patterns have the default window.
+ *
+ * Entries with the same window length share a policy. Policies are numbered from zero and data of different policies is
+ * kept separately so that the memory used can be accounted per policy.
+ *
+ * @author Jan Bernitt
+ */
+final class SeriesWindows {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    private final SeriesDictionary dictionary;
+    private final Series[] patterns;
+    private final int[] patternPolicies;
+    private final int[] windows;
+    private final int defaultPolicy;
+    /**
+     * Policy +1 by {@link Series} ID, zero when not yet resolved. As resolving is deterministic this is updated without
+     * synchronisation, concurrent callers at worst resolve a policy again.
+     */
+    private volatile int[] policiesById = new int[64];
+
+    /**
+     * @param dictionary    the {@link SeriesDictionary} the IDs given to {@link #policy(int)} refer to
+     * @param defaultWindow the window of {@link Series} not matching any pattern
+     * @param config        the list of {@code pattern=length} entries, null or empty for none
+     */
+    SeriesWindows(SeriesDictionary dictionary, int defaultWindow, String config) {
+        if (defaultWindow <= 0) {
+            throw new IllegalArgumentException("Window must be positive but was: " + defaultWindow);
+        }
+        this.dictionary = dictionary;
+        List<Series> patternList = new ArrayList<>();
+        List<Integer> windowList = new ArrayList<>();
+        if (config != null && !config.trim().isEmpty()) {
+            for (String entry : config.split("\\|")) {
+                try {
+                    int assign = entry.lastIndexOf('=');
+                    String pattern = entry.substring(0, assign).trim();
+                    int window = Integer.parseInt(entry.substring(assign + 1).trim());
+                    if (window <= 0) {
+                        throw new IllegalArgumentException("Window must be positive but was: " + window);
+                    }
+                    patternList.add(new Series(pattern.indexOf(Series.TAG_ASSIGN) < 0
+                            ? "ns" + Series.TAG_ASSIGN + pattern + " ?:* *"
+                            : pattern));
+                    windowList.add(window);
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Ignoring malformed series window: " + entry, ex);
+                }
+            }
+        }
+        List<Integer> distinct = new ArrayList<>();
+        this.patterns = patternList.toArray(new Series[0]);
+        this.patternPolicies = new int[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            patternPolicies[i] = policyOf(windowList.get(i), distinct);
+        }
+        this.defaultPolicy = policyOf(defaultWindow, distinct);
+        this.windows = distinct.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int policyOf(int window, List<Integer> distinct) {
+        int index = distinct.indexOf(window);
+        if (index >= 0) {
+            return index;
+        }
+        distinct.add(window);
+        return distinct.size() - 1;
+    }
+
+    /**
+     * @return the number of policies, all policies are below this number
+     */
+    int size() {
+        return windows.length;
+    }
+
+    /**
+     * @param policy a policy between zero and {@link #size()} (exclusive)
+     * @return the window length of the policy
+     */
+    int window(int policy) {
+        return windows[policy];
+    }
+
+    /**
+     * @return the longest window length of all policies
+     */
+    int maxWindow() {
+        int max = 0;
+        for (int window : windows) {
+            max = Math.max(max, window);
+        }
+        return max;
+    }
+
+    /**
+     * @param series any {@link Series} that is not a pattern
+     * @return the policy of the given {@link Series}
+     */
+    int policy(Series series) {
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matches(series)) {
+                return patternPolicies[i];
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Same as {@link #policy(Series)} but the result is remembered for each {@link Series} ID.
+     *
+     * @param seriesId the {@link SeriesDictionary} ID of a {@link Series}
+     * @return the policy of the {@link Series} with the given ID
+     */
+    int policy(int seriesId) {
+        if (patterns.length == 0) {
+            return defaultPolicy;
+        }
+        int[] policies = policiesById;
+        if (seriesId < policies.length && policies[seriesId] > 0) {
+            return policies[seriesId] - 1;
+        }
+        int policy = policy(dictionary.series(seriesId));
+        if (seriesId >= policies.length) {
+            policies = copyOf(policies, Math.max(seriesId + 1, policies.length * 2));
+        }
+        policies[seriesId] = policy + 1;
+        policiesById = policies;
+        return policy;
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.copyOf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import fish.payara.monitoring.internal.data.InMemorySeriesRepository.SeriesDatasetsSnapshot;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * An append-only log of the {@link SeriesDatasetsSnapshot}s of each tick so that the point windows can be recovered
+ * after a crash.
+ *
+ * Snapshots are {@link #append(SeriesDatasetsSnapshot)}ed to a bounded queue. A single writer thread takes all queued
+ * snapshots, writes them in one batch and forces them to disk once per batch. Thereby the threads collecting or
+ * receiving data never wait for the disk. Should the writer fall behind so that the queue is full snapshots are
+ * dropped.
+ *
+ * The log is split into segment files named by the time of their first tick, for example
+ * {@code wal-1600000000000.log}. A new segment is started when a tick is a window length after the start of the
+ * current segment. Segments are deleted once all their ticks are older than the window length and one minute before
+ * the most recent tick.
+ *
+ * Each entry is a message as encoded by a {@link SeriesDatasetsCodec.Encoder} preceded by its length and CRC32
+ * checksum. Each segment uses new {@link SeriesDatasetsCodec.Encoder}s so that it starts with a keyframe of each
+ * instance. The log always contains the complete state of each instance for each tick, snapshots that only contain the
+ * changes are completed before they are written.
+ *
+ * @author Jan Bernitt
+ */
+public final class SeriesWriteAheadLog {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final long MILLIS_IN_ONE_MINUTE = 60000L;
+
+    /**
+     * The complete state of an instance as it results from the sequence of its snapshots.
+     */
+    private static final class InstanceState {
+
+        final BitSet present = new BitSet();
+        final BitSet added = new BitSet();
+        long[] values = new long[64];
+        long lastTime = -1L;
+
+        /**
+         * @return a snapshot with the complete state of the instance after the given snapshot was applied
+         */
+        SeriesDatasetsSnapshot apply(SeriesDatasetsSnapshot snapshot, SeriesDictionary dictionary) {
+            if (!snapshot.delta) {
+                present.clear();
+            }
+            for (int i = 0; i < snapshot.numberOfRemoved; i++) {
+                present.clear(snapshot.removed[i]);
+            }
+            added.clear();
+            for (int i = 0; i < snapshot.numberOfSeries; i++) {
+                int id = snapshot.series[i];
+                if (id >= values.length) {
+                    values = copyOf(values, Math.max(id + 1, values.length * 2));
+                }
+                if (added.get(id)) {
+                    values[id] += snapshot.values[i];
+                } else {
+                    added.set(id);
+                    present.set(id);
+                    values[id] = snapshot.values[i];
+                }
+            }
+            lastTime = snapshot.time;
+            SeriesDatasetsSnapshot complete = new SeriesDatasetsSnapshot(snapshot.instance, snapshot.time,
+                    present.cardinality(), dictionary);
+            for (int id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+                complete.add(id, values[id]);
+            }
+            return complete;
+        }
+    }
+
+    private final Path directory;
+    private final SeriesDictionary dictionary;
+    private final long windowMillis;
+    private final BlockingQueue<SeriesDatasetsSnapshot> queue;
+    private final AtomicInteger droppedCount = new AtomicInteger();
+    private final Queue<String> forgotten = new ConcurrentLinkedQueue<>();
+
+    // writer thread state
+    private final Map<String, InstanceState> states = new HashMap<>();
+    private final Map<String, SeriesDatasetsCodec.Encoder> encoders = new HashMap<>();
+    private final CRC32 checksum = new CRC32();
+    private FileChannel segment;
+    private long segmentStart = -1L;
+    private boolean failing;
+    private Thread writer;
+
+    /**
+     * @param directory    the directory of the segment files, created when missing
+     * @param dictionary   the {@link SeriesDictionary} the IDs of the snapshots refer to
+     * @param windowMillis the length of the window that must be recoverable
+     * @param queueSize    the maximum number of snapshots waiting to be written
+     */
+    public SeriesWriteAheadLog(Path directory, SeriesDictionary dictionary, long windowMillis, int queueSize) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Window must be positive but was: " + windowMillis);
+        }
+        this.directory = directory;
+        this.dictionary = dictionary;
+        this.windowMillis = windowMillis;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of snapshots dropped since the log was created because the writer did fall behind
+     */
+    public int getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Starts the writer thread. Should be called after the log was {@link #replay(Consumer)}ed.
+     */
+    public synchronized void start() {
+        if (writer == null) {
+            writer = new Thread(this::write, "monitoring-write-ahead-log");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Queues a snapshot to be written. This never blocks. The snapshot must not be changed afterwards.
+     *
+     * @param snapshot the snapshot of a tick of an instance
+     * @return true, if the snapshot was queued, false if it was dropped
+     */
+    public boolean append(SeriesDatasetsSnapshot snapshot) {
+        if (queue.offer(snapshot)) {
+            return true;
+        }
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Forgets the state of an instance that no longer sends data. This never blocks, the state is removed by the
+     * writer thread after its current batch.
+     *
+     * @param instance the instance to forget
+     */
+    public void forget(String instance) {
+        forgotten.add(instance);
+    }
+
+    /**
+     * @return the instances the writer keeps state for
+     */
+    Set<String> instances() {
+        return states.keySet();
+    }
+
+    private void write() {
+        List<SeriesDatasetsSnapshot> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch);
+            try {
+                write(batch);
+                failing = false;
+            } catch (IOException | RuntimeException ex) {
+                if (!failing) {
+                    // only log once unless being successful again
+                    LOGGER.log(Level.WARNING, "Failed to write monitoring data log", ex);
+                }
+                failing = true;
+                closeSegment();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch of snapshots and forces them to disk.
+     */
+    void write(List<SeriesDatasetsSnapshot> batch) throws IOException {
+        List<byte[]> messages = new ArrayList<>(batch.size());
+        for (SeriesDatasetsSnapshot snapshot : batch) {
+            if (segment == null || snapshot.time >= segmentStart + windowMillis) {
+                flush(messages);
+                rotate(snapshot.time);
+            }
+            InstanceState state = states.computeIfAbsent(snapshot.instance, key -> new InstanceState());
+            if (snapshot.time > state.lastTime) {
+                SeriesDatasetsSnapshot complete = state.apply(snapshot, dictionary);
+                messages.add(encoders.computeIfAbsent(snapshot.instance,
+                        key -> new SeriesDatasetsCodec.Encoder(dictionary)).encode(complete));
+            }
+        }
+        flush(messages);
+        for (String instance = forgotten.poll(); instance != null; instance = forgotten.poll()) {
+            states.remove(instance);
+            encoders.remove(instance);
+        }
+    }
+
+    private void flush(List<byte[]> messages) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int length = 0;
+        for (byte[] message : messages) {
+            length += FRAME_HEADER_BYTES + message.length;
+        }
+        ByteBuffer frames = ByteBuffer.allocate(length);
+        for (byte[] message : messages) {
+            checksum.reset();
+            checksum.update(message, 0, message.length);
+            frames.putInt(message.length);
+            frames.putInt((int) checksum.getValue());
+            frames.put(message);
+        }
+        frames.flip();
+        while (frames.hasRemaining()) {
+            segment.write(frames);
+        }
+        segment.force(false);
+        messages.clear();
+    }
+
+    private void rotate(long time) throws IOException {
+        closeSegment();
+        Files.createDirectories(directory);
+        segment = FileChannel.open(directory.resolve(SEGMENT_PREFIX + time + SEGMENT_SUFFIX), CREATE, WRITE,
+                APPEND);
+        segmentStart = time;
+        encoders.clear();
+        truncate(time);
+    }
+
+    private void closeSegment() {
+        if (segment != null) {
+            try {
+                segment.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Failed to close monitoring data log segment", ex);
+            }
+            segment = null;
+        }
+    }
+
+    /**
+     * Deletes the segments that only contain ticks that are older than the window length and one minute before the
+     * given time.
+     */
+    private void truncate(long time) throws IOException {
+        long[] starts = segmentStarts(directory);
+        for (int i = 0; i + 1 < starts.length; i++) {
+            if (starts[i + 1] <= time - windowMillis - MILLIS_IN_ONE_MINUTE) {
+                Files.deleteIfExists(segment(starts[i]));
+            }
+        }
+    }
+
+    /**
+     * Reads all segments and passes the complete state of each tick of each instance within the window length before
+     * the current time to the given consumer in the order they were written. The ticks passed start with the first
+     * tick of a minute so that the minutes aggregated from the recovered points are complete. Entries that are
+     * corrupted, for example because they were only partially written, end the reading of their segment.
+     *
+     * @param consumer receives the snapshot of each instance and tick, never a {@link SeriesDatasetsSnapshot#delta}
+     * @return the number of snapshots passed to the consumer
+     */
+    public int replay(Consumer<SeriesDatasetsSnapshot> consumer) {
+        return replay(System.currentTimeMillis(), consumer);
+    }
+
+    int replay(long now, Consumer<SeriesDatasetsSnapshot> consumer) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int replayed = 0;
+        try {
+            SeriesDatasetsCodec.Decoder decoder = new SeriesDatasetsCodec.Decoder(dictionary);
+            CRC32 crc32 = new CRC32();
+            Map<String, InstanceState> replayStates = new HashMap<>();
+            long replayFrom = -1L;
+            long since = now - windowMillis;
+            for (long start : segmentStarts(directory)) {
+                Path file = segment(start);
+                ByteBuffer frames = ByteBuffer.wrap(Files.readAllBytes(file));
+                while (frames.remaining() >= FRAME_HEADER_BYTES) {
+                    int length = frames.getInt();
+                    int crc = frames.getInt();
+                    if (length <= 0 || length > frames.remaining()) {
+                        LOGGER.log(Level.FINE, "Monitoring data log segment {0} ends with an incomplete entry", file);
+                        break;
+                    }
+                    byte[] message = new byte[length];
+                    frames.get(message);
+                    crc32.reset();
+                    crc32.update(message, 0, length);
+                    if ((int) crc32.getValue() != crc) {
+                        LOGGER.log(Level.FINE, "Monitoring data log segment {0} contains a corrupted entry", file);
+                        break;
+                    }
+                    SeriesDatasetsSnapshot snapshot = decoder.decode(message);
+                    InstanceState state = replayStates.computeIfAbsent(snapshot.instance,
+                            key -> new InstanceState());
+                    if (snapshot.time > state.lastTime) {
+                        SeriesDatasetsSnapshot complete = state.apply(snapshot, dictionary);
+                        if (complete.time < since) {
+                            continue;
+                        }
+                        if (replayFrom < 0) {
+                            replayFrom = ((snapshot.time + MILLIS_IN_ONE_MINUTE - 1) / MILLIS_IN_ONE_MINUTE)
+                                    * MILLIS_IN_ONE_MINUTE;
+                        }
+                        if (complete.time >= replayFrom) {
+                            consumer.accept(complete);
+                            replayed++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed to replay monitoring data log", ex);
+        }
+        return replayed;
+    }
+
+    private Path segment(long start) {
+        return directory.resolve(SEGMENT_PREFIX + start + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return the start times of all segments in chronological order
+     */
+    private static long[] segmentStarts(Path dir) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return new long[0];
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    starts.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    // not a segment
+                }
+            }
+        }
+        return starts.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.internal.data;
+
+import java.lang.reflect.Method;
+
+import fish.payara.monitoring.collect.MonitoringData;
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
+
+/**
+ * The collection relevant properties of a {@link MonitoringDataSource} implementation class as given by the
+ * {@link MonitoringData} annotation of its {@link MonitoringDataSource#collect(MonitoringDataCollector)} method.
+ *
+ * The reflective lookup is done once per class. As the {@link ClassValue} is associated with the {@link Class} itself
+ * a source class that is redeployed with a new class loader gets its own metadata and the metadata of the old class
+ * does not prevent the old class loader from being garbage collected.
+ *
+ * @author Jan Bernitt
+ */
+final class SourceMetadata {
+
+    private static final ClassValue<SourceMetadata> BY_CLASS = new ClassValue<SourceMetadata>() {
+
+        @Override
+        protected SourceMetadata computeValue(Class<?> type) {
+            return new SourceMetadata(type);
+        }
+    };
+
+    static SourceMetadata of(MonitoringDataSource source) {
+        return BY_CLASS.get(source.getClass());
+    }
+
+    /**
+     * For now the simple name of the class is the ID, we might want to replace that later
+     */
+    final String id;
+    /**
+     * The name-space given by the {@link MonitoringData} annotation or null if not annotated
+     */
+    final String ns;
+    final int intervalSeconds;
+    /**
+     * Offset in seconds used to spread sources with the same interval across the seconds of the interval
+     */
+    final int phase;
+    /**
+     * The collectors derived for this source from the root collector it was most recently collected with
+     */
+    private volatile Scope scope;
+
+    /**
+     * The collectors used to collect a source derived from a root collector. As long as the same root collector is
+     * used for each tick they are derived only once.
+     */
+    static final class Scope {
+
+        final MonitoringDataCollector root;
+        /**
+         * The collector passed to {@link MonitoringDataSource#collect(MonitoringDataCollector)}
+         */
+        final MonitoringDataCollector source;
+        /**
+         * The collector for the metrics about the collection of the source itself
+         */
+        final MonitoringDataCollector monitoring;
+
+        Scope(MonitoringDataCollector root, String ns, String id) {
+            this.root = root;
+            this.source = ns == null ? root : root.in(ns);
+            this.monitoring = root.in("monitoring").group(id);
+        }
+    }
+
+    private SourceMetadata(Class<?> type) {
+        this.id = type.getSimpleName();
+        MonitoringData meta = getMetaAnnotation(type);
+        this.ns = meta == null ? null : meta.ns();
+        this.intervalSeconds = meta == null ? 1 : Math.max(1, meta.intervalSeconds());
+        this.phase = Math.floorMod(id.hashCode(), intervalSeconds);
+    }
+
+    /**
+     * @param second the second of the current tick
+     * @return true, if the source should be collected in the tick of the given second
+     */
+    boolean isDue(long second) {
+        return intervalSeconds == 1 || (second + phase) % intervalSeconds == 0;
+    }
+
+    /**
+     * @param root the root collector of the tick
+     * @return the collectors derived from the given root, reused when the root is the same as in the previous call
+     */
+    Scope scope(MonitoringDataCollector root) {
+        Scope s = scope;
+        if (s == null || s.root != root) {
+            s = new Scope(root, ns, id);
+            scope = s;
+        }
+        return s;
+    }
+
+    private static MonitoringData getMetaAnnotation(Class<?> type) {
+        try {
+            Method collect = type.getMethod("collect", MonitoringDataCollector.class);
+            return collect.getAnnotation(MonitoringData.class);
+        } catch (NoSuchMethodException | SecurityException e) {
+           return null; // assume no annotation
+        }
+    }
+}
@@ -76,15 +76,24 @@ public abstract class AggregateDataset<T extends AggregateDataset<T>> {
             this.maxs = new long[newCapacity];
             this.avgs = new double[newCapacity];
             this.points = new int[newCapacity];
-            int copyLength = Math.min(predecessor.size, windowSize - 1);
-            int from = predecessor.lastIndex() - copyLength + 1;
-            AggregateDataset<T> src = predecessor;
-            arraycopy(src.mins, from, mins, 0, copyLength);
-            arraycopy(src.maxs, from, maxs, 0, copyLength);
-            arraycopy(src.avgs, from, avgs, 0, copyLength);
-            arraycopy(src.points, from, points, 0, copyLength);
             this.offset = 0;
-            this.firstTime = predecessor.isEmpty() ? time : predecessor.getTime(from);
+            this.firstTime = time - (size - 1) * getIntervalLength();
+            if (!empty) {
+                // entries are placed by their time so that gaps (e.g. after a restart) stay gaps
+                int from = predecessor.offset;
+                while (from <= predecessor.lastIndex() && predecessor.getTime(from) < firstTime) {
+                    from++;
+                }
+                int copyLength = predecessor.lastIndex() - from + 1;
+                if (copyLength > 0) {
+                    int to = (int) ((predecessor.getTime(from) - firstTime) / getIntervalLength());
+                    AggregateDataset<T> src = predecessor;
+                    arraycopy(src.mins, from, mins, to, copyLength);
+                    arraycopy(src.maxs, from, maxs, to, copyLength);
+                    arraycopy(src.avgs, from, avgs, to, copyLength);
+                    arraycopy(src.points, from, points, to, copyLength);
+                }
+            }
         }
     }
 
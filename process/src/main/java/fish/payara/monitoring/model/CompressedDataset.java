@@ -0,0 +1,576 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.model;
+
+import java.math.BigInteger;
+
+/**
+ * Keeps point data for a fixed window size like a {@link PartialDataset} but stores the points compressed.
+ *
+ * Points are encoded in blocks of {@link #POINTS_PER_BLOCK} points. The first point of a block has its time and value
+ * encoded as is. For each following point the time is encoded as the difference between its delta to the previous
+ * point and the previous delta (delta-of-delta) and the value as delta to the previous value. Each is encoded as a
+ * zig-zag varint. As points usually are exactly one second apart and values change slowly most points need 2 bytes
+ * instead of 16. The bytes are packed into a {@code long[]}, each block starts at the beginning of a {@code long}.
+ *
+ * The window slides by skipping points of the first block. Once all points of the first block are skipped the block is
+ * dropped. Accessing a point by index decodes the block of the point, reading all points should use the
+ * {@link #cursor(int)} which decodes each point once.
+ *
+ * Like {@link PartialDataset} the instances are "effectively immutable". Buffers are shared with the successor which
+ * only writes behind the points of its predecessor. Should the buffer be full the live blocks are copied to a new
+ * buffer. Only adding a point with the same time as the last point rewrites the last point.
+ *
+ * @author Jan Bernitt
+ */
+public final class CompressedDataset extends SeriesDataset {
+
+    static final int POINTS_PER_BLOCK = 64;
+    /**
+     * A point is encoded as two varints of at most 10 bytes each
+     */
+    private static final int MAX_POINT_BYTES = 20;
+
+    /**
+     * The encoded blocks, 8 bytes per long in little endian order
+     */
+    private final long[] data;
+    /**
+     * Byte position of the start of each block in {@link #data}
+     */
+    private final int[] blocks;
+    private final int firstBlock;
+    /**
+     * The number of points of the first block that are before the window
+     */
+    private final int skip;
+    private final int lastBlock;
+    private final int lastBlockSize;
+    /**
+     * Byte position of the last point
+     */
+    private final int lastPosition;
+    /**
+     * Byte position after the last point
+     */
+    private final int end;
+    private final int size;
+    private final int capacity;
+    private final long lastTime;
+    private final long lastValue;
+    /**
+     * The time delta of the last point to its previous point, zero if the last point starts a block
+     */
+    private final long lastDelta;
+    /**
+     * The time delta and value of the point before the last point (within the last block)
+     */
+    private final long previousDelta;
+    private final long previousValue;
+
+    // further statistics
+    private final int observedValueChanges;
+    private final long observedMax;
+    private final long observedMin;
+    private final long observedSum;
+    /**
+     * The exact sum in case the {@link #observedSum} did overflow, otherwise null
+     */
+    private final BigInteger observedSumOverflow;
+    private final int stableCount;
+    private final long stableSince;
+    private final MinutesDataset recentMinutes;
+
+    CompressedDataset(ConstantDataset predecessor, long time, long value, boolean aggregate) {
+        super(predecessor);
+        this.capacity = predecessor.capacity();
+        long[] times = new long[3];
+        long[] values = new long[3];
+        int n = 0;
+        times[n] = predecessor.getStableSince();
+        values[n++] = predecessor.lastValue();
+        if (predecessor.size() == 2) {
+            times[n] = predecessor.lastTime();
+            values[n++] = predecessor.lastValue();
+        }
+        if (times[n - 1] == time) {
+            values[n - 1] = value;
+        } else {
+            times[n] = time;
+            values[n++] = value;
+        }
+        int from = Math.max(0, n - capacity);
+        long[] buffer = new long[Math.max(8, (capacity * 3 + 7) / 8)];
+        int pos = 0;
+        int lastPos = 0;
+        long delta = 0L;
+        long prevDelta = 0L;
+        for (int i = from; i < n; i++) {
+            lastPos = pos;
+            if (i == from) {
+                pos = putZigZag(buffer, pos, times[i]);
+                pos = putZigZag(buffer, pos, values[i]);
+            } else {
+                prevDelta = delta;
+                delta = times[i] - times[i - 1];
+                pos = putZigZag(buffer, pos, delta - prevDelta);
+                pos = putZigZag(buffer, pos, values[i] - values[i - 1]);
+            }
+        }
+        this.data = buffer;
+        this.blocks = new int[8];
+        this.firstBlock = 0;
+        this.skip = 0;
+        this.lastBlock = 0;
+        this.lastBlockSize = n - from;
+        this.lastPosition = lastPos;
+        this.end = pos;
+        this.size = n - from;
+        this.lastTime = times[n - 1];
+        this.lastValue = values[n - 1];
+        this.lastDelta = delta;
+        this.previousDelta = prevDelta;
+        this.previousValue = n - from > 1 ? values[n - 2] : 0L;
+        this.observedValueChanges = predecessor.getObservedValueChanges() + 1;
+        this.observedMax = Math.max(value, predecessor.getObservedMax());
+        this.observedMin = Math.min(value, predecessor.getObservedMin());
+        this.observedSum = predecessor.getObservedSumAsLong() + value;
+        this.observedSumOverflow = observedSumOverflow(predecessor, value);
+        this.stableCount = 1;
+        this.stableSince = time;
+        this.recentMinutes = aggregate(predecessor, this, aggregate);
+    }
+
+    /**
+     * Adds a point with a time after the {@link #lastTime()}.
+     */
+    /**
+     * Creates a copy of the given dataset with the given history. The blocks are shared, as with a successor only the
+     * copy may be continued.
+     */
+    private CompressedDataset(CompressedDataset source, MinutesDataset recentMinutes) {
+        super(source.getSeries(), source.getInstance(), source.getObservedSince(), source.getObservedValues());
+        this.data = source.data;
+        this.blocks = source.blocks;
+        this.firstBlock = source.firstBlock;
+        this.skip = source.skip;
+        this.lastBlock = source.lastBlock;
+        this.lastBlockSize = source.lastBlockSize;
+        this.lastPosition = source.lastPosition;
+        this.end = source.end;
+        this.size = source.size;
+        this.capacity = source.capacity;
+        this.lastTime = source.lastTime;
+        this.lastValue = source.lastValue;
+        this.lastDelta = source.lastDelta;
+        this.previousDelta = source.previousDelta;
+        this.previousValue = source.previousValue;
+        this.observedValueChanges = source.observedValueChanges;
+        this.observedMax = source.observedMax;
+        this.observedMin = source.observedMin;
+        this.observedSum = source.observedSum;
+        this.observedSumOverflow = source.observedSumOverflow;
+        this.stableCount = source.stableCount;
+        this.stableSince = source.stableSince;
+        this.recentMinutes = recentMinutes;
+    }
+
+    private CompressedDataset(CompressedDataset predecessor, long time, long value, boolean aggregate) {
+        super(predecessor);
+        this.capacity = predecessor.capacity;
+        long[] buffer = predecessor.data;
+        int[] starts = predecessor.blocks;
+        int first = predecessor.firstBlock;
+        int skipped = predecessor.skip;
+        int last = predecessor.lastBlock;
+        int n = predecessor.size;
+        if (n == capacity) { // slide
+            n--;
+            skipped++;
+            if (skipped == (first == last ? predecessor.lastBlockSize : POINTS_PER_BLOCK)) {
+                first++;
+                skipped = 0;
+            }
+        }
+        boolean newBlock = predecessor.lastBlockSize == POINTS_PER_BLOCK || first > last;
+        int pos = newBlock ? align(predecessor.end) : predecessor.end;
+        if (pos + MAX_POINT_BYTES > buffer.length * 8 || newBlock && last + 1 >= starts.length) {
+            // compact: copy the live blocks to new buffers
+            int base = starts[Math.min(first, last)];
+            int liveWords = (pos - base + 7) / 8;
+            long[] compacted = new long[Math.max(buffer.length, 2 * liveWords + MAX_POINT_BYTES / 8 + 1)];
+            System.arraycopy(buffer, base / 8, compacted, 0, Math.min(liveWords, buffer.length - base / 8));
+            int blockCount = last - Math.min(first, last) + 1;
+            int[] rebased = new int[Math.max(8, 2 * (blockCount + 1))];
+            for (int i = 0; i < blockCount; i++) {
+                rebased[i] = starts[Math.min(first, last) + i] - base;
+            }
+            int shift = Math.min(first, last);
+            first -= shift;
+            last -= shift;
+            pos -= base;
+            buffer = compacted;
+            starts = rebased;
+        }
+        this.lastPosition = pos;
+        if (newBlock) {
+            last++;
+            starts[last] = pos;
+            pos = putZigZag(buffer, pos, time);
+            pos = putZigZag(buffer, pos, value);
+            this.lastBlockSize = 1;
+            this.lastDelta = 0L;
+            this.previousDelta = 0L;
+            this.previousValue = 0L;
+        } else {
+            long delta = time - predecessor.lastTime;
+            pos = putZigZag(buffer, pos, delta - predecessor.lastDelta);
+            pos = putZigZag(buffer, pos, value - predecessor.lastValue);
+            this.lastBlockSize = predecessor.lastBlockSize + 1;
+            this.lastDelta = delta;
+            this.previousDelta = predecessor.lastDelta;
+            this.previousValue = predecessor.lastValue;
+        }
+        this.data = buffer;
+        this.blocks = starts;
+        this.firstBlock = first;
+        this.skip = skipped;
+        this.lastBlock = last;
+        this.end = pos;
+        this.size = n + 1;
+        this.lastTime = time;
+        this.lastValue = value;
+        this.observedMax = Math.max(value, predecessor.observedMax);
+        this.observedMin = Math.min(value, predecessor.observedMin);
+        this.observedSum = predecessor.observedSum + value;
+        this.observedSumOverflow = observedSumOverflow(predecessor, value);
+        boolean stable = value == predecessor.lastValue;
+        this.observedValueChanges = predecessor.observedValueChanges + (stable ? 0 : 1);
+        this.stableCount = stable ? predecessor.stableCount + 1 : 1;
+        this.stableSince = stable ? predecessor.stableSince : time;
+        this.recentMinutes = aggregate(predecessor, this, aggregate);
+    }
+
+    /**
+     * Adds a value to the last point, rewriting the last point.
+     */
+    private CompressedDataset(CompressedDataset predecessor, long value, boolean aggregate) {
+        super(predecessor);
+        this.capacity = predecessor.capacity;
+        this.data = predecessor.data;
+        this.blocks = predecessor.blocks;
+        this.firstBlock = predecessor.firstBlock;
+        this.skip = predecessor.skip;
+        this.lastBlock = predecessor.lastBlock;
+        this.lastBlockSize = predecessor.lastBlockSize;
+        this.lastPosition = predecessor.lastPosition;
+        this.size = predecessor.size;
+        this.lastTime = predecessor.lastTime;
+        this.lastDelta = predecessor.lastDelta;
+        this.previousDelta = predecessor.previousDelta;
+        this.previousValue = predecessor.previousValue;
+        long sum = predecessor.lastValue + value;
+        this.lastValue = sum;
+        int pos = lastPosition;
+        if (lastBlockSize == 1) {
+            pos = putZigZag(data, pos, lastTime);
+            pos = putZigZag(data, pos, sum);
+        } else {
+            pos = putZigZag(data, pos, lastDelta - previousDelta);
+            pos = putZigZag(data, pos, sum - previousValue);
+        }
+        this.end = pos;
+        this.observedMax = Math.max(value, predecessor.observedMax);
+        this.observedMin = Math.min(value, predecessor.observedMin);
+        this.observedSum = predecessor.observedSum + value;
+        this.observedSumOverflow = observedSumOverflow(predecessor, value);
+        this.observedValueChanges = predecessor.observedValueChanges + 1;
+        this.stableCount = 1;
+        this.stableSince = lastTime;
+        this.recentMinutes = aggregate(predecessor, this, aggregate);
+    }
+
+    @Override
+    public SeriesDataset add(long time, long value, boolean aggregate) {
+        if (time == lastTime) {
+            return new CompressedDataset(this, value, aggregate);
+        }
+        if (size == capacity && value == lastValue && stableCount >= capacity) {
+            // go back to stable form, no point in occupying memory for something stable
+            return new StableDataset(this, time, aggregate);
+        }
+        return new CompressedDataset(this, time, value, aggregate);
+    }
+
+    @Override
+    public boolean isCompressed() {
+        return true;
+    }
+
+    @Override
+    public PointCursor cursor(int fromIndex) {
+        return new Cursor(fromIndex);
+    }
+
+    /**
+     * Decodes the points block by block.
+     */
+    private final class Cursor implements PointCursor {
+
+        private int remaining;
+        private int block;
+        private int pointInBlock;
+        private int pos;
+        private long time;
+        private long value;
+        private long delta;
+
+        Cursor(int fromIndex) {
+            int index = skip + Math.max(0, fromIndex);
+            this.remaining = size - Math.max(0, fromIndex);
+            this.block = firstBlock + index / POINTS_PER_BLOCK;
+            int skipInBlock = index % POINTS_PER_BLOCK;
+            this.pointInBlock = 0;
+            if (remaining > 0) {
+                for (int i = 0; i < skipInBlock; i++) {
+                    decode();
+                }
+            }
+        }
+
+        private void decode() {
+            if (pointInBlock == 0) {
+                pos = blocks[block];
+                time = readZigZag();
+                value = readZigZag();
+                delta = 0L;
+            } else {
+                delta += readZigZag();
+                time += delta;
+                value += readZigZag();
+            }
+            if (++pointInBlock == POINTS_PER_BLOCK) {
+                pointInBlock = 0;
+                block++;
+            }
+        }
+
+        private long readZigZag() {
+            long raw = 0L;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = getByte(data, pos++);
+                raw |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (raw >>> 1) ^ -(raw & 1L);
+        }
+
+        @Override
+        public boolean next() {
+            if (remaining <= 0) {
+                return false;
+            }
+            remaining--;
+            decode();
+            return true;
+        }
+
+        @Override
+        public long time() {
+            return time;
+        }
+
+        @Override
+        public long value() {
+            return value;
+        }
+    }
+
+    @Override
+    public long[] points() {
+        long[] points = new long[2 * size];
+        PointCursor cursor = cursor(0);
+        int i = 0;
+        while (cursor.next()) {
+            points[i++] = cursor.time();
+            points[i++] = cursor.value();
+        }
+        return points;
+    }
+
+    @Override
+    public long time(int index) {
+        if (index == size - 1) {
+            return lastTime;
+        }
+        PointCursor cursor = cursor(index);
+        cursor.next();
+        return cursor.time();
+    }
+
+    @Override
+    public long value(int index) {
+        if (index == size - 1) {
+            return lastValue;
+        }
+        PointCursor cursor = cursor(index);
+        cursor.next();
+        return cursor.value();
+    }
+
+    @Override
+    public MinutesDataset getRecentMinutes() {
+        return recentMinutes;
+    }
+
+    @Override
+    public SeriesDataset withRecentMinutes(MinutesDataset recentMinutes) {
+        return new CompressedDataset(this, recentMinutes);
+    }
+
+    @Override
+    public int getObservedValueChanges() {
+        return observedValueChanges;
+    }
+
+    @Override
+    public long getObservedMin() {
+        return observedMin;
+    }
+
+    @Override
+    public long getObservedMax() {
+        return observedMax;
+    }
+
+    @Override
+    public BigInteger getObservedSum() {
+        return observedSumOverflow != null ? observedSumOverflow : BigInteger.valueOf(observedSum);
+    }
+
+    @Override
+    public long getObservedSumAsLong() {
+        return observedSum;
+    }
+
+    @Override
+    public boolean isObservedSumOverflow() {
+        return observedSumOverflow != null;
+    }
+
+    @Override
+    public long getStableSince() {
+        return stableSince;
+    }
+
+    @Override
+    public int getStableCount() {
+        return stableCount;
+    }
+
+    /**
+     * Compressed datasets copy their blocks instead of overwriting them so they do not become outdated.
+     */
+    @Override
+    public boolean isOutdated() {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long lastValue() {
+        return lastValue;
+    }
+
+    @Override
+    public long firstTime() {
+        return time(0);
+    }
+
+    @Override
+    public long lastTime() {
+        return lastTime;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int estimatedBytesMemory() {
+        return 152 + data.length * 8 + blocks.length * 4 + recentMinutes.estimatedBytesMemory();
+    }
+
+    @Override
+    public boolean isStable() {
+        return false;
+    }
+
+    private static int align(int pos) {
+        return (pos + 7) & ~7;
+    }
+
+    private static int putZigZag(long[] data, int pos, long value) {
+        long raw = (value << 1) ^ (value >> 63);
+        while ((raw & ~0x7FL) != 0L) {
+            putByte(data, pos++, (int) ((raw & 0x7F) | 0x80));
+            raw >>>= 7;
+        }
+        putByte(data, pos++, (int) raw);
+        return pos;
+    }
+
+    private static void putByte(long[] data, int pos, int b) {
+        int shift = (pos & 7) * 8;
+        int word = pos >> 3;
+        data[word] = (data[word] & ~(0xFFL << shift)) | ((b & 0xFFL) << shift);
+    }
+
+    private static int getByte(long[] data, int pos) {
+        return (int) (data[pos >> 3] >>> ((pos & 7) * 8)) & 0xFF;
+    }
+}
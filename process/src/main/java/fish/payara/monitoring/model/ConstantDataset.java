@@ -74,25 +74,51 @@ public class ConstantDataset extends SeriesDataset {
     private final long value;
 
     private final int capacity;
+    /**
+     * Whether or not the dataset should become a {@link CompressedDataset} instead of a {@link PartialDataset}
+     */
+    private final boolean compressed;
 
     private final MinutesDataset recentMinute;
+    /**
+     * Whether or not the observed sum, the number of observed values times the {@link #value}, overflows a long
+     */
+    private final boolean observedSumOverflow;
 
     public ConstantDataset(SeriesDataset predecessor, long time, boolean aggregate) {
         super(predecessor);
         this.capacity = predecessor.capacity();
+        this.compressed = predecessor.isCompressed();
         this.stableSince = predecessor.getStableSince();
         this.time = time;
         this.value = predecessor.lastValue();
         this.recentMinute = aggregate(predecessor, this, aggregate);
+        this.observedSumOverflow = isProductOverflow(getObservedValues(), value);
     }
 
     public ConstantDataset(EmptyDataset predecessor, long time, long value, boolean aggregate) {
         super(predecessor.getSeries(), predecessor.getInstance(), time, 1);
         this.capacity = predecessor.capacity();
+        this.compressed = predecessor.isCompressed();
         this.stableSince = time;
         this.time = time;
         this.value = value;
         this.recentMinute = aggregate(predecessor, this, aggregate);
+        this.observedSumOverflow = false;
+    }
+
+    /**
+     * Creates a copy of the given dataset with the given history.
+     */
+    ConstantDataset(ConstantDataset source, MinutesDataset recentMinutes) {
+        super(source.getSeries(), source.getInstance(), source.getObservedSince(), source.getObservedValues());
+        this.capacity = source.capacity;
+        this.compressed = source.compressed;
+        this.stableSince = source.stableSince;
+        this.time = source.time;
+        this.value = source.value;
+        this.recentMinute = recentMinutes;
+        this.observedSumOverflow = source.observedSumOverflow;
     }
 
     @Override
@@ -102,21 +128,50 @@ public class ConstantDataset extends SeriesDataset {
                 : new long[] { stableSince, value, time, value };
     }
 
+    @Override
+    public final long time(int index) {
+        return index == 0 ? stableSince : time;
+    }
+
+    @Override
+    public final long value(int index) {
+        return value;
+    }
+
     @Override
     public SeriesDataset add(long time, long value, boolean aggregate) {
         if (time == lastTime()) {
-            return new PartialDataset(this, time, value + lastValue(), aggregate);
+            return varying(time, value + lastValue(), aggregate);
         }
         return value == lastValue()
                 ? new ConstantDataset(this, time, aggregate)
+                : varying(time, value, aggregate);
+    }
+
+    /**
+     * @return the dataset continuing this one once the value did change
+     */
+    final SeriesDataset varying(long time, long value, boolean aggregate) {
+        return compressed
+                ? new CompressedDataset(this, time, value, aggregate)
                 : new PartialDataset(this, time, value, aggregate);
     }
 
+    @Override
+    public final boolean isCompressed() {
+        return compressed;
+    }
+
     @Override
     public final MinutesDataset getRecentMinutes() {
         return recentMinute;
     }
 
+    @Override
+    public SeriesDataset withRecentMinutes(MinutesDataset recentMinutes) {
+        return new ConstantDataset(this, recentMinutes);
+    }
+
     @Override
     public long getObservedMin() {
         return value;
@@ -129,7 +184,23 @@ public class ConstantDataset extends SeriesDataset {
 
     @Override
     public BigInteger getObservedSum() {
-        return BigInteger.valueOf(getObservedValues()).multiply(BigInteger.valueOf(value));
+        return isObservedSumOverflow()
+                ? BigInteger.valueOf(getObservedValues()).multiply(BigInteger.valueOf(value))
+                : BigInteger.valueOf(getObservedSumAsLong());
+    }
+
+    @Override
+    public long getObservedSumAsLong() {
+        return getObservedValues() * value;
+    }
+
+    @Override
+    public boolean isObservedSumOverflow() {
+        return observedSumOverflow;
+    }
+
+    private static boolean isProductOverflow(int count, long value) {
+        return value != 0L && count * value / value != count;
     }
 
     @Override
@@ -25,6 +25,11 @@ public final class DaysDataset extends AggregateDataset<DaysDataset> {
         aggregate(day);
     }
 
+    private DaysDataset(DaysDataset predecessor, long time, int points, long min, long max, double avg) {
+        super(DAYS_PER_MONTH, predecessor, time);
+        setEntry(points, min, max, avg);
+    }
+
     public static long atStartOfDay(long time) {
         return Instant.ofEpochMilli(time).atOffset(UTC)
                 .withNano(0)
@@ -41,6 +46,16 @@ public final class DaysDataset extends AggregateDataset<DaysDataset> {
         return new DaysDataset(this, day);
     }
 
+    /**
+     * Adds a day as it was aggregated earlier.
+     *
+     * @param time the start of the day, must not be before the {@link #lastTime()}
+     * @return a new dataset ending with the given day
+     */
+    public DaysDataset restore(long time, int points, long min, long max, double avg) {
+        return new DaysDataset(this, time, points, min, max, avg);
+    }
+
     private void aggregate(HoursDataset day) {
         int numberOfHoursInAggregate = day.size();
         int firstHourOfDay = day.offset;
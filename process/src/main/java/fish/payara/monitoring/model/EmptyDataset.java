@@ -55,10 +55,31 @@ import java.math.BigInteger;
 public final class EmptyDataset extends SeriesDataset {
 
     private final int capacity;
+    private final MinutesDataset recentMinutes;
+    private final boolean compressed;
 
     public EmptyDataset(String instance, Series series, int capacity) {
+        this(instance, series, capacity, MinutesDataset.EMPTY);
+    }
+
+    /**
+     * @param recentMinutes the history recorded earlier that the dataset continues
+     */
+    public EmptyDataset(String instance, Series series, int capacity, MinutesDataset recentMinutes) {
+        this(instance, series, capacity, recentMinutes, false);
+    }
+
+    /**
+     * @param recentMinutes the history recorded earlier that the dataset continues
+     * @param compressed true to keep the points of varying values in a {@link CompressedDataset}, false to use a
+     *        {@link PartialDataset}
+     */
+    public EmptyDataset(String instance, Series series, int capacity, MinutesDataset recentMinutes,
+            boolean compressed) {
         super(series, instance, -1L, 0);
         this.capacity = capacity;
+        this.recentMinutes = recentMinutes;
+        this.compressed = compressed;
     }
 
     @Override
@@ -71,14 +92,34 @@ public final class EmptyDataset extends SeriesDataset {
         return new long[0];
     }
 
+    @Override
+    public long time(int index) {
+        throw new IndexOutOfBoundsException("Empty dataset has no points");
+    }
+
+    @Override
+    public long value(int index) {
+        throw new IndexOutOfBoundsException("Empty dataset has no points");
+    }
+
     @Override
     public SeriesDataset add(long time, long value, boolean aggregate) {
         return new ConstantDataset(this, time, value, aggregate);
     }
 
+    @Override
+    public boolean isCompressed() {
+        return compressed;
+    }
+
     @Override
     public MinutesDataset getRecentMinutes() {
-        return MinutesDataset.EMPTY;
+        return recentMinutes;
+    }
+
+    @Override
+    public SeriesDataset withRecentMinutes(MinutesDataset recentMinutes) {
+        return new EmptyDataset(getInstance(), getSeries(), capacity, recentMinutes, compressed);
     }
 
     @Override
@@ -96,6 +137,16 @@ public final class EmptyDataset extends SeriesDataset {
         return BigInteger.ZERO;
     }
 
+    @Override
+    public long getObservedSumAsLong() {
+        return 0L;
+    }
+
+    @Override
+    public boolean isObservedSumOverflow() {
+        return false;
+    }
+
     @Override
     public long getStableSince() {
         return -1;
@@ -138,6 +189,6 @@ public final class EmptyDataset extends SeriesDataset {
 
     @Override
     public int estimatedBytesMemory() {
-        return 32;
+        return 40 + recentMinutes.estimatedBytesMemory();
     }
 }
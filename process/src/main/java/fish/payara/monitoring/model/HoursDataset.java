@@ -22,8 +22,12 @@ public final class HoursDataset extends AggregateDataset<HoursDataset> {
     private final DaysDataset recentDays;
 
     private HoursDataset() {
+        this(DaysDataset.EMPTY);
+    }
+
+    private HoursDataset(DaysDataset recentDays) {
         super();
-        this.recentDays = DaysDataset.EMPTY;
+        this.recentDays = recentDays;
     }
 
     private HoursDataset(HoursDataset predecessor, MinutesDataset hour) {
@@ -32,6 +36,22 @@ public final class HoursDataset extends AggregateDataset<HoursDataset> {
         this.recentDays = predecessor.recentDays.add(this);
     }
 
+    private HoursDataset(HoursDataset predecessor, long time, int points, long min, long max, double avg) {
+        super(HOURS_PER_DAY, predecessor, time);
+        setEntry(points, min, max, avg);
+        this.recentDays = predecessor.recentDays;
+    }
+
+    /**
+     * Creates an empty {@link HoursDataset} that continues an earlier recorded history.
+     *
+     * @param recentDays the history of the recent days as recorded earlier
+     * @return an empty dataset with the given days history
+     */
+    public static HoursDataset restore(DaysDataset recentDays) {
+        return recentDays.isEmpty() ? EMPTY : new HoursDataset(recentDays);
+    }
+
     public static long atStartOfHour(long time) {
         return Instant.ofEpochMilli(time).atOffset(UTC)
                 .withNano(0)
@@ -54,6 +74,17 @@ public final class HoursDataset extends AggregateDataset<HoursDataset> {
         return new HoursDataset(this, hour);
     }
 
+    /**
+     * Adds an hour as it was aggregated earlier. Unlike {@link #add(MinutesDataset)} this does not aggregate the
+     * {@link #getRecentDays()}.
+     *
+     * @param time the start of the hour, must not be before the {@link #lastTime()}
+     * @return a new dataset ending with the given hour
+     */
+    public HoursDataset restore(long time, int points, long min, long max, double avg) {
+        return new HoursDataset(this, time, points, min, max, avg);
+    }
+
     private void aggregate(MinutesDataset hour) {
         int numberOfMinutesInAggregate = hour.size(); // might be less then 60 when first starting to record in the middle of an hour
         int firstMinuteOfHour = hour.offset;
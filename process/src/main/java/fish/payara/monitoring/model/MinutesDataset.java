@@ -29,8 +29,12 @@ public final class MinutesDataset extends AggregateDataset<MinutesDataset> {
     private final HoursDataset recentHours;
 
     private MinutesDataset() {
+        this(HoursDataset.EMPTY);
+    }
+
+    private MinutesDataset(HoursDataset recentHours) {
         super();
-        this.recentHours = HoursDataset.EMPTY;
+        this.recentHours = recentHours;
     }
 
     private MinutesDataset(MinutesDataset predecessor, SeriesDataset minute) {
@@ -39,6 +43,24 @@ public final class MinutesDataset extends AggregateDataset<MinutesDataset> {
         this.recentHours = predecessor.recentHours.add(this);
     }
 
+    private MinutesDataset(MinutesDataset predecessor, long time, int points, long min, long max, double avg) {
+        super(MINUTES_PER_HOUR, predecessor, time);
+        setEntry(points, min, max, avg);
+        this.recentHours = predecessor.recentHours;
+    }
+
+    /**
+     * Creates an empty {@link MinutesDataset} that continues an earlier recorded history.
+     *
+     * @param recentHours the history of the recent hours as recorded earlier
+     * @return an empty dataset with the given hours history
+     */
+    public static MinutesDataset restore(HoursDataset recentHours) {
+        return recentHours.isEmpty() && recentHours.getRecentDays().isEmpty()
+                ? EMPTY
+                : new MinutesDataset(recentHours);
+    }
+
     private static long atStartOfMinute(long time) {
         return Instant.ofEpochMilli(time).atOffset(UTC)
                 .withNano(0)
@@ -62,17 +84,30 @@ public final class MinutesDataset extends AggregateDataset<MinutesDataset> {
         return new MinutesDataset(this, minute);
     }
 
+    /**
+     * Adds a minute as it was aggregated earlier. Unlike {@link #add(SeriesDataset)} this does not aggregate the
+     * {@link #getRecentHours()}.
+     *
+     * @param time the start of the minute, must not be before the {@link #lastTime()}
+     * @return a new dataset ending with the given minute
+     */
+    public MinutesDataset restore(long time, int points, long min, long max, double avg) {
+        return new MinutesDataset(this, time, points, min, max, avg);
+    }
+
     private void aggregate(SeriesDataset minute) {
-        long[] points = minute.points();
-        int numberOfPointsInAggregate = points.length / 2;
-        long min = points[1];
-        long max = points[1];
-        BigInteger avg = BigInteger.valueOf(points[1]);
-        for (int i = 3; i < points.length; i+=2) {
-            long val = points[i];
+        PointCursor points = minute.cursor();
+        points.next();
+        int numberOfPointsInAggregate = 1;
+        long min = points.value();
+        long max = points.value();
+        BigInteger avg = BigInteger.valueOf(points.value());
+        while (points.next()) {
+            long val = points.value();
             min = Math.min(min, val);
             max = Math.max(max, val);
             avg = avg.add(BigInteger.valueOf(val));
+            numberOfPointsInAggregate++;
         }
         setEntry(numberOfPointsInAggregate, min, max,
                 new BigDecimal(avg).divide(BigDecimal.valueOf(numberOfPointsInAggregate), BigDecimal.ROUND_DOWN).doubleValue());
@@ -80,7 +80,11 @@ public final class PartialDataset extends SeriesDataset {
     private final int observedValueChanges;
     private final long observedMax;
     private final long observedMin;
-    private final BigInteger observedSum;
+    private final long observedSum;
+    /**
+     * The exact sum in case the {@link #observedSum} did overflow, otherwise null
+     */
+    private final BigInteger observedSumOverflow;
     private final int stableCount;
     private final long stableSince;
     private final MinutesDataset recentMinutes;
@@ -104,12 +108,60 @@ public final class PartialDataset extends SeriesDataset {
         this.observedValueChanges = predecessor.getObservedValueChanges() + 1;
         this.observedMax = Math.max(value, predecessor.getObservedMax());
         this.observedMin = Math.min(value, predecessor.getObservedMin());
-        this.observedSum = predecessor.getObservedSum().add(BigInteger.valueOf(value));
+        this.observedSum = predecessor.getObservedSumAsLong() + value;
+        this.observedSumOverflow = observedSumOverflow(predecessor, value);
         this.stableCount = 1;
         this.stableSince = time;
         this.recentMinutes = aggregate(predecessor, this, aggregate);
     }
 
+    /**
+     * Creates a copy of the points and statistics of the given dataset that does not share any state with it.
+     *
+     * @param source a dataset with at least one point and not more points than its {@link #capacity()}
+     */
+    public PartialDataset(SeriesDataset source) {
+        super(source.getSeries(), source.getInstance(), source.getObservedSince(), source.getObservedValues());
+        this.size = source.size();
+        this.offset = 0;
+        this.data = new long[source.capacity() * 4];
+        PointCursor cursor = source.cursor();
+        int i = 0;
+        while (cursor.next()) {
+            data[i++] = cursor.time();
+            data[i++] = cursor.value();
+        }
+        this.time0 = data[0];
+        this.observedValueChanges = source.getObservedValueChanges();
+        this.observedMax = source.getObservedMax();
+        this.observedMin = source.getObservedMin();
+        this.observedSum = source.getObservedSumAsLong();
+        this.observedSumOverflow = source.isObservedSumOverflow() ? source.getObservedSum() : null;
+        this.stableCount = source.getStableCount();
+        this.stableSince = source.getStableSince();
+        this.recentMinutes = source.getRecentMinutes();
+    }
+
+    /**
+     * Creates a copy of the given dataset with the given history. The points are shared, as with a successor only the
+     * copy may be continued.
+     */
+    private PartialDataset(PartialDataset source, MinutesDataset recentMinutes) {
+        super(source.getSeries(), source.getInstance(), source.getObservedSince(), source.getObservedValues());
+        this.time0 = source.time0;
+        this.data = source.data;
+        this.offset = source.offset;
+        this.size = source.size;
+        this.observedValueChanges = source.observedValueChanges;
+        this.observedMax = source.observedMax;
+        this.observedMin = source.observedMin;
+        this.observedSum = source.observedSum;
+        this.observedSumOverflow = source.observedSumOverflow;
+        this.stableCount = source.stableCount;
+        this.stableSince = source.stableSince;
+        this.recentMinutes = recentMinutes;
+    }
+
     private PartialDataset(PartialDataset predecessor, int size, int offset, long time, long value, boolean aggregate) {
         super(predecessor);
         this.size = size;
@@ -118,7 +170,8 @@ public final class PartialDataset extends SeriesDataset {
         this.time0 = predecessor.size == 0 ? time : predecessor.time0;
         this.observedMax = Math.max(value, predecessor.observedMax);
         this.observedMin = Math.min(value, predecessor.observedMin);
-        this.observedSum = predecessor.observedSum.add(BigInteger.valueOf(value));
+        this.observedSum = predecessor.observedSum + value;
+        this.observedSumOverflow = observedSumOverflow(predecessor, value);
         if (predecessor.lastTime() == time) {
             long sum = predecessor.lastValue() + value;
             this.data[2 * (offset + size - 1) + 1] = sum;
@@ -161,9 +214,19 @@ public final class PartialDataset extends SeriesDataset {
 
     @Override
     public BigInteger getObservedSum() {
+        return observedSumOverflow != null ? observedSumOverflow : BigInteger.valueOf(observedSum);
+    }
+
+    @Override
+    public long getObservedSumAsLong() {
         return observedSum;
     }
 
+    @Override
+    public boolean isObservedSumOverflow() {
+        return observedSumOverflow != null;
+    }
+
     @Override
     public int getObservedValueChanges() {
         return observedValueChanges;
@@ -179,10 +242,12 @@ public final class PartialDataset extends SeriesDataset {
         return data.length / 4; // 2x because of window, 2x because time and values are in one array
     }
 
+    @Override
     public long value(int index) {
         return data[2 * (offset + index) + 1];
     }
 
+    @Override
     public long time(int index) {
         return data[2 * (offset + index)];
     }
@@ -239,6 +304,11 @@ public final class PartialDataset extends SeriesDataset {
         return recentMinutes;
     }
 
+    @Override
+    public SeriesDataset withRecentMinutes(MinutesDataset recentMinutes) {
+        return new PartialDataset(this, recentMinutes);
+    }
+
     private boolean isStable(long value) {
         int i = data.length - 1;
         for (int j = 0; j < size; j++) {
@@ -252,7 +322,7 @@ public final class PartialDataset extends SeriesDataset {
 
     @Override
     public int estimatedBytesMemory() {
-        return 116 + (data.length * 8) + recentMinutes.estimatedBytesMemory();
+        return 124 + (data.length * 8) + recentMinutes.estimatedBytesMemory();
     }
 
     @Override
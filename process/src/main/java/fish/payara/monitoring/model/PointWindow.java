@@ -0,0 +1,316 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.model;
+
+/**
+ * Keeps the most recent points of a {@link SeriesDataset} together with running aggregates so that the sum, minimum
+ * and maximum value of the window can be queried in constant time.
+ *
+ * A window is limited to a maximum number of points and/or a time span. A time limited window keeps all points after
+ * the start of the span and the last point at or before the start. Each {@link #update(SeriesDataset)} adds the points
+ * the dataset got since the previous update. Should the dataset not continue the points of the window, for example
+ * because it became a {@link StableDataset}, the window is refilled from the dataset.
+ *
+ * Minimum and maximum are tracked using monotonic queues of the positions of the points in the window. The sum is a
+ * plain {@code long} sum which overflows the same way summing up the values directly would.
+ *
+ * A window is not thread-safe. It is meant to be updated and queried by a single thread evaluating the same
+ * {@link Series} over time.
+ *
+ * @author Jan Bernitt
+ */
+public final class PointWindow {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Maximum number of points, zero if not limited
+     */
+    private final int maxPoints;
+    /**
+     * Maximum time span in milliseconds, zero if not limited
+     */
+    private final long maxMillis;
+
+    /*
+     * Points have a sequence number that is their position in the window since it was created. The arrays are rings
+     * indexed by the sequence number masked with the capacity (a power of 2).
+     */
+    private long[] times;
+    private long[] values;
+    private int[] minQueue;
+    private int[] maxQueue;
+    private int mask;
+    private int first;
+    private int end;
+    private int minHead;
+    private int minTail;
+    private int maxHead;
+    private int maxTail;
+    private long sum;
+
+    /**
+     * @param maxPoints maximum number of points in the window, zero for no limit
+     * @param maxMillis maximum time span of the window in milliseconds, zero for no limit
+     */
+    public PointWindow(int maxPoints, long maxMillis) {
+        this.maxPoints = maxPoints;
+        this.maxMillis = maxMillis;
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < maxPoints && capacity < (1 << 20)) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.times = new long[capacity];
+        this.values = new long[capacity];
+        this.minQueue = new int[capacity];
+        this.maxQueue = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Brings this window up to date with the given dataset.
+     *
+     * @param data the most recent dataset of the {@link Series} this window is used for
+     */
+    public void update(SeriesDataset data) {
+        int size = data.size();
+        if (size == 0) {
+            clear();
+            return;
+        }
+        int from;
+        if (isEmpty()) {
+            from = firstIndex(data);
+        } else {
+            long lastTime = lastTime();
+            int index = data.lastIndexNotAfter(lastTime);
+            if (index < 0 || data.time(index) != lastTime) {
+                clear(); // does not continue the window
+                from = firstIndex(data);
+            } else {
+                long value = data.value(index);
+                if (value != lastValue()) {
+                    removeLast();
+                    add(lastTime, value);
+                    rebuildQueues();
+                }
+                from = index + 1;
+            }
+        }
+        if (from < size) {
+            PointCursor points = data.cursor(from);
+            while (points.next()) {
+                add(points.time(), points.value());
+            }
+        }
+        trim(size);
+    }
+
+    private int firstIndex(SeriesDataset data) {
+        int size = data.size();
+        if (maxMillis > 0L) {
+            return Math.max(0, data.lastIndexNotAfter(data.lastTime() - maxMillis));
+        }
+        return maxPoints > 0 ? Math.max(0, size - maxPoints) : 0;
+    }
+
+    private void trim(int dataSize) {
+        while (size() > dataSize || maxPoints > 0 && size() > maxPoints) {
+            removeFirst();
+        }
+        if (maxMillis > 0L) {
+            long startTime = lastTime() - maxMillis;
+            while (size() > 1 && times[(first + 1) & mask] <= startTime) {
+                removeFirst();
+            }
+        }
+    }
+
+    private void add(long time, long value) {
+        if (size() == times.length) {
+            grow();
+        }
+        int pos = end & mask;
+        times[pos] = time;
+        values[pos] = value;
+        sum += value;
+        while (maxTail != maxHead && values[maxQueue[(maxTail - 1) & mask] & mask] <= value) {
+            maxTail--;
+        }
+        maxQueue[maxTail++ & mask] = end;
+        while (minTail != minHead && values[minQueue[(minTail - 1) & mask] & mask] >= value) {
+            minTail--;
+        }
+        minQueue[minTail++ & mask] = end;
+        end++;
+    }
+
+    private void removeFirst() {
+        sum -= values[first & mask];
+        if (maxQueue[maxHead & mask] == first) {
+            maxHead++;
+        }
+        if (minQueue[minHead & mask] == first) {
+            minHead++;
+        }
+        first++;
+    }
+
+    /**
+     * Removes the last point. As this does not restore points dropped from the queues when the last point was added the
+     * queues have to be rebuild afterwards.
+     */
+    private void removeLast() {
+        end--;
+        sum -= values[end & mask];
+    }
+
+    private void rebuildQueues() {
+        int to = end;
+        long total = sum;
+        minHead = minTail = maxHead = maxTail = 0;
+        end = first;
+        while (end != to) {
+            add(times[end & mask], values[end & mask]);
+        }
+        sum = total;
+    }
+
+    private void grow() {
+        long[] oldTimes = times;
+        long[] oldValues = values;
+        int[] oldMinQueue = minQueue;
+        int[] oldMaxQueue = maxQueue;
+        int oldMask = mask;
+        allocate(times.length * 2);
+        for (int i = first; i != end; i++) {
+            times[i & mask] = oldTimes[i & oldMask];
+            values[i & mask] = oldValues[i & oldMask];
+        }
+        for (int i = minHead; i != minTail; i++) {
+            minQueue[i & mask] = oldMinQueue[i & oldMask];
+        }
+        for (int i = maxHead; i != maxTail; i++) {
+            maxQueue[i & mask] = oldMaxQueue[i & oldMask];
+        }
+    }
+
+    private void clear() {
+        first = end;
+        minHead = minTail;
+        maxHead = maxTail;
+        sum = 0L;
+    }
+
+    public boolean isEmpty() {
+        return first == end;
+    }
+
+    public int size() {
+        return end - first;
+    }
+
+    /**
+     * @return sum of the values in the window
+     */
+    public long sum() {
+        return sum;
+    }
+
+    /**
+     * @return smallest value in the window, undefined for an empty window
+     */
+    public long min() {
+        return values[minQueue[minHead & mask] & mask];
+    }
+
+    /**
+     * @return largest value in the window, undefined for an empty window
+     */
+    public long max() {
+        return values[maxQueue[maxHead & mask] & mask];
+    }
+
+    public long firstTime() {
+        return times[first & mask];
+    }
+
+    public long lastTime() {
+        return times[(end - 1) & mask];
+    }
+
+    public long lastValue() {
+        return values[(end - 1) & mask];
+    }
+
+    /**
+     * @return a cursor over the points of the window in chronological order
+     */
+    public PointCursor cursor() {
+        return new PointCursor() {
+
+            private int next = first;
+            private int pos = -1;
+
+            @Override
+            public boolean next() {
+                if (next == end) {
+                    return false;
+                }
+                pos = next++ & mask;
+                return true;
+            }
+
+            @Override
+            public long time() {
+                return times[pos];
+            }
+
+            @Override
+            public long value() {
+                return values[pos];
+            }
+        };
+    }
+}
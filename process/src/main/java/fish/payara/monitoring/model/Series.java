@@ -64,6 +64,10 @@ public final class Series implements Comparable<Series>, Serializable {
     private final String metric;
     private final String[] tags;
     private final String[] values;
+    /**
+     * Lazily computed {@link #hashCode()} as {@link Series} are frequently used as map keys
+     */
+    private transient int hash;
 
     /**
      * Parses the given series key.
@@ -131,11 +135,11 @@ public final class Series implements Comparable<Series>, Serializable {
         return false;
     }
 
-    private static boolean isWildCardValue(String str) {
+    static boolean isWildCardValue(String str) {
         return str.length() == 1 && str.charAt(0) == VALUE_WILDCARD;
     }
 
-    private static boolean isWildCardName(String str) {
+    static boolean isWildCardName(String str) {
         return str.length() == 1 && str.charAt(0) == NAME_WILDCARD;
     }
 
@@ -166,8 +170,13 @@ public final class Series implements Comparable<Series>, Serializable {
 
     @Override
     public int hashCode() {
-        // not including the tags is "good enough" to avoid to many collisions for this domain
-        return metric.hashCode() ^ Arrays.hashCode(values);
+        int h = hash;
+        if (h == 0) {
+            // not including the tags is "good enough" to avoid to many collisions for this domain
+            h = metric.hashCode() ^ Arrays.hashCode(values);
+            hash = h;
+        }
+        return h;
     }
 
     public boolean equalTo(Series other) {
@@ -45,6 +45,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -82,6 +83,14 @@ public final class SeriesAnnotations implements Iterable<SeriesAnnotation> {
         }
     }
 
+    /**
+     * @param filter annotations to remove, including permanent ones
+     * @return true, if any annotation was removed
+     */
+    public boolean removeIf(Predicate<SeriesAnnotation> filter) {
+        return annotations.removeIf(filter);
+    }
+
     @Override
     public Iterator<SeriesAnnotation> iterator() {
         return annotations.iterator();
@@ -68,6 +68,30 @@ public abstract class SeriesDataset implements Serializable {
         }
     }
 
+    /**
+     * Computes the exact sum of a sum and a value should the result overflow the long range.
+     *
+     * @param predecessor the dataset providing the sum
+     * @param value       the value added
+     * @return the exact sum as {@link BigInteger} in case the sum of the predecessor did overflow before or does
+     *         overflow now, otherwise null
+     */
+    static BigInteger observedSumOverflow(SeriesDataset predecessor, long value) {
+        if (predecessor.isObservedSumOverflow()) {
+            return predecessor.getObservedSum().add(BigInteger.valueOf(value));
+        }
+        long sum = predecessor.getObservedSumAsLong();
+        return isSumOverflow(sum, value) ? BigInteger.valueOf(sum).add(BigInteger.valueOf(value)) : null;
+    }
+
+    /**
+     * @return true, if adding the value to the sum overflows the long range
+     */
+    public static boolean isSumOverflow(long sum, long value) {
+        long res = sum + value;
+        return ((sum ^ res) & (value ^ res)) < 0L;
+    }
+
     private final Series series;
     private final String instance;
     private final long observedSince;
@@ -96,7 +120,12 @@ public abstract class SeriesDataset implements Serializable {
     }
 
     public final BigInteger getObservedAvg() {
-        return observedValues == 0 ? BigInteger.ZERO : getObservedSum().divide(BigInteger.valueOf(observedValues));
+        if (observedValues == 0) {
+            return BigInteger.ZERO;
+        }
+        return isObservedSumOverflow()
+                ? getObservedSum().divide(BigInteger.valueOf(observedValues))
+                : BigInteger.valueOf(getObservedSumAsLong() / observedValues);
     }
 
     /**
@@ -133,6 +162,63 @@ public abstract class SeriesDataset implements Serializable {
      */
     public abstract long[] points();
 
+    /**
+     * Allows to read the points of this dataset without copying them as {@link #points()} does.
+     *
+     * @param index a value between 0 and {@link #size()} (exclusive)
+     * @return the time of the point at the given index, same as {@code points()[2 * index]}
+     */
+    public abstract long time(int index);
+
+    /**
+     * @param index a value between 0 and {@link #size()} (exclusive)
+     * @return the value of the point at the given index, same as {@code points()[2 * index + 1]}
+     */
+    public abstract long value(int index);
+
+    /**
+     * Allows to read the points of this dataset in order without copying them as {@link #points()} does and without
+     * the cost of random access {@link #time(int)} and {@link #value(int)} might have for some implementations.
+     *
+     * @param fromIndex index of the first point the cursor moves to, a value between 0 and {@link #size()}
+     * @return a cursor positioned before the point at the given index
+     */
+    public PointCursor cursor(int fromIndex) {
+        return new IndexCursor(this, fromIndex);
+    }
+
+    /**
+     * @return a cursor positioned before the first point
+     */
+    public final PointCursor cursor() {
+        return cursor(0);
+    }
+
+    /**
+     * @param time a point in time
+     * @return index of the last point with a time before or equal to the given time, or -1 if there is no such point
+     */
+    public final int lastIndexNotAfter(long time) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (time(mid) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @return true if points of this dataset and its successors are stored compressed, else false
+     */
+    public boolean isCompressed() {
+        return false;
+    }
+
     public final SeriesDataset add(long time, long value) {
         return add(time, value, false);
     }
@@ -141,6 +227,14 @@ public abstract class SeriesDataset implements Serializable {
 
     public abstract MinutesDataset getRecentMinutes();
 
+    /**
+     * Used to continue history that was restored after the dataset was created.
+     *
+     * @param recentMinutes the history of the returned dataset
+     * @return a dataset with the same points and statistics as this dataset but the given history
+     */
+    public abstract SeriesDataset withRecentMinutes(MinutesDataset recentMinutes);
+
     /**
      * @return The smallest value observed so far. If no value was observed {@link Long#MAX_VALUE}.
      */
@@ -156,6 +250,21 @@ public abstract class SeriesDataset implements Serializable {
      */
     public abstract BigInteger getObservedSum();
 
+    /**
+     * Unless the sum did overflow the long range this is same as {@link #getObservedSum()} without the need to create
+     * a {@link BigInteger}.
+     *
+     * @return sum of all observed values as long. In case of {@link #isObservedSumOverflow()} this is the lower 64 bits
+     *         of the exact sum.
+     */
+    public abstract long getObservedSumAsLong();
+
+    /**
+     * @return true in case the {@link #getObservedSum()} is outside of the long range so that
+     *         {@link #getObservedSumAsLong()} is not the exact sum, else false
+     */
+    public abstract boolean isObservedSumOverflow();
+
     /**
      * @return the time of the first value that is still same as {@link #lastValue()}.
      */
@@ -223,11 +332,11 @@ public abstract class SeriesDataset implements Serializable {
     @Override
     public final String toString() {
         StringBuilder str = new StringBuilder();
-        long[] points = points();
+        PointCursor points = cursor();
         str.append(getSeries()).append('@').append(getInstance());
         str.append("[\n");
-        for (int i = 0; i < points.length; i+=2) {
-            str.append('\t').append(points[i]).append('@').append(points[i+1]).append('\n');
+        while (points.next()) {
+            str.append('\t').append(points.time()).append('@').append(points.value()).append('\n');
         }
         str.append(']');
         return str.toString();
@@ -275,4 +384,37 @@ public abstract class SeriesDataset implements Serializable {
         }
         return perSec;
     }
+
+    /**
+     * A {@link PointCursor} for datasets with cheap random access to their points.
+     */
+    static final class IndexCursor implements PointCursor {
+
+        private final SeriesDataset dataset;
+        private int index;
+
+        IndexCursor(SeriesDataset dataset, int fromIndex) {
+            this.dataset = dataset;
+            this.index = fromIndex - 1;
+        }
+
+        @Override
+        public boolean next() {
+            if (index + 1 >= dataset.size()) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        @Override
+        public long time() {
+            return dataset.time(index);
+        }
+
+        @Override
+        public long value() {
+            return dataset.value(index);
+        }
+    }
 }
@@ -0,0 +1,282 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.model;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SeriesDictionary} maps the keys of {@link Series} as they are produced during collection to a canonical
+ * {@link Series} instance and a dense numeric ID.
+ *
+ * Collection produces the very same keys each second. Parsing each of them into a new {@link Series} each time is
+ * wasteful. Instead keys are looked up by their {@link CharSequence} directly. Unless a key is seen for the first time
+ * this does not create a {@link String} or any other object.
+ *
+ * Keys that are written differently but describe the same {@link Series} (e.g. using a comma instead of a space as
+ * separator) map to the same canonical {@link Series} instance and ID.
+ *
+ * <h3>Consistency Remarks</h3>
+ *
+ * Lookups are lock free. Only adding a key not seen before and removing {@link Series} is synchronised. IDs are
+ * assigned in the order keys are added starting from zero. They are never reused, a removed {@link Series} that is
+ * looked up again gets a new ID.
+ *
+ * Malformed keys are remembered as well so that repeatedly collected malformed keys do not cause repeated parsing.
+ *
+ * @author Jan Bernitt
+ */
+public final class SeriesDictionary {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * A chain link in a bucket of the hash table. Entries are immutable so that a bucket can be read without locking.
+     */
+    private static final class Entry {
+
+        final String key;
+        final int hash;
+        /**
+         * The canonical series or null in case the key is malformed
+         */
+        final Series series;
+        /**
+         * The ID of the {@link #series} or -1 in case the key is malformed
+         */
+        final int id;
+        final Entry next;
+
+        Entry(String key, int hash, Series series, int id, Entry next) {
+            this.key = key;
+            this.hash = hash;
+            this.series = series;
+            this.id = id;
+            this.next = next;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private volatile Series[] seriesById = new Series[INITIAL_CAPACITY];
+    private final Map<Series, Integer> idsBySeries = new ConcurrentHashMap<>();
+    /**
+     * Number of entries in the {@link #table}, guarded by this
+     */
+    private int entries;
+    private volatile int size;
+
+    /**
+     * @param key a series key as it occurs during collection, not null
+     * @return The canonical {@link Series} for the key or {@code null} if the key is malformed
+     */
+    public Series lookup(CharSequence key) {
+        return entry(key).series;
+    }
+
+    /**
+     * @param key a series key as it occurs during collection, not null
+     * @return The ID of the {@link Series} for the key or -1 if the key is malformed
+     */
+    public int id(CharSequence key) {
+        return entry(key).id;
+    }
+
+    /**
+     * @param series any {@link Series}, not null
+     * @return The ID of the given {@link Series} or -1 if it is not contained in this dictionary
+     */
+    public int id(Series series) {
+        Integer id = idsBySeries.get(series);
+        return id == null ? -1 : id.intValue();
+    }
+
+    /**
+     * @param id a ID as returned by {@link #id(CharSequence)}
+     * @return The canonical {@link Series} for the ID or null if the {@link Series} was {@link #remove(Collection)}d
+     * @throws IndexOutOfBoundsException when no {@link Series} with the given ID exists
+     */
+    public Series series(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No series with ID: " + id);
+        }
+        return seriesById[id];
+    }
+
+    /**
+     * @return the number of IDs assigned including those of removed {@link Series}. All IDs are below this value.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes the given {@link Series} and all keys mapping to them. Their IDs must no longer be in use.
+     *
+     * @param removed the {@link Series} to remove, not contained {@link Series} are ignored
+     * @return the number of {@link Series} removed
+     */
+    public synchronized int remove(Collection<Series> removed) {
+        BitSet ids = new BitSet();
+        for (Series series : removed) {
+            Integer id = idsBySeries.remove(series);
+            if (id != null) {
+                ids.set(id);
+                seriesById[id] = null;
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        AtomicReferenceArray<Entry> buckets = table;
+        for (int i = 0; i < buckets.length(); i++) {
+            Entry head = buckets.get(i);
+            Entry kept = null;
+            boolean changed = false;
+            for (Entry e = head; e != null; e = e.next) {
+                if (e.id >= 0 && ids.get(e.id)) {
+                    changed = true;
+                    entries--;
+                } else {
+                    kept = new Entry(e.key, e.hash, e.series, e.id, kept);
+                }
+            }
+            if (changed) {
+                buckets.set(i, kept);
+            }
+        }
+        return ids.cardinality();
+    }
+
+    private Entry entry(CharSequence key) {
+        int hash = hash(key);
+        AtomicReferenceArray<Entry> buckets = table;
+        Entry e = find(buckets.get(indexOf(hash, buckets.length())), key, hash);
+        return e != null ? e : add(key, hash);
+    }
+
+    private synchronized Entry add(CharSequence key, int hash) {
+        AtomicReferenceArray<Entry> buckets = table;
+        int index = indexOf(hash, buckets.length());
+        Entry head = buckets.get(index);
+        Entry e = find(head, key, hash);
+        if (e != null) {
+            return e; // was added concurrently
+        }
+        String str = key.toString();
+        Series series = parseOrNull(str);
+        int id = -1;
+        if (series != null) {
+            Integer existing = idsBySeries.get(series);
+            if (existing != null) {
+                id = existing;
+                series = seriesById[id];
+            } else {
+                id = size;
+                Series[] byId = seriesById;
+                if (id >= byId.length) {
+                    byId = copyOf(byId, byId.length * 2);
+                }
+                byId[id] = series;
+                seriesById = byId;
+                idsBySeries.put(series, id);
+                size = id + 1;
+            }
+        }
+        e = new Entry(str, hash, series, id, head);
+        buckets.set(index, e);
+        if (++entries > buckets.length() * 3 / 4) {
+            table = resize(buckets);
+        }
+        return e;
+    }
+
+    private static AtomicReferenceArray<Entry> resize(AtomicReferenceArray<Entry> buckets) {
+        AtomicReferenceArray<Entry> resized = new AtomicReferenceArray<>(buckets.length() * 2);
+        for (int i = 0; i < buckets.length(); i++) {
+            for (Entry e = buckets.get(i); e != null; e = e.next) {
+                int index = indexOf(e.hash, resized.length());
+                resized.set(index, new Entry(e.key, e.hash, e.series, e.id, resized.get(index)));
+            }
+        }
+        return resized;
+    }
+
+    private static Entry find(Entry head, CharSequence key, int hash) {
+        for (Entry e = head; e != null; e = e.next) {
+            if (e.hash == hash && e.key.contentEquals(key)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(int hash, int length) {
+        return (hash ^ (hash >>> 16)) & (length - 1);
+    }
+
+    /**
+     * Same as {@link String#hashCode()} but computed for any {@link CharSequence}.
+     */
+    private static int hash(CharSequence key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        return h;
+    }
+
+    private static Series parseOrNull(String key) {
+        try {
+            return new Series(key);
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.FINEST, "Failed to create series: " + key, ex);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.model;
+
+import static java.util.Collections.emptySet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An inverted index of {@link Series} that is used to find the {@link Series} matching a pattern {@link Series} without
+ * testing all known {@link Series} using {@link Series#matches(Series)}.
+ *
+ * The index maps the metric name to the {@link Series} with that metric and for each tag position the tag name to the
+ * {@link Series} with that tag at that position, further separated by tag value. A pattern query starts from the
+ * smallest set of candidates that satisfy all of the non wild-card parts of the pattern. Only these candidates are
+ * finally tested using {@link Series#matches(Series)}. Therefore the time needed is roughly proportional to the number
+ * of matches.
+ *
+ * <h3>Consistency Remarks</h3>
+ *
+ * Queries are lock free. Adding and removing {@link Series} is synchronised. A query running concurrently with an
+ * update might or might not include the added or removed {@link Series}.
+ *
+ * @author Jan Bernitt
+ */
+public final class SeriesIndex {
+
+    /**
+     * The {@link Series} having a particular tag name at a particular position.
+     */
+    private static final class TagPostings {
+
+        final Set<Series> all = ConcurrentHashMap.newKeySet();
+        final Map<String, Set<Series>> byValue = new ConcurrentHashMap<>();
+    }
+
+    private final Set<Series> all = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Series>> byMetric = new ConcurrentHashMap<>();
+    /**
+     * Index is the tag position
+     */
+    private final List<Map<String, TagPostings>> byTagByPosition = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param series the {@link Series} to add to the index, not null
+     * @return true, if the {@link Series} was added, false if it already was contained
+     */
+    public synchronized boolean add(Series series) {
+        if (!all.add(series)) {
+            return false;
+        }
+        byMetric.computeIfAbsent(series.getMetric(), key -> ConcurrentHashMap.newKeySet()).add(series);
+        for (int i = 0; i < series.tagCount(); i++) {
+            if (i >= byTagByPosition.size()) {
+                byTagByPosition.add(new ConcurrentHashMap<>());
+            }
+            TagPostings tag = byTagByPosition.get(i).computeIfAbsent(series.key(i), key -> new TagPostings());
+            tag.all.add(series);
+            tag.byValue.computeIfAbsent(series.value(i), key -> ConcurrentHashMap.newKeySet()).add(series);
+        }
+        return true;
+    }
+
+    /**
+     * @param series the {@link Series} to remove from the index, not null
+     * @return true, if the {@link Series} was removed, false if it was not contained
+     */
+    public synchronized boolean remove(Series series) {
+        if (!all.remove(series)) {
+            return false;
+        }
+        removePosting(byMetric, series.getMetric(), series);
+        for (int i = 0; i < series.tagCount(); i++) {
+            Map<String, TagPostings> byTag = byTagByPosition.get(i);
+            TagPostings tag = byTag.get(series.key(i));
+            tag.all.remove(series);
+            removePosting(tag.byValue, series.value(i), series);
+            if (tag.all.isEmpty()) {
+                byTag.remove(series.key(i));
+            }
+        }
+        return true;
+    }
+
+    private static void removePosting(Map<String, Set<Series>> postings, String key, Series series) {
+        Set<Series> posting = postings.get(key);
+        posting.remove(series);
+        if (posting.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    public boolean contains(Series series) {
+        return all.contains(series);
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * @param pattern a {@link Series} that might be a {@link Series#isPattern()}
+     * @param action  called with each {@link Series} in this index the pattern {@link Series#matches(Series)}
+     */
+    public void forEachMatching(Series pattern, Consumer<Series> action) {
+        for (Series candidate : candidates(pattern)) {
+            if (pattern.matches(candidate)) {
+                action.accept(candidate);
+            }
+        }
+    }
+
+    /**
+     * @return The smallest set of {@link Series} that all non wild-card parts of the pattern can be found in
+     */
+    private Set<Series> candidates(Series pattern) {
+        Set<Series> candidates = all;
+        String metric = pattern.getMetric();
+        if (!Series.isWildCardValue(metric)) {
+            candidates = smaller(candidates, byMetric.get(metric));
+        }
+        int lastIndex = pattern.tagCount() - 1;
+        for (int i = 0; i <= lastIndex && !candidates.isEmpty(); i++) {
+            String key = pattern.key(i);
+            if (i == lastIndex && Series.isWildCardName(key)) {
+                continue; // matches with and without the last tag
+            }
+            TagPostings tag = i < byTagByPosition.size() ? byTagByPosition.get(i).get(key) : null;
+            if (tag == null) {
+                return emptySet();
+            }
+            String value = pattern.value(i);
+            candidates = smaller(candidates, Series.isWildCardValue(value) ? tag.all : tag.byValue.get(value));
+        }
+        return candidates;
+    }
+
+    private static Set<Series> smaller(Set<Series> a, Set<Series> b) {
+        if (b == null) {
+            return emptySet();
+        }
+        return b.size() < a.size() ? b : a;
+    }
+}
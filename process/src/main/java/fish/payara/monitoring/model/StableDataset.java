@@ -57,7 +57,11 @@ public final class StableDataset extends ConstantDataset {
     private final int observedValueChanges;
     private final long observedMax;
     private final long observedMin;
-    private final BigInteger observedSum;
+    private final long observedSum;
+    /**
+     * The exact sum in case the {@link #observedSum} did overflow, otherwise null
+     */
+    private final BigInteger observedSumOverflow;
     private final int stableCount;
 
     public StableDataset(SeriesDataset predecessor, long time, boolean aggregate) {
@@ -65,10 +69,26 @@ public final class StableDataset extends ConstantDataset {
         this.observedValueChanges = predecessor.getObservedValueChanges();
         this.observedMax = predecessor.getObservedMax();
         this.observedMin = predecessor.getObservedMin();
-        this.observedSum = predecessor.getObservedSum().add(BigInteger.valueOf(predecessor.lastValue()));
+        this.observedSum = predecessor.getObservedSumAsLong() + predecessor.lastValue();
+        this.observedSumOverflow = observedSumOverflow(predecessor, predecessor.lastValue());
         this.stableCount = predecessor.getStableCount() + 1;
     }
 
+    private StableDataset(StableDataset source, MinutesDataset recentMinutes) {
+        super(source, recentMinutes);
+        this.observedValueChanges = source.observedValueChanges;
+        this.observedMax = source.observedMax;
+        this.observedMin = source.observedMin;
+        this.observedSum = source.observedSum;
+        this.observedSumOverflow = source.observedSumOverflow;
+        this.stableCount = source.stableCount;
+    }
+
+    @Override
+    public SeriesDataset withRecentMinutes(MinutesDataset recentMinutes) {
+        return new StableDataset(this, recentMinutes);
+    }
+
     @Override
     public int getObservedValueChanges() {
         return observedValueChanges;
@@ -86,9 +106,19 @@ public final class StableDataset extends ConstantDataset {
 
     @Override
     public BigInteger getObservedSum() {
+        return observedSumOverflow != null ? observedSumOverflow : BigInteger.valueOf(observedSum);
+    }
+
+    @Override
+    public long getObservedSumAsLong() {
         return observedSum;
     }
 
+    @Override
+    public boolean isObservedSumOverflow() {
+        return observedSumOverflow != null;
+    }
+
     @Override
     public int getStableCount() {
         return stableCount;
@@ -97,15 +127,15 @@ public final class StableDataset extends ConstantDataset {
     @Override
     public SeriesDataset add(long time, long value, boolean aggregate) {
         if (time == lastTime()) {
-            return new PartialDataset(this, time, value + lastValue(), aggregate);
+            return varying(time, value + lastValue(), aggregate);
         }
         return value == lastValue()
                 ? new StableDataset(this, time, aggregate)
-                : new PartialDataset(this, time, value, aggregate);
+                : varying(time, value, aggregate);
     }
 
     @Override
     public int estimatedBytesMemory() {
-        return 100;
+        return 108;
     }
 }
@@ -44,10 +44,14 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import fish.payara.monitoring.alert.Condition.Operator;
 import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.MinutesDataset;
+import fish.payara.monitoring.model.PointWindow;
 import fish.payara.monitoring.model.Series;
 import fish.payara.monitoring.model.SeriesDataset;
 
@@ -270,13 +274,36 @@ public class ConditionTest {
         assertEquals("value > 5 in last 3000ms", anyGt5in3sec.toString());
     }
 
+    @Test
+    public void windowGivesSameResultAsScanningPoints() {
+        Random rnd = new Random(13);
+        for (Operator op : Operator.values()) {
+            for (Number forLast : new Number[] { 0, 3, -3, 60, -60, 0L, 3000L, -3000L, 45000L, -45000L }) {
+                for (boolean onAverage : new boolean[] { false, true }) {
+                    Condition c = new Condition(op, 5, forLast, onAverage);
+                    PointWindow window = c.newWindow();
+                    SeriesDataset set = new EmptyDataset("Instance", new Series("Metric"), 50);
+                    for (int i = 0; i < 500; i++) {
+                        long value = rnd.nextInt(10) == 0 ? rnd.nextInt(10) : 6 + rnd.nextInt(2) * (i / 100);
+                        set = set.add(i * ONE_SECOND, value);
+                        assertEquals(c + " at " + i, c.isSatisfied(set), c.isSatisfied(set, window));
+                    }
+                }
+            }
+        }
+    }
+
     private static void assertSatisfied(Condition c, long... points) {
-        assertTrue(c.isSatisfied(createSet(ONE_SECOND, points)));
+        assertTrue(c.isSatisfied(createSet(ONE_SECOND, false, points)));
+        assertTrue(c.isSatisfied(createSet(ONE_SECOND, true, points)));
+        assertTrue(c.isSatisfied(createSet(ONE_SECOND, false, points), c.newWindow()));
         assertBasicProperties(c);
     }
 
     private static void assertNotSatisfied(Condition c, long... points) {
-        assertFalse(c.isSatisfied(createSet(ONE_SECOND, points)));
+        assertFalse(c.isSatisfied(createSet(ONE_SECOND, false, points)));
+        assertFalse(c.isSatisfied(createSet(ONE_SECOND, true, points)));
+        assertFalse(c.isSatisfied(createSet(ONE_SECOND, false, points), c.newWindow()));
         assertBasicProperties(c);
     }
 
@@ -291,9 +318,10 @@ public class ConditionTest {
         assertNotEquals(other.toString(), c.toString());
     }
 
-    private static SeriesDataset createSet(long timeBetweenPoints, long... points) {
+    private static SeriesDataset createSet(long timeBetweenPoints, boolean compressed, long... points) {
         long time = 0L;
-        SeriesDataset set = new EmptyDataset("Instance", new Series("Metric"), points.length);
+        SeriesDataset set = new EmptyDataset("Instance", new Series("Metric"), points.length, MinutesDataset.EMPTY,
+                compressed);
         for (int i = 0; i < points.length; i++) {
             time += timeBetweenPoints;
             set = set.add(time, points[i]);
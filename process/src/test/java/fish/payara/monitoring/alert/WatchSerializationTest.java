@@ -46,6 +46,7 @@ import static org.junit.Assert.assertNotSame;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -136,7 +137,7 @@ public class WatchSerializationTest {
                 || fieldType.isEnum()
                 || fieldType == String.class 
                 || fieldType == Metric.class 
-                || Number.class.isAssignableFrom(fieldType) 
+                || Number.class.isAssignableFrom(fieldType) && fieldType != AtomicInteger.class
                 || Map.class.isAssignableFrom(fieldType);
     }
 }
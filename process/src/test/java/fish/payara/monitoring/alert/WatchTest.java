@@ -43,6 +43,8 @@ import static fish.payara.monitoring.alert.Alert.Level.AMBER;
 import static fish.payara.monitoring.alert.Alert.Level.GREEN;
 import static fish.payara.monitoring.alert.Alert.Level.RED;
 import static fish.payara.monitoring.alert.Alert.Level.WHITE;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
@@ -52,6 +54,8 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
 
 import org.junit.Test;
 
@@ -220,6 +224,107 @@ public class WatchTest {
         assertNotSame(heapUsage, heapUsage.red(80, null, true, 75L, 5, true));
     }
 
+    @Test
+    public void checkingOnlyChangedSeriesGivesSameLevels() {
+        long[] values = new long[400];
+        Random rnd = new Random(3);
+        int i = 0;
+        while (i < values.length) {
+            long value = rnd.nextInt(100);
+            int run = 1 + rnd.nextInt(rnd.nextBoolean() ? 3 : 40);
+            for (int j = 0; j < run && i < values.length; j++) {
+                values[i++] = value;
+            }
+        }
+        assertSameLevelsWhenCheckingChanges(() -> new Watch("Heap Usage",
+                new Metric(new Series("ns:health HeapUsage"), Unit.PERCENT))
+                .red(80, 5, true, 75L, 5, true)
+                .amber(60, 5, true, 55L, 5, true)
+                .green(0, null, false, null, null, false), values);
+        assertSameLevelsWhenCheckingChanges(() -> new Watch("CPU Usage",
+                new Metric(new Series("ns:health CpuUsage"), Unit.PERCENT))
+                .red(80, 5, false, 75L, 5, false)
+                .amber(60, 5000L, false, 55L, 5000L, false), values);
+        assertSameLevelsWhenCheckingChanges(() -> new Watch("Liveliness UP",
+                new Metric(new Series("ns:health LivelinessUp"), Unit.PERCENT))
+                .red(-60, -3, false, null, null, false)
+                .amber(-100, null, false, null, null, false)
+                .green(50, 0, false, null, null, false), values);
+    }
+
+    @Test
+    public void statesOfDatasetsNoLongerMatchedAreRemoved() {
+        Watch watch = new Watch("Request Time", new Metric(new Series("ns:web @:* RequestTime"), Unit.COUNT))
+                .red(1000, null, false, null, null, false);
+        SeriesDataset a = new EmptyDataset("server", new Series("ns:web @:a RequestTime"), 5).add(1000L, 2000L);
+        SeriesDataset b = new EmptyDataset("server", new Series("ns:web @:b RequestTime"), 5).add(1000L, 10L);
+        List<SeriesDataset> matches = new ArrayList<>();
+        matches.add(a);
+        matches.add(b);
+        SeriesLookup lookup = (series, instances) -> matches;
+        List<Alert> alerts = watch.check(lookup);
+        assertEquals(1, alerts.size());
+        assertSame(watch.state(a), watch.state(a.add(2000L, 2000L)));
+        assertEquals(2, countStates(watch));
+        matches.remove(a);
+        watch.check(lookup);
+        assertEquals(1, countStates(watch));
+        assertSame(b.getSeries(), watch.iterator().next().getSeries());
+        assertTrue(alerts.get(0).isStopped());
+    }
+
+    @Test
+    public void statesOfDatasetsNoLongerMatchedAreRemovedByCopies() {
+        Watch watch = new Watch("Request Time", new Metric(new Series("ns:web @:* RequestTime"), Unit.COUNT))
+                .red(1000, null, false, null, null, false);
+        SeriesDataset a = new EmptyDataset("server", new Series("ns:web @:a RequestTime"), 5).add(1000L, 2000L);
+        SeriesDataset b = new EmptyDataset("server", new Series("ns:web @:b RequestTime"), 5).add(1000L, 10L);
+        SeriesDataset c = new EmptyDataset("server", new Series("ns:web @:c RequestTime"), 5).add(1000L, 10L);
+        List<SeriesDataset> matches = new ArrayList<>();
+        matches.add(a);
+        matches.add(b);
+        matches.add(c);
+        SeriesLookup lookup = (series, instances) -> matches;
+        watch.check(lookup);
+        assertEquals(3, countStates(watch));
+        Watch programmatic = watch.programmatic();
+        matches.remove(a);
+        programmatic.check(lookup);
+        assertEquals(2, countStates(programmatic));
+        Watch changed = programmatic.red(2000, null, false, null, null, false);
+        matches.remove(b);
+        changed.check(lookup);
+        assertEquals(1, countStates(changed));
+        assertSame(c.getSeries(), changed.iterator().next().getSeries());
+    }
+
+    private static int countStates(Watch watch) {
+        int count = 0;
+        for (@SuppressWarnings("unused") Watch.State state : watch) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void assertSameLevelsWhenCheckingChanges(Supplier<Watch> factory, long[] values) {
+        Watch all = factory.get();
+        Watch changes = factory.get();
+        Series series = all.watched.series;
+        SeriesDataset set = new EmptyDataset("server", series, 20);
+        List<SeriesDataset> matches = new ArrayList<>();
+        SeriesLookup lookup = (s, instances) -> matches;
+        for (int i = 0; i < values.length; i++) {
+            SeriesDataset previous = set;
+            set = set.add((i + 1) * 1000L, values[i]);
+            matches.clear();
+            matches.add(set);
+            boolean changed = set.getObservedValueChanges() != previous.getObservedValueChanges();
+            int alerts = all.check(lookup).size();
+            assertEquals(alerts, changes.check(lookup, changed ? singleton(series) : emptySet()).size());
+            assertEquals(i + ". value", all.state(set).level, changes.state(set).level);
+        }
+    }
+
     private static void assertValuesCauseStates(Watch watch, long[] actualValues, int expectedAlerts, Level... expectedLevels) {
         SeriesDataset set = new EmptyDataset("server", watch.watched.series, actualValues.length);
         if (actualValues.length == 0) {
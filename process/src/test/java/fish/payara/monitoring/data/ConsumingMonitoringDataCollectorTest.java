@@ -96,6 +96,14 @@ public class ConsumingMonitoringDataCollectorTest implements MonitoringDataSourc
             .tag("ignoredTagSinceNull", null).collect("plainIgnoredTag", 13L)
             .tag("igniredTagSinceEmpty", "").collect("plainIgnoredEmptyTag", 14L);
         collector.tag("complex", "sp aced; str,\u1F408ange").collect("sub", 1);
+        MonitoringDataCollector web = collector.in("web");
+        MonitoringDataCollector app1 = web.group("app1");
+        MonitoringDataCollector app2 = web.group("app2");
+        app1.collect("interleaved", 20);
+        app2.collect("interleaved", 21);
+        web.collect("interleaved", 22);
+        app1.tag("x", "y").collect("interleaved", 23);
+        app2.collect("interleavedAgain", 24);
 
         // testing simple value conversion
         collector
@@ -303,6 +311,15 @@ public class ConsumingMonitoringDataCollectorTest implements MonitoringDataSourc
         assertDataPoint("longNumber", 999L);
     }
 
+    @Test
+    public void interleavedCollectorsKeepTheirTags() {
+        assertDataPoint("ns:web @:app1 interleaved", 20L);
+        assertDataPoint("ns:web @:app2 interleaved", 21L);
+        assertDataPoint("ns:web interleaved", 22L);
+        assertDataPoint("ns:web @:app1 x:y interleaved", 23L);
+        assertDataPoint("ns:web @:app2 interleavedAgain", 24L);
+    }
+
     @Test
     public void objectUsesCurrentContext() {
         assertDataPoint("@:obj sub:SomeObject length", 10L);
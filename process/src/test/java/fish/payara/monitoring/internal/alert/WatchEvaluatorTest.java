@@ -0,0 +1,182 @@
+package fish.payara.monitoring.internal.alert;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.alert.Alert;
+import fish.payara.monitoring.alert.Alert.Frame;
+import fish.payara.monitoring.alert.Watch;
+import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.Metric;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.SeriesLookup;
+import fish.payara.monitoring.model.Unit;
+
+/**
+ * Tests that evaluating {@link Watch}es in parallel using the {@link WatchEvaluator} gives the same {@link Alert}s in
+ * the same order as checking them one after another.
+ *
+ * @author Jan Bernitt
+ */
+public class WatchEvaluatorTest {
+
+    private static final int SERIES = 12;
+    private static final int INSTANCES = 16;
+    private static final int TICKS = 200;
+
+    @Test
+    public void parallelEvaluationGivesSameAlertsAsSequentialEvaluation() {
+        List<Watch> sequentialWatches = createWatches();
+        List<Watch> parallelWatches = createWatches();
+        WatchEvaluator sequential = new WatchEvaluator(0);
+        WatchEvaluator parallel = new WatchEvaluator(4);
+        List<Alert> sequentialAlerts = new ArrayList<>();
+        List<Alert> parallelAlerts = new ArrayList<>();
+        Map<Series, List<SeriesDataset>> datasets = createDatasets();
+        SeriesLookup lookup = (series, instances) -> select(datasets, series, instances);
+        Random rnd = new Random(7);
+        for (int tick = 1; tick <= TICKS; tick++) {
+            Set<Series> changed = nextTick(datasets, tick, rnd);
+            Map<Watch, Set<Series>> sequentialChanges = changesByWatch(sequentialWatches, changed);
+            Map<Watch, Set<Series>> parallelChanges = changesByWatch(parallelWatches, changed);
+
+            int changeCountBefore = Alert.getChangeCount();
+            List<Alert> raisedSequential = sequential.check(sequentialWatches, lookup, sequentialChanges);
+            int sequentialChangeCount = Alert.getChangeCount() - changeCountBefore;
+            changeCountBefore = Alert.getChangeCount();
+            List<Alert> raisedParallel = parallel.check(parallelWatches, lookup, parallelChanges);
+            assertEquals(sequentialChangeCount, Alert.getChangeCount() - changeCountBefore);
+
+            assertSameRaisedAlerts(raisedSequential, raisedParallel);
+            sequentialAlerts.addAll(raisedSequential);
+            parallelAlerts.addAll(raisedParallel);
+            assertSameAlerts(sequentialAlerts, parallelAlerts);
+        }
+        assertTrue("Alerts should be raised", sequentialAlerts.size() > 10);
+    }
+
+    private static void assertSameRaisedAlerts(List<Alert> expected, List<Alert> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 1; i < expected.size(); i++) {
+            assertEquals(expected.get(i).serial - expected.get(i - 1).serial,
+                    actual.get(i).serial - actual.get(i - 1).serial);
+        }
+    }
+
+    private static void assertSameAlerts(List<Alert> expected, List<Alert> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Alert e = expected.get(i);
+            Alert a = actual.get(i);
+            assertEquals(e.initiator.name, a.initiator.name);
+            assertEquals(e.getSeries(), a.getSeries());
+            assertEquals(e.getInstance(), a.getInstance());
+            assertEquals(e.getLevel(), a.getLevel());
+            assertEquals(e.isStopped(), a.isStopped());
+            assertEquals(e.getFrameCount(), a.getFrameCount());
+            List<Frame> expectedFrames = new ArrayList<>();
+            e.forEach(expectedFrames::add);
+            int j = 0;
+            for (Frame frame : a) {
+                assertEquals(expectedFrames.get(j).level, frame.level);
+                assertEquals(expectedFrames.get(j).start, frame.start);
+                j++;
+            }
+        }
+    }
+
+    private static Map<Watch, Set<Series>> changesByWatch(List<Watch> watches, Set<Series> changed) {
+        Map<Watch, Set<Series>> changesByWatch = new HashMap<>();
+        for (Watch watch : watches) {
+            Set<Series> watchChanges = new HashSet<>();
+            for (Series series : changed) {
+                if (watch.watched.series.matches(series)) {
+                    watchChanges.add(series);
+                }
+            }
+            changesByWatch.put(watch, watchChanges);
+        }
+        return changesByWatch;
+    }
+
+    private static Set<Series> nextTick(Map<Series, List<SeriesDataset>> datasets, int tick, Random rnd) {
+        Set<Series> changed = new HashSet<>();
+        for (List<SeriesDataset> instances : datasets.values()) {
+            for (int i = 0; i < instances.size(); i++) {
+                SeriesDataset previous = instances.get(i);
+                long value = rnd.nextInt(4) == 0 ? rnd.nextInt(100) : previous.lastValue();
+                SeriesDataset next = previous.add(tick * 1000L, value);
+                if (next.getObservedValueChanges() != previous.getObservedValueChanges()) {
+                    changed.add(next.getSeries());
+                }
+                instances.set(i, next);
+            }
+        }
+        return changed;
+    }
+
+    private static List<SeriesDataset> select(Map<Series, List<SeriesDataset>> datasets, Series series,
+            String... instances) {
+        Set<String> included = new HashSet<>(asList(instances));
+        List<SeriesDataset> matches = new ArrayList<>();
+        for (int i = 0; i < SERIES; i++) {
+            if (series.matches(series(i))) {
+                for (SeriesDataset data : datasets.get(series(i))) {
+                    if (included.isEmpty() || included.contains(data.getInstance())) {
+                        matches.add(data);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static Map<Series, List<SeriesDataset>> createDatasets() {
+        Map<Series, List<SeriesDataset>> datasets = new HashMap<>();
+        for (int i = 0; i < SERIES; i++) {
+            Series series = series(i);
+            List<SeriesDataset> instances = new ArrayList<>();
+            for (int j = 0; j < INSTANCES; j++) {
+                instances.add(new EmptyDataset("instance" + j, series, 30));
+            }
+            datasets.put(series, instances);
+        }
+        return datasets;
+    }
+
+    private static List<Watch> createWatches() {
+        List<Watch> watches = new ArrayList<>();
+        for (int i = 0; i < SERIES; i++) {
+            Metric metric = new Metric(series(i), Unit.PERCENT);
+            watches.add(new Watch("Average " + i, metric)
+                    .red(80, 3, true, 75L, 3, true)
+                    .amber(60, 3, true, 55L, 3, true)
+                    .green(0, null, false, null, null, false));
+            watches.add(new Watch("Any " + i, metric)
+                    .red(90, -2, false, null, null, false)
+                    .amber(70, -2, false, null, null, false));
+            watches.add(new Watch("Duration " + i, metric)
+                    .red(50, 3000L, false, 40L, 2000L, false));
+        }
+        watches.add(new Watch("Pattern", new Metric(new Series("ns:stress *"), Unit.PERCENT))
+                .red(95, 2, false, 90L, 2, false)
+                .amber(85, null, false, 80L, null, false));
+        return watches;
+    }
+
+    private static Series series(int index) {
+        return new Series("ns:stress Value" + index);
+    }
+}
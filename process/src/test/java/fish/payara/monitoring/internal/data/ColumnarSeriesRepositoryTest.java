@@ -0,0 +1,293 @@
+package fish.payara.monitoring.internal.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.MinutesDataset;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * Tests the {@link ColumnarSeriesRepository} and the {@link ColumnarDataset}s it provides.
+ *
+ * The expected statistics are verified against the {@link SeriesDataset} chain starting with an {@link EmptyDataset}.
+ *
+ * @author Jan Bernitt
+ */
+public class ColumnarSeriesRepositoryTest {
+
+    private static final String INSTANCE = "server";
+
+    private final SeriesDictionary dictionary = new SeriesDictionary();
+    private final ColumnarSeriesRepository repository = new ColumnarSeriesRepository(INSTANCE, dictionary, 3);
+
+    @Test
+    public void emptyRepository() {
+        assertNull(repository.select(new Series("a")));
+        assertEquals(0, repository.selectSeries(new Series("a")).size());
+        assertFalse(repository.selectAllSeries().iterator().hasNext());
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    public void unpublishedTickIsNotVisible() {
+        repository.tick(1000L);
+        repository.add(dictionary.id("a"), 1L);
+        assertNull(repository.select(new Series("a")));
+        repository.publish(false);
+        assertPoints(repository.select(new Series("a")), 1000L, 1L);
+    }
+
+    @Test
+    public void versionChangesWhenTickIsPublished() {
+        long before = repository.getVersion();
+        repository.tick(1000L);
+        repository.add(dictionary.id("a"), 1L);
+        assertEquals(before, repository.getVersion());
+        repository.publish(false);
+        long published = repository.getVersion();
+        assertNotEquals(before, published);
+        repository.publish(false);
+        assertEquals(published, repository.getVersion());
+    }
+
+    @Test
+    public void restoredHistoryIsContinued() {
+        MinutesDataset restored = MinutesDataset.EMPTY.restore(0L, 60, 1L, 3L, 2d);
+        repository.tick(60000L);
+        repository.add(dictionary.id("a"), 1L);
+        repository.restoreHistory(dictionary.id("a"), restored);
+        repository.restoreHistory(dictionary.id("b"), restored);
+        repository.publish(true);
+        MinutesDataset minutes = repository.select(new Series("a")).getRecentMinutes();
+        assertEquals(1, minutes.size());
+        assertEquals(0L, minutes.lastTime());
+        assertEquals(60, minutes.getNumberOfPoints(minutes.lastIndex()));
+        assertNull(repository.select(new Series("b")));
+    }
+
+    @Test
+    public void fillAndSlideWindow() {
+        Series a = new Series("a");
+        addTick(1000L, "a", 1L);
+        assertPoints(repository.select(a), 1000L, 1L);
+        addTick(2000L, "a", 2L);
+        addTick(3000L, "a", 3L);
+        assertPoints(repository.select(a), 1000L, 1L, 2000L, 2L, 3000L, 3L);
+        addTick(4000L, "a", 4L);
+        assertPoints(repository.select(a), 2000L, 2L, 3000L, 3L, 4000L, 4L);
+        addTick(5000L, "a", 5L);
+        addTick(6000L, "a", 6L);
+        addTick(7000L, "a", 7L);
+        assertPoints(repository.select(a), 5000L, 5L, 6000L, 6L, 7000L, 7L);
+    }
+
+    @Test
+    public void seriesAbsentInTicksHaveFewerPoints() {
+        Series b = new Series("b");
+        addTick(1000L, "a", 1L, "b", 1L);
+        addTick(2000L, "a", 2L);
+        addTick(3000L, "a", 3L, "b", 3L);
+        assertPoints(repository.select(b), 1000L, 1L, 3000L, 3L);
+        addTick(4000L, "a", 4L);
+        addTick(5000L, "a", 5L);
+        assertPoints(repository.select(b), 3000L, 3L);
+        addTick(6000L, "a", 6L);
+        assertNull(repository.select(b));
+        assertTrue(repository.contains(b));
+    }
+
+    @Test
+    public void statisticsMatchDatasetChain() {
+        long[] values = { 5, 5, 7, 7, 7, -2, 0, 0, 3 };
+        SeriesDataset expected = new EmptyDataset(INSTANCE, new Series("a"), 3);
+        for (int i = 0; i < values.length; i++) {
+            long time = (i + 1) * 1000L;
+            expected = expected.add(time, values[i]);
+            addTick(time, "a", values[i]);
+            SeriesDataset actual = repository.select(new Series("a"));
+            assertEquals(expected.getObservedValues(), actual.getObservedValues());
+            assertEquals(expected.getObservedValueChanges(), actual.getObservedValueChanges());
+            assertEquals(expected.getObservedMin(), actual.getObservedMin());
+            assertEquals(expected.getObservedMax(), actual.getObservedMax());
+            assertEquals(expected.getObservedSum(), actual.getObservedSum());
+            assertEquals(expected.getObservedSince(), actual.getObservedSince());
+            assertEquals(expected.getStableSince(), actual.getStableSince());
+            assertEquals(expected.getStableCount(), actual.getStableCount());
+            assertEquals(expected.lastValue(), actual.lastValue());
+            assertEquals(expected.lastTime(), actual.lastTime());
+        }
+    }
+
+    @Test
+    public void sameSeriesTwiceInTickAddsValues() {
+        repository.tick(1000L);
+        repository.add(dictionary.id("a"), 2L);
+        repository.add(dictionary.id("a"), 3L);
+        repository.publish(false);
+        SeriesDataset set = repository.select(new Series("a"));
+        assertPoints(set, 1000L, 5L);
+        assertEquals(BigInteger.valueOf(5L), set.getObservedSum());
+    }
+
+    @Test
+    public void observedSumOverflow() {
+        addTick(1000L, "a", Long.MAX_VALUE);
+        addTick(2000L, "a", Long.MAX_VALUE);
+        SeriesDataset set = repository.select(new Series("a"));
+        assertTrue(set.isObservedSumOverflow());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(2)), set.getObservedSum());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE), set.getObservedAvg());
+        addTick(3000L, "a", -1L);
+        set = repository.select(new Series("a"));
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(2)).subtract(BigInteger.ONE),
+                set.getObservedSum());
+    }
+
+    @Test
+    public void carryForwardExtendsSeriesNotAdded() {
+        addTick(1000L, "a", 1L, "b", 2L, "c", 3L);
+        repository.tick(2000L);
+        repository.add(dictionary.id("b"), 5L);
+        repository.carryForward(new int[] { dictionary.id("c") }, 1);
+        repository.publish(false);
+        assertPoints(repository.select(new Series("a")), 1000L, 1L, 2000L, 1L);
+        assertPoints(repository.select(new Series("b")), 1000L, 2L, 2000L, 5L);
+        assertPoints(repository.select(new Series("c")), 1000L, 3L);
+        SeriesDataset expected = new EmptyDataset(INSTANCE, new Series("a"), 3).add(1000L, 1L).add(2000L, 1L);
+        SeriesDataset actual = repository.select(new Series("a"));
+        assertEquals(expected.getObservedValues(), actual.getObservedValues());
+        assertEquals(expected.getObservedValueChanges(), actual.getObservedValueChanges());
+        assertEquals(expected.getObservedSum(), actual.getObservedSum());
+        assertEquals(expected.getStableCount(), actual.getStableCount());
+        assertEquals(expected.getStableSince(), actual.getStableSince());
+        repository.tick(3000L);
+        repository.carryForward(new int[0], 0);
+        repository.publish(false);
+        assertPoints(repository.select(new Series("a")), 1000L, 1L, 2000L, 1L, 3000L, 1L);
+        assertPoints(repository.select(new Series("c")), 1000L, 3L);
+    }
+
+    @Test
+    public void ticksNotAfterPreviousTickAreIgnored() {
+        addTick(2000L, "a", 1L);
+        assertFalse(repository.tick(2000L));
+        assertFalse(repository.tick(1000L));
+        assertTrue(repository.tick(3000L));
+    }
+
+    @Test
+    public void selectByPatternAndInstance() {
+        addTick(1000L, "ns:x a", 1L, "ns:x b", 2L, "ns:y a", 3L);
+        assertEquals(2, repository.selectSeries(new Series("ns:x *")).size());
+        assertEquals(2, repository.selectSeries(new Series("ns:* a")).size());
+        assertEquals(1, repository.selectSeries(new Series("ns:y a"), INSTANCE).size());
+        assertEquals(0, repository.selectSeries(new Series("ns:y a"), "other").size());
+        List<SeriesDataset> all = (List<SeriesDataset>) repository.selectAllSeries();
+        assertEquals(3, all.size());
+        for (SeriesDataset set : all) {
+            assertEquals(INSTANCE, set.getInstance());
+        }
+    }
+
+    @Test
+    public void datasetsDoNotChangeWithLaterTicks() {
+        addTick(1000L, "a", 1L);
+        SeriesDataset set = repository.select(new Series("a"));
+        for (int i = 2; i < 10; i++) {
+            addTick(i * 1000L, "a", i);
+        }
+        assertPoints(set, 1000L, 1L);
+        assertFalse(set.isOutdated());
+    }
+
+    @Test
+    public void addingToDatasetGivesDetachedCopy() {
+        addTick(1000L, "a", 1L);
+        addTick(2000L, "a", 1L);
+        SeriesDataset set = repository.select(new Series("a"));
+        SeriesDataset added = set.add(3000L, 5L);
+        assertPoints(added, 1000L, 1L, 2000L, 1L, 3000L, 5L);
+        assertEquals(3, added.getObservedValues());
+        assertEquals(2, added.getObservedValueChanges());
+        assertEquals(BigInteger.valueOf(7L), added.getObservedSum());
+        assertEquals(5L, added.getObservedMax());
+        assertEquals(1, added.getStableCount());
+        assertPoints(set, 1000L, 1L, 2000L, 1L);
+        assertPoints(repository.select(new Series("a")), 1000L, 1L, 2000L, 1L);
+    }
+
+    @Test
+    public void concurrentReadsWhileSeriesAreAddedSucceed() throws InterruptedException {
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 2000; i++) {
+                repository.tick(i * 1000L);
+                repository.add(dictionary.id("a"), i);
+                repository.add(dictionary.id("s" + i), i);
+                repository.publish(false);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            SeriesDataset a = repository.select(new Series("a"));
+            if (a != null) {
+                assertEquals(a.lastTime() / 1000L, a.lastValue());
+            }
+            repository.selectSeries(Series.ANY);
+        }
+        writer.join();
+        assertEquals(2001, repository.size());
+    }
+
+    @Test
+    public void concurrentReadsSeeConsistentTicks() throws InterruptedException {
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 5000; i++) {
+                repository.tick(i * 1000L);
+                repository.add(dictionary.id("a"), i);
+                repository.add(dictionary.id("b"), i);
+                repository.publish(false);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<SeriesDataset> sets = repository.selectSeries(Series.ANY);
+            if (sets.size() == 2) {
+                SeriesDataset a = sets.get(0);
+                SeriesDataset b = sets.get(1);
+                assertEquals(a.lastTime(), b.lastTime());
+                assertArrayEquals(a.points(), b.points());
+                assertEquals(a.getObservedSum(), b.getObservedSum());
+                assertEquals(a.lastTime() / 1000L, a.lastValue());
+            }
+        }
+        writer.join();
+    }
+
+    private void addTick(long time, Object... seriesAndValues) {
+        assertTrue(repository.tick(time));
+        for (int i = 0; i < seriesAndValues.length; i += 2) {
+            repository.add(dictionary.id((String) seriesAndValues[i]), ((Number) seriesAndValues[i + 1]).longValue());
+        }
+        repository.publish(false);
+    }
+
+    private static void assertPoints(SeriesDataset set, long... expected) {
+        assertArrayEquals(expected, set.points());
+        assertEquals(expected.length / 2, set.size());
+        assertEquals(expected[0], set.firstTime());
+        assertEquals(expected[expected.length - 2], set.lastTime());
+        assertEquals(expected[expected.length - 1], set.lastValue());
+    }
+}
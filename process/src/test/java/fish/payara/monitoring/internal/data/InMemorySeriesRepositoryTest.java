@@ -0,0 +1,161 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.internal.data.InMemorySeriesRepository.SeriesDatasetsSnapshot;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * Tests the handling of remote instances by the {@link InMemorySeriesRepository}.
+ *
+ * @author Jan Bernitt
+ */
+public class InMemorySeriesRepositoryTest {
+
+    private static final Series SERIES = new Series("ns:test Value");
+
+    private final SeriesDictionary senderDictionary = new SeriesDictionary();
+    private final SeriesDatasetsCodec.Encoder encoder = new SeriesDatasetsCodec.Encoder(senderDictionary);
+    private final InMemorySeriesRepository repository = new InMemorySeriesRepository("das", true, null,
+            () -> emptyList());
+
+    @Test
+    public void dataOfInstancesNoLongerSendingIsRemoved() {
+        long now = System.currentTimeMillis();
+        send("instance1", 1000L, true);
+        // a restarted instance starts with a keyframe
+        SeriesDatasetsSnapshot restarted = new SeriesDatasetsSnapshot("instance1", 2000L, 1, senderDictionary);
+        restarted.accept(SERIES.toString(), 2000L);
+        repository.addRemoteDatasets(new SeriesDatasetsCodec.Encoder(senderDictionary).encode(restarted));
+        assertEquals(1, repository.selectSeries(SERIES).size());
+        assertEquals(1, repository.selectAnnotations(SERIES).size());
+        assertTrue(repository.instances().contains("instance1"));
+        long version = repository.getVersion();
+
+        repository.expireInstances(now);
+        assertEquals(1, repository.selectSeries(SERIES).size());
+
+        repository.expireInstances(now + SECONDS.toMillis(3600));
+        assertTrue(repository.selectSeries(SERIES).isEmpty());
+        assertTrue(repository.selectSeries(new Series("ns:test *")).isEmpty());
+        assertTrue(repository.selectAnnotations(SERIES).isEmpty());
+        assertEquals(1, repository.instances().size());
+        assertTrue(repository.instances().contains("das"));
+        assertNull(repository.changedSince(version));
+    }
+
+    @Test
+    public void stateOfExpiredInstancesIsForgotten() {
+        long now = System.currentTimeMillis();
+        send("instance1", 1000L, true);
+        send("instance2", 1000L, false);
+        SeriesDictionary dictionary = repository.getDictionary();
+        int id = dictionary.id(SERIES);
+        assertTrue(id >= 0);
+        assertEquals(2, repository.getDecoder().instances().size());
+
+        repository.expireInstances(now + SECONDS.toMillis(3600));
+        assertTrue(repository.getDecoder().instances().isEmpty());
+        assertEquals(-1, dictionary.id(SERIES));
+        assertNull(dictionary.series(id));
+
+        // a restarted instance starts with a keyframe
+        SeriesDatasetsSnapshot restarted = new SeriesDatasetsSnapshot("instance1", 2000L, 1, senderDictionary);
+        restarted.accept(SERIES.toString(), 2000L);
+        repository.addRemoteDatasets(new SeriesDatasetsCodec.Encoder(senderDictionary).encode(restarted));
+        assertEquals(1, repository.selectSeries(SERIES).size());
+        assertTrue(dictionary.id(SERIES) > id);
+    }
+
+    @Test
+    public void instancesExpireConsistentlyWhileReceiving() throws InterruptedException {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int round = 0; round < 50 && error.get() == null; round++) {
+            long time = (round + 1) * 1000L;
+            CountDownLatch start = new CountDownLatch(1);
+            Thread receiver = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 20; i++) {
+                        // each restart is a keyframe defining all its series
+                        SeriesDatasetsSnapshot restarted = new SeriesDatasetsSnapshot("instance1", time, 2,
+                                senderDictionary);
+                        restarted.accept(SERIES.toString(), i);
+                        restarted.accept(SERIES.toString() + i, i);
+                        repository.addRemoteDatasets(new SeriesDatasetsCodec.Encoder(senderDictionary)
+                                .encode(restarted));
+                    }
+                } catch (Throwable ex) {
+                    error.compareAndSet(null, ex);
+                }
+            });
+            receiver.start();
+            start.countDown();
+            for (int i = 0; i < 20; i++) {
+                repository.expireInstances(System.currentTimeMillis() + SECONDS.toMillis(3600));
+            }
+            receiver.join();
+            // data is only kept for registered instances, otherwise it would never expire
+            assertEquals(repository.instances().contains("instance1"), !repository.selectSeries(SERIES).isEmpty());
+            for (SeriesDataset data : repository.selectSeries(new Series("ns:test *"))) {
+                assertNotNull(data.getSeries());
+            }
+        }
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+        repository.expireInstances(System.currentTimeMillis() + SECONDS.toMillis(3600));
+        assertTrue(repository.selectSeries(new Series("ns:test *")).isEmpty());
+        assertEquals(-1, repository.getDictionary().id(SERIES));
+    }
+
+    @Test
+    public void valuesAreNotCarriedForwardAfterMissedMessage() {
+        Series other = new Series("ns:test Other");
+        SeriesDatasetsSnapshot snapshot = new SeriesDatasetsSnapshot("instance1", 1000L, 2, senderDictionary);
+        snapshot.accept(SERIES.toString(), 1L);
+        snapshot.accept(other.toString(), 2L);
+        repository.addRemoteDatasets(encoder.encode(snapshot));
+        snapshot = new SeriesDatasetsSnapshot("instance1", 2000L, 1, senderDictionary);
+        snapshot.accept(SERIES.toString(), 3L);
+        encoder.encode(snapshot); // lost, other is no longer collected
+        snapshot = new SeriesDatasetsSnapshot("instance1", 3000L, 1, senderDictionary);
+        snapshot.accept(SERIES.toString(), 4L);
+        repository.addRemoteDatasets(encoder.encode(snapshot));
+        assertEquals(3000L, repository.selectSeries(SERIES).get(0).lastTime());
+        assertEquals(1000L, repository.selectSeries(other).get(0).lastTime());
+    }
+
+    @Test
+    public void publishedSecondOnlyChangesForNewSecond() {
+        send("instance1", 1000L, false);
+        long version = repository.getVersion();
+        assertEquals(1000L, repository.getPublishedSecond());
+        send("instance2", 1000L, false);
+        assertEquals(1000L, repository.getPublishedSecond());
+        assertTrue(repository.getVersion() > version);
+        send("instance1", 2000L, false);
+        assertEquals(2000L, repository.getPublishedSecond());
+    }
+
+    private void send(String instance, long time, boolean annotated) {
+        SeriesDatasetsSnapshot snapshot = new SeriesDatasetsSnapshot(instance, time, 1, senderDictionary);
+        snapshot.accept(SERIES.toString(), time);
+        if (annotated) {
+            snapshot.accept(SERIES.toString(), time, false, new String[] { "Key", "Value" });
+        }
+        repository.addRemoteDatasets(encoder.encode(snapshot));
+    }
+}
@@ -0,0 +1,41 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link InstanceRegistry} used to expire instances that no longer send data.
+ *
+ * @author Jan Bernitt
+ */
+public class InstanceRegistryTest {
+
+    @Test
+    public void instancesNotSeenSinceGivenTimeExpire() {
+        InstanceRegistry registry = new InstanceRegistry("das");
+        registry.seen("a", 1000L);
+        registry.seen("b", 2000L);
+        assertEquals(new HashSet<>(asList("das", "a", "b")), registry.instances());
+        assertTrue(registry.expire(1000L).isEmpty());
+        assertEquals(singletonList("a"), registry.expire(1500L));
+        assertEquals(new HashSet<>(asList("das", "b")), registry.instances());
+        assertEquals(-1L, registry.lastSeen("a"));
+        registry.seen("b", 3000L);
+        assertTrue(registry.expire(2500L).isEmpty());
+        assertEquals(3000L, registry.lastSeen("b"));
+    }
+
+    @Test
+    public void localInstanceNeverExpires() {
+        InstanceRegistry registry = new InstanceRegistry("das");
+        registry.seen("das", 1000L);
+        assertTrue(registry.expire(Long.MAX_VALUE).isEmpty());
+        assertEquals(new HashSet<>(asList("das")), registry.instances());
+    }
+}
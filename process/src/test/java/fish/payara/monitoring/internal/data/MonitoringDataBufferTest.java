@@ -0,0 +1,53 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link MonitoringDataBuffer} used to record the data of a source collected on a worker thread.
+ *
+ * @author Jan Bernitt
+ */
+public class MonitoringDataBufferTest {
+
+    @Test
+    public void replayPassesRecordedPointsAndAnnotationsInOrder() {
+        MonitoringDataBuffer buffer = new MonitoringDataBuffer();
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            key.setLength(0);
+            key.append("ns:test Metric").append(i);
+            buffer.accept(key, i);
+            if (i % 10 == 0) {
+                buffer.accept(key.append("Annotated"), -i, i % 20 == 0, new String[] { "Key", "v" + i });
+            }
+        }
+        List<String> keys = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        List<String> annotated = new ArrayList<>();
+        buffer.replay((series, value) -> {
+            assertFalse(series instanceof String);
+            keys.add(series.toString());
+            values.add(value);
+        }, (series, value, keyed, attrs) -> {
+            assertEquals(value % 20 == 0, keyed);
+            assertEquals(asList("Key", "v" + -value), asList(attrs));
+            annotated.add(series.toString());
+        });
+        assertEquals(100, keys.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("ns:test Metric" + i, keys.get(i));
+            assertEquals(i, values.get(i).longValue());
+        }
+        assertEquals(10, annotated.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("ns:test Metric" + (i * 10) + "Annotated", annotated.get(i));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+
+/**
+ * Tests the {@link ParallelSourceCollector} merging the data of sources completing in time and handling late, dropped
+ * and failing sources.
+ *
+ * @author Jan Bernitt
+ */
+public class ParallelSourceCollectorTest {
+
+    private static final class A { }
+    private static final class B { }
+    private static final class Slow { }
+    private static final class Fast { }
+    private static final class Bad { }
+    private static final class Good { }
+
+    private static final class Other {
+
+        static final class Slow { }
+    }
+
+    private final ParallelSourceCollector collector = new ParallelSourceCollector(2);
+    private final List<String> points = new ArrayList<>();
+    private final List<String> annotations = new ArrayList<>();
+    private final List<String> succeeded = new ArrayList<>();
+    private final List<String> failed = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ParallelSourceCollector.Listener listener = new ParallelSourceCollector.Listener() {
+
+        @Override
+        public void onSuccess(String sourceId) {
+            succeeded.add(sourceId);
+        }
+
+        @Override
+        public void onFailure(String sourceId, RuntimeException ex) {
+            failed.add(sourceId + ":" + ex.getMessage());
+        }
+    };
+
+    @After
+    public void releaseBlockedSources() {
+        release.countDown();
+    }
+
+    @Test
+    public void completedSourcesAreMergedInSubmitOrder() {
+        collector.submit(A.class, "A", c -> {
+            sleep(50);
+            c.collect("a", 1L);
+        });
+        collector.submit(B.class, "B", c -> c.collect("b", 2L).annotate("b", 3L, false, "x", "y"));
+        collector.await(System.currentTimeMillis() + 5000L, this::addPoint, this::addAnnotation, listener);
+        assertEquals(asList("a=1", "b=2"), points);
+        assertEquals(asList("b=3"), annotations);
+        assertEquals(asList("A", "B"), succeeded);
+        assertEquals(0, collector.getLateCount());
+        assertEquals(0, collector.getDroppedCount());
+    }
+
+    @Test
+    public void lateSourcesAreDiscardedAndDroppedWhileRunning() {
+        collector.submit(Slow.class, "slow", c -> {
+            await(release);
+            c.collect("slow", 1L);
+        });
+        collector.submit(Fast.class, "fast", c -> c.collect("fast", 2L));
+        collector.await(System.currentTimeMillis() + 200L, this::addPoint, this::addAnnotation, listener);
+        assertEquals(asList("fast=2"), points);
+        assertEquals(1, collector.getLateCount());
+        assertEquals(0, collector.getDroppedCount());
+
+        points.clear();
+        collector.submit(Slow.class, "slow", c -> c.collect("slow", 3L));
+        collector.submit(Fast.class, "fast", c -> c.collect("fast", 4L));
+        collector.await(System.currentTimeMillis() + 5000L, this::addPoint, this::addAnnotation, listener);
+        assertEquals(asList("fast=4"), points);
+        assertEquals(0, collector.getLateCount());
+        assertEquals(1, collector.getDroppedCount());
+    }
+
+    @Test
+    public void sourcesWithSameSimpleNameAreNotDropped() {
+        collector.submit(Slow.class, "Slow", c -> {
+            await(release);
+            c.collect("slow", 1L);
+        });
+        collector.await(System.currentTimeMillis() + 200L, this::addPoint, this::addAnnotation, listener);
+        assertEquals(1, collector.getLateCount());
+
+        assertTrue(collector.submit(Other.Slow.class, "Slow", c -> c.collect("other", 2L)));
+        assertFalse(collector.submit(Slow.class, "Slow", c -> c.collect("slow", 3L)));
+        collector.await(System.currentTimeMillis() + 5000L, this::addPoint, this::addAnnotation, listener);
+        assertEquals(asList("other=2"), points);
+        assertEquals(asList("Slow"), succeeded);
+        assertEquals(1, collector.getDroppedCount());
+    }
+
+    @Test
+    public void rootCollectorIsReusedForSameSourceClass() {
+        List<MonitoringDataCollector> roots = new ArrayList<>();
+        collector.submit(A.class, "A", c -> {
+            roots.add(c);
+            c.collect("a", 1L);
+        });
+        collector.await(System.currentTimeMillis() + 5000L, this::addPoint, this::addAnnotation, listener);
+        collector.submit(A.class, "A", c -> {
+            roots.add(c);
+            c.collect("a", 2L);
+        });
+        collector.submit(A.class, "A", c -> c.collect("a", 3L));
+        collector.await(System.currentTimeMillis() + 5000L, this::addPoint, this::addAnnotation, listener);
+        assertEquals(2, roots.size());
+        assertSame(roots.get(0), roots.get(1));
+        assertEquals(asList("a=1", "a=2", "a=3"), points);
+        assertEquals(0, collector.getDroppedCount());
+    }
+
+    @Test
+    public void failingSourcesAreReported() {
+        collector.submit(Bad.class, "bad", c -> {
+            c.collect("bad", 1L);
+            throw new IllegalStateException("broken");
+        });
+        collector.submit(Good.class, "good", c -> c.collect("good", 2L));
+        collector.await(System.currentTimeMillis() + 5000L, this::addPoint, this::addAnnotation, listener);
+        assertEquals(asList("good=2"), points);
+        assertEquals(asList("bad:broken"), failed);
+        assertEquals(asList("good"), succeeded);
+    }
+
+    private void addPoint(CharSequence series, long value) {
+        points.add(series + "=" + value);
+    }
+
+    private void addAnnotation(CharSequence series, long value, boolean keyed, String[] attrs) {
+        annotations.add(series + "=" + value);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.model.Series;
+
+/**
+ * Tests the {@link SeriesChanges} used to track changed {@link Series} by version.
+ *
+ * @author Jan Bernitt
+ */
+public class SeriesChangesTest {
+
+    private static final Series A = new Series("a");
+    private static final Series B = new Series("b");
+    private static final Series C = new Series("c");
+
+    @Test
+    public void changesSinceVersionAreMerged() {
+        SeriesChanges changes = new SeriesChanges(4);
+        long v0 = changes.getVersion();
+        assertEquals(1L, changes.publish(new HashSet<>(singleton(A))));
+        assertEquals(2L, changes.publish(new HashSet<>(asList(B, C))));
+        assertEquals(new HashSet<>(asList(A, B, C)), changes.since(v0));
+        assertEquals(new HashSet<>(asList(B, C)), changes.since(1L));
+        assertTrue(changes.since(2L).isEmpty());
+    }
+
+    @Test
+    public void changesOfVersionsNoLongerKeptAreUnknown() {
+        SeriesChanges changes = new SeriesChanges(2);
+        changes.publish(new HashSet<>(singleton(A)));
+        changes.publish(new HashSet<>(singleton(B)));
+        changes.publish(new HashSet<>(singleton(C)));
+        assertNull(changes.since(0L));
+        assertEquals(new HashSet<>(asList(B, C)), changes.since(1L));
+        assertNull(changes.since(-1L));
+        assertNull(changes.since(4L));
+    }
+
+    @Test
+    public void changesSinceUnknownVersionAreUnknown() {
+        SeriesChanges changes = new SeriesChanges(4);
+        changes.publish(new HashSet<>(singleton(A)));
+        changes.publishUnknown();
+        changes.publish(new HashSet<>(singleton(B)));
+        assertNull(changes.since(0L));
+        assertNull(changes.since(1L));
+        assertEquals(new HashSet<>(singleton(B)), changes.since(2L));
+    }
+
+    @Test
+    public void keepingMoreVersionsRetainsPublishedChanges() {
+        SeriesChanges changes = new SeriesChanges(2);
+        changes.publish(new HashSet<>(singleton(A)));
+        changes.publish(new HashSet<>(singleton(B)));
+        changes.publish(new HashSet<>(singleton(C)));
+        changes.keep(4);
+        assertEquals(new HashSet<>(asList(B, C)), changes.since(1L));
+        assertNull(changes.since(0L));
+        changes.publish(new HashSet<>(singleton(A)));
+        changes.publish(new HashSet<>(singleton(A)));
+        assertEquals(new HashSet<>(asList(A, B, C)), changes.since(1L));
+        assertNull(changes.since(0L));
+    }
+}
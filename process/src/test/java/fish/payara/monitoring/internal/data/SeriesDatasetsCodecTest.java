@@ -0,0 +1,305 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.internal.data.InMemorySeriesRepository.SeriesDatasetsSnapshot;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesAnnotation;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * Tests the {@link SeriesDatasetsCodec} by encoding {@link SeriesDatasetsSnapshot}s with a sender's
+ * {@link SeriesDictionary} and decoding them with a receiver's {@link SeriesDictionary}.
+ *
+ * @author Jan Bernitt
+ */
+public class SeriesDatasetsCodecTest {
+
+    private static final String INSTANCE = "server";
+
+    private final SeriesDictionary senderDictionary = new SeriesDictionary();
+    private final SeriesDictionary receiverDictionary = new SeriesDictionary();
+    private final SeriesDatasetsCodec.Encoder encoder = new SeriesDatasetsCodec.Encoder(senderDictionary, 42L);
+    private final SeriesDatasetsCodec.Decoder decoder = new SeriesDatasetsCodec.Decoder(receiverDictionary);
+
+    @Test
+    public void roundTripValues() {
+        receiverDictionary.id("ns:other x"); // make sure IDs differ between sender and receiver
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(1000L, "ns:a x", 1L, "ns:b y", -2L, "ns:c z", 3L));
+        assertEquals(INSTANCE, received.instance);
+        assertEquals(1000L, received.time);
+        assertValues(received, "ns:a x", 1L, "ns:b y", -2L, "ns:c z", 3L);
+    }
+
+    @Test
+    public void roundTripEdgeValues() {
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(Long.MAX_VALUE, "a", Long.MIN_VALUE, "b", Long.MAX_VALUE,
+                "c", 0L, "d", -1L, "e", 64L, "f", -65L));
+        assertEquals(Long.MAX_VALUE, received.time);
+        assertValues(received, "a", Long.MIN_VALUE, "b", Long.MAX_VALUE, "c", 0L, "d", -1L, "e", 64L, "f", -65L);
+    }
+
+    @Test
+    public void roundTripUnicode() {
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(1000L, "ns:ü中 @:é Größe", 7L));
+        assertValues(received, "ns:ü中 @:é Größe", 7L);
+    }
+
+    @Test
+    public void roundTripAnnotations() {
+        SeriesDatasetsSnapshot sent = snapshot(1000L, "a", 1L);
+        sent.accept("ns:x Foo", 5L, true, new String[] { "Key", "k1", "Other", "ü" });
+        sent.accept("ns:x Bar", -5L, false, new String[0]);
+        SeriesDatasetsSnapshot received = roundTrip(sent);
+        assertEquals(2, received.annotations.size());
+        SeriesAnnotation a = received.annotations.get(0);
+        assertEquals(new Series("ns:x Foo"), a.getSeries());
+        assertEquals(1000L, a.getTime());
+        assertEquals(5L, a.getValue());
+        assertTrue(a.isKeyed());
+        assertEquals("k1", a.getKeyAttribute());
+        assertEquals(2, a.getAttriuteCount());
+        assertEquals(INSTANCE, a.getInstance());
+        SeriesAnnotation b = received.annotations.get(1);
+        assertEquals(new Series("ns:x Bar"), b.getSeries());
+        assertEquals(-5L, b.getValue());
+        assertFalse(b.isKeyed());
+    }
+
+    @Test
+    public void definitionsAreOnlySentOnce() {
+        byte[] first = encoder.encode(snapshot(1000L, "ns:long-series-name @:some-application Metric", 1L));
+        byte[] second = encoder.encode(snapshot(2000L, "ns:long-series-name @:some-application Metric", 2L));
+        assertTrue(second.length < first.length / 2);
+        decoder.decode(first);
+        assertValues(decoder.decode(second), "ns:long-series-name @:some-application Metric", 2L);
+    }
+
+    @Test
+    public void unchangedValuesAreNotSent() {
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(1000L, "a", 1L, "b", 2L, "c", 3L));
+        assertFalse(received.delta);
+        received = roundTrip(snapshot(2000L, "a", 1L, "b", 4L, "c", 3L));
+        assertTrue(received.delta);
+        assertValues(received, "b", 4L);
+        assertEquals(0, received.numberOfRemoved);
+        received = roundTrip(snapshot(3000L, "a", 1L, "c", 3L));
+        assertValues(received);
+        assertEquals(1, received.numberOfRemoved);
+        assertEquals(receiverDictionary.id("b"), received.removed[0]);
+        received = roundTrip(snapshot(4000L, "a", 1L, "b", 4L, "c", 3L));
+        assertValues(received, "b", 4L);
+    }
+
+    @Test
+    public void keyframesContainAllValues() {
+        for (int i = 0; i < SeriesDatasetsCodec.KEYFRAME_INTERVAL; i++) {
+            roundTrip(snapshot(i * 1000L, "a", 1L, "b", 2L));
+        }
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(99000L, "a", 1L, "b", 2L));
+        assertFalse(received.delta);
+        assertValues(received, "a", 1L, "b", 2L);
+    }
+
+    @Test
+    public void valuesOfSameSeriesAreAdded() {
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(1000L, "a", 1L, "b", 2L, "a", 3L));
+        assertValues(received, "a", 4L, "b", 2L);
+    }
+
+    @Test
+    public void missedMessagesAreNotDeltasUntilKeyframe() {
+        roundTrip(snapshot(1000L, "a", 1L, "b", 2L));
+        encoder.encode(snapshot(2000L, "a", 3L)); // lost, b is removed
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(3000L, "a", 4L));
+        assertFalse(received.delta);
+        assertValues(received, "a", 4L);
+        for (int i = 3; i < SeriesDatasetsCodec.KEYFRAME_INTERVAL; i++) {
+            assertFalse(roundTrip(snapshot(i * 1000L + 1000L, "a", i)).delta);
+        }
+        assertFalse(roundTrip(snapshot(99000L, "a", 4L)).delta); // keyframe
+        assertTrue(roundTrip(snapshot(100000L, "a", 5L)).delta);
+    }
+
+    @Test
+    public void missedDefinitionsRecoverWithKeyframe() {
+        encoder.encode(snapshot(1000L, "a", 1L)); // lost
+        SeriesDatasetsSnapshot received = decoder.decode(encoder.encode(snapshot(2000L, "a", 2L, "b", 3L)));
+        assertValues(received, "b", 3L);
+        for (int i = 2; i < SeriesDatasetsCodec.KEYFRAME_INTERVAL; i++) {
+            decoder.decode(encoder.encode(snapshot(i * 1000L, "a", i)));
+        }
+        received = decoder.decode(encoder.encode(snapshot(99000L, "a", 4L, "b", 5L)));
+        assertValues(received, "a", 4L, "b", 5L);
+    }
+
+    @Test
+    public void newSessionResetsDefinitions() {
+        decoder.decode(encoder.encode(snapshot(1000L, "a", 1L, "b", 2L)));
+        SeriesDictionary restartedDictionary = new SeriesDictionary();
+        SeriesDatasetsCodec.Encoder restarted = new SeriesDatasetsCodec.Encoder(restartedDictionary, 43L);
+        restartedDictionary.id("b"); // now b has the ID a had before
+        SeriesDatasetsSnapshot sent = new SeriesDatasetsSnapshot(INSTANCE, 2000L, 1, restartedDictionary);
+        sent.accept("b", 3L);
+        assertValues(decoder.decode(restarted.encode(sent)), "b", 3L);
+    }
+
+    @Test
+    public void forgottenSessionsNoLongerKeepSeriesDefined() {
+        decoder.decode(encoder.encode(snapshot(1000L, "a", 1L, "b", 2L)));
+        SeriesDatasetsSnapshot other = new SeriesDatasetsSnapshot("other", 1000L, 1, senderDictionary);
+        other.accept("a", 3L);
+        decoder.decode(new SeriesDatasetsCodec.Encoder(senderDictionary, 44L).encode(other));
+        List<Series> unused = asList(new Series("a"), new Series("b"));
+        decoder.forget(INSTANCE);
+        assertEquals(singleton("other"), decoder.instances());
+        assertEquals(1, decoder.removeUndefined(unused));
+        assertEquals(-1, receiverDictionary.id(new Series("b")));
+        decoder.forget("other");
+        assertTrue(decoder.instances().isEmpty());
+        assertEquals(1, decoder.removeUndefined(unused));
+        assertEquals(-1, receiverDictionary.id(new Series("a")));
+    }
+
+    @Test
+    public void isEncodedIsFalseForJavaSerialization() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject("test");
+        }
+        assertFalse(SeriesDatasetsCodec.isEncoded(bos.toByteArray()));
+        assertTrue(SeriesDatasetsCodec.isEncoded(encoder.encode(snapshot(1000L, "a", 1L))));
+    }
+
+    @Test
+    public void truncatedMessageIsRejected() {
+        byte[] message = encoder.encode(snapshot(1000L, "a", 1L, "b", 2L));
+        for (int length = 4; length < message.length; length++) {
+            SeriesDatasetsCodec.Decoder fresh = new SeriesDatasetsCodec.Decoder(new SeriesDictionary());
+            try {
+                fresh.decode(Arrays.copyOf(message, length));
+                throw new AssertionError("Truncated message of length " + length + " was accepted");
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersionIsRejected() {
+        byte[] message = encoder.encode(snapshot(1000L, "a", 1L));
+        message[2] = 3;
+        decoder.decode(message);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void previousVersionIsRejected() {
+        byte[] message = encoder.encode(snapshot(1000L, "a", 1L));
+        message[2] = 1;
+        decoder.decode(message);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countLargerThanMessageIsRejected() {
+        SeriesDatasetsCodec.Output out = header();
+        out.writeVarInt(0); // definitions
+        out.writeVarInt(Integer.MAX_VALUE); // values
+        decoder.decode(out.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void attributeCountLargerThanMessageIsRejected() {
+        SeriesDatasetsCodec.Output out = header();
+        out.writeVarInt(0); // definitions
+        out.writeVarInt(0); // values
+        out.writeVarInt(0); // removed
+        out.writeVarInt(1); // annotations
+        out.writeVarInt(0);
+        out.writeZigZag(0L);
+        out.writeZigZag(0L);
+        out.writeByte(0);
+        out.writeVarInt(1 << 20);
+        decoder.decode(out.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void idLargerThanMaximumIsRejected() {
+        SeriesDatasetsCodec.Output out = header();
+        out.writeVarInt(1); // definitions
+        out.writeVarInt(SeriesDatasetsCodec.MAX_ID + 1);
+        out.writeString("a");
+        decoder.decode(out.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overflowingIdIsRejected() {
+        SeriesDatasetsCodec.Output out = header();
+        out.writeVarInt(0); // definitions
+        out.writeVarInt(2); // values
+        out.writeVarInt(1);
+        out.writeZigZag(1L);
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.writeZigZag(1L);
+        decoder.decode(out.toByteArray());
+    }
+
+    private static SeriesDatasetsCodec.Output header() {
+        SeriesDatasetsCodec.Output out = new SeriesDatasetsCodec.Output();
+        out.writeByte('M');
+        out.writeByte('C');
+        out.writeByte(2);
+        out.writeByte(1);
+        out.writeLong(42L);
+        out.writeVarInt(0);
+        out.writeString(INSTANCE);
+        out.writeVarLong(1000L);
+        return out;
+    }
+
+    @Test
+    public void emptySnapshot() {
+        SeriesDatasetsSnapshot received = roundTrip(snapshot(1000L));
+        assertEquals(0, received.numberOfSeries);
+        assertNull(received.annotations);
+    }
+
+    private SeriesDatasetsSnapshot roundTrip(SeriesDatasetsSnapshot sent) {
+        return decoder.decode(encoder.encode(sent));
+    }
+
+    private SeriesDatasetsSnapshot snapshot(long time, Object... seriesAndValues) {
+        SeriesDatasetsSnapshot snapshot = new SeriesDatasetsSnapshot(INSTANCE, time, 2, senderDictionary);
+        for (int i = 0; i < seriesAndValues.length; i += 2) {
+            snapshot.accept((String) seriesAndValues[i], ((Number) seriesAndValues[i + 1]).longValue());
+        }
+        return snapshot;
+    }
+
+    private void assertValues(SeriesDatasetsSnapshot received, Object... seriesAndValues) {
+        assertEquals(seriesAndValues.length / 2, received.numberOfSeries);
+        String[] expectedSeries = new String[received.numberOfSeries];
+        String[] actualSeries = new String[received.numberOfSeries];
+        long[] expectedValues = new long[received.numberOfSeries];
+        for (int i = 0; i < received.numberOfSeries; i++) {
+            expectedSeries[i] = new Series((String) seriesAndValues[i * 2]).toString();
+            expectedValues[i] = ((Number) seriesAndValues[i * 2 + 1]).longValue();
+            actualSeries[i] = receiverDictionary.series(received.series[i]).toString();
+        }
+        assertArrayEquals(expectedSeries, actualSeries);
+        assertArrayEquals(expectedValues, Arrays.copyOf(received.values, received.numberOfSeries));
+    }
+}
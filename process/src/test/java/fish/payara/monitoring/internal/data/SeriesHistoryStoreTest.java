@@ -0,0 +1,251 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import fish.payara.monitoring.model.AggregateDataset;
+import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.HoursDataset;
+import fish.payara.monitoring.model.MinutesDataset;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDataset;
+
+/**
+ * Tests the {@link SeriesHistoryStore} persistence and restoration of the history of a {@link Series}.
+ */
+public class SeriesHistoryStoreTest {
+
+    private static final String INSTANCE = "das";
+    private static final Series SERIES = new Series("ns:web RequestCount");
+    private static final long START = Duration.ofDays(20000).toMillis();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private SeriesHistoryStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new SeriesHistoryStore(folder.newFolder("history").toPath(), Duration.ofDays(7), 16, 8);
+    }
+
+    @Test
+    public void noHistoryRestoresEmpty() {
+        assertSame(MinutesDataset.EMPTY, store.restore(SERIES, INSTANCE, START));
+    }
+
+    @Test
+    public void restoreMinutesHoursAndDays() {
+        SeriesDataset set = collect(new EmptyDataset(INSTANCE, SERIES, 60), START, Duration.ofDays(2));
+        long now = set.lastTime() + 1000L;
+        MinutesDataset expected = set.getRecentMinutes();
+        MinutesDataset actual = new SeriesHistoryStore(store.getDirectory(), Duration.ofDays(7), 16, 8)
+                .restore(SERIES, INSTANCE, now);
+        assertEqualAggregates(expected, actual);
+        assertEqualAggregates(expected.getRecentHours(), actual.getRecentHours());
+        assertEqualAggregates(expected.getRecentHours().getRecentDays(), actual.getRecentHours().getRecentDays());
+    }
+
+    @Test
+    public void restoredHistoryIsContinued() {
+        SeriesDataset set = collect(new EmptyDataset(INSTANCE, SERIES, 60), START, Duration.ofMinutes(90));
+        long now = START + Duration.ofMinutes(95).toMillis();
+        MinutesDataset restored = store.restore(SERIES, INSTANCE, now);
+        SeriesDataset continued = collect(new EmptyDataset(INSTANCE, SERIES, 60, restored), now,
+                Duration.ofMinutes(31));
+        MinutesDataset minutes = continued.getRecentMinutes();
+        assertEquals(60, minutes.size());
+        assertEquals(continued.lastTime() - 59000L, minutes.lastTime());
+        HoursDataset hours = minutes.getRecentHours();
+        assertEquals(2, hours.size());
+        assertEquals(START, hours.firstTime());
+    }
+
+    @Test
+    public void restoreOnlyWithinWindow() {
+        SeriesDataset set = collect(new EmptyDataset(INSTANCE, SERIES, 60), START, Duration.ofMinutes(30));
+        long now = set.lastTime() + Duration.ofMinutes(45).toMillis();
+        assertEquals(15, store.restore(SERIES, INSTANCE, now).size());
+        now += Duration.ofHours(1).toMillis();
+        assertTrue(store.restore(SERIES, INSTANCE, now).isEmpty());
+    }
+
+    @Test
+    public void requestedRestoreIsDoneByTheWriter() {
+        SeriesDataset set = collect(new EmptyDataset(INSTANCE, SERIES, 60), START, Duration.ofMinutes(90));
+        long now = set.lastTime() + 1000L;
+        store.requestRestore(SERIES, INSTANCE, now);
+        Map<Series, MinutesDataset> restored = new HashMap<>();
+        store.restored(INSTANCE, restored::put);
+        assertTrue(restored.isEmpty());
+        store.flush();
+        store.restored(INSTANCE, restored::put);
+        assertEquals(singleton(SERIES), restored.keySet());
+        assertEqualAggregates(set.getRecentMinutes(), restored.get(SERIES));
+        restored.clear();
+        store.restored(INSTANCE, restored::put);
+        assertTrue(restored.isEmpty());
+    }
+
+    @Test
+    public void requestedRestoreWithoutHistoryIsNotDelivered() {
+        store.requestRestore(SERIES, INSTANCE, START);
+        store.flush();
+        store.restored(INSTANCE, (series, restored) -> fail("Nothing to restore"));
+    }
+
+    @Test
+    public void restoredHistoryIsMergedWithRecordedHistory() {
+        SeriesDataset set = collect(new EmptyDataset(INSTANCE, SERIES, 60), START, Duration.ofMinutes(90));
+        long now = set.lastTime() + Duration.ofMinutes(5).toMillis();
+        MinutesDataset restored = store.restore(SERIES, INSTANCE, now);
+        SeriesDataset recorded = collect(new EmptyDataset(INSTANCE, SERIES, 60), now, Duration.ofMinutes(31));
+        SeriesDataset continued = collect(new EmptyDataset(INSTANCE, SERIES, 60, restored), now,
+                Duration.ofMinutes(31));
+        MinutesDataset merged = SeriesHistoryStore.merge(restored, recorded.getRecentMinutes());
+        assertEqualAggregates(continued.getRecentMinutes(), merged);
+        HoursDataset restoredHours = restored.getRecentHours();
+        HoursDataset recordedHours = recorded.getRecentMinutes().getRecentHours();
+        HoursDataset hours = merged.getRecentHours();
+        assertEquals(2, hours.size());
+        assertEquals(restoredHours.firstTime(), hours.firstTime());
+        assertEquals(recordedHours.lastTime(), hours.lastTime());
+        int restoredPointsInRecordedHour = 0;
+        for (int i = restored.firstIndex(); i <= restored.lastIndex(); i++) {
+            if (restored.getTime(i) >= recordedHours.lastTime()) {
+                restoredPointsInRecordedHour += restored.getNumberOfPoints(i);
+            }
+        }
+        assertTrue(restoredPointsInRecordedHour > 0);
+        assertArrayEquals(new int[] { restoredHours.numberOfPoints()[0],
+                recordedHours.numberOfPoints()[0] + restoredPointsInRecordedHour }, hours.numberOfPoints());
+        assertEquals(recorded.getRecentMinutes().lastTime(), merged.lastTime());
+    }
+
+    @Test
+    public void pruneDeletesSegmentsBeforeRetention() throws IOException {
+        collect(new EmptyDataset(INSTANCE, SERIES, 60), START, Duration.ofMinutes(10));
+        assertEquals(1, countSegments());
+        store.prune(START + Duration.ofDays(7).toMillis());
+        assertEquals(1, countSegments());
+        store.prune(START + Duration.ofDays(8).toMillis());
+        assertEquals(0, countSegments());
+        try (Stream<Path> files = Files.list(store.getDirectory().resolve(INSTANCE))) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    @Test
+    public void storedEntriesAreOnlyWrittenByTheWriter() throws IOException {
+        store = new SeriesHistoryStore(store.getDirectory(), Duration.ofDays(7), 1024, 8);
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 60);
+        for (long time = START; time < START + Duration.ofMinutes(2).toMillis(); time += 1000L) {
+            SeriesDataset added = set.add(time, 1L, true);
+            store.store(SERIES, INSTANCE, set.getRecentMinutes(), added.getRecentMinutes());
+            set = added;
+        }
+        assertEquals(0, countSegments());
+        store.flush();
+        assertEquals(0, store.getDroppedCount());
+        assertEqualAggregates(set.getRecentMinutes(), store.restore(SERIES, INSTANCE, set.lastTime() + 1000L));
+    }
+
+    @Test
+    public void entriesAreDroppedWhenQueueIsFull() {
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 60);
+        for (long time = START; time < START + Duration.ofMinutes(30).toMillis(); time += 1000L) {
+            SeriesDataset added = set.add(time, 1L, true);
+            store.store(SERIES, INSTANCE, set.getRecentMinutes(), added.getRecentMinutes());
+            set = added;
+        }
+        int dropped = store.getDroppedCount();
+        assertTrue(dropped > 0);
+        store.flush();
+        collect(set, set.lastTime() + 1000L, Duration.ofMinutes(1));
+        assertEquals(dropped, store.getDroppedCount());
+    }
+
+    @Test
+    public void segmentsNotWrittenForSomeMinutesAreClosed() {
+        Series other = new Series("ns:web ErrorCount");
+        SeriesDataset set = collect(new EmptyDataset(INSTANCE, other, 60), START, Duration.ofMinutes(2));
+        int open = store.getOpenSegmentCount();
+        assertTrue(open > 0);
+        set = collect(new EmptyDataset(INSTANCE, SERIES, 60), set.lastTime() + 1000L, Duration.ofMinutes(2));
+        assertEquals(2 * open, store.getOpenSegmentCount());
+        collect(set, set.lastTime() + 1000L, Duration.ofMinutes(1));
+        assertEquals(open, store.getOpenSegmentCount());
+    }
+
+    @Test
+    public void numberOfOpenSegmentsIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            collect(new EmptyDataset(INSTANCE, new Series("ns:web RequestCount" + i), 60), START,
+                    Duration.ofMinutes(2));
+            assertTrue(store.getOpenSegmentCount() <= 8);
+        }
+        assertEquals(8, store.getOpenSegmentCount());
+        for (int i = 0; i < 10; i++) {
+            assertFalse(store.restore(new Series("ns:web RequestCount" + i), INSTANCE, START
+                    + Duration.ofMinutes(2).toMillis()).isEmpty());
+        }
+    }
+
+    @Test
+    public void closedInstancesHaveNoOpenSegments() {
+        collect(new EmptyDataset(INSTANCE, SERIES, 60), START, Duration.ofMinutes(2));
+        int open = store.getOpenSegmentCount();
+        collect(new EmptyDataset("server", SERIES, 60), START, Duration.ofMinutes(2));
+        assertEquals(2 * open, store.getOpenSegmentCount());
+        store.close("server");
+        store.flush();
+        assertEquals(open, store.getOpenSegmentCount());
+        assertFalse(store.restore(SERIES, "server", START + Duration.ofMinutes(2).toMillis()).isEmpty());
+    }
+
+    private SeriesDataset collect(SeriesDataset set, long start, Duration duration) {
+        for (long time = start; time < start + duration.toMillis(); time += 1000L) {
+            SeriesDataset added = set.add(time, time / 1000L % 97, true);
+            store.store(set.getSeries(), set.getInstance(), set.getRecentMinutes(), added.getRecentMinutes());
+            store.flush();
+            set = added;
+        }
+        return set;
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.walk(store.getDirectory())) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static void assertEqualAggregates(
+            AggregateDataset<?> expected,
+            AggregateDataset<?> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.firstTime(), actual.firstTime());
+        assertEquals(expected.lastTime(), actual.lastTime());
+        assertArrayEquals(expected.mins(), actual.mins());
+        assertArrayEquals(expected.maxs(), actual.maxs());
+        assertArrayEquals(expected.avgs(), actual.avgs(), 0d);
+        assertArrayEquals(expected.numberOfPoints(), actual.numberOfPoints());
+    }
+}
@@ -0,0 +1,67 @@
+package fish.payara.monitoring.internal.data;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * Tests the {@link SeriesWindows} configuration and {@link Series} matching.
+ */
+public class SeriesWindowsTest {
+
+    private final SeriesDictionary dictionary = new SeriesDictionary();
+
+    @Test
+    public void noConfigurationUsesDefaultWindow() {
+        SeriesWindows windows = new SeriesWindows(dictionary, 60, null);
+        assertEquals(1, windows.size());
+        assertEquals(60, windows.window(windows.policy(new Series("ns:web RequestCount"))));
+        assertEquals(60, windows.maxWindow());
+    }
+
+    @Test
+    public void namespaceShorthand() {
+        SeriesWindows windows = new SeriesWindows(dictionary, 60, "web=600");
+        assertEquals(2, windows.size());
+        assertEquals(600, windowOf(windows, "ns:web RequestCount"));
+        assertEquals(600, windowOf(windows, "ns:web @:app1 RequestCount"));
+        assertEquals(60, windowOf(windows, "ns:jvm HeapUsage"));
+        assertEquals(60, windowOf(windows, "RequestCount"));
+        assertEquals(600, windows.maxWindow());
+    }
+
+    @Test
+    public void firstMatchingPatternWins() {
+        SeriesWindows windows = new SeriesWindows(dictionary, 60,
+                "ns:web @:app1 *=30 | web=600 | ns:jvm HeapUsage=600");
+        assertEquals(3, windows.size());
+        assertEquals(30, windowOf(windows, "ns:web @:app1 RequestCount"));
+        assertEquals(600, windowOf(windows, "ns:web @:app2 RequestCount"));
+        assertEquals(600, windowOf(windows, "ns:jvm HeapUsage"));
+        assertEquals(60, windowOf(windows, "ns:jvm ThreadCount"));
+        assertEquals(windows.policy(new Series("ns:web RequestCount")),
+                windows.policy(new Series("ns:jvm HeapUsage")));
+    }
+
+    @Test
+    public void malformedEntriesAreIgnored() {
+        SeriesWindows windows = new SeriesWindows(dictionary, 60, "web|jvm=-1|http=abc|ns:sql *=120");
+        assertEquals(2, windows.size());
+        assertEquals(120, windowOf(windows, "ns:sql QueryCount"));
+        assertEquals(60, windowOf(windows, "ns:web RequestCount"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void defaultWindowMustBePositive() {
+        new SeriesWindows(dictionary, 0, null);
+    }
+
+    private int windowOf(SeriesWindows windows, String series) {
+        int policy = windows.policy(dictionary.id(series));
+        assertEquals(windows.policy(new Series(series)), policy);
+        return windows.window(policy);
+    }
+}
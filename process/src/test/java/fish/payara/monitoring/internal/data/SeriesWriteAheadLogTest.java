@@ -0,0 +1,185 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.asList;
+import static java.util.Arrays.copyOf;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import fish.payara.monitoring.internal.data.InMemorySeriesRepository.SeriesDatasetsSnapshot;
+import fish.payara.monitoring.model.SeriesDictionary;
+
+/**
+ * Tests writing and replaying the {@link SeriesWriteAheadLog}.
+ */
+public class SeriesWriteAheadLogTest {
+
+    private static final long WINDOW = 60000L;
+    private static final long START = 1600000040000L; // 20 seconds into a minute
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final SeriesDictionary dictionary = new SeriesDictionary();
+    private SeriesWriteAheadLog log;
+
+    @Before
+    public void setUp() throws IOException {
+        log = new SeriesWriteAheadLog(folder.newFolder("log").toPath(), dictionary, WINDOW, 4);
+    }
+
+    @Test
+    public void emptyLogReplaysNothing() {
+        assertEquals(0, log.replay(snapshot -> { throw new AssertionError(); }));
+    }
+
+    @Test
+    public void replayStartsWithFirstTickOfMinute() throws IOException {
+        for (long time = START; time < START + 50000L; time += 1000L) {
+            log.write(singletonList(snapshot("das", time, "a", time / 1000L)));
+        }
+        List<SeriesDatasetsSnapshot> replayed = replay(START + 50000L);
+        assertEquals(10, replayed.size());
+        assertEquals(START + 40000L, replayed.get(0).time);
+        assertValues(replayed.get(0), "a", (START + 40000L) / 1000L);
+    }
+
+    @Test
+    public void deltaSnapshotsAreReplayedComplete() throws IOException {
+        long time = START + 40000L;
+        log.write(singletonList(snapshot("server", time, "a", 1L, "b", 2L)));
+        SeriesDatasetsSnapshot delta = snapshot("server", time + 1000L, "a", 3L);
+        delta.delta = true;
+        log.write(singletonList(delta));
+        delta = snapshot("server", time + 2000L);
+        delta.delta = true;
+        delta.remove(dictionary.id("b"));
+        log.write(singletonList(delta));
+        List<SeriesDatasetsSnapshot> replayed = replay(time + 3000L);
+        assertEquals(3, replayed.size());
+        assertValues(replayed.get(0), "a", 1L, "b", 2L);
+        assertValues(replayed.get(1), "a", 3L, "b", 2L);
+        assertValues(replayed.get(2), "a", 3L);
+        for (SeriesDatasetsSnapshot snapshot : replayed) {
+            assertFalse(snapshot.delta);
+        }
+    }
+
+    @Test
+    public void instancesAreReplayedIndependently() throws IOException {
+        long time = START + 40000L;
+        log.write(asList(snapshot("das", time, "a", 1L), snapshot("server", time, "a", 2L),
+                snapshot("das", time + 1000L, "a", 3L)));
+        List<SeriesDatasetsSnapshot> replayed = replay(time + 2000L);
+        assertEquals(3, replayed.size());
+        assertEquals("server", replayed.get(1).instance);
+        assertValues(replayed.get(1), "a", 2L);
+        assertValues(replayed.get(2), "a", 3L);
+    }
+
+    @Test
+    public void segmentsAreRotatedAndTruncated() throws IOException {
+        for (long time = START; time < START + 5 * WINDOW; time += 1000L) {
+            log.write(singletonList(snapshot("das", time, "a", 1L)));
+        }
+        assertEquals(3, segments().size());
+        List<SeriesDatasetsSnapshot> replayed = replay(START + 5 * WINDOW);
+        assertEquals(START + 4 * WINDOW + 40000L, replayed.get(0).time);
+        assertEquals(START + 5 * WINDOW - 1000L, replayed.get(replayed.size() - 1).time);
+    }
+
+    @Test
+    public void corruptedEntryEndsReplayOfSegment() throws IOException {
+        long time = START + 40000L;
+        log.write(singletonList(snapshot("das", time, "a", 1L)));
+        log.write(singletonList(snapshot("das", time + 1000L, "a", 2L)));
+        Path segment = segments().get(0);
+        byte[] content = Files.readAllBytes(segment);
+        content[content.length - 1]++;
+        Files.write(segment, content, StandardOpenOption.TRUNCATE_EXISTING);
+        List<SeriesDatasetsSnapshot> replayed = replay(time + 2000L);
+        assertEquals(1, replayed.size());
+        assertValues(replayed.get(0), "a", 1L);
+    }
+
+    @Test
+    public void replaySkipsTicksOlderThanWindow() throws IOException {
+        for (long time = START; time < START + 90000L; time += 1000L) {
+            log.write(singletonList(snapshot("das", time, "a", time / 1000L)));
+        }
+        assertTrue(replay(START + 90000L + WINDOW).isEmpty());
+        List<SeriesDatasetsSnapshot> replayed = replay(START + 30000L + WINDOW);
+        assertEquals(50, replayed.size());
+        assertEquals(START + 40000L, replayed.get(0).time);
+    }
+
+    @Test
+    public void forgottenInstancesAreRemovedAfterBatch() throws IOException {
+        log.write(asList(snapshot("das", START, "a", 1L), snapshot("server", START, "a", 2L)));
+        assertEquals(new HashSet<>(asList("das", "server")), log.instances());
+        log.forget("server");
+        assertEquals(2, log.instances().size());
+        log.write(emptyList());
+        assertEquals(singleton("das"), log.instances());
+    }
+
+    @Test
+    public void appendDropsWhenQueueIsFull() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(log.append(snapshot("das", START + i * 1000L, "a", 1L)));
+        }
+        assertFalse(log.append(snapshot("das", START + 5000L, "a", 1L)));
+        assertEquals(1, log.getDroppedCount());
+    }
+
+    private List<SeriesDatasetsSnapshot> replay(long now) {
+        List<SeriesDatasetsSnapshot> replayed = new ArrayList<>();
+        assertEquals(log.replay(now, replayed::add), replayed.size());
+        return replayed;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(log.getDirectory())) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private SeriesDatasetsSnapshot snapshot(String instance, long time, Object... seriesAndValues) {
+        SeriesDatasetsSnapshot snapshot = new SeriesDatasetsSnapshot(instance, time, 8, dictionary);
+        for (int i = 0; i < seriesAndValues.length; i += 2) {
+            snapshot.add(dictionary.id((String) seriesAndValues[i]), (Long) seriesAndValues[i + 1]);
+        }
+        return snapshot;
+    }
+
+    private void assertValues(SeriesDatasetsSnapshot snapshot, Object... seriesAndValues) {
+        int[] ids = new int[seriesAndValues.length / 2];
+        long[] values = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = dictionary.id((String) seriesAndValues[2 * i]);
+            values[i] = (Long) seriesAndValues[2 * i + 1];
+        }
+        assertEquals(ids.length, snapshot.numberOfSeries);
+        assertArrayEquals(ids, copyOf(snapshot.series, snapshot.numberOfSeries));
+        assertArrayEquals(values, copyOf(snapshot.values, snapshot.numberOfSeries));
+    }
+}
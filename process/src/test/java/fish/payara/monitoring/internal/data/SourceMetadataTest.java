@@ -0,0 +1,90 @@
+package fish.payara.monitoring.internal.data;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.collect.MonitoringData;
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
+import fish.payara.monitoring.data.ConsumingMonitoringDataCollector;
+
+/**
+ * Tests the {@link SourceMetadata} extracted from {@link MonitoringDataSource} classes.
+ *
+ * @author Jan Bernitt
+ */
+public class SourceMetadataTest {
+
+    static class PlainSource implements MonitoringDataSource {
+
+        @Override
+        public void collect(MonitoringDataCollector collector) {
+            // not needed
+        }
+    }
+
+    static class AnnotatedSource implements MonitoringDataSource {
+
+        @Override
+        @MonitoringData(ns = "test", intervalSeconds = 4)
+        public void collect(MonitoringDataCollector collector) {
+            // not needed
+        }
+    }
+
+    @Test
+    public void plainSource() {
+        SourceMetadata meta = SourceMetadata.of(new PlainSource());
+        assertEquals("PlainSource", meta.id);
+        assertNull(meta.ns);
+        assertEquals(1, meta.intervalSeconds);
+        for (long second = 0; second < 10; second++) {
+            assertTrue(meta.isDue(second));
+        }
+    }
+
+    @Test
+    public void annotatedSource() {
+        SourceMetadata meta = SourceMetadata.of(new AnnotatedSource());
+        assertEquals("AnnotatedSource", meta.id);
+        assertEquals("test", meta.ns);
+        assertEquals(4, meta.intervalSeconds);
+        int due = 0;
+        for (long second = 0; second < 40; second++) {
+            if (meta.isDue(second)) {
+                due++;
+                assertEquals(0, (second + meta.phase) % 4);
+            }
+        }
+        assertEquals(10, due);
+    }
+
+    @Test
+    public void scopeIsReusedForSameRootCollector() {
+        SourceMetadata meta = SourceMetadata.of(new AnnotatedSource());
+        List<String> keys = new ArrayList<>();
+        MonitoringDataCollector root = new ConsumingMonitoringDataCollector((series, value) -> keys.add(series.toString()),
+                null);
+        SourceMetadata.Scope scope = meta.scope(root);
+        assertSame(scope, meta.scope(root));
+        scope.source.collect("Metric", 1L);
+        scope.monitoring.collect("CollectionDuration", 2L);
+        assertEquals(asList("ns:test Metric", "ns:monitoring @:AnnotatedSource CollectionDuration"), keys);
+        MonitoringDataCollector other = new ConsumingMonitoringDataCollector((series, value) -> {}, null);
+        assertNotSame(scope, meta.scope(other));
+    }
+
+    @Test
+    public void metadataIsComputedOncePerClass() {
+        assertSame(SourceMetadata.of(new AnnotatedSource()), SourceMetadata.of(new AnnotatedSource()));
+    }
+}
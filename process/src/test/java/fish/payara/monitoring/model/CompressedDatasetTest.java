@@ -0,0 +1,143 @@
+package fish.payara.monitoring.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that a {@link CompressedDataset} behaves like a {@link PartialDataset} with the same points.
+ *
+ * @author Jan Bernitt
+ */
+public class CompressedDatasetTest {
+
+    private static final String INSTANCE = "server";
+    private static final Series SERIES = new Series("test");
+    private static final long START = 1600000000000L;
+
+    @Test
+    public void becomesCompressedWhenValueChanges() {
+        SeriesDataset set = compressed(5).add(START, 1).add(START + 1000, 1);
+        assertTrue(set instanceof ConstantDataset);
+        assertTrue(set.isCompressed());
+        set = set.add(START + 2000, 2);
+        assertTrue(set instanceof CompressedDataset);
+        assertArrayEquals(new long[] { START, 1, START + 1000, 1, START + 2000, 2 }, set.points());
+    }
+
+    @Test
+    public void notCompressedByDefault() {
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 5).add(START, 1).add(START + 1000, 2);
+        assertFalse(set.isCompressed());
+        assertTrue(set instanceof PartialDataset);
+    }
+
+    @Test
+    public void slidingWindowMatchesPartialDataset() {
+        assertSameAsPartial(7, 200, 1000L, new Random(42));
+        assertSameAsPartial(64, 500, 1000L, new Random(43));
+        assertSameAsPartial(300, 2000, 1000L, new Random(44));
+    }
+
+    @Test
+    public void irregularTimesMatchPartialDataset() {
+        assertSameAsPartial(100, 1000, 0L, new Random(45));
+    }
+
+    @Test
+    public void sameTimeAddsToLastPoint() {
+        SeriesDataset set = compressed(5).add(START, 1).add(START + 1000, 2).add(START + 2000, 3);
+        set = set.add(START + 2000, 300);
+        assertEquals(3, set.size());
+        assertEquals(303L, set.lastValue());
+        assertArrayEquals(new long[] { START, 1, START + 1000, 2, START + 2000, 303 }, set.points());
+        set = set.add(START + 3000, 4);
+        assertArrayEquals(new long[] { START, 1, START + 1000, 2, START + 2000, 303, START + 3000, 4 }, set.points());
+    }
+
+    @Test
+    public void becomesStableWhenValueDoesNotChangeForWindow() {
+        SeriesDataset set = compressed(3).add(START, 1).add(START + 1000, 2);
+        for (int i = 2; i < 6; i++) {
+            set = set.add(START + i * 1000, 5);
+        }
+        assertTrue(set instanceof StableDataset);
+        assertTrue(set.isCompressed());
+        assertEquals(3, set.getObservedValueChanges());
+        assertTrue(set.add(START + 6000, 6) instanceof CompressedDataset);
+    }
+
+    @Test
+    public void extremeValuesRoundTrip() {
+        SeriesDataset set = compressed(4).add(START, Long.MAX_VALUE).add(START + 1000, Long.MIN_VALUE)
+                .add(START + 2000, 0).add(START + 3000, -1).add(START + 4000, Long.MAX_VALUE);
+        assertArrayEquals(new long[] { START + 1000, Long.MIN_VALUE, START + 2000, 0, START + 3000, -1,
+                START + 4000, Long.MAX_VALUE }, set.points());
+    }
+
+    @Test
+    public void cursorStartsAtIndex() {
+        SeriesDataset set = compressed(100);
+        for (int i = 0; i < 150; i++) {
+            set = set.add(START + i * 1000, i % 7);
+        }
+        PointCursor points = set.cursor(70);
+        for (int i = 70; i < 100; i++) {
+            assertTrue(points.next());
+            assertEquals(set.time(i), points.time());
+            assertEquals(set.value(i), points.value());
+        }
+        assertFalse(points.next());
+    }
+
+    @Test
+    public void usesLessMemoryThanPartialDataset() {
+        SeriesDataset compressed = compressed(3600);
+        SeriesDataset partial = new EmptyDataset(INSTANCE, SERIES, 3600);
+        for (int i = 0; i < 10000; i++) {
+            long value = 1000 + (i % 13);
+            compressed = compressed.add(START + i * 1000, value);
+            partial = partial.add(START + i * 1000, value);
+        }
+        assertTrue(compressed.estimatedBytesMemory() * 5 < partial.estimatedBytesMemory());
+    }
+
+    private static void assertSameAsPartial(int window, int points, long jitter, Random rnd) {
+        SeriesDataset compressed = compressed(window);
+        SeriesDataset partial = new EmptyDataset(INSTANCE, SERIES, window);
+        long time = START;
+        for (int i = 0; i < points; i++) {
+            time += 1000L + (jitter == 0L ? rnd.nextInt(50) - 25 : 0L);
+            long value = rnd.nextInt(4) == 0 ? rnd.nextLong() : rnd.nextInt(20);
+            compressed = compressed.add(time, value, true);
+            partial = partial.add(time, value, true);
+            assertEquals(partial.size(), compressed.size());
+            assertEquals(partial.lastTime(), compressed.lastTime());
+            assertEquals(partial.lastValue(), compressed.lastValue());
+            assertEquals(partial.firstTime(), compressed.firstTime());
+            assertEquals(partial.getObservedMin(), compressed.getObservedMin());
+            assertEquals(partial.getObservedMax(), compressed.getObservedMax());
+            assertEquals(partial.getObservedSum(), compressed.getObservedSum());
+            assertEquals(partial.getObservedValueChanges(), compressed.getObservedValueChanges());
+            assertEquals(partial.getStableCount(), compressed.getStableCount());
+        }
+        assertArrayEquals(partial.points(), compressed.points());
+        MinutesDataset partialMinutes = partial.getRecentMinutes();
+        MinutesDataset compressedMinutes = compressed.getRecentMinutes();
+        assertArrayEquals(partialMinutes.mins(), compressedMinutes.mins());
+        assertArrayEquals(partialMinutes.maxs(), compressedMinutes.maxs());
+        assertArrayEquals(partialMinutes.avgs(), compressedMinutes.avgs(), 0d);
+        assertArrayEquals(partialMinutes.numberOfPoints(), compressedMinutes.numberOfPoints());
+        assertSame(partial.getSeries(), compressed.getSeries());
+    }
+
+    private static SeriesDataset compressed(int window) {
+        return new EmptyDataset(INSTANCE, SERIES, window, MinutesDataset.EMPTY, true);
+    }
+}
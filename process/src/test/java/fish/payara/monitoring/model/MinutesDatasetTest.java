@@ -53,6 +53,24 @@ public class MinutesDatasetTest {
         assertEquals(3, set.getRecentMinutes().getRecentHours().getRecentDays().size());
     }
 
+    @Test
+    public void gapKeepsTimeOfMinutes() {
+        long start = OFFSET_FROM_ABSOLUTE_ZERO.toMillis();
+        long minute = Duration.ofMinutes(1).toMillis();
+        MinutesDataset minutes = MinutesDataset.EMPTY;
+        for (int i = 0; i < 50; i++) {
+            minutes = minutes.restore(start + i * minute, 60, i, i, i);
+        }
+        minutes = minutes.restore(start + 70 * minute, 60, 70, 70, 70);
+        assertEquals(60, minutes.size());
+        assertEquals(start + 11 * minute, minutes.firstTime());
+        assertEquals(start + 70 * minute, minutes.lastTime());
+        assertEquals(11, minutes.getMinimum(minutes.firstIndex()));
+        assertEquals(49, minutes.getMinimum(minutes.firstIndex() + 38));
+        assertEquals(0, minutes.getNumberOfPoints(minutes.firstIndex() + 39));
+        assertEquals(70, minutes.getMinimum(minutes.lastIndex()));
+    }
+
     private static SeriesDataset createDatasetWithSeconds(int secondsToAdd, int delta) {
         SeriesDataset set = emptySeconds(60);
         long time = OFFSET_FROM_ABSOLUTE_ZERO.toMillis();
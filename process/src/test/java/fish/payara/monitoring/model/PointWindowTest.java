@@ -0,0 +1,101 @@
+package fish.payara.monitoring.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the running aggregates of a {@link PointWindow} against the points of the {@link SeriesDataset} it is updated
+ * with.
+ *
+ * @author Jan Bernitt
+ */
+public class PointWindowTest {
+
+    private static final Series SERIES = new Series("test");
+    private static final long START = 1600000000000L;
+
+    @Test
+    public void limitedByPoints() {
+        PointWindow window = new PointWindow(3, 0L);
+        SeriesDataset set = new EmptyDataset("server", SERIES, 10);
+        long[] values = { 5, 1, 7, 3, 2, 9, 9, 4 };
+        for (int i = 0; i < values.length; i++) {
+            set = set.add(START + i * 1000L, values[i]);
+            window.update(set);
+        }
+        assertEquals(3, window.size());
+        assertEquals(9 + 9 + 4, window.sum());
+        assertEquals(4, window.min());
+        assertEquals(9, window.max());
+        assertEquals(START + 5000L, window.firstTime());
+    }
+
+    @Test
+    public void limitedByTimeKeepsLastPointBeforeStart() {
+        PointWindow window = new PointWindow(0, 2500L);
+        SeriesDataset set = new EmptyDataset("server", SERIES, 10);
+        for (int i = 0; i < 8; i++) {
+            set = set.add(START + i * 1000L, i);
+            window.update(set);
+        }
+        assertEquals(4, window.size());
+        assertEquals(START + 4000L, window.firstTime());
+        assertEquals(4, window.min());
+        assertEquals(7, window.max());
+    }
+
+    @Test
+    public void sameTimeUpdatesLastPoint() {
+        PointWindow window = new PointWindow(5, 0L);
+        SeriesDataset set = new EmptyDataset("server", SERIES, 10).add(START, 3).add(START + 1000L, 8);
+        window.update(set);
+        assertEquals(8, window.max());
+        set = set.add(START + 1000L, -10);
+        window.update(set);
+        assertEquals(2, window.size());
+        assertEquals(3, window.max());
+        assertEquals(-2, window.min());
+        assertEquals(1, window.sum());
+    }
+
+    @Test
+    public void matchesDatasetWhenUpdatedIrregularly() {
+        Random rnd = new Random(7);
+        for (int limit : new int[] { 0, 1, 5, 60, 200 }) {
+            PointWindow window = new PointWindow(limit, 0L);
+            PointWindow timed = new PointWindow(0, limit * 1000L + 500L);
+            SeriesDataset set = new EmptyDataset("server", SERIES, 100);
+            for (int i = 0; i < 2000; i++) {
+                long value = rnd.nextInt(5) == 0 ? 42L : rnd.nextInt(100);
+                set = set.add(START + i * 1000L, value);
+                if (rnd.nextInt(3) == 0) {
+                    window.update(set);
+                    assertMatches(set, limit == 0 ? set.size() : Math.min(limit, set.size()), window);
+                    timed.update(set);
+                    assertMatches(set, Math.min(limit + 2, set.size()), timed);
+                }
+            }
+        }
+    }
+
+    private static void assertMatches(SeriesDataset set, int n, PointWindow window) {
+        assertEquals(n, window.size());
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = set.size() - n; i < set.size(); i++) {
+            sum += set.value(i);
+            min = Math.min(min, set.value(i));
+            max = Math.max(max, set.value(i));
+        }
+        assertEquals(sum, window.sum());
+        assertEquals(min, window.min());
+        assertEquals(max, window.max());
+        assertEquals(set.lastTime(), window.lastTime());
+        assertTrue(window.firstTime() >= set.firstTime());
+    }
+}
@@ -176,6 +176,83 @@ public class SeriesDatasetTest {
         assertEquals(3, set.capacity());
     }
 
+    @Test
+    public void observedSumWithinLongRange() {
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 3);
+        assertEquals(0L, set.getObservedSumAsLong());
+        assertFalse(set.isObservedSumOverflow());
+        set = set.add(1, 5).add(2, 5).add(3, -7);
+        assertEquals(3L, set.getObservedSumAsLong());
+        assertEquals(BigInteger.valueOf(3), set.getObservedSum());
+        assertFalse(set.isObservedSumOverflow());
+    }
+
+    @Test
+    public void observedSumOverflowPartialDataset() {
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 3);
+        set = set.add(1, Long.MAX_VALUE - 2).add(2, 1);
+        assertFalse(set.isObservedSumOverflow());
+        set = set.add(3, 2);
+        assertTrue(set.isObservedSumOverflow());
+        BigInteger expected = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.valueOf(1));
+        assertEquals(expected, set.getObservedSum());
+        assertEquals(Long.MIN_VALUE, set.getObservedSumAsLong());
+        set = set.add(4, 2);
+        assertTrue(set.isObservedSumOverflow());
+        assertEquals(expected.add(BigInteger.valueOf(2)), set.getObservedSum());
+        assertEquals(expected.add(BigInteger.valueOf(2)).divide(BigInteger.valueOf(4)), set.getObservedAvg());
+    }
+
+    @Test
+    public void observedSumOverflowStableDataset() {
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 3);
+        set = set.add(1, 0).add(2, Long.MAX_VALUE);
+        for (int i = 3; i < 10; i++) {
+            set = set.add(i, Long.MAX_VALUE);
+        }
+        assertTrue(set.isStable());
+        assertTrue(set.isObservedSumOverflow());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(8)), set.getObservedSum());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(8)).divide(BigInteger.valueOf(9)),
+                set.getObservedAvg());
+    }
+
+    @Test
+    public void observedSumOverflowConstantDataset() {
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 3);
+        set = set.add(1, Long.MIN_VALUE);
+        assertFalse(set.isObservedSumOverflow());
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE), set.getObservedSum());
+        set = set.add(2, Long.MIN_VALUE);
+        assertTrue(set.isObservedSumOverflow());
+        assertEquals(0L, set.getObservedSumAsLong());
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE).multiply(BigInteger.valueOf(2)), set.getObservedSum());
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE), set.getObservedAvg());
+    }
+
+    @Test
+    public void observedSumOverflowConstantDatasetAtBoundary() {
+        long value = Long.MAX_VALUE / 3;
+        SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 3);
+        for (int i = 1; i <= 3; i++) {
+            set = set.add(i, value);
+        }
+        assertFalse(set.isObservedSumOverflow());
+        assertEquals(3 * value, set.getObservedSumAsLong());
+        set = set.add(4, value);
+        assertTrue(set.isObservedSumOverflow());
+        assertEquals(BigInteger.valueOf(value).multiply(BigInteger.valueOf(4)), set.getObservedSum());
+    }
+
+    @Test
+    public void sumOverflow() {
+        assertTrue(SeriesDataset.isSumOverflow(Long.MAX_VALUE, 1L));
+        assertTrue(SeriesDataset.isSumOverflow(Long.MIN_VALUE, -1L));
+        assertFalse(SeriesDataset.isSumOverflow(Long.MAX_VALUE, -1L));
+        assertFalse(SeriesDataset.isSumOverflow(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertFalse(SeriesDataset.isSumOverflow(-1L, -1L));
+    }
+
     @Test
     public void constantDataset() {
         SeriesDataset set = new EmptyDataset(INSTANCE, SERIES, 3);
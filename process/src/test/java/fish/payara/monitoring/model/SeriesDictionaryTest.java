@@ -0,0 +1,129 @@
+package fish.payara.monitoring.model;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests the correctness of the {@link SeriesDictionary} lookup and ID assignment.
+ *
+ * @author Jan Bernitt
+ */
+public class SeriesDictionaryTest {
+
+    private final SeriesDictionary dictionary = new SeriesDictionary();
+
+    @Test
+    public void lookupReturnsCanonicalInstance() {
+        Series series = dictionary.lookup("ns:web @:app RequestCount");
+        assertNotNull(series);
+        assertEquals(new Series("ns:web @:app RequestCount"), series);
+        assertSame(series, dictionary.lookup("ns:web @:app RequestCount"));
+        assertSame(series, dictionary.lookup(new StringBuilder("ns:web @:app RequestCount")));
+    }
+
+    @Test
+    public void idsAreDense() {
+        assertEquals(0, dictionary.size());
+        assertEquals(0, dictionary.id("a"));
+        assertEquals(1, dictionary.id("b"));
+        assertEquals(0, dictionary.id(new StringBuilder("a")));
+        assertEquals(2, dictionary.id("ns:x c"));
+        assertEquals(3, dictionary.size());
+        assertEquals(new Series("b"), dictionary.series(1));
+        assertEquals(1, dictionary.id(new Series("b")));
+        assertEquals(-1, dictionary.id(new Series("unknown")));
+    }
+
+    @Test
+    public void equivalentKeysShareSeriesAndId() {
+        Series spaced = dictionary.lookup("ns:web @:app RequestCount");
+        Series commaed = dictionary.lookup("ns:web,@:app,RequestCount");
+        assertSame(spaced, commaed);
+        assertEquals(dictionary.id("ns:web @:app RequestCount"), dictionary.id("ns:web;@:app;RequestCount"));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    public void malformedKeysAreRejected() {
+        assertNull(dictionary.lookup(""));
+        assertNull(dictionary.lookup("noAssign Metric"));
+        assertEquals(-1, dictionary.id("noAssign Metric"));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    public void removedSeriesGetNewIdWhenLookedUpAgain() {
+        int a = dictionary.id("ns:web @:app RequestCount");
+        int b = dictionary.id("ns:web @:app ErrorCount");
+        Series removed = dictionary.series(a);
+        assertEquals(1, dictionary.remove(asList(removed, new Series("ns:web Unknown"))));
+        assertNull(dictionary.series(a));
+        assertEquals(-1, dictionary.id(removed));
+        assertEquals(b, dictionary.id("ns:web @:app ErrorCount"));
+        assertEquals(2, dictionary.id("ns:web,@:app,RequestCount"));
+        assertEquals(2, dictionary.id("ns:web @:app RequestCount"));
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void unknownIdIsRejected() {
+        dictionary.series(0);
+    }
+
+    @Test
+    public void manyKeys() {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            key.setLength(0);
+            key.append("ns:test @:").append(i).append(" Metric");
+            assertEquals(i, dictionary.id(key));
+        }
+        for (int i = 0; i < 10000; i++) {
+            Series series = dictionary.series(i);
+            assertEquals("ns:test @:" + i + " Metric", series.toString());
+            assertSame(series, dictionary.lookup(series.toString()));
+        }
+    }
+
+    @Test
+    public void concurrentLookupsAgreeOnIds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    int[] ids = new int[2000];
+                    StringBuilder key = new StringBuilder();
+                    for (int i = 0; i < ids.length; i++) {
+                        key.setLength(0);
+                        key.append("@:").append(i).append(" Metric");
+                        ids[i] = dictionary.id(key);
+                    }
+                    return ids;
+                }));
+            }
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                int[] actual = result.get();
+                for (int i = 0; i < expected.length; i++) {
+                    assertEquals(expected[i], actual[i]);
+                    assertEquals("@:" + i + " Metric", dictionary.series(actual[i]).toString());
+                }
+            }
+            assertEquals(2000, dictionary.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package fish.payara.monitoring.model;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SeriesIndex} by comparing its results with {@link Series#matches(Series)} applied to all
+ * {@link Series}.
+ *
+ * @author Jan Bernitt
+ */
+public class SeriesIndexTest {
+
+    private static final List<String> SERIES = asList("AnyName", "Foo", "ns:bar Foo", "ns:bar @:Bar Foo",
+            "ns:x @:bar Foo", "ns:y @:bar Foo", "ns:x y:bar Foo", "ns:x @:bar x:y Foo", "ns:x Foo", "foo:bar Foo",
+            "ns:x foo:bar Foo", "ns:web @:app1 RequestCount", "ns:web @:app2 RequestCount", "ns:web @:app1 ErrorCount",
+            "ns:jvm HeapUsage", "ns:web RequestCount");
+
+    private static final List<String> PATTERNS = asList("*", "Foo", "ns:* Foo", "ns:x @:* Foo", "@:* Foo",
+            "?:bar Foo", "?:* Foo", "?:* *", "ns:bar ?:* Foo", "ns:web @:* RequestCount", "ns:web @:* *",
+            "ns:web ?:* RequestCount", "ns:* @:* *", "ns:web @:app1 RequestCount", "ns:none @:* *", "x:* Foo",
+            "ns:x @:bar x:* Foo");
+
+    private final SeriesIndex index = new SeriesIndex();
+
+    @Test
+    public void matchingIsSameAsMatchesForAll() {
+        addAll();
+        for (String pattern : PATTERNS) {
+            assertMatching(new Series(pattern));
+        }
+    }
+
+    @Test
+    public void matchingIsSameAsMatchesForAllAfterRemoval() {
+        addAll();
+        assertTrue(index.remove(new Series("ns:x @:bar Foo")));
+        assertTrue(index.remove(new Series("ns:web @:app1 RequestCount")));
+        assertTrue(index.remove(new Series("Foo")));
+        for (String pattern : PATTERNS) {
+            assertMatching(new Series(pattern));
+        }
+    }
+
+    @Test
+    public void addAndRemove() {
+        Series series = new Series("ns:web @:app1 RequestCount");
+        assertTrue(index.add(series));
+        assertFalse(index.add(series));
+        assertTrue(index.contains(series));
+        assertEquals(1, index.size());
+        assertEquals(1, matching(new Series("ns:web @:* RequestCount")).size());
+        assertTrue(index.remove(series));
+        assertFalse(index.remove(series));
+        assertFalse(index.contains(series));
+        assertEquals(0, index.size());
+        assertEquals(0, matching(new Series("ns:web @:* RequestCount")).size());
+    }
+
+    @Test
+    public void nonPatternMatchesItself() {
+        addAll();
+        Set<Series> matches = matching(new Series("ns:web @:app2 RequestCount"));
+        assertEquals(1, matches.size());
+        assertTrue(matches.contains(new Series("ns:web @:app2 RequestCount")));
+    }
+
+    private void addAll() {
+        for (String series : SERIES) {
+            index.add(new Series(series));
+        }
+    }
+
+    private void assertMatching(Series pattern) {
+        Set<Series> expected = new HashSet<>();
+        for (String series : SERIES) {
+            Series s = new Series(series);
+            if (index.contains(s) && pattern.matches(s)) {
+                expected.add(s);
+            }
+        }
+        assertEquals("Matches for " + pattern, expected, matching(pattern));
+    }
+
+    private Set<Series> matching(Series pattern) {
+        Set<Series> actual = new HashSet<>();
+        index.forEachMatching(pattern, actual::add);
+        return actual;
+    }
+}
@@ -39,6 +39,10 @@
  */
 package fish.payara.monitoring.web;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
 import fish.payara.monitoring.model.Series;
 import fish.payara.monitoring.web.ApiResponses.AlertFrame;
 import fish.payara.monitoring.web.ApiResponses.SeriesData;
@@ -62,6 +66,11 @@ public final class ApiRequests {
 
         public SeriesQuery[] queries;
         public boolean groupBySeries = false;
+        /**
+         * The number of seconds between updates pushed to the clients of a subscription of this request. Values less
+         * than 1 push updates every second. Not used when a request is answered directly.
+         */
+        public int interval;
 
         public SeriesRequest() {
             // from JSON
@@ -75,6 +84,52 @@ public final class ApiRequests {
             this.queries = queries;
         }
 
+        /**
+         * The key is computed from the canonical queries, see {@link SeriesQuery#key(boolean)}. It is independent of
+         * the order of the queries, of duplicate queries and of the {@link SeriesQuery#widgetId}s.
+         *
+         * @param includeSince true to include the {@link SeriesQuery#since} of the queries, false to ignore it
+         * @return a key that is equal for requests asking for the same data
+         */
+        String key(boolean includeSince) {
+            StringBuilder key = new StringBuilder();
+            key.append(groupBySeries);
+            for (String queryKey : queryKeys(includeSince)) {
+                key.append('\n').append(queryKey);
+            }
+            return key.toString();
+        }
+
+        /**
+         * @return the distinct {@link SeriesQuery#key(boolean)}s of the queries in their natural order
+         */
+        String[] queryKeys(boolean includeSince) {
+            return Arrays.stream(queries).map(query -> query.key(includeSince)).distinct().sorted()
+                    .toArray(String[]::new);
+        }
+
+        /**
+         * @param includeSince true to keep the {@link SeriesQuery#since} of the queries, false to request the full data
+         * @return a request for the same data with one {@link SeriesQuery#canonical()} query for each of the
+         *         {@link #queryKeys(boolean)} in the same order, without since the queries have a since of zero
+         */
+        SeriesRequest canonical(boolean includeSince) {
+            Map<String, SeriesQuery> queriesByKey = new TreeMap<>();
+            for (SeriesQuery query : queries) {
+                queriesByKey.computeIfAbsent(query.key(includeSince), key -> {
+                    SeriesQuery canonical = query.canonical();
+                    if (!includeSince) {
+                        canonical.since = 0L;
+                    }
+                    return canonical;
+                });
+            }
+            SeriesRequest canonical = new SeriesRequest(queriesByKey.values().toArray(new SeriesQuery[0]));
+            canonical.groupBySeries = groupBySeries;
+            canonical.interval = interval;
+            return canonical;
+        }
+
     }
 
     /**
@@ -86,7 +141,7 @@ public final class ApiRequests {
          * The ID of the widget the series is requested for.
          *
          * Conceptually can be any ID used by the caller to reassociate matches with the client object they belong to.
-         * The ID provided here is simply forwarded to {@link ApiResponses.SeriesMatch#widgetId}.
+         * The ID provided here is simply forwarded to the {@code widgetId} of the match in the response.
          */
         public String widgetId;
         /**
@@ -107,6 +162,22 @@ public final class ApiRequests {
 
         public boolean history;
 
+        /**
+         * When positive the response only contains what changed after this time (in milliseconds since epoch):
+         * <ul>
+         * <li>{@link SeriesData#points} only contain points after this time, in addition each {@link SeriesData} has a
+         * {@code firstTime} property with the time of the first point of the full window so clients can drop older
+         * points they have cached. {@link SeriesData#minutes}, {@link SeriesData#hours} and {@link SeriesData#days}
+         * are only included if they got extended since.</li>
+         * <li>{@link ApiResponses.AnnotationData}s are only included if they were created after this time.</li>
+         * <li>{@link ApiResponses.AlertData}s are only included if they are ongoing or ended after this time.</li>
+         * </ul>
+         * All matching {@link SeriesData} are included, a series not included has no data any more.
+         *
+         * Zero (default) or a negative value requests the full data.
+         */
+        public long since;
+
         public SeriesQuery() {
             // from JSON
         }
@@ -126,6 +197,50 @@ public final class ApiRequests {
             return contains(truncate, type);
         }
 
+        public boolean isIncremental() {
+            return since > 0L;
+        }
+
+        /**
+         * @return a query for the same data without {@link #widgetId} that has the {@link #instances},
+         *         {@link #truncate} and {@link #exclude} sets sorted without duplicates and empty instead of
+         *         {@code null}, and a {@link #since} of zero if it is not {@link #isIncremental()}
+         */
+        SeriesQuery canonical() {
+            SeriesQuery canonical = new SeriesQuery();
+            canonical.series = series;
+            canonical.instances = instances == null
+                    ? new String[0]
+                    : Arrays.stream(instances).distinct().sorted().toArray(String[]::new);
+            canonical.truncate = canonical(truncate);
+            canonical.exclude = canonical(exclude);
+            canonical.history = history;
+            canonical.since = isIncremental() ? since : 0L;
+            return canonical;
+        }
+
+        /**
+         * @param includeSince true to include the {@link #since}, false to ignore it
+         * @return a key that is equal for queries that have the same {@link #canonical()} query
+         */
+        String key(boolean includeSince) {
+            SeriesQuery canonical = canonical();
+            StringBuilder key = new StringBuilder();
+            key.append(canonical.series)
+                .append(' ').append(Arrays.toString(canonical.instances))
+                .append(' ').append(Arrays.toString(canonical.truncate))
+                .append(' ').append(Arrays.toString(canonical.exclude))
+                .append(' ').append(canonical.history);
+            if (includeSince) {
+                key.append(' ').append(canonical.since);
+            }
+            return key.toString();
+        }
+
+        private static DataType[] canonical(DataType[] set) {
+            return set == null ? new DataType[0] : Arrays.stream(set).distinct().sorted().toArray(DataType[]::new);
+        }
+
         private static boolean contains(DataType[] set, DataType type) {
             if (set == null) {
                 return false;
@@ -39,8 +39,6 @@
  */
 package fish.payara.monitoring.web;
 
-import static fish.payara.monitoring.web.ApiRequests.DataType.ALERTS;
-import static fish.payara.monitoring.web.ApiRequests.DataType.POINTS;
 import static java.util.stream.Collectors.toList;
 
 import java.io.Serializable;
@@ -58,7 +56,6 @@ import fish.payara.monitoring.alert.Watch;
 import fish.payara.monitoring.adapt.GroupData;
 import fish.payara.monitoring.alert.Alert;
 import fish.payara.monitoring.alert.Alert.Level;
-import fish.payara.monitoring.alert.AlertService.AlertStatistics;
 import fish.payara.monitoring.alert.Circumstance;
 import fish.payara.monitoring.alert.Condition;
 import fish.payara.monitoring.model.AggregateDataset;
@@ -66,7 +63,6 @@ import fish.payara.monitoring.model.HoursDataset;
 import fish.payara.monitoring.model.MinutesDataset;
 import fish.payara.monitoring.model.SeriesAnnotation;
 import fish.payara.monitoring.model.SeriesDataset;
-import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
 
 /**
  * Types used in the web API to model mapped responses.
@@ -83,74 +79,15 @@ import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
 public final class ApiResponses {
 
     /**
-     * A {@link SeriesResponse} is the answer to a {@link ApiRequests.SeriesRequest}.
-     *
-     * It consists of an {@link Alerts} statistic and a {@link SeriesMatch} for each {@link SeriesQuery}.
-     */
-    public static final class SeriesResponse {
-
-        public final Alerts alerts;
-        public final List<SeriesMatch> matches;
-
-        public SeriesResponse(List<SeriesMatch> matches, AlertStatistics alertStatistics) {
-            this.alerts = new Alerts(alertStatistics);
-            this.matches = matches;
-        }
-    }
-
-    public static final class Alerts {
-
-        public final int changeCount;
-        public final int unacknowledgedRedAlerts;
-        public final int acknowledgedRedAlerts;
-        public final int unacknowledgedAmberAlerts;
-        public final int acknowledgedAmberAlerts;
-        public final int watchCount;
-        public final int[] ongoingRedAlerts;
-        public final int[] ongoingAmberAlerts;
-
-        public Alerts(AlertStatistics stats) {
-            this.watchCount = stats.watches;
-            this.changeCount = stats.changeCount;
-            this.unacknowledgedRedAlerts = stats.unacknowledgedRedAlerts;
-            this.acknowledgedRedAlerts = stats.acknowledgedRedAlerts;
-            this.unacknowledgedAmberAlerts = stats.unacknowledgedAmberAlerts;
-            this.acknowledgedAmberAlerts = stats.acknowledgedAmberAlerts;
-            this.ongoingRedAlerts = stats.ongoingRedAlerts;
-            this.ongoingAmberAlerts = stats.ongoingAmberAlerts;
-        }
-    }
-
-    /**
-     * Corresponding answer to a {@link SeriesQuery}.
+     * Answer to a subscription of a {@link ApiRequests.SeriesRequest}, the {@link #id} is used to connect to the stream
+     * of updates.
      */
-    public static final class SeriesMatch {
-
-        public final String widgetId;
-        public final String series;
-        public final List<SeriesData> data;
-        public final List<AnnotationData> annotations;
-        public final List<WatchData> watches;
-        public final List<AlertData> alerts;
+    public static final class SubscriptionResponse {
 
-        public SeriesMatch(SeriesQuery query, String series, List<SeriesDataset> data, List<SeriesAnnotation> annotations, //
-                Collection<Watch> watches, Collection<Alert> alerts) {
-            this.widgetId = query.widgetId;
-            this.series = series;
-            this.alerts = alerts.stream().map(alert -> new AlertData(alert, query.truncates(ALERTS))).collect(toList());
-            this.watches = watches.stream().map(WatchData::new).collect(toList());
-            this.data = data.stream().map(set -> new SeriesData(set, query.truncates(POINTS), query.history)).collect(toList());
-            this.annotations = annotations.stream().map(AnnotationData::new).collect(toList());
-        }
+        public final String id;
 
-        public SeriesMatch(String series, List<SeriesData> data, List<AnnotationData> annotations,
-                List<WatchData> watches, List<AlertData> alerts) {
-            this.widgetId = "grouped";
-            this.series = series;
-            this.data = data;
-            this.annotations = annotations;
-            this.watches = watches;
-            this.alerts = alerts;
+        public SubscriptionResponse(String id) {
+            this.id = id;
         }
     }
 
@@ -268,6 +205,12 @@ public final class ApiResponses {
         }
     }
 
+    /**
+     * The data of a {@link SeriesDataset} as used in {@link AlertFrame}s.
+     *
+     * Responses to a {@link ApiRequests.SeriesRequest} are not mapped but written by the {@link SeriesResponseWriter}
+     * in the same JSON structure.
+     */
     public static final class SeriesData {
 
         public final String series;
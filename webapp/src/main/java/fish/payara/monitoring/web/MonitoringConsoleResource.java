@@ -49,17 +49,15 @@ import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.ServiceLoader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
@@ -67,6 +65,8 @@ import javax.json.stream.JsonParser;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -74,9 +74,14 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 
 import fish.payara.monitoring.adapt.GroupData;
 import fish.payara.monitoring.adapt.GroupDataRepository;
@@ -98,17 +103,15 @@ import fish.payara.monitoring.model.SeriesDataset;
 import fish.payara.monitoring.web.ApiRequests.DataType;
 import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
 import fish.payara.monitoring.web.ApiRequests.SeriesRequest;
-import fish.payara.monitoring.web.ApiResponses.AlertData;
 import fish.payara.monitoring.web.ApiResponses.AlertsResponse;
 import fish.payara.monitoring.web.ApiResponses.AnnotationData;
 import fish.payara.monitoring.web.ApiResponses.CircumstanceData;
 import fish.payara.monitoring.web.ApiResponses.ConditionData;
 import fish.payara.monitoring.web.ApiResponses.RequestTraceResponse;
-import fish.payara.monitoring.web.ApiResponses.SeriesData;
-import fish.payara.monitoring.web.ApiResponses.SeriesMatch;
-import fish.payara.monitoring.web.ApiResponses.SeriesResponse;
+import fish.payara.monitoring.web.ApiResponses.SubscriptionResponse;
 import fish.payara.monitoring.web.ApiResponses.WatchData;
 import fish.payara.monitoring.web.ApiResponses.WatchesResponse;
+import fish.payara.monitoring.web.SeriesResponseCache.CachedResponse;
 
 @Path("/")
 @Produces(MediaType.APPLICATION_JSON)
@@ -122,6 +125,11 @@ public class MonitoringConsoleResource {
     private GroupDataRepository groupDataRepository;
     private MonitoringConsolePageConfig pageConfig;
 
+    @Inject
+    private SeriesSubscriptions subscriptions;
+    @Inject
+    private SeriesResponseCache responseCache;
+
     @PostConstruct
     private void init() {
         Iterator<MonitoringConsoleFactory> iter = ServiceLoader
@@ -235,15 +243,56 @@ public class MonitoringConsoleResource {
 
     @GET
     @Path("/series/data/{series}/")
-    public SeriesResponse getSeriesData(@PathParam("series") String series) {
-        return getSeriesData(new SeriesRequest(series));
+    public Response getSeriesData(@PathParam("series") String series,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        return getSeriesData(new SeriesRequest(series), ifNoneMatch);
     }
 
+    /**
+     * The data of responses is cached for the current tick by the {@link SeriesResponseCache} and written to the
+     * response stream when it is sent. When the client already has the current response as indicated by the
+     * {@code If-None-Match} header the response is {@code 304 Not Modified}.
+     */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Path("/series/data/")
-    public SeriesResponse getSeriesData(SeriesRequest request) {
-        List<SeriesMatch> matches = new ArrayList<>(request.queries.length);
+    public Response getSeriesData(SeriesRequest request, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        CachedResponse response = responseCache.get(request, dataRepository, alertService,
+                canonical -> selectSeriesData(canonical, dataRepository, alertService));
+        EntityTag etag = new EntityTag(response.etag);
+        if (response.isNotModified(ifNoneMatch)) {
+            return Response.notModified(etag).build();
+        }
+        return Response.ok(response).tag(etag).build();
+    }
+
+    /**
+     * Registers a {@link SeriesRequest} for which updates are pushed using server sent events once the client connects
+     * to {@link #getSeriesUpdates(String, SseEventSink, Sse)} with the returned ID. Identical requests share one
+     * subscription.
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("/series/subscriptions/")
+    public SubscriptionResponse subscribeSeriesData(SeriesRequest request) {
+        return new SubscriptionResponse(subscriptions.subscribe(request, dataRepository, alertService));
+    }
+
+    @GET
+    @Path("/series/subscriptions/{id}/")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void getSeriesUpdates(@PathParam("id") String id, @Context SseEventSink sink, @Context Sse sse) {
+        if (!subscriptions.connect(id, sink, sse)) {
+            throw new NotFoundException("No subscription with ID: " + id);
+        }
+    }
+
+    /**
+     * The response is written directly from the matched data using a {@link SeriesResponseWriter}.
+     */
+    static SeriesResponseWriter selectSeriesData(SeriesRequest request, SeriesRepository dataRepository,
+            AlertService alertService) {
+        SeriesResponseWriter response = new SeriesResponseWriter(alertService.getAlertStatistics());
         for (SeriesQuery query : request.queries) {
             Series key = seriesOrNull(query.series);
             List<SeriesDataset> queryData = key == null || query.excludes(DataType.POINTS)
@@ -258,42 +307,9 @@ public class MonitoringConsoleResource {
             Collection<Alert> queryAlerts = key == null || query.excludes(DataType.ALERTS)
                     ? emptyList()
                     : alertService.alertsFor(key);
-            matches.add(new SeriesMatch(query, query.series, queryData, queryAnnotations, queryWatches, queryAlerts));
-        }
-        if (request.groupBySeries) {
-            return getGroupedSeriesData(matches);
-        }
-        return new SeriesResponse(matches, alertService.getAlertStatistics());
-    }
-
-    private SeriesResponse getGroupedSeriesData(List<SeriesMatch> matches) {
-        Map<String, List<SeriesData>> dataBySeries = new HashMap<>();
-        Map<String, List<AnnotationData>> annotationsBySeries = new HashMap<>();
-        Map<String, List<WatchData>> watchesBySeries = new HashMap<>();
-        Map<String, List<AlertData>> alertsBySeries = new HashMap<>();
-        for (SeriesMatch match : matches) {
-            for (SeriesData data : match.data) {
-                dataBySeries.computeIfAbsent(data.series, key -> new ArrayList<>()).add(data);
-            }
-            for (AnnotationData annotation : match.annotations) {
-                annotationsBySeries.computeIfAbsent(annotation.series, key -> new ArrayList<>()).add(annotation);
-            }
-            for (WatchData watch : match.watches) {
-                watchesBySeries.computeIfAbsent(watch.series, key -> new ArrayList<>()).add(watch);
-            }
-            for (AlertData alert : match.alerts) {
-                alertsBySeries.computeIfAbsent(alert.series, key -> new ArrayList<>()).add(alert);
-            }
-        }
-        List<SeriesMatch> matchesBySeries = new ArrayList<>();
-        for (Entry<String, List<SeriesData>> e : dataBySeries.entrySet()) {
-            String series = e.getKey();
-            matchesBySeries.add(new SeriesMatch(series, e.getValue(),
-                    annotationsBySeries.getOrDefault(series, emptyList()),
-                    watchesBySeries.getOrDefault(series, emptyList()),
-                    alertsBySeries.getOrDefault(series, emptyList())));
+            response.add(query, queryData, queryAnnotations, queryWatches, queryAlerts);
         }
-        return new SeriesResponse(matchesBySeries, alertService.getAlertStatistics());
+        return request.groupBySeries ? response.groupBySeries() : response;
     }
 
     @GET
@@ -0,0 +1,369 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.json.Json;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.StreamingOutput;
+
+import fish.payara.monitoring.alert.AlertService;
+import fish.payara.monitoring.alert.AlertService.AlertStatistics;
+import fish.payara.monitoring.data.SeriesRepository;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiRequests.SeriesRequest;
+
+/**
+ * A least recently used cache for the data matched by {@link SeriesRequest}s and the JSON written for it.
+ *
+ * The data of a response only changes when a tick is published by the {@link SeriesRepository} or when the
+ * {@link AlertService} checked the watches. A cached entry is therefore valid as long as the
+ * {@link SeriesRepository#getPublishedSecond()} is the same and the {@link AlertService#getAlertStatistics()} is still
+ * the same instance as when the data was selected. Requests for the same data within the same second share the same
+ * cached entry. Data other instances publish later within that second is only included from the next second on.
+ *
+ * Entries are cached by the {@link SeriesRequest#key(boolean)} without the {@link SeriesQuery#since} and selected for
+ * the {@link SeriesRequest#canonical(boolean)} request asking for the full data. Requests that only differ in the order
+ * of their queries, duplicate queries, the {@link SeriesQuery#widgetId}s or the {@link SeriesQuery#since} therefore
+ * share the cached entry. The since of a query is applied when its match is written. The JSON of the full data is
+ * computed once for each entry when it is first written. Unless the request is {@link SeriesRequest#groupBySeries} this
+ * is done for each match separately and the response is assembled from the matches in the order of the request's
+ * queries, each with its {@link SeriesQuery#widgetId}. As properties are written in lexicographical order the
+ * {@code widgetId} is the last property of a match and can be appended. Matches of queries that only ask for what
+ * changed since a time are written from the cached data for each request.
+ *
+ * The cache is bound by the total number of bytes of the cached data and JSON. Data too large to be cached is written
+ * directly. Each response has an {@link EntityTag} based on the cached entry and the request so clients can avoid
+ * transferring a response they already have.
+ *
+ * <h3>Consistency Remarks</h3>
+ *
+ * The published second and statistics are read before the data is selected. Should the data change while it is
+ * selected the entry is outdated already and selected again on the next request. Two requests can select the same data
+ * concurrently, the last one wins. The JSON of an entry is computed by the first request that needs it while holding
+ * the entry's monitor.
+ *
+ * @author Jan Bernitt
+ */
+@ApplicationScoped
+public class SeriesResponseCache {
+
+    /**
+     * Maximum number of bytes of all cached entries
+     */
+    private static final int MAX_BYTES = Integer.getInteger("fish.payara.monitoring.response.cache.bytes", 8 << 20);
+
+    private static final byte[] ALERTS_START = "{\"alerts\":".getBytes(UTF_8);
+    private static final byte[] MATCHES_START = ",\"matches\":[".getBytes(UTF_8);
+    private static final byte[] MATCHES_END = "]}".getBytes(UTF_8);
+
+    private static final AtomicLong ENTRY_COUNT = new AtomicLong();
+
+    /**
+     * A response to a {@link SeriesRequest} that is written when the response is sent.
+     */
+    public static final class CachedResponse implements StreamingOutput {
+
+        /**
+         * The value of the {@link EntityTag} of the response
+         */
+        public final String etag;
+        private final StreamingOutput json;
+
+        CachedResponse(String etag, StreamingOutput json) {
+            this.etag = etag;
+            this.json = json;
+        }
+
+        /**
+         * @param ifNoneMatch value of the {@code If-None-Match} header of the request, may be null
+         * @return true, if the client already has this response
+         */
+        public boolean isNotModified(String ifNoneMatch) {
+            return ifNoneMatch != null
+                    && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains('"' + etag + '"'));
+        }
+
+        @Override
+        public void write(OutputStream output) throws IOException {
+            json.write(output);
+        }
+    }
+
+    /**
+     * The data matched by a {@link SeriesRequest#canonical(boolean)} request asking for the full data and its JSON.
+     */
+    private static final class Entry {
+
+        final long id;
+        final long publishedSecond;
+        final AlertStatistics alertStatistics;
+        /**
+         * The {@link SeriesRequest#queryKeys(boolean)} of the canonical request without since
+         */
+        final String[] queryKeys;
+        final boolean groupBySeries;
+        final SeriesResponseWriter data;
+        /**
+         * The JSON of the alerts, or of the full response when it is grouped by series, followed by the JSON of the
+         * match of each query in the order of the {@link #queryKeys}, each null until it is first written
+         */
+        private final byte[][] parts;
+        /**
+         * Changed while holding the monitor of the {@link SeriesResponseCache}
+         */
+        int bytes;
+        boolean cached;
+
+        Entry(SeriesRequest canonical, long publishedSecond, AlertStatistics alertStatistics,
+                SeriesResponseWriter data) {
+            this.id = ENTRY_COUNT.incrementAndGet();
+            this.publishedSecond = publishedSecond;
+            this.alertStatistics = alertStatistics;
+            this.queryKeys = canonical.queryKeys(false);
+            this.groupBySeries = canonical.groupBySeries;
+            this.data = data;
+            this.parts = new byte[1 + queryKeys.length][];
+            this.bytes = data.estimatedBytesMemory();
+        }
+
+        boolean isValid(long publishedSecond, AlertStatistics alertStatistics) {
+            return this.publishedSecond == publishedSecond && this.alertStatistics == alertStatistics;
+        }
+
+        int matchIndex(SeriesQuery query) {
+            return Arrays.binarySearch(queryKeys, query.key(false));
+        }
+
+        /**
+         * @return a writer for the given request using the data of this entry
+         */
+        SeriesResponseWriter answer(SeriesRequest request) {
+            if (!request.groupBySeries) {
+                return data.answer(request.queries, this::matchIndex);
+            }
+            // duplicate queries would duplicate the data of a group
+            Map<String, SeriesQuery> distinct = new LinkedHashMap<>();
+            for (SeriesQuery query : request.queries) {
+                distinct.putIfAbsent(query.key(false), query);
+            }
+            return data.answer(distinct.values().toArray(new SeriesQuery[0]), this::matchIndex);
+        }
+
+        /**
+         * @param part 0 for the alerts or the full response when grouped, the match index plus 1 for a match
+         * @return the JSON of the part as written for the full data
+         */
+        synchronized byte[] part(int part, SeriesResponseCache cache) {
+            byte[] json = parts[part];
+            if (json == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                if (part > 0) {
+                    data.writeMatch(part - 1, out);
+                } else if (groupBySeries) {
+                    data.write(out);
+                } else {
+                    data.writeAlerts(out);
+                }
+                json = out.toByteArray();
+                parts[part] = json;
+                cache.grow(this, json.length);
+            }
+            return json;
+        }
+
+        void write(SeriesRequest request, SeriesResponseCache cache, OutputStream output) throws IOException {
+            if (request.groupBySeries) {
+                if (isIncremental(request)) {
+                    answer(request).write(output);
+                } else {
+                    output.write(part(0, cache));
+                }
+                return;
+            }
+            SeriesResponseWriter incremental = isIncremental(request) ? answer(request) : null;
+            OutputStream parts = new PartOutputStream(output);
+            output.write(ALERTS_START);
+            output.write(part(0, cache));
+            output.write(MATCHES_START);
+            for (int i = 0; i < request.queries.length; i++) {
+                if (i > 0) {
+                    output.write(',');
+                }
+                SeriesQuery query = request.queries[i];
+                if (query.isIncremental()) {
+                    incremental.writeMatch(i, parts);
+                } else {
+                    byte[] match = part(matchIndex(query) + 1, cache);
+                    if (query.widgetId == null) {
+                        output.write(match);
+                    } else {
+                        output.write(match, 0, match.length - 1);
+                        output.write((",\"widgetId\":" + Json.createValue(query.widgetId) + "}").getBytes(UTF_8));
+                    }
+                }
+            }
+            output.write(MATCHES_END);
+        }
+    }
+
+    /**
+     * Passes the JSON of a part written by a {@link javax.json.stream.JsonGenerator} to the response without closing the
+     * response when the generator is closed.
+     */
+    private static final class PartOutputStream extends FilterOutputStream {
+
+        PartOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private final Map<String, Entry> entriesByRequest = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * @param request        the request to answer
+     * @param dataRepository source of the data
+     * @param alertService   source of alerts and watches
+     * @param response       selects the data of the given {@link SeriesRequest#canonical(boolean)} request in case
+     *                       there is no valid cached entry
+     * @return the response to write the cached or selected data
+     */
+    public CachedResponse get(SeriesRequest request, SeriesRepository dataRepository, AlertService alertService,
+            Function<SeriesRequest, SeriesResponseWriter> response) {
+        String key = request.key(false);
+        long publishedSecond = dataRepository.getPublishedSecond();
+        AlertStatistics alertStatistics = alertService.getAlertStatistics();
+        Entry cached;
+        synchronized (this) {
+            cached = entriesByRequest.get(key);
+        }
+        if (cached == null || !cached.isValid(publishedSecond, alertStatistics)) {
+            SeriesRequest canonical = request.canonical(false);
+            Entry selected = new Entry(canonical, publishedSecond, alertStatistics, response.apply(canonical));
+            if (selected.bytes > MAX_BYTES / 4) {
+                return new CachedResponse(etag(selected, request), selected.answer(request));
+            }
+            put(key, selected);
+            cached = selected;
+        }
+        Entry entry = cached;
+        return new CachedResponse(etag(entry, request), output -> entry.write(request, this, output));
+    }
+
+    private static boolean isIncremental(SeriesRequest request) {
+        for (SeriesQuery query : request.queries) {
+            if (query.isIncremental()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a tag that is equal for responses written from the same entry for requests that only differ in the order
+     *         of their queries or duplicate queries
+     */
+    private static String etag(Entry entry, SeriesRequest request) {
+        int hash = Boolean.hashCode(request.groupBySeries);
+        for (SeriesQuery query : request.queries) {
+            hash = 31 * hash + query.key(true).hashCode();
+            hash = 31 * hash + Objects.hashCode(query.widgetId);
+        }
+        return Long.toHexString(entry.publishedSecond) + "-" + Long.toHexString(entry.id) + "-"
+                + Integer.toHexString(hash);
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry replaced = entriesByRequest.put(key, entry);
+        if (replaced != null) {
+            replaced.cached = false;
+            bytes -= replaced.bytes;
+        }
+        entry.cached = true;
+        bytes += entry.bytes;
+        evict();
+    }
+
+    /**
+     * Accounts for the JSON of an entry that got computed after the entry was cached.
+     */
+    private synchronized void grow(Entry entry, int json) {
+        entry.bytes += json;
+        if (entry.cached) {
+            bytes += json;
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entriesByRequest.values().iterator();
+        while (bytes > MAX_BYTES && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            evicted.cached = false;
+            bytes -= evicted.bytes;
+            eldest.remove();
+        }
+    }
+}
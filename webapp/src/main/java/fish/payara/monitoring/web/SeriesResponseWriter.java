@@ -0,0 +1,584 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.web;
+
+import static fish.payara.monitoring.web.ApiRequests.DataType.ALERTS;
+import static fish.payara.monitoring.web.ApiRequests.DataType.POINTS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.ToIntFunction;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.ws.rs.core.StreamingOutput;
+
+import fish.payara.monitoring.alert.Alert;
+import fish.payara.monitoring.alert.AlertService.AlertStatistics;
+import fish.payara.monitoring.alert.Circumstance;
+import fish.payara.monitoring.alert.Condition;
+import fish.payara.monitoring.alert.Watch;
+import fish.payara.monitoring.model.AggregateDataset;
+import fish.payara.monitoring.model.HoursDataset;
+import fish.payara.monitoring.model.MinutesDataset;
+import fish.payara.monitoring.model.PointCursor;
+import fish.payara.monitoring.model.SeriesAnnotation;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiResponses.AlertData;
+import fish.payara.monitoring.web.ApiResponses.AnnotationData;
+import fish.payara.monitoring.web.ApiResponses.SeriesData;
+import fish.payara.monitoring.web.ApiResponses.WatchData;
+
+/**
+ * Writes the JSON response to a {@link ApiRequests.SeriesRequest} directly from the {@link SeriesDataset}s,
+ * {@link SeriesAnnotation}s, {@link Watch}es and {@link Alert}s matched by the {@link SeriesQuery}s of a request.
+ *
+ * In contrast to mapping response objects with JSON-B no intermediate objects are created and the points and aggregates
+ * of the datasets are not copied into arrays. Instead they are read by index and written to the stream as they are
+ * visited.
+ *
+ * Each match has the same JSON as JSON-B produces for the {@link SeriesData}, {@link AnnotationData},
+ * {@link WatchData} and {@link AlertData} of the matched objects. Properties are written in the lexicographical order
+ * JSON-B uses, properties with a {@code null} value are omitted. Queries that are {@link SeriesQuery#isIncremental()}
+ * only get what changed since the time given, see {@link SeriesQuery#since}.
+ *
+ * @author Jan Bernitt
+ */
+public final class SeriesResponseWriter implements StreamingOutput {
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(null);
+
+    /**
+     * The data matched by a single {@link SeriesQuery}.
+     */
+    private static final class Match {
+
+        final SeriesQuery query;
+        final List<SeriesDataset> data;
+        final List<SeriesAnnotation> annotations;
+        final Collection<Watch> watches;
+        final Collection<Alert> alerts;
+
+        Match(SeriesQuery query, List<SeriesDataset> data, List<SeriesAnnotation> annotations,
+                Collection<Watch> watches, Collection<Alert> alerts) {
+            this.query = query;
+            this.data = data;
+            this.annotations = annotations;
+            this.watches = watches;
+            this.alerts = alerts;
+        }
+    }
+
+    private final AlertStatistics alertStatistics;
+    private final List<Match> matches = new ArrayList<>();
+    private boolean groupBySeries;
+
+    public SeriesResponseWriter(AlertStatistics alertStatistics) {
+        this.alertStatistics = alertStatistics;
+    }
+
+    /**
+     * Adds the data matched by a {@link SeriesQuery}. The data is not copied so it must not change until the response
+     * has been written.
+     */
+    public SeriesResponseWriter add(SeriesQuery query, List<SeriesDataset> data, List<SeriesAnnotation> annotations,
+            Collection<Watch> watches, Collection<Alert> alerts) {
+        matches.add(new Match(query, data, annotations, watches, alerts));
+        return this;
+    }
+
+    /**
+     * Instead of one match per query the response has one match per {@link fish.payara.monitoring.model.Series} that
+     * has data.
+     *
+     * The matches are in the order their series first occur in the added matches. Before the response was written
+     * directly the grouped matches were collected in a {@link java.util.HashMap} and had no particular order.
+     */
+    public SeriesResponseWriter groupBySeries() {
+        this.groupBySeries = true;
+        return this;
+    }
+
+    AlertStatistics getAlertStatistics() {
+        return alertStatistics;
+    }
+
+    /**
+     * Creates a writer for queries that ask for the same data as queries added to this writer but may differ in their
+     * {@link SeriesQuery#since} and {@link SeriesQuery#widgetId}. The data of the matches is shared, not copied.
+     *
+     * @param queries    the queries of the created writer in the order their matches are written
+     * @param matchIndex the index of the match of this writer that has the data for a query
+     */
+    SeriesResponseWriter answer(SeriesQuery[] queries, ToIntFunction<SeriesQuery> matchIndex) {
+        SeriesResponseWriter answer = new SeriesResponseWriter(alertStatistics);
+        for (SeriesQuery query : queries) {
+            Match match = matches.get(matchIndex.applyAsInt(query));
+            answer.add(query, match.data, match.annotations, match.watches, match.alerts);
+        }
+        answer.groupBySeries = groupBySeries;
+        return answer;
+    }
+
+    /**
+     * @return the estimated number of bytes of the matched datasets
+     */
+    int estimatedBytesMemory() {
+        int bytes = 0;
+        for (Match match : matches) {
+            for (SeriesDataset set : match.data) {
+                bytes += set.estimatedBytesMemory();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param index index of the query in the order they were added
+     * @return the time of the most recent point all datasets matched by the query have or when no datasets were
+     *         matched the time of the most recent annotation, zero if there is neither. Datasets with a most recent
+     *         point more than a minute behind the most recent one of the query are stale and not considered. This is
+     *         meant to be used as {@link SeriesQuery#since} for a subsequent update.
+     */
+    long latestCommonTime(int index) {
+        Match match = matches.get(index);
+        long latest = 0L;
+        for (SeriesDataset set : match.data) {
+            latest = Math.max(latest, set.lastTime());
+        }
+        if (match.data.isEmpty()) {
+            for (SeriesAnnotation annotation : match.annotations) {
+                latest = Math.max(latest, annotation.getTime());
+            }
+            return latest;
+        }
+        long common = latest;
+        for (SeriesDataset set : match.data) {
+            long lastTime = set.lastTime();
+            if (lastTime > latest - 60000L) {
+                common = Math.min(common, lastTime);
+            }
+        }
+        return Math.max(0L, common);
+    }
+
+    int size() {
+        return matches.size();
+    }
+
+    /**
+     * Writes only the {@code alerts} object of the response.
+     */
+    void writeAlerts(OutputStream output) {
+        try (JsonGenerator json = GENERATORS.createGenerator(output, UTF_8)) {
+            json.writeStartObject();
+            writeAlertsProperties(json);
+            json.writeEnd();
+        }
+    }
+
+    /**
+     * Writes only the match object of the query with the given index as it is written when the response is not
+     * {@link #groupBySeries()}.
+     *
+     * @param index index of the query in the order they were added
+     */
+    void writeMatch(int index, OutputStream output) {
+        Match match = matches.get(index);
+        try (JsonGenerator json = GENERATORS.createGenerator(output, UTF_8)) {
+            writeMatch(json, match.query.widgetId, match.query.series, singletonList(match));
+        }
+    }
+
+    @Override
+    public void write(OutputStream output) {
+        try (JsonGenerator json = GENERATORS.createGenerator(output, UTF_8)) {
+            json.writeStartObject();
+            writeAlerts(json);
+            json.writeStartArray("matches");
+            if (groupBySeries) {
+                for (Entry<String, List<Match>> group : groupBySeries(matches).entrySet()) {
+                    writeMatch(json, "grouped", group.getKey(), group.getValue());
+                }
+            } else {
+                for (Match match : matches) {
+                    writeMatch(json, match.query.widgetId, match.query.series, singletonList(match));
+                }
+            }
+            json.writeEnd();
+            json.writeEnd();
+        }
+    }
+
+    /**
+     * Each group consists of parts of the original matches that refer to the same series. Only series with data form a
+     * group. Groups are kept in the order their series is first encountered, parts in the order of the matches.
+     */
+    private static Map<String, List<Match>> groupBySeries(List<Match> matches) {
+        Map<String, List<Match>> partsBySeries = new LinkedHashMap<>();
+        for (Match match : matches) {
+            Map<String, Match> parts = new LinkedHashMap<>();
+            for (SeriesDataset set : match.data) {
+                part(parts, match, set.getSeries().toString()).data.add(set);
+            }
+            for (SeriesAnnotation annotation : match.annotations) {
+                part(parts, match, annotation.getSeries().toString()).annotations.add(annotation);
+            }
+            for (Watch watch : match.watches) {
+                part(parts, match, watch.watched.series.toString()).watches.add(watch);
+            }
+            for (Alert alert : match.alerts) {
+                part(parts, match, alert.getSeries().toString()).alerts.add(alert);
+            }
+            for (Entry<String, Match> part : parts.entrySet()) {
+                partsBySeries.computeIfAbsent(part.getKey(), key -> new ArrayList<>()).add(part.getValue());
+            }
+        }
+        partsBySeries.values().removeIf(parts -> parts.stream().allMatch(part -> part.data.isEmpty()));
+        return partsBySeries;
+    }
+
+    private static Match part(Map<String, Match> parts, Match match, String series) {
+        return parts.computeIfAbsent(series, key -> new Match(match.query, new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>()));
+    }
+
+    private void writeAlerts(JsonGenerator json) {
+        json.writeStartObject("alerts");
+        writeAlertsProperties(json);
+        json.writeEnd();
+    }
+
+    private void writeAlertsProperties(JsonGenerator json) {
+        AlertStatistics stats = alertStatistics;
+        json.write("acknowledgedAmberAlerts", stats.acknowledgedAmberAlerts);
+        json.write("acknowledgedRedAlerts", stats.acknowledgedRedAlerts);
+        json.write("changeCount", stats.changeCount);
+        writeArray(json, "ongoingAmberAlerts", stats.ongoingAmberAlerts);
+        writeArray(json, "ongoingRedAlerts", stats.ongoingRedAlerts);
+        json.write("unacknowledgedAmberAlerts", stats.unacknowledgedAmberAlerts);
+        json.write("unacknowledgedRedAlerts", stats.unacknowledgedRedAlerts);
+        json.write("watchCount", stats.watches);
+    }
+
+    private static void writeMatch(JsonGenerator json, String widgetId, String series, List<Match> parts) {
+        json.writeStartObject();
+        json.writeStartArray("alerts");
+        for (Match part : parts) {
+            boolean truncate = part.query.truncates(ALERTS);
+            long since = part.query.since;
+            for (Alert alert : part.alerts) {
+                if (!part.query.isIncremental() || !alert.isStopped() || alert.getEndTime() > since) {
+                    writeAlert(json, alert, truncate);
+                }
+            }
+        }
+        json.writeEnd();
+        json.writeStartArray("annotations");
+        for (Match part : parts) {
+            long since = part.query.since;
+            for (SeriesAnnotation annotation : part.annotations) {
+                if (annotation.getTime() > since) {
+                    writeAnnotation(json, annotation);
+                }
+            }
+        }
+        json.writeEnd();
+        json.writeStartArray("data");
+        for (Match part : parts) {
+            boolean truncate = part.query.truncates(POINTS);
+            for (SeriesDataset set : part.data) {
+                writeDataset(json, null, set, truncate, part.query.history, part.query.since);
+            }
+        }
+        json.writeEnd();
+        writeString(json, "series", series);
+        json.writeStartArray("watches");
+        for (Match part : parts) {
+            for (Watch watch : part.watches) {
+                writeWatch(json, watch);
+            }
+        }
+        json.writeEnd();
+        writeString(json, "widgetId", widgetId);
+        json.writeEnd();
+    }
+
+    /**
+     * @param since when positive only points after this time are written, aggregates are only written when they got
+     *              extended after this time
+     */
+    private static void writeDataset(JsonGenerator json, String name, SeriesDataset set, boolean truncatePoints,
+            boolean history, long since) {
+        if (name == null) {
+            json.writeStartObject();
+        } else {
+            json.writeStartObject(name);
+        }
+        boolean incremental = since > 0L && !truncatePoints;
+        MinutesDataset minutes = null;
+        HoursDataset hours = null;
+        if (history && !truncatePoints) {
+            minutes = set.getRecentMinutes();
+            hours = minutes.getRecentHours();
+            writeAggregate(json, "days", hours.getRecentDays(), since);
+        }
+        if (incremental) {
+            json.write("firstTime", set.firstTime());
+        }
+        if (hours != null) {
+            writeAggregate(json, "hours", hours, since);
+        }
+        writeString(json, "instance", set.getInstance());
+        if (minutes != null) {
+            writeAggregate(json, "minutes", minutes, since);
+        }
+        json.write("observedMax", set.getObservedMax());
+        json.write("observedMin", set.getObservedMin());
+        json.write("observedSince", set.getObservedSince());
+        if (set.isObservedSumOverflow()) {
+            json.write("observedSum", set.getObservedSum());
+        } else {
+            json.write("observedSum", set.getObservedSumAsLong());
+        }
+        json.write("observedValueChanges", set.getObservedValueChanges());
+        json.write("observedValues", set.getObservedValues());
+        json.writeStartArray("points");
+        if (truncatePoints) {
+            json.write(set.lastTime());
+            json.write(set.lastValue());
+        } else {
+            PointCursor points = set.cursor();
+            while (points.next()) {
+                long time = points.time();
+                if (!incremental || time > since) {
+                    json.write(time);
+                    json.write(points.value());
+                }
+            }
+        }
+        json.writeEnd();
+        json.write("series", set.getSeries().toString());
+        json.write("stableCount", set.getStableCount());
+        json.write("stableSince", set.getStableSince());
+        json.writeEnd();
+    }
+
+    private static void writeAggregate(JsonGenerator json, String name, AggregateDataset<?> data, long since) {
+        if (data.isEmpty() || since > 0L && data.firstTime() + data.size() * data.getIntervalLength() <= since) {
+            return;
+        }
+        int from = data.firstIndex();
+        int to = from + data.size();
+        json.writeStartObject(name);
+        json.writeStartArray("avgs");
+        for (int i = from; i < to; i++) {
+            json.write(data.getAverage(i));
+        }
+        json.writeEnd();
+        json.write("interval", data.getIntervalLength());
+        json.writeStartArray("maxs");
+        for (int i = from; i < to; i++) {
+            json.write(data.getMaximum(i));
+        }
+        json.writeEnd();
+        json.writeStartArray("mins");
+        for (int i = from; i < to; i++) {
+            json.write(data.getMinimum(i));
+        }
+        json.writeEnd();
+        json.writeStartArray("points");
+        for (int i = from; i < to; i++) {
+            json.write(data.getNumberOfPoints(i));
+        }
+        json.writeEnd();
+        json.write("start", data.firstTime());
+        json.writeEnd();
+    }
+
+    private static void writeAnnotation(JsonGenerator json, SeriesAnnotation annotation) {
+        json.writeStartObject();
+        json.writeStartObject("attrs");
+        for (Entry<String, String> attr : annotation) {
+            writeString(json, attr.getKey(), attr.getValue());
+        }
+        json.writeEnd();
+        writeString(json, "instance", annotation.getInstance());
+        json.write("permanent", annotation.isPermanent());
+        json.write("series", annotation.getSeries().toString());
+        json.write("time", annotation.getTime());
+        json.write("value", annotation.getValue());
+        json.writeEnd();
+    }
+
+    private static void writeWatch(JsonGenerator json, Watch watch) {
+        json.writeStartObject();
+        writeWatchProperties(json, watch);
+        json.writeEnd();
+    }
+
+    private static void writeWatchProperties(JsonGenerator json, Watch watch) {
+        writeCircumstance(json, "amber", watch.amber);
+        json.write("disabled", watch.isDisabled());
+        writeCircumstance(json, "green", watch.green);
+        writeString(json, "name", watch.name);
+        json.write("programmatic", watch.isProgrammatic());
+        writeCircumstance(json, "red", watch.red);
+        json.write("series", watch.watched.series.toString());
+        Map<String, List<Watch.State>> statesBySeries = new LinkedHashMap<>();
+        for (Watch.State state : watch) {
+            statesBySeries.computeIfAbsent(state.getSeries().toString(), key -> new ArrayList<>()).add(state);
+        }
+        json.writeStartObject("states");
+        for (Entry<String, List<Watch.State>> series : statesBySeries.entrySet()) {
+            json.writeStartObject(series.getKey());
+            for (Watch.State state : series.getValue()) {
+                json.writeStartObject(state.getInstance());
+                json.write("level", state.getLevel().name().toLowerCase());
+                if (state.getSince() != null) {
+                    json.write("since", state.getSince());
+                }
+                json.writeEnd();
+            }
+            json.writeEnd();
+        }
+        json.writeEnd();
+        json.write("stopped", watch.isStopped());
+        json.write("unit", watch.watched.unit.toString());
+    }
+
+    private static void writeCircumstance(JsonGenerator json, String name, Circumstance circumstance) {
+        if (circumstance.isUnspecified()) {
+            return;
+        }
+        json.writeStartObject(name);
+        json.write("level", circumstance.level.name().toLowerCase());
+        writeCondition(json, "start", circumstance.start);
+        writeCondition(json, "stop", circumstance.stop);
+        writeCondition(json, "suppress", circumstance.suppress);
+        if (circumstance.suppressing != null) {
+            json.write("surpressingSeries", circumstance.suppressing.series.toString());
+            json.write("surpressingUnit", circumstance.suppressing.unit.toString());
+        }
+        json.writeEnd();
+    }
+
+    private static void writeCondition(JsonGenerator json, String name, Condition condition) {
+        if (condition.isNone()) {
+            return;
+        }
+        json.writeStartObject(name);
+        if (condition.isForLastMillis()) {
+            json.write("forMillis", condition.forLast.longValue());
+        }
+        if (condition.isForLastTimes()) {
+            json.write("forTimes", condition.forLast.intValue());
+        }
+        json.write("onAverage", condition.onAverage);
+        json.write("operator", condition.comparison.toString());
+        json.write("threshold", condition.threshold);
+        json.writeEnd();
+    }
+
+    private static void writeAlert(JsonGenerator json, Alert alert, boolean truncate) {
+        json.writeStartObject();
+        json.write("acknowledged", alert.isAcknowledged());
+        json.writeStartArray("frames");
+        for (Alert.Frame frame : truncate ? singletonList(alert.getEndFrame()) : alert) {
+            writeFrame(json, frame);
+        }
+        json.writeEnd();
+        json.writeStartObject("initiator");
+        writeWatchProperties(json, alert.initiator);
+        json.writeEnd();
+        writeString(json, "instance", alert.getInstance());
+        json.write("level", alert.getLevel().name().toLowerCase());
+        json.write("serial", alert.serial);
+        json.write("series", alert.getSeries().toString());
+        json.write("since", alert.getStartTime());
+        json.write("stopped", alert.isStopped());
+        if (alert.isStopped()) {
+            json.write("until", alert.getEndTime());
+        }
+        json.writeEnd();
+    }
+
+    private static void writeFrame(JsonGenerator json, Alert.Frame frame) {
+        json.writeStartObject();
+        json.writeStartArray("captured");
+        for (SeriesDataset capture : frame) {
+            writeDataset(json, null, capture, true, false, 0L); // for now the points data isn't used
+        }
+        json.writeEnd();
+        writeDataset(json, "cause", frame.cause, true, false, 0L);
+        if (frame.getEnd() > 0) {
+            json.write("end", frame.getEnd());
+        }
+        json.write("level", frame.level.name().toLowerCase());
+        json.write("start", frame.start);
+        json.writeEnd();
+    }
+
+    private static void writeString(JsonGenerator json, String name, String value) {
+        if (value != null) {
+            json.write(name, value);
+        }
+    }
+
+    private static void writeArray(JsonGenerator json, String name, int[] values) {
+        if (values == null) {
+            return;
+        }
+        json.writeStartArray(name);
+        for (int value : values) {
+            json.write(value);
+        }
+        json.writeEnd();
+    }
+}
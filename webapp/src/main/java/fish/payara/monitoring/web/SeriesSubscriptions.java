@@ -0,0 +1,327 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2026 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.monitoring.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import fish.payara.monitoring.alert.AlertService;
+import fish.payara.monitoring.alert.AlertService.AlertStatistics;
+import fish.payara.monitoring.data.SeriesRepository;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiRequests.SeriesRequest;
+
+/**
+ * Pushes the data of subscribed {@link SeriesRequest}s to connected clients as server sent events.
+ *
+ * All clients subscribing identical {@link SeriesRequest}s with the same {@link SeriesRequest#interval} share the same
+ * {@link Subscription}. Ticks happen every second. Every {@link SeriesRequest#interval} ticks the update of a
+ * subscription is computed once and the same event is send to all of its clients. Usually this is a {@code delta}
+ * event that only contains what changed since the previous update in the form of an incremental
+ * {@link SeriesQuery#since} response. When a client connects, periodically, and after alerts did change a
+ * {@code full} event is send to all clients of a subscription instead. Clients that connect get their first update
+ * with the next tick.
+ *
+ * Subscriptions without connected clients are removed after a few ticks unless they are subscribed again.
+ *
+ * <h3>Consistency Remarks</h3>
+ *
+ * Subscribing and connecting can happen on any request thread. Clients connecting are only queued by request threads.
+ * All updates and state changes of a {@link Subscription} are done by the single thread that performs the ticks except
+ * for the {@link Subscription#idleTicks} which are only increased or reset by a subscribe while holding the lock of the
+ * subscription's entry in {@link #subscriptionsByRequest}. This way a subscription is not removed while it is
+ * subscribed again. Closing all connections on shutdown is synchronized with the ticking thread changing the list of
+ * connected clients.
+ *
+ * @author Jan Bernitt
+ */
+@ApplicationScoped
+public class SeriesSubscriptions {
+
+    private static final Logger LOGGER = Logger.getLogger("monitoring-console-core");
+
+    /**
+     * Every so many updates a full update is send
+     */
+    private static final int FULL_UPDATE_INTERVAL = 30;
+
+    /**
+     * Number of ticks a subscription is kept without any connected clients
+     */
+    private static final int MAX_IDLE_TICKS = 10;
+
+    private static final class Subscription {
+
+        final String id;
+        final SeriesRequest request;
+        final SeriesRepository dataRepository;
+        final AlertService alertService;
+        final List<SseEventSink> pending = new ArrayList<>();
+        final List<SseEventSink> connected = new ArrayList<>();
+        final int interval;
+        volatile Sse sse;
+        int ticksSinceUpdate;
+        int updatesSinceFullUpdate;
+        int idleTicks;
+        int alertsChangeCount = -1;
+        boolean alertsChanged;
+
+        Subscription(String id, SeriesRequest request, SeriesRepository dataRepository, AlertService alertService) {
+            this.id = id;
+            this.request = request;
+            this.dataRepository = dataRepository;
+            this.alertService = alertService;
+            this.interval = Math.max(1, request.interval);
+        }
+
+        void connect(SseEventSink sink, Sse sse) {
+            this.sse = sse;
+            synchronized (pending) {
+                pending.add(sink);
+            }
+        }
+
+        /**
+         * @return true, if the subscription has connected clients, false if it is idle
+         */
+        boolean tick() {
+            boolean joined;
+            synchronized (pending) {
+                joined = !pending.isEmpty();
+                connected.addAll(pending);
+                pending.clear();
+                connected.removeIf(SseEventSink::isClosed);
+            }
+            if (connected.isEmpty()) {
+                return false;
+            }
+            if (!joined && ++ticksSinceUpdate < interval) {
+                return true;
+            }
+            boolean full = joined || alertsChanged || ++updatesSinceFullUpdate >= FULL_UPDATE_INTERVAL;
+            ticksSinceUpdate = 0;
+            if (full) {
+                updatesSinceFullUpdate = 0;
+                alertsChanged = false;
+            }
+            send(update(full));
+            return true;
+        }
+
+        void close() {
+            synchronized (pending) {
+                pending.forEach(SseEventSink::close);
+                pending.clear();
+                connected.forEach(SseEventSink::close);
+            }
+        }
+
+        private OutboundSseEvent update(boolean full) {
+            SeriesQuery[] queries = request.queries;
+            if (full) {
+                for (SeriesQuery query : queries) {
+                    query.since = 0L;
+                }
+            }
+            SeriesResponseWriter update = MonitoringConsoleResource.selectSeriesData(request, dataRepository,
+                    alertService);
+            AlertStatistics alertStatistics = update.getAlertStatistics();
+            if (alertsChangeCount >= 0 && alertStatistics.changeCount != alertsChangeCount) {
+                alertsChanged = true; // next is a full update to learn about all changes
+            }
+            alertsChangeCount = alertStatistics.changeCount;
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            update.write(json);
+            for (int i = 0; i < queries.length; i++) {
+                queries[i].since = update.latestCommonTime(i);
+            }
+            return sse.newEventBuilder()
+                    .name(full ? "full" : "delta")
+                    .data(new String(json.toByteArray(), UTF_8))
+                    .build();
+        }
+
+        private void send(OutboundSseEvent event) {
+            for (SseEventSink sink : connected) {
+                sink.send(event).exceptionally(ex -> {
+                    LOGGER.log(Level.FINE, "Failed to send update to subscriber, closing connection", ex);
+                    sink.close();
+                    return null;
+                });
+            }
+        }
+    }
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Map<String, Subscription> subscriptionsByRequest = new ConcurrentHashMap<>();
+    private final Map<String, Subscription> subscriptionsById = new ConcurrentHashMap<>();
+    private final boolean scheduled;
+    private ScheduledExecutorService ticker;
+
+    public SeriesSubscriptions() {
+        this(true);
+    }
+
+    /**
+     * @param scheduled true to tick every second once there is a subscription, false to tick only when
+     *                  {@link #tick()} is called
+     */
+    SeriesSubscriptions(boolean scheduled) {
+        this.scheduled = scheduled;
+    }
+
+    /**
+     * Subscribes a {@link SeriesRequest} or joins an existing subscription of an identical {@link SeriesRequest}.
+     * Subscribing again counts as usage so that an idle subscription is not removed before clients had the chance to
+     * connect to it.
+     *
+     * @return the ID of the subscription to connect to
+     */
+    public String subscribe(SeriesRequest request, SeriesRepository dataRepository, AlertService alertService) {
+        String key = key(request);
+        Subscription subscription = subscriptionsByRequest.compute(key, (k, s) -> {
+            if (s == null) {
+                s = new Subscription(Integer.toString(nextId.incrementAndGet(), 36), request, dataRepository,
+                        alertService);
+                subscriptionsById.put(s.id, s);
+            }
+            s.idleTicks = 0;
+            return s;
+        });
+        if (scheduled) {
+            startTicker();
+        }
+        return subscription.id;
+    }
+
+    /**
+     * All clients of a subscription receive the same JSON so in contrast to {@link SeriesRequest#key(boolean)} the
+     * order of the queries and their {@link SeriesQuery#widgetId}s are part of the key.
+     */
+    private static String key(SeriesRequest request) {
+        StringBuilder key = new StringBuilder();
+        key.append(request.interval).append(' ').append(request.groupBySeries);
+        for (SeriesQuery query : request.queries) {
+            key.append('\n').append(query.widgetId).append(' ').append(query.key(false));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Connects a client to a subscription. It receives a full update with the next tick.
+     *
+     * @return true, if the subscription exists, else false
+     */
+    public boolean connect(String id, SseEventSink sink, Sse sse) {
+        Subscription subscription = subscriptionsById.get(id);
+        if (subscription == null) {
+            return false;
+        }
+        subscription.connect(sink, sse);
+        return true;
+    }
+
+    private synchronized void startTicker() {
+        if (ticker == null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread t = new Thread(task, "monitoring-console-subscriptions");
+                t.setDaemon(true);
+                return t;
+            });
+            ticker.scheduleAtFixedRate(this::tick, 1L, 1L, TimeUnit.SECONDS);
+        }
+    }
+
+    void tick() {
+        for (Entry<String, Subscription> entry : subscriptionsByRequest.entrySet()) {
+            Subscription subscription = entry.getValue();
+            try {
+                if (subscription.tick()) {
+                    subscription.idleTicks = 0;
+                } else {
+                    subscriptionsByRequest.computeIfPresent(entry.getKey(), this::removeIdle);
+                }
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Failed to update subscription " + subscription.id, ex);
+            }
+        }
+    }
+
+    private Subscription removeIdle(String key, Subscription subscription) {
+        if (++subscription.idleTicks <= MAX_IDLE_TICKS) {
+            return subscription;
+        }
+        subscriptionsById.remove(subscription.id);
+        return null;
+    }
+
+    int size() {
+        return subscriptionsById.size();
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        for (Subscription subscription : subscriptionsById.values()) {
+            subscription.close();
+        }
+    }
+}
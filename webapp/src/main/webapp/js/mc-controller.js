@@ -68,7 +68,7 @@ MonitoringConsole.Controller = (function() {
   /**
   * @param {array|object} queries   - a JS array with query objects as expected by the server API (object corresponds to java class SeriesQuery)
   *                                   or a JS object corresponding to java class SeriesRequest
-  * @param {function}     onSuccess - a callback function with one argument accepting the response object as send by the server (java class SeriesResponse)
+  * @param {function}     onSuccess - a callback function with one argument accepting the response object as send by the server (written by java class SeriesResponseWriter)
   * @param {function}     onFailure - a callback function with no arguments
   */
   function requestListOfSeriesData(queries, onSuccess, onFailure) {
@@ -76,6 +76,34 @@ MonitoringConsole.Controller = (function() {
     requestWithJsonBody('POST', 'api/series/data/', request, onSuccess, onFailure);
   }
 
+  /**
+  * @param {array}    queries   - a JS array with query objects as expected by the server API (object corresponds to java class SeriesQuery)
+  * @param {number}   interval  - seconds between the updates pushed by the server
+  * @param {function} onSuccess - a callback function with one argument accepting the ID of the subscription
+  * @param {function} onFailure - a callback function with no arguments
+  */
+  function requestSeriesSubscription(queries, interval, onSuccess, onFailure) {
+    requestWithJsonBody('POST', 'api/series/subscriptions/', { queries: queries, interval: interval }, (response) => onSuccess(response.id), onFailure);
+  }
+
+  /**
+  * @param {string}   id        - ID of the subscription as returned by requestSeriesSubscription
+  * @param {function} onUpdate  - a callback function with two arguments, the update object as send by the server (written by java class SeriesResponseWriter) 
+  *                               and a boolean which is true when the update only contains what changed since the previous update
+  * @param {function} onFailure - a callback function with no arguments, called when the connection is lost for good
+  * @return {EventSource} the connection, close it to end the subscription
+  */
+  function connectSeriesSubscription(id, onUpdate, onFailure) {
+    const source = new EventSource('api/series/subscriptions/' + id + '/');
+    source.addEventListener('full', (event) => onUpdate(JSON.parse(event.data), false));
+    source.addEventListener('delta', (event) => onUpdate(JSON.parse(event.data), true));
+    source.onerror = function() {
+      if (source.readyState === EventSource.CLOSED)
+        onFailure();
+    };
+    return source;
+  }
+
   /**
   * @param {function} onSuccess - a function with one argument accepting an array of series names
   * @param {function} onFailure - a callback function with no arguments
@@ -214,6 +242,8 @@ MonitoringConsole.Controller = (function() {
   */ 
   return {
     requestListOfSeriesData: requestListOfSeriesData,
+    requestSeriesSubscription: requestSeriesSubscription,
+    connectSeriesSubscription: connectSeriesSubscription,
     requestListOfSeriesNames: requestListOfSeriesNames,
     requestListOfRequestTraces: requestListOfRequestTraces,
     requestListOfWatches: requestListOfWatches,
@@ -1169,11 +1169,180 @@ MonitoringConsole.Model = (function() {
 		};
 	})();
 	
+	/**
+	 * Internal API for receiving data updates pushed by the server instead of polling for them.
+	 */
+	let Subscription = (function() {
+
+		/**
+		 * {object} - the subscription for the most recent queries, has the properties key, source, failed and onUpdate
+		 */
+		let current;
+
+		function close() {
+			if (current && current.source)
+				current.source.close();
+			current = undefined;
+		}
+
+		/**
+		 * Makes sure updates for the given queries are pushed by the server at the given interval. 
+		 * If the queries or the interval are different from those of the current subscription a new subscription is made.
+		 *
+		 * @param {array}    queries  - the queries to subscribe
+		 * @param {number}   interval - seconds between updates
+		 * @param {function} onUpdate - a function with two arguments, the response and a boolean that is true for incremental updates
+		 * @return {boolean} true, if updates are pushed (or the subscription is still pending), false if they have to be polled
+		 */
+		function ensure(queries, interval, onUpdate) {
+			if (typeof EventSource === 'undefined')
+				return false;
+			const key = interval + ' ' + JSON.stringify(queries);
+			if (current && current.key === key) {
+				current.onUpdate = onUpdate;
+				return !current.failed;
+			}
+			close();
+			const subscription = { key: key, onUpdate: onUpdate };
+			current = subscription;
+			Controller.requestSeriesSubscription(queries, interval, function(id) {
+				if (current === subscription)
+					subscription.source = Controller.connectSeriesSubscription(id, 
+						(response, incremental) => subscription.onUpdate(response, incremental), 
+						() => subscription.failed = true);
+			}, () => subscription.failed = true);
+			return true;
+		}
+
+		return {
+			ensure: ensure,
+			close: close,
+		};
+	})();
+
 	/**
 	 * Internal API for creating data update messages send to the view from server responses.
 	 */ 
 	let Update = (function() {
 
+		/**
+		 * Every so many requests the full data is requested again instead of only what changed since the previous one
+		 */
+		const FULL_UPDATE_INTERVAL = 30;
+
+		/**
+		 * {object} - the merged data of each query as of the most recent response by query key
+		 */
+		let cache = {};
+		let requestsSinceFullUpdate = 0;
+		let alertsChangeCount;
+
+		function queryKey(query) {
+			return [query.widgetId, query.series, query.history, query.truncate, query.exclude].join(' ');
+		}
+
+		/**
+		 * Sets the since property of each query for which data is cached so only what changed is requested.
+		 */
+		function addSince(queries) {
+			if (++requestsSinceFullUpdate >= FULL_UPDATE_INTERVAL) {
+				requestsSinceFullUpdate = 0;
+				cache = {};
+			}
+			const retained = {};
+			for (let query of queries) {
+				const key = queryKey(query);
+				const cached = cache[key];
+				if (cached && cached.since !== undefined) {
+					retained[key] = cached;
+					query.since = cached.since;
+				}
+			}
+			cache = retained; // drops queries of widgets no longer shown
+		}
+
+		function mergeSeriesData(cached, update) {
+			if (!cached || update.firstTime === undefined)
+				return update;
+			const points = cached.points;
+			let start = 0;
+			while (start < points.length && points[start] < update.firstTime)
+				start += 2;
+			const merged = points.slice(start);
+			const lastTime = merged.length > 0 ? merged[merged.length - 2] : undefined;
+			for (let i = 0; i < update.points.length; i += 2)
+				if (lastTime === undefined || update.points[i] > lastTime)
+					merged.push(update.points[i], update.points[i+1]);
+			update.points = merged;
+			for (let aggregate of ['minutes', 'hours', 'days'])
+				if (update[aggregate] === undefined)
+					update[aggregate] = cached[aggregate];
+			return update;
+		}
+
+		/**
+		 * The time of the most recent point all series of a query have, series without points for more than a minute 
+		 * are considered stale and should not cause the other series to be send in full again.
+		 */
+		function sinceOf(cached) {
+			const lastTimes = cached.data
+				.filter(seriesData => seriesData.points.length >= 2)
+				.map(seriesData => seriesData.points[seriesData.points.length - 2]);
+			if (lastTimes.length > 0) {
+				const latest = Math.max(...lastTimes);
+				return Math.min(...lastTimes.filter(time => time > latest - 60000));
+			}
+			if (cached.annotations.length > 0)
+				return Math.max(...cached.annotations.map(annotation => annotation.time));
+			return undefined;
+		}
+
+		/**
+		 * Merges a match of a query that only contains what changed into the cached data of the query and replaces the 
+		 * match data with the merged data.
+		 */
+		function mergeMatch(query, match, incremental) {
+			const key = queryKey(query);
+			let cached = cache[key];
+			if (!incremental || !cached) {
+				cached = { data: match.data, annotations: match.annotations, alerts: match.alerts };
+			} else {
+				const cachedData = {};
+				for (let seriesData of cached.data)
+					cachedData[seriesData.series + ' ' + seriesData.instance] = seriesData;
+				// series not included no longer have data
+				cached.data = match.data.map(seriesData => 
+					mergeSeriesData(cachedData[seriesData.series + ' ' + seriesData.instance], seriesData));
+				const lastAnnotationTime = cached.annotations.reduce((max, annotation) => Math.max(max, annotation.time), 0);
+				cached.annotations = cached.annotations.concat(match.annotations
+					.filter(annotation => annotation.time > lastAnnotationTime));
+				const alertsBySerial = {};
+				for (let alert of cached.alerts.concat(match.alerts))
+					alertsBySerial[alert.serial] = alert;
+				cached.alerts = Object.values(alertsBySerial);
+			}
+			cached.since = sinceOf(cached);
+			cache[key] = cached;
+			// hand out copies as the data objects are modified when processing the update
+			match.data = cached.data.map(seriesData => Object.assign({}, seriesData));
+			match.annotations = cached.annotations.slice();
+			match.alerts = cached.alerts.slice();
+		}
+
+		/**
+		 * @param {boolean} incremental - true if the response only contains what changed, false if it contains all data, 
+		 *                                undefined if this depends on the since property of each query
+		 */
+		function mergeResponse(queries, response, incremental) {
+			const matches = response.matches;
+			for (let i = 0; i < matches.length; i++)
+				mergeMatch(queries[i], matches[i], incremental === undefined ? queries[i].since > 0 : incremental);
+			const changeCount = response.alerts.changeCount;
+			if (alertsChangeCount !== undefined && changeCount !== alertsChangeCount)
+				requestsSinceFullUpdate = FULL_UPDATE_INTERVAL; // next is a full update to learn about all changes
+			alertsChangeCount = changeCount;
+		}
+
 		function addHistory(widget, data) {
 			function prependPoints(dest, src, time0, interval) {
 				let mostPastTime = dest[0];
@@ -1339,8 +1508,9 @@ MonitoringConsole.Model = (function() {
 			});
 		}
 
-		function createOnSuccess(widgets, onDataUpdate, getConfirmedAlertSerials) {
-			return function(response) {
+		function createOnSuccess(widgets, queries, onDataUpdate, getConfirmedAlertSerials) {
+			return function(response, incremental) {
+				mergeResponse(queries, response, incremental);
 				const confirmedAlertsSerials = getConfirmedAlertSerials();
 				Object.values(widgets).forEach(function(widget, index) {
 					let allMatches = response.matches;
@@ -1440,6 +1610,7 @@ MonitoringConsole.Model = (function() {
 
 		return {
 			createQuery: createQuery,
+			addSince: addSince,
 			createOnSuccess: createOnSuccess,
 			createOnError: createOnError,
 		};
@@ -1460,10 +1631,13 @@ MonitoringConsole.Model = (function() {
 				}
 			}
 			let widgets = page.widgets;
-			Controller.requestListOfSeriesData(Update.createQuery(widgets), 
-				Update.createOnSuccess(widgets, onDataUpdate, 
-					() => UI.Alerts.confirmedRedAlerts().concat(UI.Alerts.confirmedAmberAlerts())),
-				Update.createOnError(widgets, onDataUpdate));
+			let queries = Update.createQuery(widgets);
+			let onSuccess = Update.createOnSuccess(widgets, queries, onDataUpdate, 
+					() => UI.Alerts.confirmedRedAlerts().concat(UI.Alerts.confirmedAmberAlerts()));
+			if (Subscription.ensure(queries, UI.Refresh.interval(), onSuccess))
+				return; // updates are pushed by the server
+			Update.addSince(queries);
+			Controller.requestListOfSeriesData(queries, onSuccess, Update.createOnError(widgets, onDataUpdate));
 		});
 		if (UI.Refresh.interval() === undefined) {
 			UI.Refresh.interval(DEFAULT_INTERVAL);
@@ -1530,6 +1704,7 @@ MonitoringConsole.Model = (function() {
 		Refresh: {
 			pause: function() { 
 				Interval.pause();
+				Subscription.close();
 				UI.Refresh.paused(true);
 			},
 			paused: function(paused) {
@@ -1538,6 +1713,7 @@ MonitoringConsole.Model = (function() {
 				UI.Refresh.paused(paused);
 				if (paused) {
 					Interval.pause();
+					Subscription.close();
 				} else {
 					Interval.resume(UI.Refresh.interval());
 				}
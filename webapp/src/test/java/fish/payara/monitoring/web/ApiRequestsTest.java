@@ -0,0 +1,127 @@
+package fish.payara.monitoring.web;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.web.ApiRequests.DataType;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiRequests.SeriesRequest;
+
+/**
+ * Tests the {@link SeriesRequest#key(boolean)} and {@link SeriesRequest#canonical(boolean)} form of requests.
+ *
+ * @author Jan Bernitt
+ */
+public class ApiRequestsTest {
+
+    @Test
+    public void keyIgnoresWidgetIds() {
+        assertEquals(new SeriesRequest(query("a", "w1")).key(true), new SeriesRequest(query("a", "w2")).key(true));
+        assertEquals(new SeriesRequest(query("a", "w1")).key(true), new SeriesRequest(query("a", null)).key(true));
+    }
+
+    @Test
+    public void keyIgnoresOrderOfQueries() {
+        assertEquals(new SeriesRequest(query("a", "w1"), query("b", "w2")).key(true),
+                new SeriesRequest(query("b", "w1"), query("a", "w2")).key(true));
+    }
+
+    @Test
+    public void keyIgnoresDuplicateQueries() {
+        assertEquals(new SeriesRequest(query("a", "w1")).key(true),
+                new SeriesRequest(query("a", "w1"), query("a", "w2")).key(true));
+    }
+
+    @Test
+    public void keyIgnoresOrderAndDuplicatesOfInstances() {
+        assertEquals(new SeriesRequest(query("a", "w1", "i1", "i2")).key(true),
+                new SeriesRequest(query("a", "w1", "i2", "i1", "i2")).key(true));
+    }
+
+    @Test
+    public void keyTreatsNullAndEmptySetsAlike() {
+        SeriesQuery nulls = query("a", "w1");
+        nulls.instances = null;
+        nulls.truncate = null;
+        nulls.exclude = null;
+        SeriesQuery empty = query("a", "w1");
+        empty.truncate = new DataType[0];
+        assertEquals(new SeriesRequest(nulls).key(true), new SeriesRequest(empty).key(true));
+    }
+
+    @Test
+    public void keyIgnoresOrderOfDataTypes() {
+        SeriesQuery query1 = query("a", "w1");
+        query1.truncate = new DataType[] { DataType.POINTS, DataType.ALERTS };
+        SeriesQuery query2 = query("a", "w1");
+        query2.truncate = new DataType[] { DataType.ALERTS, DataType.POINTS, DataType.ALERTS };
+        assertEquals(new SeriesRequest(query1).key(true), new SeriesRequest(query2).key(true));
+    }
+
+    @Test
+    public void keyDistinguishesDifferentData() {
+        String key = new SeriesRequest(query("a", "w1")).key(true);
+        assertNotEquals(key, new SeriesRequest(query("b", "w1")).key(true));
+        assertNotEquals(key, new SeriesRequest(query("a", "w1", "i1")).key(true));
+        SeriesQuery history = query("a", "w1");
+        history.history = true;
+        assertNotEquals(key, new SeriesRequest(history).key(true));
+        SeriesQuery excluding = query("a", "w1");
+        excluding.exclude = new DataType[] { DataType.WATCHES };
+        assertNotEquals(key, new SeriesRequest(excluding).key(true));
+        SeriesRequest grouped = new SeriesRequest(query("a", "w1"));
+        grouped.groupBySeries = true;
+        assertNotEquals(key, grouped.key(true));
+    }
+
+    @Test
+    public void keyOnlyIncludesSinceWhenAsked() {
+        SeriesQuery incremental = query("a", "w1");
+        incremental.since = 1000L;
+        assertNotEquals(new SeriesRequest(query("a", "w1")).key(true), new SeriesRequest(incremental).key(true));
+        assertEquals(new SeriesRequest(query("a", "w1")).key(false), new SeriesRequest(incremental).key(false));
+        SeriesQuery negative = query("a", "w1");
+        negative.since = -1L;
+        assertEquals(new SeriesRequest(query("a", "w1")).key(true), new SeriesRequest(negative).key(true));
+    }
+
+    @Test
+    public void canonicalRequestHasSortedDistinctQueriesWithoutWidgetIds() {
+        SeriesRequest request = new SeriesRequest(query("b", "w1", "i2", "i1"), query("a", "w2"), query("b", "w3",
+                "i1", "i2"));
+        request.groupBySeries = true;
+        SeriesRequest canonical = request.canonical(true);
+        assertEquals(2, canonical.queries.length);
+        assertEquals("a", canonical.queries[0].series);
+        assertEquals("b", canonical.queries[1].series);
+        assertArrayEquals(new String[] { "i1", "i2" }, canonical.queries[1].instances);
+        assertNull(canonical.queries[0].widgetId);
+        assertNull(canonical.queries[1].widgetId);
+        assertEquals(request.groupBySeries, canonical.groupBySeries);
+        assertEquals(request.key(true), canonical.key(true));
+        assertArrayEquals(request.queryKeys(true), canonical.queryKeys(true));
+    }
+
+    @Test
+    public void canonicalRequestWithoutSinceHasOneFullQueryPerData() {
+        SeriesQuery incremental = query("a", "w1");
+        incremental.since = 1000L;
+        SeriesRequest request = new SeriesRequest(incremental, query("a", "w2"), query("b", "w3"));
+        assertEquals(3, request.canonical(true).queries.length);
+        SeriesRequest canonical = request.canonical(false);
+        assertEquals(2, canonical.queries.length);
+        assertEquals(0L, canonical.queries[0].since);
+        assertEquals(0L, canonical.queries[1].since);
+        assertArrayEquals(request.queryKeys(false), canonical.queryKeys(false));
+    }
+
+    private static SeriesQuery query(String series, String widgetId, String... instances) {
+        SeriesQuery query = new SeriesQuery(series, instances);
+        query.widgetId = widgetId;
+        return query;
+    }
+}
@@ -0,0 +1,176 @@
+package fish.payara.monitoring.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import fish.payara.monitoring.alert.AlertService.AlertStatistics;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiRequests.SeriesRequest;
+import fish.payara.monitoring.web.SeriesResponseCache.CachedResponse;
+import fish.payara.monitoring.web.SeriesSubscriptionsTest.FixedSeriesRepository;
+import fish.payara.monitoring.web.SeriesSubscriptionsTest.NoAlertService;
+
+/**
+ * Tests the {@link SeriesResponseCache} sharing responses between requests for the same data and the
+ * {@link CachedResponse#isNotModified(String)} check used to answer with {@code 304 Not Modified}.
+ *
+ * @author Jan Bernitt
+ */
+public class SeriesResponseCacheTest {
+
+    private final SeriesResponseCache cache = new SeriesResponseCache();
+    private final FixedSeriesRepository dataRepository = new FixedSeriesRepository(asList(
+            SeriesResponseWriterTest.dataset(new Series("ns:test Metric"), "server", 10),
+            SeriesResponseWriterTest.dataset(new Series("ns:test Metric"), "other", 5)));
+    private final NoAlertService alertService = new NoAlertService();
+    private int computed;
+
+    private final Function<SeriesRequest, SeriesResponseWriter> response = canonical -> {
+        computed++;
+        return MonitoringConsoleResource.selectSeriesData(canonical, dataRepository, alertService);
+    };
+
+    @Test
+    public void identicalRequestsAreComputedOnce() {
+        CachedResponse first = get(request(query("ns:test Metric", "w1")));
+        CachedResponse second = get(request(query("ns:test Metric", "w1")));
+        assertEquals(1, computed);
+        assertEquals(first.etag, second.etag);
+        assertEquals(write(request(query("ns:test Metric", "w1"))), write(second));
+        assertEquals(write(first), write(second));
+    }
+
+    @Test
+    public void requestsOnlyDifferingInOrderAndWidgetIdsShareComputedResponse() {
+        SeriesRequest request1 = request(query("ns:test A", "w1"), query("ns:test B", "w2"));
+        SeriesRequest request2 = request(query("ns:test B", null), query("ns:test A", "w\"3"),
+                query("ns:test A", "w4"));
+        CachedResponse response1 = get(request1);
+        CachedResponse response2 = get(request2);
+        assertEquals(1, computed);
+        assertEquals(write(request1), write(response1));
+        assertEquals(write(request2), write(response2));
+        assertNotEquals(response1.etag, response2.etag);
+    }
+
+    @Test
+    public void groupedRequestsShareComputedResponse() {
+        SeriesRequest request1 = request(query("ns:test A", "w1"), query("ns:test B", "w2"));
+        request1.groupBySeries = true;
+        SeriesRequest request2 = request(query("ns:test B", "w3"), query("ns:test A", "w4"));
+        request2.groupBySeries = true;
+        CachedResponse response1 = get(request1);
+        CachedResponse response2 = get(request2);
+        assertEquals(1, computed);
+        assertEquals(write(request1.canonical(true)), write(response1));
+        assertEquals(write(response1), write(response2));
+    }
+
+    @Test
+    public void newPublishedSecondIsComputedAgain() {
+        get(request(query("ns:test Metric", "w1")));
+        dataRepository.publishedSecond += 1000L;
+        get(request(query("ns:test Metric", "w1")));
+        assertEquals(2, computed);
+    }
+
+    @Test
+    public void dataPublishedWithinSameSecondDoesNotEvict() {
+        CachedResponse first = get(request(query("ns:test Metric", "w1")));
+        dataRepository.version++;
+        CachedResponse second = get(request(query("ns:test Metric", "w1")));
+        assertEquals(1, computed);
+        assertEquals(first.etag, second.etag);
+    }
+
+    @Test
+    public void newAlertStatisticsAreComputedAgain() {
+        get(request(query("ns:test Metric", "w1")));
+        AlertStatistics statistics = new AlertStatistics();
+        statistics.changeCount = 1;
+        alertService.statistics = statistics;
+        CachedResponse response = get(request(query("ns:test Metric", "w1")));
+        assertEquals(2, computed);
+        assertTrue(write(response).contains("\"changeCount\":1"));
+    }
+
+    @Test
+    public void differentSinceSharesComputedResponse() {
+        SeriesQuery incremental = query("ns:test Metric", "w1");
+        incremental.since = SeriesResponseWriterTest.START + 5000L;
+        CachedResponse full = get(request(query("ns:test Metric", "w1")));
+        CachedResponse response = get(request(incremental));
+        assertEquals(1, computed);
+        assertEquals(write(request(incremental)), write(response));
+        assertNotEquals(write(full), write(response));
+        assertNotEquals(full.etag, response.etag);
+    }
+
+    @Test
+    public void incrementalAndFullQueriesAreWrittenInRequestOrder() {
+        SeriesQuery incremental = query("ns:test Metric", "w2");
+        incremental.since = SeriesResponseWriterTest.START + 5000L;
+        SeriesRequest request = request(query("ns:test Metric", "w1"), incremental, query("ns:test Other", null));
+        assertEquals(write(request), write(get(request)));
+        SeriesRequest grouped = request(incremental, query("ns:test Metric", "w1"));
+        grouped.groupBySeries = true;
+        SeriesRequest groupedSingle = request(incremental);
+        groupedSingle.groupBySeries = true;
+        assertEquals(write(groupedSingle), write(get(grouped)));
+        assertEquals(2, computed);
+    }
+
+    @Test
+    public void notModifiedWhenClientHasResponse() {
+        CachedResponse response = get(request(query("ns:test Metric", "w1")));
+        String etag = '"' + response.etag + '"';
+        assertTrue(response.isNotModified(etag));
+        assertTrue(response.isNotModified("W/" + etag));
+        assertTrue(response.isNotModified("\"other\", " + etag));
+        assertTrue(response.isNotModified(" * "));
+        assertFalse(response.isNotModified(null));
+        assertFalse(response.isNotModified("\"other\""));
+        assertFalse(response.isNotModified(response.etag));
+    }
+
+    private CachedResponse get(SeriesRequest request) {
+        return cache.get(request, dataRepository, alertService, response);
+    }
+
+    private static String write(CachedResponse response) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            response.write(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    private String write(SeriesRequest request) {
+        return SeriesResponseWriterTest.write(
+                MonitoringConsoleResource.selectSeriesData(request, dataRepository, alertService));
+    }
+
+    private static SeriesRequest request(SeriesQuery... queries) {
+        return new SeriesRequest(queries);
+    }
+
+    private static SeriesQuery query(String series, String widgetId) {
+        SeriesQuery query = new SeriesQuery(series);
+        query.widgetId = widgetId;
+        return query;
+    }
+}
@@ -0,0 +1,475 @@
+package fish.payara.monitoring.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fish.payara.monitoring.alert.Alert;
+import fish.payara.monitoring.alert.Alert.Level;
+import fish.payara.monitoring.alert.AlertService.AlertStatistics;
+import fish.payara.monitoring.alert.Circumstance;
+import fish.payara.monitoring.alert.Condition;
+import fish.payara.monitoring.alert.Condition.Operator;
+import fish.payara.monitoring.alert.Watch;
+import fish.payara.monitoring.model.EmptyDataset;
+import fish.payara.monitoring.model.Metric;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesAnnotation;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.model.Unit;
+import fish.payara.monitoring.web.ApiRequests.DataType;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiResponses.AlertData;
+import fish.payara.monitoring.web.ApiResponses.AnnotationData;
+import fish.payara.monitoring.web.ApiResponses.SeriesData;
+import fish.payara.monitoring.web.ApiResponses.WatchData;
+
+/**
+ * Tests that the {@link SeriesResponseWriter} writes the same JSON as JSON-B does for the response objects the series
+ * data was mapped to before and that incremental queries only get what changed {@link SeriesQuery#since}.
+ *
+ * @author Jan Bernitt
+ */
+public class SeriesResponseWriterTest {
+
+    /**
+     * The response as it was mapped by JSON-B before it was written by the {@link SeriesResponseWriter}.
+     */
+    public static final class MappedResponse {
+
+        public final MappedAlerts alerts;
+        public final List<MappedMatch> matches;
+
+        MappedResponse(List<MappedMatch> matches, AlertStatistics stats) {
+            this.alerts = new MappedAlerts(stats);
+            this.matches = matches;
+        }
+    }
+
+    public static final class MappedAlerts {
+
+        public final int changeCount;
+        public final int unacknowledgedRedAlerts;
+        public final int acknowledgedRedAlerts;
+        public final int unacknowledgedAmberAlerts;
+        public final int acknowledgedAmberAlerts;
+        public final int watchCount;
+        public final int[] ongoingRedAlerts;
+        public final int[] ongoingAmberAlerts;
+
+        MappedAlerts(AlertStatistics stats) {
+            this.watchCount = stats.watches;
+            this.changeCount = stats.changeCount;
+            this.unacknowledgedRedAlerts = stats.unacknowledgedRedAlerts;
+            this.acknowledgedRedAlerts = stats.acknowledgedRedAlerts;
+            this.unacknowledgedAmberAlerts = stats.unacknowledgedAmberAlerts;
+            this.acknowledgedAmberAlerts = stats.acknowledgedAmberAlerts;
+            this.ongoingRedAlerts = stats.ongoingRedAlerts;
+            this.ongoingAmberAlerts = stats.ongoingAmberAlerts;
+        }
+    }
+
+    public static final class MappedMatch {
+
+        public final String widgetId;
+        public final String series;
+        public final List<SeriesData> data;
+        public final List<AnnotationData> annotations;
+        public final List<WatchData> watches;
+        public final List<AlertData> alerts;
+
+        MappedMatch(SeriesQuery query, List<SeriesDataset> data, List<SeriesAnnotation> annotations,
+                Collection<Watch> watches, Collection<Alert> alerts) {
+            this.widgetId = query.widgetId;
+            this.series = query.series;
+            this.alerts = alerts.stream().map(alert -> new AlertData(alert, query.truncates(DataType.ALERTS)))
+                    .collect(toList());
+            this.watches = watches.stream().map(WatchData::new).collect(toList());
+            this.data = data.stream()
+                    .map(set -> new SeriesData(set, query.truncates(DataType.POINTS), query.history))
+                    .collect(toList());
+            this.annotations = annotations.stream().map(AnnotationData::new).collect(toList());
+        }
+
+        MappedMatch(String series) {
+            this.widgetId = "grouped";
+            this.series = series;
+            this.data = new ArrayList<>();
+            this.annotations = new ArrayList<>();
+            this.watches = new ArrayList<>();
+            this.alerts = new ArrayList<>();
+        }
+    }
+
+    static final long START = 24 * 60 * 60 * 1000L;
+
+    private static Jsonb jsonb;
+
+    private final Series series1 = new Series("ns:test Metric1");
+    private final Series series2 = new Series("ns:test Metric2");
+    private final AlertStatistics alertStatistics = new AlertStatistics();
+
+    @BeforeClass
+    public static void createJsonb() {
+        jsonb = JsonbBuilder.create();
+    }
+
+    @AfterClass
+    public static void closeJsonb() throws Exception {
+        jsonb.close();
+    }
+
+    public SeriesResponseWriterTest() {
+        alertStatistics.changeCount = 5;
+        alertStatistics.unacknowledgedRedAlerts = 1;
+        alertStatistics.acknowledgedAmberAlerts = 2;
+        alertStatistics.watches = 3;
+        alertStatistics.ongoingRedAlerts = new int[] { 7 };
+        alertStatistics.ongoingAmberAlerts = new int[0];
+    }
+
+    @Test
+    public void pointsAreWrittenAsMapped() {
+        SeriesQuery query = query("ns:test *", "widget1");
+        query.truncate = new DataType[0];
+        assertSameJson(query, asList(dataset(series1, "server", 60), dataset(series2, "server", 30)), emptyList(),
+                emptyList(), emptyList());
+    }
+
+    @Test
+    public void truncatedPointsAreWrittenAsMapped() {
+        SeriesQuery query = query("ns:test *", "widget1");
+        query.truncate = new DataType[] { DataType.POINTS };
+        assertSameJson(query, asList(dataset(series1, "server", 60), dataset(series2, "other", 1)), emptyList(),
+                emptyList(), emptyList());
+    }
+
+    @Test
+    public void historyAggregatesAreWrittenAsMapped() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.history = true;
+        int secondsInDayAndTwoHours = 26 * 60 * 60;
+        assertSameJson(query, singletonList(dataset(series1, "server", secondsInDayAndTwoHours)), emptyList(),
+                emptyList(), emptyList());
+    }
+
+    @Test
+    public void annotationsAreWrittenAsMapped() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        assertSameJson(query, emptyList(), asList(annotation(series1, START + 1000L),
+                new SeriesAnnotation(START + 2000L, series1, "other", 13L, true, "Key", "a", "Other", "b")),
+                emptyList(), emptyList());
+    }
+
+    @Test
+    public void watchesAreWrittenAsMapped() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        Watch watch = watch(series1);
+        watch.state(dataset(series1, "server", 5));
+        watch.state(dataset(series1, "other", 5));
+        assertSameJson(query, emptyList(), emptyList(), asList(watch, new Watch("plain", new Metric(series1))),
+                emptyList());
+    }
+
+    @Test
+    public void alertsAreWrittenAsMapped() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.truncate = new DataType[0];
+        assertSameJson(query, emptyList(), emptyList(), emptyList(), asList(ongoingAlert(), stoppedAlert()));
+    }
+
+    @Test
+    public void truncatedAlertsAreWrittenAsMapped() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.truncate = new DataType[] { DataType.ALERTS };
+        assertSameJson(query, emptyList(), emptyList(), emptyList(), asList(ongoingAlert(), stoppedAlert()));
+    }
+
+    @Test
+    public void multipleMatchesAreWrittenAsMapped() {
+        SeriesQuery query1 = query("ns:test Metric1", "widget1");
+        SeriesQuery query2 = query("ns:test *", null);
+        query2.history = true;
+        List<SeriesDataset> data1 = singletonList(dataset(series1, "server", 60));
+        List<SeriesDataset> data2 = asList(dataset(series1, "server", 120), dataset(series2, "server", 120));
+        List<SeriesAnnotation> annotations = singletonList(annotation(series1, START + 3000L));
+        List<Watch> watches = singletonList(watch(series1));
+        List<Alert> alerts = singletonList(ongoingAlert());
+        MappedResponse mapped = new MappedResponse(asList(
+                new MappedMatch(query1, data1, annotations, watches, alerts),
+                new MappedMatch(query2, data2, emptyList(), emptyList(), emptyList())), alertStatistics);
+        SeriesResponseWriter writer = new SeriesResponseWriter(alertStatistics)
+                .add(query1, data1, annotations, watches, alerts)
+                .add(query2, data2, emptyList(), emptyList(), emptyList());
+        assertEquals(jsonb.toJson(mapped), write(writer));
+    }
+
+    @Test
+    public void groupedMatchesAreWrittenAsMapped() {
+        SeriesQuery query1 = query("ns:test Metric1", "widget1");
+        SeriesQuery query2 = query("ns:test *", "widget2");
+        List<SeriesDataset> data1 = singletonList(dataset(series1, "server", 60));
+        List<SeriesDataset> data2 = asList(dataset(series2, "server", 30), dataset(series1, "other", 10));
+        List<SeriesAnnotation> annotations1 = singletonList(annotation(series1, START + 1000L));
+        List<SeriesAnnotation> annotations2 = asList(annotation(series2, START + 2000L),
+                annotation(new Series("ns:test Metric3"), START + 2000L));
+        List<Watch> watches = singletonList(watch(series1));
+        List<Alert> alerts = singletonList(ongoingAlert());
+        List<MappedMatch> matches = asList(
+                new MappedMatch(query1, data1, annotations1, watches, alerts),
+                new MappedMatch(query2, data2, annotations2, emptyList(), emptyList()));
+        SeriesResponseWriter writer = new SeriesResponseWriter(alertStatistics)
+                .add(query1, data1, annotations1, watches, alerts)
+                .add(query2, data2, annotations2, emptyList(), emptyList())
+                .groupBySeries();
+        JsonObject expected = parse(jsonb.toJson(new MappedResponse(groupBySeries(matches), alertStatistics)));
+        JsonObject actual = parse(write(writer));
+        assertEquals(sortedBySeries(expected), sortedBySeries(actual));
+    }
+
+    @Test
+    public void groupedMatchesAreInOrderOfFirstOccurrence() {
+        SeriesQuery query1 = query("ns:test Metric2", "widget1");
+        SeriesQuery query2 = query("ns:test *", "widget2");
+        SeriesResponseWriter writer = new SeriesResponseWriter(alertStatistics)
+                .add(query1, singletonList(dataset(series2, "server", 5)), emptyList(), emptyList(), emptyList())
+                .add(query2, asList(dataset(series1, "server", 5), dataset(series2, "server", 5)), emptyList(),
+                        emptyList(), emptyList())
+                .groupBySeries();
+        JsonArray matches = parse(write(writer)).getJsonArray("matches");
+        assertEquals(2, matches.size());
+        assertEquals(series2.toString(), matches.getJsonObject(0).getString("series"));
+        assertEquals(2, matches.getJsonObject(0).getJsonArray("data").size());
+        assertEquals(series1.toString(), matches.getJsonObject(1).getString("series"));
+    }
+
+    @Test
+    public void incrementalPointsOnlyIncludePointsSince() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.truncate = new DataType[0];
+        query.since = START + 49000L;
+        JsonObject data = writeMatch(query, singletonList(dataset(series1, "server", 60)), emptyList(),
+                emptyList()).getJsonArray("data").getJsonObject(0);
+        assertEquals(START, data.getJsonNumber("firstTime").longValue());
+        JsonArray points = data.getJsonArray("points");
+        assertEquals(20, points.size());
+        assertEquals(START + 50000L, points.getJsonNumber(0).longValue());
+        assertEquals(START + 59000L, points.getJsonNumber(18).longValue());
+    }
+
+    @Test
+    public void incrementalPointsIncludeDatasetsWithoutNewPoints() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.truncate = new DataType[0];
+        query.since = START + 60000L;
+        JsonArray data = writeMatch(query, singletonList(dataset(series1, "server", 60)), emptyList(), emptyList())
+                .getJsonArray("data");
+        assertEquals(1, data.size());
+        assertEquals(0, data.getJsonObject(0).getJsonArray("points").size());
+    }
+
+    @Test
+    public void truncatedPointsIgnoreSince() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.truncate = new DataType[] { DataType.POINTS };
+        query.since = START + 60000L;
+        JsonObject data = writeMatch(query, singletonList(dataset(series1, "server", 60)), emptyList(),
+                emptyList()).getJsonArray("data").getJsonObject(0);
+        assertFalse(data.containsKey("firstTime"));
+        assertEquals(2, data.getJsonArray("points").size());
+        assertEquals(START + 59000L, data.getJsonArray("points").getJsonNumber(0).longValue());
+    }
+
+    @Test
+    public void incrementalAnnotationsOnlyIncludeAnnotationsSince() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.since = START + 3000L;
+        JsonArray annotations = writeMatch(query, emptyList(), asList(annotation(series1, START + 1000L),
+                annotation(series1, START + 3000L), annotation(series1, START + 5000L)), emptyList())
+                .getJsonArray("annotations");
+        assertEquals(1, annotations.size());
+        assertEquals(START + 5000L, annotations.getJsonObject(0).getJsonNumber("time").longValue());
+    }
+
+    @Test
+    public void incrementalAlertsOnlyIncludeOngoingAndRecentlyStoppedAlerts() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        Alert ongoing = ongoingAlert();
+        Alert stopped = stoppedAlert();
+        query.since = stopped.getEndTime() - 1000L;
+        assertEquals(asList(ongoing.serial, stopped.serial),
+                serials(writeMatch(query, emptyList(), emptyList(), asList(ongoing, stopped))));
+        query.since = stopped.getEndTime();
+        assertEquals(singletonList(ongoing.serial),
+                serials(writeMatch(query, emptyList(), emptyList(), asList(ongoing, stopped))));
+    }
+
+    @Test
+    public void incrementalAggregatesAreOnlyIncludedWhenExtendedSince() {
+        SeriesQuery query = query("ns:test Metric1", "widget1");
+        query.history = true;
+        query.truncate = new DataType[0];
+        int secondsInDayAndTwoHours = 26 * 60 * 60;
+        SeriesDataset set = dataset(series1, "server", secondsInDayAndTwoHours);
+        query.since = set.lastTime() - 1000L;
+        JsonObject data = writeMatch(query, singletonList(set), emptyList(), emptyList()).getJsonArray("data")
+                .getJsonObject(0);
+        assertTrue(data.containsKey("minutes"));
+        assertTrue(data.containsKey("hours"));
+        assertFalse(data.containsKey("days"));
+        query.since = set.lastTime() + 60 * 60 * 1000L;
+        data = writeMatch(query, singletonList(set), emptyList(), emptyList()).getJsonArray("data")
+                .getJsonObject(0);
+        assertFalse(data.containsKey("minutes"));
+        assertFalse(data.containsKey("hours"));
+        assertFalse(data.containsKey("days"));
+        query.since = 0L;
+        data = writeMatch(query, singletonList(set), emptyList(), emptyList()).getJsonArray("data")
+                .getJsonObject(0);
+        assertTrue(data.containsKey("days"));
+    }
+
+    private void assertSameJson(SeriesQuery query, List<SeriesDataset> data, List<SeriesAnnotation> annotations,
+            Collection<Watch> watches, Collection<Alert> alerts) {
+        MappedResponse mapped = new MappedResponse(
+                singletonList(new MappedMatch(query, data, annotations, watches, alerts)), alertStatistics);
+        SeriesResponseWriter writer = new SeriesResponseWriter(alertStatistics)
+                .add(query, data, annotations, watches, alerts);
+        assertEquals(jsonb.toJson(mapped), write(writer));
+    }
+
+    private JsonObject writeMatch(SeriesQuery query, List<SeriesDataset> data, List<SeriesAnnotation> annotations,
+            Collection<Alert> alerts) {
+        SeriesResponseWriter writer = new SeriesResponseWriter(alertStatistics)
+                .add(query, data, annotations, emptyList(), alerts);
+        return parse(write(writer)).getJsonArray("matches").getJsonObject(0);
+    }
+
+    private static List<Integer> serials(JsonObject match) {
+        return match.getJsonArray("alerts").getValuesAs(JsonObject.class).stream()
+                .map(alert -> alert.getInt("serial")).collect(toList());
+    }
+
+    /**
+     * Groups the same way the resource did before grouping was done by the {@link SeriesResponseWriter}.
+     */
+    private static List<MappedMatch> groupBySeries(List<MappedMatch> matches) {
+        Map<String, MappedMatch> bySeries = new LinkedHashMap<>();
+        for (MappedMatch match : matches) {
+            for (SeriesData data : match.data) {
+                bySeries.computeIfAbsent(data.series, MappedMatch::new).data.add(data);
+            }
+        }
+        for (MappedMatch match : matches) {
+            for (AnnotationData annotation : match.annotations) {
+                MappedMatch group = bySeries.get(annotation.series);
+                if (group != null) {
+                    group.annotations.add(annotation);
+                }
+            }
+            for (WatchData watch : match.watches) {
+                MappedMatch group = bySeries.get(watch.series);
+                if (group != null) {
+                    group.watches.add(watch);
+                }
+            }
+            for (AlertData alert : match.alerts) {
+                MappedMatch group = bySeries.get(alert.series);
+                if (group != null) {
+                    group.alerts.add(alert);
+                }
+            }
+        }
+        return new ArrayList<>(bySeries.values());
+    }
+
+    private static JsonObject sortedBySeries(JsonObject response) {
+        List<JsonObject> matches = response.getJsonArray("matches").getValuesAs(JsonObject.class);
+        List<JsonObject> sorted = new ArrayList<>(matches);
+        sorted.sort(Comparator.comparing(match -> match.getString("series")));
+        JsonArrayBuilder array = Json.createArrayBuilder();
+        sorted.forEach(array::add);
+        return Json.createObjectBuilder(response).add("matches", array).build();
+    }
+
+    static String write(SeriesResponseWriter writer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    static JsonObject parse(String json) {
+        try (JsonReader reader = Json.createReader(new StringReader(json))) {
+            return reader.readObject();
+        }
+    }
+
+    static SeriesQuery query(String series, String widgetId) {
+        SeriesQuery query = new SeriesQuery(series);
+        query.widgetId = widgetId;
+        return query;
+    }
+
+    static SeriesDataset dataset(Series series, String instance, int seconds) {
+        SeriesDataset set = new EmptyDataset(instance, series, 60);
+        for (int i = 0; i < seconds; i++) {
+            set = set.add(START + i * 1000L, 10L + i % 7, true);
+        }
+        return set;
+    }
+
+    static SeriesAnnotation annotation(Series series, long time) {
+        return new SeriesAnnotation(time, series, "server", 42L, false, "Key", "Value", "Other", "x");
+    }
+
+    private static Watch watch(Series series) {
+        Circumstance red = new Circumstance(Level.RED, new Condition(Operator.GT, 100L).forLastTimes(3),
+                new Condition(Operator.LT, 50L).forLastMillis(5000L));
+        Circumstance amber = new Circumstance(Level.AMBER, new Condition(Operator.GE, 50L, 3000L, true))
+                .suppressedWhen(new Metric(new Series("ns:test Suppressing"), Unit.PERCENT),
+                        new Condition(Operator.EQ, 0L));
+        return new Watch("watch", new Metric(series, Unit.COUNT), true, red, amber, Circumstance.UNSPECIFIED);
+    }
+
+    private Alert ongoingAlert() {
+        Alert alert = new Alert(watch(series1));
+        alert.addTransition(Level.AMBER, dataset(series1, "server", 10),
+                singletonList(dataset(series2, "server", 10)));
+        alert.addTransition(Level.RED, dataset(series1, "server", 20), emptyList());
+        return alert;
+    }
+
+    private Alert stoppedAlert() {
+        Alert alert = new Alert(watch(series1));
+        alert.addTransition(Level.RED, dataset(series1, "other", 10), emptyList());
+        alert.acknowledge();
+        alert.stop(Level.GREEN, START + 30000L);
+        return alert;
+    }
+}
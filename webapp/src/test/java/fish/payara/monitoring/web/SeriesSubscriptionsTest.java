@@ -0,0 +1,435 @@
+package fish.payara.monitoring.web;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Predicate;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+import org.junit.After;
+import org.junit.Test;
+
+import fish.payara.monitoring.alert.Alert;
+import fish.payara.monitoring.alert.AlertService;
+import fish.payara.monitoring.alert.Watch;
+import fish.payara.monitoring.data.SeriesRepository;
+import fish.payara.monitoring.model.Series;
+import fish.payara.monitoring.model.SeriesAnnotation;
+import fish.payara.monitoring.model.SeriesDataset;
+import fish.payara.monitoring.web.ApiRequests.SeriesQuery;
+import fish.payara.monitoring.web.ApiRequests.SeriesRequest;
+
+/**
+ * Tests the ticks of {@link SeriesSubscriptions} that push updates to connected clients and remove idle subscriptions.
+ *
+ * @author Jan Bernitt
+ */
+public class SeriesSubscriptionsTest {
+
+    /**
+     * Records the events send to it.
+     */
+    static final class RecordingSink implements SseEventSink {
+
+        final List<OutboundSseEvent> events = new ArrayList<>();
+        boolean closed;
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            events.add(event);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        List<String> names() {
+            return events.stream().map(OutboundSseEvent::getName).collect(toList());
+        }
+    }
+
+    static final class Event implements OutboundSseEvent {
+
+        final String name;
+        final Object data;
+
+        Event(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        @Override
+        public String getId() {
+            return null;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getComment() {
+            return null;
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return RECONNECT_NOT_SET;
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return false;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return data.getClass();
+        }
+
+        @Override
+        public Type getGenericType() {
+            return data.getClass();
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return MediaType.TEXT_PLAIN_TYPE;
+        }
+
+        @Override
+        public Object getData() {
+            return data;
+        }
+    }
+
+    static final class EventBuilder implements OutboundSseEvent.Builder {
+
+        private String name;
+        private Object data;
+
+        @Override
+        public OutboundSseEvent.Builder id(String id) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder reconnectDelay(long milliseconds) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder mediaType(MediaType mediaType) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder comment(String comment) {
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public OutboundSseEvent.Builder data(Class type, Object data) {
+            return data(data);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public OutboundSseEvent.Builder data(GenericType type, Object data) {
+            return data(data);
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(Object data) {
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent build() {
+            return new Event(name, data);
+        }
+    }
+
+    static final Sse SSE = new Sse() {
+
+        @Override
+        public OutboundSseEvent.Builder newEventBuilder() {
+            return new EventBuilder();
+        }
+
+        @Override
+        public SseBroadcaster newBroadcaster() {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    static final class FixedSeriesRepository implements SeriesRepository {
+
+        final List<SeriesDataset> data;
+        long version;
+        long publishedSecond;
+
+        FixedSeriesRepository(List<SeriesDataset> data) {
+            this.data = data;
+        }
+
+        @Override
+        public List<SeriesDataset> selectSeries(Series series, String... instances) {
+            return data;
+        }
+
+        @Override
+        public Iterable<SeriesDataset> selectAllSeries() {
+            return data;
+        }
+
+        @Override
+        public Set<String> instances() {
+            return emptySet();
+        }
+
+        @Override
+        public List<SeriesAnnotation> selectAnnotations(Series series, String... instances) {
+            return emptyList();
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public long getPublishedSecond() {
+            return publishedSecond;
+        }
+    }
+
+    static final class NoAlertService implements AlertService {
+
+        AlertStatistics statistics = new AlertStatistics();
+
+        NoAlertService() {
+            statistics.ongoingAmberAlerts = new int[0];
+            statistics.ongoingRedAlerts = new int[0];
+        }
+
+        @Override
+        public AlertStatistics getAlertStatistics() {
+            return statistics;
+        }
+
+        @Override
+        public Collection<Alert> alertsMatching(Predicate<Alert> filter) {
+            return emptyList();
+        }
+
+        @Override
+        public Watch watchByName(String name) {
+            return null;
+        }
+
+        @Override
+        public void addWatch(Watch watch) {
+            // not needed
+        }
+
+        @Override
+        public void removeWatch(Watch watch) {
+            // not needed
+        }
+
+        @Override
+        public boolean toggleWatch(String name, boolean disabled) {
+            return false;
+        }
+
+        @Override
+        public Collection<Watch> watches() {
+            return emptyList();
+        }
+
+        @Override
+        public Collection<Watch> wachtesFor(Series series) {
+            return emptyList();
+        }
+    }
+
+    private static final int MAX_IDLE_TICKS = 10;
+    private static final int FULL_UPDATE_INTERVAL = 30;
+
+    private final SeriesSubscriptions subscriptions = new SeriesSubscriptions(false);
+    private final FixedSeriesRepository dataRepository = new FixedSeriesRepository(
+            singletonList(SeriesResponseWriterTest.dataset(new Series("ns:test Metric"), "server", 10)));
+    private final NoAlertService alertService = new NoAlertService();
+
+    @After
+    public void shutdown() {
+        subscriptions.shutdown();
+    }
+
+    @Test
+    public void connectingClientsGetFullUpdateFollowedByDeltas() {
+        RecordingSink sink = connect(subscribe(request(0)));
+        ticks(3);
+        assertEquals(asList("full", "delta", "delta"), sink.names());
+        RecordingSink joining = connect(subscribe(request(0)));
+        ticks(2);
+        assertEquals(asList("full", "delta"), joining.names());
+        assertEquals(asList("full", "delta", "delta", "full", "delta"), sink.names());
+    }
+
+    @Test
+    public void deltaUpdatesOnlyContainWhatChangedSinceTheLastUpdate() {
+        RecordingSink sink = connect(subscribe(request(0)));
+        ticks(2);
+        String full = (String) sink.events.get(0).getData();
+        String delta = (String) sink.events.get(1).getData();
+        assertTrue(full.contains("\"points\":[" + SeriesResponseWriterTest.START));
+        assertTrue(delta.contains("\"points\":[]"));
+    }
+
+    @Test
+    public void updatesAreSendEveryIntervalTicks() {
+        RecordingSink sink = connect(subscribe(request(3)));
+        subscriptions.tick();
+        assertEquals(1, sink.events.size());
+        ticks(2);
+        assertEquals(1, sink.events.size());
+        subscriptions.tick();
+        assertEquals(asList("full", "delta"), sink.names());
+        ticks(3);
+        assertEquals(asList("full", "delta", "delta"), sink.names());
+    }
+
+    @Test
+    public void subscriptionsWithDifferentIntervalsAreDifferent() {
+        assertNotEquals(subscribe(request(1)), subscribe(request(2)));
+        assertEquals(subscribe(request(2)), subscribe(request(2)));
+        assertEquals(2, subscriptions.size());
+    }
+
+    @Test
+    public void fullUpdateIsSendPeriodically() {
+        RecordingSink sink = connect(subscribe(request(0)));
+        ticks(FULL_UPDATE_INTERVAL + 1);
+        List<String> names = sink.names();
+        assertEquals("full", names.get(0));
+        assertEquals(FULL_UPDATE_INTERVAL - 1, names.subList(1, FULL_UPDATE_INTERVAL).stream()
+                .filter("delta"::equals).count());
+        assertEquals("full", names.get(FULL_UPDATE_INTERVAL));
+    }
+
+    @Test
+    public void fullUpdateIsSendAfterAlertsChanged() {
+        RecordingSink sink = connect(subscribe(request(0)));
+        ticks(2);
+        alertService.statistics.changeCount++;
+        ticks(3);
+        assertEquals(asList("full", "delta", "delta", "full", "delta"), sink.names());
+    }
+
+    @Test
+    public void idleSubscriptionsAreRemoved() {
+        String id = subscribe(request(0));
+        ticks(MAX_IDLE_TICKS);
+        assertEquals(1, subscriptions.size());
+        subscriptions.tick();
+        assertEquals(0, subscriptions.size());
+        assertFalse(subscriptions.connect(id, new RecordingSink(), SSE));
+    }
+
+    @Test
+    public void subscriptionsWithOnlyClosedClientsAreRemoved() {
+        RecordingSink sink = connect(subscribe(request(0)));
+        subscriptions.tick();
+        sink.close();
+        ticks(MAX_IDLE_TICKS);
+        assertEquals(1, subscriptions.size());
+        subscriptions.tick();
+        assertEquals(0, subscriptions.size());
+        assertEquals(1, sink.events.size());
+    }
+
+    @Test
+    public void subscribingAgainResetsIdleTicks() {
+        String id = subscribe(request(0));
+        ticks(MAX_IDLE_TICKS);
+        assertEquals(id, subscribe(request(0)));
+        ticks(MAX_IDLE_TICKS);
+        assertEquals(1, subscriptions.size());
+        RecordingSink sink = connect(id);
+        subscriptions.tick();
+        assertEquals(asList("full"), sink.names());
+    }
+
+    @Test
+    public void shutdownClosesConnectedAndPendingClients() {
+        RecordingSink connected = connect(subscribe(request(0)));
+        subscriptions.tick();
+        RecordingSink pending = connect(subscribe(request(0)));
+        subscriptions.shutdown();
+        assertTrue(connected.isClosed());
+        assertTrue(pending.isClosed());
+    }
+
+    private static SeriesRequest request(int interval) {
+        SeriesQuery query = new SeriesQuery("ns:test Metric");
+        query.widgetId = "widget";
+        query.truncate = new ApiRequests.DataType[0];
+        SeriesRequest request = new SeriesRequest(query);
+        request.interval = interval;
+        return request;
+    }
+
+    private String subscribe(SeriesRequest request) {
+        return subscriptions.subscribe(request, dataRepository, alertService);
+    }
+
+    private RecordingSink connect(String id) {
+        RecordingSink sink = new RecordingSink();
+        assertTrue(subscriptions.connect(id, sink, SSE));
+        return sink;
+    }
+
+    private void ticks(int n) {
+        for (int i = 0; i < n; i++) {
+            subscriptions.tick();
+        }
+    }
+}